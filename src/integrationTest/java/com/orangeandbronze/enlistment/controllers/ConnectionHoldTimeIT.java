@@ -0,0 +1,119 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import io.micrometer.core.instrument.*;
+import org.junit.jupiter.api.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.autoconfigure.web.servlet.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.mock.web.*;
+import org.springframework.test.annotation.*;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.*;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.*;
+
+import java.time.*;
+import java.util.concurrent.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Benchmarks how long each enlistment request holds a pooled connection, from HikariCP's
+ * {@code hikaricp.connections.usage} timer. Run against the previous commit for the "before" numbers; there, every
+ * request to the page held a connection for the whole handler & with open-session-in-view for the rendering too.
+ */
+@Testcontainers
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+@SpringBootTest
+class ConnectionHoldTimeIT {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionHoldTimeIT.class);
+
+    private static final int REQUESTS = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final static String TEST = "TEST";
+
+    @Container
+    private final PostgreSQLContainer container =
+            new PostgreSQLContainer("postgres:14")
+                    .withDatabaseName(TEST)
+                    .withUsername(TEST)
+                    .withPassword(TEST);
+
+    @DynamicPropertySource
+    private static void properties(DynamicPropertyRegistry registry){
+        registry.add("spring.datasource.url", () -> "jdbc:tc:postgresql:14:///" + TEST);
+        registry.add("spring.datasource.password", () -> TEST);
+        registry.add("spring.datasource.username", () -> TEST);
+        registry.add("enlistment.rate-limit.form.burst", () -> REQUESTS * 4);
+    }
+
+    @Test
+    void connection_hold_time_per_request() throws Exception {
+        // Given a student & a section in the DB, and the student logged in
+        jdbcTemplate.update("INSERT INTO student (student_number, firstname, lastname) VALUES (?, ?, ?)",
+                DEFAULT_STUDENT_NUMBER, "firstname", "lastname");
+        jdbcTemplate.update("INSERT INTO room (name, capacity) VALUES (?,?)", "Room101", REQUESTS);
+        jdbcTemplate.update("INSERT INTO subject (subject_id) VALUES (?)", DEFAULT_SUBJECT_ID);
+        jdbcTemplate.update("""
+                INSERT INTO section (section_id, number_of_students, days, start_time,
+                end_time, room_name, subject_subject_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """, DEFAULT_SECTION_ID, 0, Days.MTH.ordinal(), LocalTime.of(9, 0), LocalTime.of(10, 0),
+                "Room101", DEFAULT_SUBJECT_ID);
+        MockHttpSession session = new MockHttpSession();
+        mockMvc.perform(get("/enlist").session(session).param("studentNumber", String.valueOf(DEFAULT_STUDENT_NUMBER)));
+        // When the page is shown, and the student enlists & cancels, repeatedly
+        Usage page = measure(() -> mockMvc.perform(get("/enlist").session(session)));
+        Usage enlistAndCancel = measure(() -> {
+            mockMvc.perform(post("/enlist").session(session).param("sectionId", DEFAULT_SECTION_ID)
+                    .param("userAction", UserAction.ENLIST.name()));
+            return mockMvc.perform(post("/enlist").session(session).param("sectionId", DEFAULT_SECTION_ID)
+                    .param("userAction", UserAction.CANCEL.name()));
+        });
+        log.info("GET /enlist: {}; POST /enlist (enlist + cancel): {}", page, enlistAndCancel);
+        // Then the page doesn't need a connection (give or take scheduled jobs), and each enlist & cancel needs just
+        // the one for its transaction
+        assertAll(
+                () -> assertTrue(page.checkouts() < REQUESTS / 10, page::toString),
+                () -> assertEquals(2.0 * REQUESTS, enlistAndCancel.checkouts(), REQUESTS / 10.0)
+        );
+    }
+
+    private Usage measure(Callable<?> request) throws Exception {
+        Timer usage = meterRegistry.get("hikaricp.connections.usage").timer();
+        long checkouts = usage.count();
+        double held = usage.totalTime(TimeUnit.MICROSECONDS);
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            request.call();
+        }
+        return new Usage(usage.count() - checkouts, usage.totalTime(TimeUnit.MICROSECONDS) - held,
+                Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private record Usage(long checkouts, double heldMicros, Duration elapsed) {
+
+        @Override
+        public String toString() {
+            return String.format("%.2f checkouts & %.1f µs held per request, %d µs per request overall",
+                    (double) checkouts / REQUESTS, heldMicros / REQUESTS, elapsed.toNanos() / 1000 / REQUESTS);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import org.hibernate.resource.jdbc.spi.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.autoconfigure.web.servlet.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.test.annotation.*;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.*;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.orangeandbronze.enlistment.controllers.UserAction.*;
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/** The SQL Hibernate sends for one enlist or cancel, as seen by a statement inspector. */
+@Testcontainers
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+@SpringBootTest
+class EnlistStatementCountIT {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private final static String TEST = "TEST";
+
+    @Container
+    private final PostgreSQLContainer container =
+            new PostgreSQLContainer("postgres:14")
+                    .withDatabaseName(TEST)
+                    .withUsername(TEST)
+                    .withPassword(TEST);
+
+    @DynamicPropertySource
+    private static void properties(DynamicPropertyRegistry registry){
+        registry.add("spring.datasource.url", () -> "jdbc:tc:postgresql:14:///" + TEST);
+        registry.add("spring.datasource.password", () -> TEST);
+        registry.add("spring.datasource.username", () -> TEST);
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                RecordingStatementInspector.class::getName);
+    }
+
+    @Test
+    void enlist_and_cancel_each_write_one_join_row_and_one_counter_update() throws Exception {
+        // Given a student who has taken a subject, and a section in the DB
+        jdbcTemplate.update("INSERT INTO student (student_number, firstname, lastname) VALUES (?, ?, ?)",
+                DEFAULT_STUDENT_NUMBER, "firstname", "lastname");
+        jdbcTemplate.update("INSERT INTO room (name, capacity) VALUES (?,?)", "Room101", 10);
+        jdbcTemplate.update("INSERT INTO subject (subject_id) VALUES (?)", DEFAULT_SUBJECT_ID);
+        jdbcTemplate.update("INSERT INTO subject (subject_id) VALUES (?)", "TAKEN");
+        jdbcTemplate.update("INSERT INTO student_subjects_taken (student_student_number, subjects_taken_subject_id) " +
+                "VALUES (?, ?)", DEFAULT_STUDENT_NUMBER, "TAKEN");
+        jdbcTemplate.update("""
+                INSERT INTO section (section_id, number_of_students, days, start_time,
+                end_time, room_name, subject_subject_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """, DEFAULT_SECTION_ID, 0, Days.MTH.ordinal(), LocalTime.of(9, 0), LocalTime.of(10, 0),
+                "Room101", DEFAULT_SUBJECT_ID);
+        Student student = studentRepository.findById(DEFAULT_STUDENT_NUMBER).orElseThrow();
+        // When the student enlists, then cancels
+        List<String> enlist = statementsOf(ENLIST, student);
+        List<String> cancel = statementsOf(CANCEL, student);
+        // Then each writes exactly one join row and one version-checked counter update, and nothing to the student
+        assertAll(
+                () -> assertEquals(List.of("insert into student_sections", "update section"), writes(enlist),
+                        enlist::toString),
+                () -> assertEquals(List.of("delete from student_sections", "update section"), writes(cancel),
+                        cancel::toString),
+                () -> assertTrue(enlist.stream().filter(sql -> sql.startsWith("update section"))
+                        .noneMatch(sql -> sql.contains("room_name")), enlist::toString),
+                () -> assertEquals(2, jdbcTemplate.queryForObject(
+                        "SELECT version FROM section WHERE section_id = ?", Integer.class, DEFAULT_SECTION_ID))
+        );
+    }
+
+    private List<String> statementsOf(UserAction userAction, Student student) throws Exception {
+        RecordingStatementInspector.STATEMENTS.clear();
+        mockMvc.perform(post("/enlist").sessionAttr("student", student)
+                .param("sectionId", DEFAULT_SECTION_ID).param("userAction", userAction.name()));
+        return List.copyOf(RecordingStatementInspector.STATEMENTS);
+    }
+
+    /** The DML statements, each cut down to its verb & table. */
+    private static List<String> writes(List<String> statements) {
+        return statements.stream().filter(sql -> !sql.startsWith("select"))
+                .map(sql -> String.join(" ", Arrays.asList(sql.split("\\s+")).subList(0, sql.startsWith("update") ? 2 : 3)))
+                .toList();
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.trim().toLowerCase(Locale.ROOT));
+            return sql;
+        }
+    }
+}
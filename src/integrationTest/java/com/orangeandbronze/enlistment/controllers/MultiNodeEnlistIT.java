@@ -0,0 +1,184 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.*;
+import com.orangeandbronze.enlistment.cluster.*;
+import com.orangeandbronze.enlistment.domain.*;
+import org.junit.jupiter.api.*;
+import org.springframework.boot.builder.*;
+import org.springframework.context.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.mock.web.*;
+import org.springframework.test.web.servlet.*;
+import org.springframework.test.web.servlet.setup.*;
+import org.springframework.web.context.*;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.*;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.orangeandbronze.enlistment.controllers.UserAction.*;
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Two app instances sharing one PostgreSQL container, with multi-node mode on.
+ */
+@Testcontainers
+class MultiNodeEnlistIT {
+
+    private final static String TEST = "TEST";
+
+    @Container
+    private static final PostgreSQLContainer<?> container =
+            new PostgreSQLContainer<>("postgres:14")
+                    .withDatabaseName(TEST)
+                    .withUsername(TEST)
+                    .withPassword(TEST);
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    private static ConfigurableApplicationContext startNode(String nodeId, boolean createsSchema) {
+        return new SpringApplicationBuilder(EnlistmentMvpApplication.class).properties(
+                "server.port=0",
+                "spring.devtools.restart.enabled=false",
+                "spring.datasource.url=" + container.getJdbcUrl(),
+                "spring.datasource.username=" + TEST,
+                "spring.datasource.password=" + TEST,
+                "spring.jpa.hibernate.ddl-auto=" + (createsSchema ? "create-drop" : "none"),
+                "enlistment.multi-node.enabled=true",
+                "enlistment.multi-node.node-id=" + nodeId
+        ).run();
+    }
+
+    @BeforeEach
+    void startNodes() {
+        nodeA = startNode("A", true);
+        nodeB = startNode("B", false);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodeB.close();
+        nodeA.close(); // drops the schema
+    }
+
+    private final static int FIRST_STUDENT_NO = 11;
+    private final static int NUMBER_OF_STUDENTS = 6;
+
+    private void insertStudentsAndDefaultSection(int capacity) {
+        JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+        for (int i = FIRST_STUDENT_NO; i < FIRST_STUDENT_NO + NUMBER_OF_STUDENTS; i++) {
+            jdbcTemplate.update("INSERT INTO student(student_number, firstname, lastname) VALUES (?, ?, ?)",
+                    i, "firstname", "lastname");
+        }
+        jdbcTemplate.update("INSERT INTO room (name, capacity) VALUES (?, ?)", "roomName", capacity);
+        jdbcTemplate.update("INSERT INTO subject (subject_id) VALUES (?)", DEFAULT_SUBJECT_ID);
+        jdbcTemplate.update(
+                "INSERT INTO section (section_id, number_of_students, days, start_time, end_time, room_name, subject_subject_id, version)" +
+                        " VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                DEFAULT_SECTION_ID, 0, Days.MTH.ordinal(), LocalTime.of(9, 0), LocalTime.of(10, 0), "roomName", DEFAULT_SUBJECT_ID, 0);
+    }
+
+    @Test
+    void enlist_concurrently_through_two_nodes_beyond_capacity() throws Exception {
+        // Given a section w/ capacity 1 and several students, half of them served by each node
+        final int capacity = 1;
+        insertStudentsAndDefaultSection(capacity);
+        StudentRepository studentRepository = nodeA.getBean(StudentRepository.class);
+        MockMvc mockMvcA = MockMvcBuilders.webAppContextSetup((WebApplicationContext) nodeA).build();
+        MockMvc mockMvcB = MockMvcBuilders.webAppContextSetup((WebApplicationContext) nodeB).build();
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_STUDENTS);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = FIRST_STUDENT_NO; i < FIRST_STUDENT_NO + NUMBER_OF_STUDENTS; i++) {
+            Student student = studentRepository.findById(i).orElseThrow();
+            MockMvc mockMvc = i % 2 == 0 ? mockMvcA : mockMvcB;
+            results.add(executor.submit(() -> {
+                latch.await();
+                return mockMvc.perform(post("/enlist").sessionAttr("student", student)
+                        .param("sectionId", DEFAULT_SECTION_ID).param("userAction", ENLIST.name()));
+            }));
+        }
+        // When they all enlist at the same time
+        latch.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        // Then only one student should be enlisted, in both the join table and the counter
+        JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+        assertAll(
+                () -> assertEquals(capacity, jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM student_sections WHERE sections_section_id = ?", Integer.class, DEFAULT_SECTION_ID)),
+                () -> assertEquals(capacity, jdbcTemplate.queryForObject(
+                        "SELECT number_of_students FROM section WHERE section_id = ?", Integer.class, DEFAULT_SECTION_ID))
+        );
+    }
+
+    @Test
+    void enlist_on_one_node_notifies_the_other() throws Exception {
+        // Given node B listening for seat & section changes
+        insertStudentsAndDefaultSection(NUMBER_OF_STUDENTS);
+        BlockingQueue<SeatsChangedEvent> received = new LinkedBlockingQueue<>();
+        nodeB.addApplicationListener((ApplicationListener<PayloadApplicationEvent<SeatsChangedEvent>>)
+                event -> received.add(event.getPayload()));
+        BlockingQueue<SectionChangedEvent> catalogChanges = new LinkedBlockingQueue<>();
+        nodeB.addApplicationListener((ApplicationListener<PayloadApplicationEvent<SectionChangedEvent>>)
+                event -> catalogChanges.add(event.getPayload()));
+        Student student = nodeA.getBean(StudentRepository.class).findById(FIRST_STUDENT_NO).orElseThrow();
+        // When a student enlists through node A
+        MockMvcBuilders.webAppContextSetup((WebApplicationContext) nodeA).build()
+                .perform(post("/enlist").sessionAttr("student", student)
+                        .param("sectionId", DEFAULT_SECTION_ID).param("userAction", ENLIST.name()));
+        // Then node B hears about it as a seat change, w/ nothing for its catalog caches to refresh
+        SeatsChangedEvent event = received.poll(10, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertAll(
+                () -> assertEquals(DEFAULT_SECTION_ID, event.sectionId()),
+                () -> assertEquals("A", event.originNodeId()),
+                () -> assertFalse(event.local()),
+                () -> assertTrue(catalogChanges.isEmpty())
+        );
+    }
+
+    @Test
+    void enlist_on_one_node_shows_in_the_students_reads_on_the_other() throws Exception {
+        // Given a student logged in through node B, w/ the section in both nodes' catalogs
+        insertStudentsAndDefaultSection(NUMBER_OF_STUDENTS);
+        nodeA.getBean(CacheWarmup.class).warmUp();
+        nodeB.getBean(CacheWarmup.class).warmUp();
+        MockMvc mockMvcB = MockMvcBuilders.webAppContextSetup((WebApplicationContext) nodeB).build();
+        MockHttpSession sessionB = new MockHttpSession();
+        mockMvcB.perform(post("/api/session").session(sessionB).param("studentNumber", String.valueOf(FIRST_STUDENT_NO)));
+        String schedulePath = "/api/students/" + FIRST_STUDENT_NO + "/sections";
+        String availablePath = "/api/students/" + FIRST_STUDENT_NO + "/available-sections";
+        String section = "\"sectionId\":\"" + DEFAULT_SECTION_ID + "\"";
+        boolean availableBefore = mockMvcB.perform(get(availablePath).session(sessionB)).andReturn()
+                .getResponse().getContentAsString().contains(section);
+        // When the student enlists through node A
+        Student student = nodeA.getBean(StudentRepository.class).findById(FIRST_STUDENT_NO).orElseThrow();
+        MockMvcBuilders.webAppContextSetup((WebApplicationContext) nodeA).build()
+                .perform(post("/enlist").sessionAttr("student", student)
+                        .param("sectionId", DEFAULT_SECTION_ID).param("userAction", ENLIST.name()));
+        // Then node B's schedule for the student soon has the section, and it's no longer offered as available
+        String schedule = "";
+        for (long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+             !schedule.contains(section) && System.nanoTime() < deadline; Thread.sleep(100)) {
+            schedule = mockMvcB.perform(get(schedulePath).session(sessionB)).andReturn()
+                    .getResponse().getContentAsString();
+        }
+        String available = mockMvcB.perform(get(availablePath).session(sessionB)).andReturn()
+                .getResponse().getContentAsString();
+        String finalSchedule = schedule;
+        assertAll(
+                () -> assertTrue(availableBefore),
+                () -> assertTrue(finalSchedule.contains(section), finalSchedule),
+                () -> assertFalse(available.contains(section), available)
+        );
+    }
+}
@@ -0,0 +1,171 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import com.orangeandbronze.enlistment.domain.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.autoconfigure.web.servlet.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.mock.web.*;
+import org.springframework.test.annotation.*;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+import org.testcontainers.containers.*;
+import org.testcontainers.containers.wait.strategy.*;
+import org.testcontainers.junit.jupiter.*;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.sql.*;
+import java.time.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * A primary & a hot standby streaming from it, w/ the app reading from the standby. A read runs on the standby iff
+ * {@code pg_is_in_recovery()} is true in it.
+ */
+@Testcontainers
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+@SpringBootTest
+class ReplicaRoutingIT {
+
+    private final static String TEST = "TEST";
+    private final static String SUPERUSER_PASSWORD = "postgres";
+
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    private static final GenericContainer<?> primary = new GenericContainer<>("bitnami/postgresql:14")
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withExposedPorts(5432)
+            .withEnv("POSTGRESQL_REPLICATION_MODE", "master")
+            .withEnv("POSTGRESQL_REPLICATION_USER", "repl")
+            .withEnv("POSTGRESQL_REPLICATION_PASSWORD", "repl")
+            .withEnv("POSTGRESQL_POSTGRES_PASSWORD", SUPERUSER_PASSWORD)
+            .withEnv("POSTGRESQL_USERNAME", TEST)
+            .withEnv("POSTGRESQL_PASSWORD", TEST)
+            .withEnv("POSTGRESQL_DATABASE", TEST)
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*", 2));
+
+    @Container
+    private static final GenericContainer<?> replica = new GenericContainer<>("bitnami/postgresql:14")
+            .withNetwork(network)
+            .withExposedPorts(5432)
+            .dependsOn(primary)
+            .withEnv("POSTGRESQL_REPLICATION_MODE", "slave")
+            .withEnv("POSTGRESQL_MASTER_HOST", "primary")
+            .withEnv("POSTGRESQL_MASTER_PORT_NUMBER", "5432")
+            .withEnv("POSTGRESQL_REPLICATION_USER", "repl")
+            .withEnv("POSTGRESQL_REPLICATION_PASSWORD", "repl")
+            .withEnv("POSTGRESQL_PASSWORD", TEST)
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept read.only connections.*", 1));
+
+    private static String urlOf(GenericContainer<?> container) {
+        return "jdbc:postgresql://" + container.getHost() + ":" + container.getMappedPort(5432) + "/" + TEST;
+    }
+
+    @DynamicPropertySource
+    private static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> urlOf(primary));
+        registry.add("spring.datasource.password", () -> TEST);
+        registry.add("spring.datasource.username", () -> TEST);
+        registry.add("enlistment.replicas.urls", () -> urlOf(replica));
+        registry.add("enlistment.replicas.max-lag-bytes", () -> Long.MAX_VALUE / 2);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void awaitReplica() throws InterruptedException {
+        for (int i = 0; i < 100 && routing.lag().isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+        assertFalse(routing.lag().isEmpty(), "replica never polled");
+    }
+
+    @AfterEach
+    void resumeReplay() throws SQLException {
+        try (Connection connection = superuserConnectionTo(replica); Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_wal_replay_resume()");
+        }
+        ReplicaRoutingDataSource.clearRequiredLsn();
+    }
+
+    @Test
+    void read_only_transactions_on_replica_writes_on_primary() {
+        // When
+        boolean readOnly = inRecovery(true);
+        boolean readWrite = inRecovery(false);
+        boolean outsideTransaction = jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class);
+        // Then
+        assertAll(
+                () -> assertTrue(readOnly),
+                () -> assertFalse(readWrite),
+                () -> assertFalse(outsideTransaction)
+        );
+    }
+
+    @Test
+    void session_reads_go_to_primary_until_replica_replays_its_last_write() throws Exception {
+        // Given a student & section, and the student logged in
+        jdbcTemplate.update("INSERT INTO student (student_number, firstname, lastname) VALUES (?, ?, ?)",
+                DEFAULT_STUDENT_NUMBER, "firstname", "lastname");
+        jdbcTemplate.update("INSERT INTO room (name, capacity) VALUES (?,?)", "Room101", 10);
+        jdbcTemplate.update("INSERT INTO subject (subject_id) VALUES (?)", DEFAULT_SUBJECT_ID);
+        jdbcTemplate.update("""
+                INSERT INTO section (section_id, number_of_students, days, start_time,
+                end_time, room_name, subject_subject_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """, DEFAULT_SECTION_ID, 0, Days.MTH.ordinal(), LocalTime.of(9, 0), LocalTime.of(10, 0),
+                "Room101", DEFAULT_SUBJECT_ID);
+        MockHttpSession session = new MockHttpSession();
+        mockMvc.perform(get("/enlist").session(session).param("studentNumber", String.valueOf(DEFAULT_STUDENT_NUMBER)));
+        // When the replica stops replaying, and the student enlists
+        try (Connection connection = superuserConnectionTo(replica); Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_wal_replay_pause()");
+        }
+        MockHttpServletResponse enlisted = mockMvc.perform(post("/enlist").session(session)
+                .param("sectionId", DEFAULT_SECTION_ID).param("userAction", UserAction.ENLIST.name()))
+                .andReturn().getResponse();
+        Long lsn = Long.valueOf(enlisted.getCookie(ReadYourWritesFilter.LSN_COOKIE).getValue());
+        Thread.sleep(500); // a few polls
+        ReplicaRoutingDataSource.requireLsn(lsn);
+        boolean pinnedWhilePaused = inRecovery(true);
+        // Then the client's reads stay on the primary, while others still use the replica
+        ReplicaRoutingDataSource.clearRequiredLsn();
+        boolean unpinned = inRecovery(true);
+        assertAll(
+                () -> assertNotNull(lsn),
+                () -> assertFalse(pinnedWhilePaused),
+                () -> assertTrue(unpinned)
+        );
+    }
+
+    private boolean inRecovery(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class));
+    }
+
+    private static Connection superuserConnectionTo(GenericContainer<?> container) throws SQLException {
+        return DriverManager.getConnection(urlOf(container), "postgres", SUPERUSER_PASSWORD);
+    }
+}
@@ -0,0 +1,55 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.test.annotation.*;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.*;
+
+import javax.sql.*;
+import java.sql.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@SpringBootTest
+class CatalogCopyLoaderIT {
+
+    private final static String TEST = "TEST";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    private static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:tc:postgresql:14:///" + TEST);
+        registry.add("spring.datasource.password", () -> TEST);
+        registry.add("spring.datasource.username", () -> TEST);
+    }
+
+    @Test
+    void load_generated_catalog_with_copy() throws Exception {
+        // Given a generated catalog
+        CatalogGenerator.Catalog catalog = new CatalogGenerator(1).subjects(100).rooms(50).sections(500)
+                .students(1000).generate();
+        // When it is loaded with COPY
+        Map<String, Long> rowCounts;
+        try (Connection connection = dataSource.getConnection()) {
+            rowCounts = new CatalogCopyLoader(connection).load(catalog);
+        }
+        // Then the counters in the DB agree with the join table, like the in-memory catalog
+        assertAll(
+                () -> assertEquals(500L, rowCounts.get("section")),
+                () -> assertEquals(rowCounts.get("student_sections"), jdbcTemplate.queryForObject(
+                        "SELECT SUM(number_of_students) FROM section WHERE section_id LIKE 'SEC%'", Long.class))
+        );
+    }
+}
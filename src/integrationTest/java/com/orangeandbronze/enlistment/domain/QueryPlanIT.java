@@ -0,0 +1,271 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.test.annotation.*;
+import org.springframework.test.context.*;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.*;
+
+import java.sql.*;
+import java.util.*;
+import java.util.regex.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query plans for the repository methods against the Liquibase schema, as a regression check on its indexes &
+ * partitions. Sequential scans are turned off, so a plan shows which index the planner <em>can</em> use even on a
+ * table of a few rows; the plans are logged in text form for reference (see {@code docs/query-plans.md}). Parameters
+ * are inlined, so partitions are pruned when planning.
+ */
+@Testcontainers
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@SpringBootTest
+@ActiveProfiles("prod")
+class QueryPlanIT {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanIT.class);
+
+    private final static String TEST = "TEST";
+    private static final Pattern STUDENT_SECTIONS_PARTITION = Pattern.compile("\"Relation Name\": \"(student_sections_p\\d)\"");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    private static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:tc:postgresql:14:///" + TEST);
+        registry.add("spring.datasource.password", () -> TEST);
+        registry.add("spring.datasource.username", () -> TEST);
+    }
+
+    @BeforeEach
+    void insertAndAnalyze() {
+        jdbcTemplate.update("INSERT INTO subject (subject_id) VALUES ('Math1'), ('Math2')");
+        jdbcTemplate.update("INSERT INTO subject_prerequisites VALUES ('Math2', 'Math1')");
+        jdbcTemplate.update("INSERT INTO room (name, capacity) VALUES ('AS204', 10)");
+        jdbcTemplate.update("INSERT INTO faculty (faculty_number, firstname, lastname) VALUES (1, 'f', 'l')");
+        jdbcTemplate.update("""
+                INSERT INTO section (section_id, subject_subject_id, faculty_faculty_number, days, start_time, end_time,
+                room_name, number_of_students) VALUES
+                ('ABC', 'Math1', 1, 0, '08:30', '10:00', 'AS204', 1), ('DEF', 'Math2', 1, 0, '09:00', '10:30', 'AS204', 1)
+                """);
+        jdbcTemplate.update("INSERT INTO student (student_number, firstname, lastname) VALUES (1, 'f', 'l'), (2, 'f', 'l')");
+        jdbcTemplate.update("INSERT INTO student_sections VALUES (1, 'ABC'), (2, 'DEF')");
+        // many students per section, so a student's rows are a small part of the roster
+        jdbcTemplate.update("""
+                INSERT INTO student (student_number, firstname, lastname)
+                SELECT n, 'f', 'l' FROM generate_series(3, 500) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO student_sections SELECT n, s FROM generate_series(3, 500) n, (VALUES ('ABC'), ('DEF')) v (s)
+                """);
+        jdbcTemplate.update("INSERT INTO student_subjects_taken VALUES (2, 'Math1')");
+        jdbcTemplate.update("""
+                INSERT INTO lottery_entry (id, student_number, section_id, submitted_at)
+                VALUES (1, 1, 'DEF', now()), (2, 2, 'ABC', now())
+                """);
+        // a lottery section draws many entries & a student enters several lotteries, so a lookup by student &
+        // section is only narrowed down to one entry by the unique key
+        jdbcTemplate.update("""
+                INSERT INTO lottery_entry (id, student_number, section_id, submitted_at)
+                SELECT n, n, 'DEF', now() FROM generate_series(3, 500) n
+                UNION ALL
+                SELECT 1000 + 100 * n + l, n, 'L' || l, now() FROM generate_series(1, 500) n, generate_series(1, 20) l
+                """);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    /** What an enlist or cancel runs in its transaction, after the advisory lock on the section's seats. */
+    @Test
+    void enlist_path() {
+        assertAll(
+                () -> assertUses("SectionRepository.findById", "section_pkey", """
+                        SELECT * FROM section s WHERE s.section_id = 'ABC'
+                        """),
+                () -> assertPrunedToOnePartition("StudentRepository.findById", """
+                        SELECT * FROM student s
+                        LEFT JOIN student_sections ss ON ss.student_student_number = s.student_number
+                        WHERE s.student_number = 1
+                        """),
+                () -> assertUses("StudentRepository.findById", "student_sections_pkey", """
+                        SELECT * FROM student s
+                        LEFT JOIN student_sections ss ON ss.student_student_number = s.student_number
+                        WHERE s.student_number = 1
+                        """),
+                () -> assertUses("seat count on flush", "section_pkey", """
+                        UPDATE section SET number_of_students = 2, version = version + 1
+                        WHERE section_id = 'ABC' AND version = 0
+                        """),
+                () -> assertPrunedToOnePartition("cancel on flush", """
+                        DELETE FROM student_sections WHERE student_student_number = 1 AND sections_section_id = 'ABC'
+                        """),
+                // both columns are given, so the roster index finds the one row as exactly as the primary key
+                () -> assertUses("cancel on flush", "student_sections_roster_idx", """
+                        DELETE FROM student_sections WHERE student_student_number = 1 AND sections_section_id = 'ABC'
+                        """)
+        );
+    }
+
+    @Test
+    void student_repository() {
+        assertAll(
+                () -> assertPrunedToOnePartition("findById", """
+                        SELECT * FROM student s
+                        LEFT JOIN student_sections ss ON ss.student_student_number = s.student_number
+                        LEFT JOIN section sec ON sec.section_id = ss.sections_section_id
+                        WHERE s.student_number = 1
+                        """),
+                () -> assertUses("findById", "student_pkey", """
+                        SELECT * FROM student s WHERE s.student_number = 1
+                        """),
+                () -> assertUses("findByStudentNumberIn", "student_subjects_taken_pkey", """
+                        SELECT * FROM student s
+                        LEFT JOIN student_sections ss ON ss.student_student_number = s.student_number
+                        LEFT JOIN student_subjects_taken st ON st.student_student_number = s.student_number
+                        WHERE s.student_number IN (1, 2)
+                        """),
+                () -> assertUses("findAllStudentNumbers", "student_pkey", "SELECT student_number FROM student"),
+                // a full read of the join table, index-only off the roster index, which has the same two columns
+                () -> assertUses("findAllEnrollments", "student_sections_roster_idx", """
+                        SELECT ss.student_student_number, ss.sections_section_id FROM student_sections ss
+                        """)
+        );
+    }
+
+    @Test
+    void section_repository() {
+        assertAll(
+                () -> assertUses("countEnrollmentsAfter", "student_sections_roster_idx", """
+                        SELECT s.section_id, s.number_of_students, COUNT(ss.student_student_number)
+                        FROM section s LEFT JOIN student_sections ss ON ss.sections_section_id = s.section_id
+                        WHERE s.section_id > 'ABC'
+                        GROUP BY s.section_id, s.number_of_students
+                        ORDER BY s.section_id
+                        LIMIT 5000
+                        """),
+                () -> assertUses("findByFacultyNumber", "section_faculty_schedule_idx", """
+                        SELECT * FROM section s WHERE s.faculty_faculty_number = 1 ORDER BY s.days, s.start_time
+                        """),
+                () -> assertUses("findOverlappingFacultyAssignments", "section_faculty_schedule_idx", """
+                        SELECT a.faculty_faculty_number, a.section_id, b.section_id
+                        FROM section a JOIN section b ON b.faculty_faculty_number = a.faculty_faculty_number
+                                                     AND b.days = a.days
+                        WHERE a.section_id < b.section_id
+                          AND a.start_time < b.end_time AND b.start_time < a.end_time
+                        ORDER BY a.faculty_faculty_number, a.section_id, b.section_id
+                        """),
+                () -> assertUses("findAllSectionIds", "section_pkey", "SELECT section_id FROM section"),
+                () -> assertUses("findAllForCatalog", "subject_prerequisites_subject_idx", """
+                        SELECT * FROM section s JOIN subject sub ON sub.subject_id = s.subject_subject_id
+                        LEFT JOIN subject_prerequisites p ON p.subject_subject_id = sub.subject_id
+                        JOIN room r ON r.name = s.room_name
+                        LEFT JOIN faculty f ON f.faculty_number = s.faculty_faculty_number
+                        """),
+                () -> assertUses("findSectionIdsByTerm", "section_term_idx", """
+                        SELECT section_id FROM section WHERE term = '2025-2'
+                        """),
+                () -> assertUses("roster", "student_sections_roster_idx", """
+                        SELECT student_student_number FROM student_sections WHERE sections_section_id = 'ABC'
+                        """),
+                () -> assertUses("room schedule", "section_room_schedule_idx", """
+                        SELECT days, start_time, end_time FROM section WHERE room_name = 'AS204'
+                        """)
+        );
+    }
+
+    @Test
+    void lottery_entry_repository() {
+        assertAll(
+                () -> assertUses("existsByStudentNumberAndSectionId", "lottery_entry_student_section_uk", """
+                        SELECT id FROM lottery_entry WHERE student_number = 1 AND section_id = 'DEF' LIMIT 1
+                        """),
+                () -> assertUses("findByStudentNumberOrderBySubmittedAt", "lottery_entry_student_submitted_idx", """
+                        SELECT * FROM lottery_entry WHERE student_number = 1 ORDER BY submitted_at
+                        """),
+                () -> assertUses("findBySectionIdIn", "lottery_entry_section_idx", """
+                        SELECT * FROM lottery_entry WHERE section_id IN ('ABC', 'DEF')
+                        """),
+                () -> assertUses("withdraw", "lottery_entry_student_section_uk", """
+                        DELETE FROM lottery_entry WHERE student_number = 1 AND section_id = 'DEF'
+                        """),
+                () -> assertUses("countBySection", "lottery_entry_section_idx", """
+                        SELECT section_id, COUNT(id) FROM lottery_entry GROUP BY section_id
+                        """)
+        );
+    }
+
+    @Test
+    void archived_enrollment_repository() {
+        assertAll(
+                () -> assertUses("findByStudentNumberOrderByTermAscSectionIdAsc",
+                        "archived_enrollment_student_term_idx", """
+                        SELECT * FROM archived_enrollment WHERE student_number = 1 ORDER BY term, section_id
+                        """),
+                () -> assertUses("copyEnrollmentsOf", "section_term_idx", """
+                        SELECT s.term, ss.student_student_number, s.section_id
+                        FROM student_sections ss JOIN section s ON s.section_id = ss.sections_section_id
+                        WHERE s.term = '2025-2'
+                        """)
+        );
+    }
+
+    @Test
+    void other_repositories_by_primary_key() {
+        assertAll(
+                () -> assertUses("RoomRepository.findById", "room_pkey", "SELECT * FROM room WHERE name = 'AS204'"),
+                () -> assertUses("FacultyRepository.findById", "faculty_pkey",
+                        "SELECT * FROM faculty WHERE faculty_number = 1"),
+                () -> assertUses("SubjectRepository.findById", "subject_pkey",
+                        "SELECT * FROM subject WHERE subject_id = 'Math1'"),
+                () -> assertUses("AdminRepository.findById", "admin_pkey", "SELECT * FROM admin WHERE id = 1")
+        );
+    }
+
+    /** The plan uses the index, or for one on a partitioned table, the index on one of its partitions. */
+    private void assertUses(String method, String index, String sql) {
+        String plan = explain(method, sql);
+        List<String> indexes = new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT relid::regclass::text FROM pg_partition_tree(?::regclass)", String.class, index));
+        indexes.add(index);
+        assertTrue(indexes.stream().anyMatch(name -> plan.contains("\"Index Name\": \"" + name + "\"")),
+                () -> method + " doesn't use " + index + ":\n" + plan);
+    }
+
+    private void assertPrunedToOnePartition(String method, String sql) {
+        String plan = explain(method, sql);
+        Set<String> partitions = new HashSet<>();
+        STUDENT_SECTIONS_PARTITION.matcher(plan).results().forEach(match -> partitions.add(match.group(1)));
+        assertEquals(1, partitions.size(), () -> method + " reads " + partitions + ":\n" + plan);
+    }
+
+    /** The plan in JSON, to check; logged in text, to read. On one connection, since seq scans are turned off for it. */
+    private String explain(String method, String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                try {
+                    log.info("-- {}\n{}\n{}", method, sql.strip(), explain(statement, "EXPLAIN " + sql));
+                    return explain(statement, "EXPLAIN (FORMAT JSON) " + sql);
+                } finally {
+                    statement.execute("RESET enable_seqscan");
+                }
+            }
+        });
+    }
+
+    private static String explain(Statement statement, String explain) throws SQLException {
+        StringJoiner plan = new StringJoiner("\n");
+        try (ResultSet rs = statement.executeQuery(explain)) {
+            while (rs.next()) {
+                plan.add(rs.getString(1));
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.test.annotation.*;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.*;
+
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@SpringBootTest
+class TermArchiveIT {
+
+    private final static String TEST = "TEST";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TermArchive termArchive;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private SectionCatalog sectionCatalog;
+
+    @DynamicPropertySource
+    private static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:tc:postgresql:14:///" + TEST);
+        registry.add("spring.datasource.password", () -> TEST);
+        registry.add("spring.datasource.username", () -> TEST);
+        registry.add("enlistment.term.current", () -> "2026-1");
+    }
+
+    @Test
+    void closed_term_moves_to_archive_and_stays_in_subjects_taken() throws Exception {
+        // Given a student enlisted in a section of last term and one of this term
+        jdbcTemplate.update("INSERT INTO student (student_number, firstname, lastname) VALUES (?, ?, ?)",
+                DEFAULT_STUDENT_NUMBER, "firstname", "lastname");
+        jdbcTemplate.update("INSERT INTO room (name, capacity) VALUES (?,?)", "Room101", 10);
+        jdbcTemplate.update("INSERT INTO subject (subject_id) VALUES ('OLD'), ('NEW')");
+        String insertSection = """
+                INSERT INTO section (section_id, number_of_students, days, start_time, end_time, room_name,
+                subject_subject_id, term) VALUES (?, 1, ?, ?, ?, 'Room101', ?, ?)
+                """;
+        jdbcTemplate.update(insertSection, "LAST", Days.MTH.ordinal(), LocalTime.of(9, 0), LocalTime.of(10, 0),
+                "OLD", "2025-2");
+        jdbcTemplate.update(insertSection, "THIS", Days.TF.ordinal(), LocalTime.of(9, 0), LocalTime.of(10, 0),
+                "NEW", "2026-1");
+        jdbcTemplate.update("INSERT INTO room_sections (room_name, sections_section_id) VALUES ('Room101', 'LAST'), " +
+                "('Room101', 'THIS')");
+        jdbcTemplate.update("INSERT INTO student_sections (student_student_number, sections_section_id) VALUES " +
+                "(?, 'LAST'), (?, 'THIS')", DEFAULT_STUDENT_NUMBER, DEFAULT_STUDENT_NUMBER);
+        // When last term is archived
+        TermArchive.ArchiveReport report = termArchive.archive("2025-2");
+        // Then only this term is left in the working set, and last term is in the archive & subjects taken
+        Student student = studentRepository.findById(DEFAULT_STUDENT_NUMBER).orElseThrow();
+        Map<String, List<ArchivedEnrollment>> transcript = termArchive.transcriptOf(DEFAULT_STUDENT_NUMBER);
+        assertAll(
+                () -> assertEquals(new TermArchive.ArchiveReport("2025-2", 1, 1, report.export()), report),
+                () -> assertTrue(Files.size(Path.of(report.export())) > 0),
+                () -> assertEquals(List.of("THIS"), student.getSections().stream().map(Section::getSectionId).toList()),
+                () -> assertEquals(List.of("OLD"), jdbcTemplate.queryForList(
+                        "SELECT subjects_taken_subject_id FROM student_subjects_taken", String.class)),
+                () -> assertEquals(List.of("THIS"), jdbcTemplate.queryForList(
+                        "SELECT section_id FROM section", String.class)),
+                () -> assertEquals(Set.of("2025-2"), transcript.keySet()),
+                () -> assertEquals("OLD", transcript.get("2025-2").get(0).getSubjectId()),
+                () -> assertTrue(sectionCatalog.find("LAST").isEmpty())
+        );
+    }
+}
@@ -1,17 +1,32 @@
 package com.orangeandbronze.enlistment;
 
+import com.orangeandbronze.enlistment.domain.*;
 import org.springframework.boot.*;
 import org.springframework.boot.autoconfigure.*;
+import org.springframework.context.annotation.*;
 import org.springframework.retry.annotation.*;
+import org.springframework.scheduling.annotation.*;
 
 @SpringBootApplication
 @EnableRetry
+@EnableScheduling
 public class EnlistmentMvpApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(EnlistmentMvpApplication.class, args);
     }
 
+    /** Runs before readiness turns to ACCEPTING_TRAFFIC, so probes only pass once the caches are warm. */
+    @Bean
+    ApplicationRunner warmUpCaches(CacheWarmup cacheWarmup) {
+        return args -> cacheWarmup.warmUp();
+    }
+
+    /** Students are split into cohorts before the first one can log in. */
+    @Bean
+    ApplicationRunner planEnlistmentWindows(EnlistmentWindows windows) {
+        return args -> windows.plan();
+    }
 
 }
 
@@ -0,0 +1,129 @@
+package com.orangeandbronze.enlistment.cluster;
+
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.support.*;
+
+import java.util.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Seat-reservation protocol for running several app instances against one PostgreSQL database.
+ * <p>
+ * {@link #lockSeats(String)} takes a transaction-scoped advisory lock on the section, so that reading the seat
+ * count, checking capacity and writing it back happen one transaction at a time across all nodes instead of
+ * relying on the version check alone. {@link #publishSectionChanged(String)} & {@link #publishSeatsChanged(String, int)}
+ * queue a NOTIFY in the same transaction, which PostgreSQL only delivers to the other nodes'
+ * {@link SectionChangeListener} if it commits; seat changes go on a channel of their own, so the far more frequent
+ * enlistments don't make every node refresh its catalog caches. {@link #publishTermArchived(String)} has the other
+ * nodes rebuild theirs once a term's sections are archived.
+ * {@link #lockLottery()} & {@link #lockLotteryShared()} do the same for the lottery: one draw at a time, and no
+ * entry committing while a draw runs. {@link #lockWindows()} serializes planning & adjusting the enlistment windows.
+ * <p>
+ * All of these do nothing unless {@code enlistment.multi-node.enabled} is set.
+ */
+@Component
+public class ClusterCoordinator {
+
+    static final String CHANNEL = "enlistment_section_changed";
+    static final String SEATS_CHANNEL = "enlistment_seats_changed";
+    static final String TERM_CHANNEL = "enlistment_term_archived";
+    static final char PAYLOAD_SEPARATOR = '|';
+
+    /** First key of the two-key advisory lock, so seat locks don't collide with other advisory lock users. */
+    private static final int SEAT_LOCK_NAMESPACE = 0x5EA7;
+    private static final int LOTTERY_LOCK_NAMESPACE = 0x1077;
+    private static final int WINDOWS_LOCK_NAMESPACE = 0x3170;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String nodeId;
+
+    public ClusterCoordinator(JdbcTemplate jdbcTemplate,
+                              @Value("${enlistment.multi-node.enabled:false}") boolean enabled,
+                              @Value("${enlistment.multi-node.node-id:}") String nodeId) {
+        notNull(jdbcTemplate, "jdbcTemplate can't be null");
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        isTrue(this.nodeId.indexOf(PAYLOAD_SEPARATOR) < 0, "nodeId can't contain '" + PAYLOAD_SEPARATOR + "'");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /** Blocks until this transaction holds the section's seat lock; released on commit or rollback. */
+    public void lockSeats(String sectionId) {
+        notBlank(sectionId, "sectionId can't be blank");
+        if (!enabled) {
+            return;
+        }
+        requireTransaction();
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?, hashtext(?))", rs -> null,
+                SEAT_LOCK_NAMESPACE, sectionId);
+    }
+
+    /** Blocks until this transaction holds the lottery lock alone, e.g. to draw; released on commit or rollback. */
+    public void lockLottery() {
+        lockLottery("pg_advisory_xact_lock");
+    }
+
+    /** Blocks until this transaction shares the lottery lock, e.g. to enter; only a draw holds it off. */
+    public void lockLotteryShared() {
+        lockLottery("pg_advisory_xact_lock_shared");
+    }
+
+    private void lockLottery(String function) {
+        if (!enabled) {
+            return;
+        }
+        requireTransaction();
+        jdbcTemplate.query("SELECT " + function + "(?, 0)", rs -> null, LOTTERY_LOCK_NAMESPACE);
+    }
+
+    /** Blocks until this transaction holds the enlistment windows lock; released on commit or rollback. */
+    public void lockWindows() {
+        if (!enabled) {
+            return;
+        }
+        requireTransaction();
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?, 0)", rs -> null, WINDOWS_LOCK_NAMESPACE);
+    }
+
+    /** The section was created or its schedule, room or faculty changed. */
+    public void publishSectionChanged(String sectionId) {
+        publish(CHANNEL, sectionId);
+    }
+
+    /** Only the section's seat count changed, i.e. the student's enlist or cancel. */
+    public void publishSeatsChanged(String sectionId, int studentNumber) {
+        publish(SEATS_CHANNEL, sectionId + PAYLOAD_SEPARATOR + studentNumber);
+    }
+
+    /** The term's sections, enrollments & room assignments were moved to the archive. */
+    public void publishTermArchived(String term) {
+        publish(TERM_CHANNEL, term);
+    }
+
+    private void publish(String channel, String id) {
+        notBlank(id, "id can't be blank");
+        if (!enabled) {
+            return;
+        }
+        requireTransaction();
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, nodeId + PAYLOAD_SEPARATOR + id);
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("must be called inside a transaction");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.orangeandbronze.enlistment.cluster;
+
+import com.zaxxer.hikari.*;
+import io.micrometer.core.instrument.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.autoconfigure.condition.*;
+import org.springframework.boot.autoconfigure.jdbc.*;
+import org.springframework.boot.context.properties.*;
+import org.springframework.boot.jdbc.*;
+import org.springframework.context.annotation.*;
+import org.springframework.jdbc.datasource.*;
+
+import javax.sql.*;
+import java.util.*;
+
+/**
+ * Read replicas, when {@code enlistment.replicas.urls} lists any: the primary's pool is configured as usual from
+ * {@code spring.datasource.*}, and each replica gets a read-only pool of {@code enlistment.replicas.pool-size}
+ * connections w/ the same credentials. The application's {@code DataSource} then routes per transaction through
+ * {@link ReplicaRoutingDataSource}.
+ * <p>
+ * Replicas are expected to be PostgreSQL hot standbys streaming from the primary.
+ */
+@Configuration
+@ConditionalOnExpression("!'${enlistment.replicas.urls:}'.isBlank()")
+class ReplicaDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primary, DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${enlistment.replicas.urls}") List<String> urls,
+            @Value("${enlistment.replicas.pool-size:10}") int poolSize,
+            @Value("${enlistment.replicas.max-lag-bytes:16777216}") long maxLagBytes) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class).url(url.trim())
+                    .username(properties.determineUsername()).password(properties.determinePassword()).build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(poolSize);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, maxLagBytes);
+        replicas.keySet().forEach(name -> Gauge.builder("enlistment.replicas.lag", routing,
+                        r -> r.lag().getOrDefault(name, -1L))
+                .tag("replica", name).baseUnit("bytes").register(meterRegistry));
+        return routing;
+    }
+
+    /** The routing decision waits for the first statement, by which time the transaction is known to be read-only. */
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,151 @@
+package com.orangeandbronze.enlistment.cluster;
+
+import org.slf4j.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.jdbc.datasource.lookup.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.transaction.support.*;
+
+import javax.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Sends read-only transactions to a streaming replica and everything else to the primary. Meant to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so the connection is only chosen at the
+ * first statement, after the transaction has been marked read-only.
+ * <p>
+ * A replica is used only if it has replayed the WAL up to the position the current thread requires, see
+ * {@link #requireLsn(long)}, and isn't more than {@code max-lag-bytes} behind the primary; else the read goes to the
+ * primary. Replay positions are polled every {@code lag-check-interval}; a replica that can't be polled isn't used
+ * until it can. Among the replicas that qualify, reads are spread round-robin.
+ * <p>
+ * {@link #usePrimary()} sends every transaction on the current thread to the primary, read-only or not, e.g. for
+ * the whole of a request that enlists or cancels.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final long PRIMARY_ONLY = Long.MAX_VALUE;
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final ThreadLocal<Long> REQUIRED_LSN = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final long maxLagBytes;
+    private final Map<String, Long> replayed = new ConcurrentHashMap<>(); // absent while unreachable
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile long primaryLsn;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagBytes) {
+        notNull(primary, "primary can't be null");
+        notEmpty(replicas, "replicas can't be empty");
+        isTrue(!replicas.containsKey(PRIMARY), "a replica can't be named '%s'", PRIMARY);
+        isTrue(maxLagBytes >= 0, "maxLagBytes can't be negative, was: %d", maxLagBytes);
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagBytes = maxLagBytes;
+    }
+
+    /** The targets are set here rather than in the constructor, which shouldn't call overridable methods. */
+    @Override
+    public void afterPropertiesSet() {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        super.afterPropertiesSet();
+    }
+
+    /** Reads on this thread must see the primary as of {@code lsn}, until {@link #clearRequiredLsn()}. */
+    public static void requireLsn(long lsn) {
+        REQUIRED_LSN.set(lsn);
+    }
+
+    public static void usePrimary() {
+        requireLsn(PRIMARY_ONLY);
+    }
+
+    public static void clearRequiredLsn() {
+        REQUIRED_LSN.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        Long required = REQUIRED_LSN.get();
+        return route(required == null ? 0 : required);
+    }
+
+    /** A replica that has replayed up to {@code requiredLsn} and is within the allowed lag, else the primary. */
+    String route(long requiredLsn) {
+        if (requiredLsn == PRIMARY_ONLY) {
+            return PRIMARY;
+        }
+        long oldest = Math.max(requiredLsn, primaryLsn - maxLagBytes);
+        List<String> names = new ArrayList<>(replicas.keySet());
+        int start = Math.floorMod(next.getAndIncrement(), names.size());
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get((start + i) % names.size());
+            Long lsn = replayed.get(name);
+            if (lsn != null && lsn >= oldest) {
+                return name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /** The primary's current WAL position, in bytes; read after a commit, it's at or past that commit. */
+    public long primaryLsn() {
+        Long lsn = new JdbcTemplate(primary).queryForObject("SELECT pg_current_wal_lsn() - '0/0'", Long.class);
+        return lsn == null ? 0 : lsn;
+    }
+
+    @Scheduled(fixedDelayString = "${enlistment.replicas.lag-check-interval:PT0.2S}")
+    public void refreshReplayPositions() {
+        try {
+            primaryAt(primaryLsn());
+        } catch (RuntimeException e) {
+            log.warn("Can't read the primary's WAL position: {}", e.getMessage());
+        }
+        replicas.forEach((name, replica) -> {
+            try {
+                Long lsn = new JdbcTemplate(replica)
+                        .queryForObject("SELECT pg_last_wal_replay_lsn() - '0/0'", Long.class);
+                if (lsn == null) {
+                    throw new IllegalStateException("not in recovery");
+                }
+                replayed(name, lsn);
+            } catch (RuntimeException e) {
+                if (replayed.remove(name) != null) {
+                    log.warn("Not reading from replica {}: {}", name, e.getMessage());
+                }
+            }
+        });
+    }
+
+    void primaryAt(long lsn) {
+        primaryLsn = lsn;
+    }
+
+    void replayed(String replica, long lsn) {
+        isTrue(replicas.containsKey(replica), "no replica named %s", replica);
+        if (replayed.put(replica, lsn) == null) {
+            log.info("Reading from replica {}", replica);
+        }
+    }
+
+    /** Bytes each reachable replica is behind the primary, as of the last poll. */
+    public Map<String, Long> lag() {
+        Map<String, Long> lag = new TreeMap<>();
+        replayed.forEach((name, lsn) -> lag.put(name, Math.max(0, primaryLsn - lsn)));
+        return lag;
+    }
+}
@@ -0,0 +1,16 @@
+package com.orangeandbronze.enlistment.cluster;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Published on every node once the student's enlist or cancel in the section commits on any node. Only the seat
+ * count & the student's enrollment changed, so the section caches built from the catalog (schedules, rooms, faculty)
+ * have nothing to refresh; see {@link SectionChangedEvent} for that. Per-student caches should reload the student.
+ */
+public record SeatsChangedEvent(String sectionId, int studentNumber, String originNodeId, boolean local) {
+
+    public SeatsChangedEvent {
+        notBlank(sectionId, "sectionId can't be blank");
+        notBlank(originNodeId, "originNodeId can't be blank");
+    }
+}
@@ -0,0 +1,128 @@
+package com.orangeandbronze.enlistment.cluster;
+
+import org.postgresql.*;
+import org.slf4j.*;
+import org.springframework.boot.autoconfigure.jdbc.*;
+import org.springframework.context.*;
+import org.springframework.stereotype.*;
+
+import java.sql.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Holds a dedicated (unpooled) connection that LISTENs on the section-changed, seats-changed & term-archived channels
+ * and republishes every notification as a {@link SectionChangedEvent}, a {@link SeatsChangedEvent} or a
+ * {@link TermArchivedEvent}. Reconnects with a fixed back-off if the connection drops;
+ * notifications sent while disconnected are lost, so caches relying on this should also expire entries.
+ */
+@Component
+public class SectionChangeListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SectionChangeListener.class);
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_BACKOFF_MILLIS = 2000;
+
+    private final ClusterCoordinator coordinator;
+    private final DataSourceProperties dataSourceProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private volatile Thread listenerThread;
+
+    public SectionChangeListener(ClusterCoordinator coordinator, DataSourceProperties dataSourceProperties,
+                                 ApplicationEventPublisher eventPublisher) {
+        notNull(coordinator, "coordinator can't be null");
+        notNull(dataSourceProperties, "dataSourceProperties can't be null");
+        notNull(eventPublisher, "eventPublisher can't be null");
+        this.coordinator = coordinator;
+        this.dataSourceProperties = dataSourceProperties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void start() {
+        if (!coordinator.isEnabled() || listenerThread != null) {
+            return;
+        }
+        listenerThread = new Thread(this::listen, "section-change-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread thread = listenerThread;
+        listenerThread = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return listenerThread != null;
+    }
+
+    private void listen() {
+        while (listenerThread == Thread.currentThread()) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + ClusterCoordinator.CHANNEL);
+                    statement.execute("LISTEN " + ClusterCoordinator.SEATS_CHANNEL);
+                    statement.execute("LISTEN " + ClusterCoordinator.TERM_CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (listenerThread == Thread.currentThread()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getName(), notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (listenerThread != Thread.currentThread()) {
+                    return;
+                }
+                log.warn("Lost LISTEN connection, reconnecting in {} ms", RECONNECT_BACKOFF_MILLIS, e);
+                try {
+                    Thread.sleep(RECONNECT_BACKOFF_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    void dispatch(String channel, String payload) {
+        int separator = payload.indexOf(ClusterCoordinator.PAYLOAD_SEPARATOR);
+        if (separator <= 0 || separator == payload.length() - 1) {
+            log.warn("Ignoring malformed section change payload: {}", payload);
+            return;
+        }
+        String originNodeId = payload.substring(0, separator);
+        String id = payload.substring(separator + 1);
+        boolean local = originNodeId.equals(coordinator.getNodeId());
+        if (channel.equals(ClusterCoordinator.SEATS_CHANNEL)) {
+            dispatchSeatsChanged(id, originNodeId, local);
+            return;
+        }
+        eventPublisher.publishEvent(channel.equals(ClusterCoordinator.TERM_CHANNEL)
+                ? new TermArchivedEvent(id, originNodeId, local)
+                : new SectionChangedEvent(id, originNodeId, local));
+    }
+
+    /** The ID is {@code sectionId|studentNumber}; section IDs don't contain the separator, student numbers can't. */
+    private void dispatchSeatsChanged(String id, String originNodeId, boolean local) {
+        int separator = id.lastIndexOf(ClusterCoordinator.PAYLOAD_SEPARATOR);
+        SeatsChangedEvent event;
+        try {
+            event = new SeatsChangedEvent(id.substring(0, separator), Integer.parseInt(id.substring(separator + 1)),
+                    originNodeId, local);
+        } catch (RuntimeException malformed) { // no separator, no section ID or not a student number
+            log.warn("Ignoring malformed seats change payload: {}", id);
+            return;
+        }
+        eventPublisher.publishEvent(event);
+    }
+}
@@ -0,0 +1,16 @@
+package com.orangeandbronze.enlistment.cluster;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Published on every node once a transaction that created or changed a section in the catalog commits on any node.
+ * Node-local caches of section state should evict or refresh the section when they receive it. Enlist & cancel
+ * only publish a {@link SeatsChangedEvent}.
+ */
+public record SectionChangedEvent(String sectionId, String originNodeId, boolean local) {
+
+    public SectionChangedEvent {
+        notBlank(sectionId, "sectionId can't be blank");
+        notBlank(originNodeId, "originNodeId can't be blank");
+    }
+}
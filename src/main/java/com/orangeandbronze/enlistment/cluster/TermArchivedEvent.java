@@ -0,0 +1,15 @@
+package com.orangeandbronze.enlistment.cluster;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Published on every node once archiving a term commits on any node. Its sections, enrollments & room assignments
+ * are gone from the database, so the other nodes rebuild their caches from it.
+ */
+public record TermArchivedEvent(String term, String originNodeId, boolean local) {
+
+    public TermArchivedEvent {
+        notBlank(term, "term can't be blank");
+        notBlank(originNodeId, "originNodeId can't be blank");
+    }
+}
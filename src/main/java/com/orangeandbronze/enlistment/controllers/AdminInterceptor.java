@@ -0,0 +1,29 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import jakarta.servlet.http.*;
+import org.springframework.http.*;
+import org.springframework.stereotype.*;
+import org.springframework.web.servlet.*;
+
+/**
+ * Lets a request through to the admin endpoints (lottery, terms, timetable, windows, demand, faculty & rooms) only
+ * if its session has logged in as an admin on the sections page, which keeps the {@link Admin} as the {@code admin}
+ * session attribute; anything else is answered w/ 401 before the handler runs.
+ */
+@Component
+class AdminInterceptor implements HandlerInterceptor {
+
+    static final String ADMIN = "admin";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute(ADMIN) instanceof Admin) {
+            return true;
+        }
+        response.sendError(HttpStatus.UNAUTHORIZED.value(), "Log in as an admin first");
+        return false;
+    }
+}
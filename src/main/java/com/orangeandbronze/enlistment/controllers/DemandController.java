@@ -0,0 +1,34 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+/** Per-section demand rates & projected time to full, from the enlistment attempt log, as JSON for admins. */
+@RestController
+@RequestMapping("demand")
+class DemandController {
+
+    private final DemandAggregator demand;
+
+    DemandController(DemandAggregator demand) {
+        this.demand = demand;
+    }
+
+    @GetMapping
+    public List<DemandAggregator.DemandStats> hottest(@RequestParam(defaultValue = "50") int limit) {
+        return demand.hottest(limit);
+    }
+
+    @GetMapping("hot")
+    public List<DemandAggregator.DemandStats> hot(@RequestParam(defaultValue = "50") int limit) {
+        return demand.hottest(limit).stream().filter(DemandAggregator.DemandStats::hot).toList();
+    }
+
+    @GetMapping("{sectionId}")
+    public DemandAggregator.DemandStats section(@PathVariable String sectionId) {
+        return demand.stats(sectionId)
+                .orElseThrow(() -> new NoSuchElementException("no attempts on section " + sectionId));
+    }
+}
@@ -1,49 +1,29 @@
 package com.orangeandbronze.enlistment.controllers;
 
 import com.orangeandbronze.enlistment.domain.*;
-import jakarta.persistence.Entity;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import org.hibernate.Session;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
-import org.springframework.retry.annotation.*;
 import org.springframework.stereotype.*;
 import org.springframework.ui.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.*;
 import org.springframework.web.servlet.view.*;
 
-import jakarta.transaction.*;
-import java.util.*;
-import java.util.function.*;
-import java.util.stream.*;
+import static org.apache.commons.lang3.Validate.*;
 
-@Transactional
+/**
+ * The enlistment page. Enlist, cancel & hold go through {@link EnlistmentService}, which owns the transactions, so
+ * the views render from data loaded before the connection went back to the pool.
+ */
 @Controller
 @RequestMapping("enlist")
 @SessionAttributes("student")
-
 class EnlistController {
 
-//    private final SectionRepository sectionRepo;
-//    private final StudentRepository studentRepo;
-
-//
-//    EnlistController(SectionRepository sectionRepo, StudentRepository studentRepo) {
-//        // no null check for easier testing
-//        this.sectionRepo = sectionRepo;
-//        this.studentRepo = studentRepo;
-////        this.entityManager = entityManager;
-//    }
-    @Autowired
-    private SectionRepository sectionRepo;
+    private final EnlistmentService enlistment;
 
-    @Autowired
-    private StudentRepository studentRepo;
-
-    @PersistenceContext
-    private EntityManager entityManager;
+    EnlistController(EnlistmentService enlistment) {
+        notNull(enlistment, "enlistment can't be null");
+        this.enlistment = enlistment;
+    }
 
     @ModelAttribute
     public void initStudent(Model model, Integer studentNumber) {
@@ -51,17 +31,23 @@ class EnlistController {
         if (studentNumber == null && student == null) {
             throw new LoginException("both studentNumber & student are null");
         }
-        if (studentNumber != null && (studentNumber < 1 || studentNumber > 3)) {
-            throw new LoginException("studentNumber out of range, was: " + studentNumber);
-        }
         if (studentNumber != null) {
-            student = studentRepo.findById(studentNumber).orElseThrow(() -> new NoSuchElementException("No student for studentNumber " + studentNumber));
-            model.addAttribute(student);
+            checkStudentNumber(studentNumber);
+            model.addAttribute(enlistment.login(studentNumber));
+        } else {
+            model.addAttribute(enlistment.current(student));
         }
         model.addAttribute("isRetry", false);
 
     }
 
+    /** Turns away student numbers that can't log in, before anything is loaded for them. */
+    static void checkStudentNumber(int studentNumber) {
+        if (studentNumber < 1 || studentNumber > 3) {
+            throw new LoginException("studentNumber out of range, was: " + studentNumber);
+        }
+    }
+
     @ExceptionHandler(LoginException.class)
     public RedirectView home() {
         return new RedirectView("login.html");
@@ -70,55 +56,43 @@ class EnlistController {
 
     @GetMapping
     public String showSections(Model model, @ModelAttribute Student student) {
-        var enlistedSections = student.getSections();
-        model.addAttribute("enlistedSections", enlistedSections);
-        model.addAttribute("availableSections", sectionRepo.findAll().stream()
-                .filter(sec -> !enlistedSections.contains(sec)).collect(Collectors.toList()));
+        EnlistmentService.EnlistmentPage page = enlistment.page(student);
+        model.addAttribute("enlistedSections", page.enlisted());
+        model.addAttribute("availableSections", page.available());
+        model.addAttribute("conflictingSectionIds", page.conflictingSectionIds());
+        model.addAttribute("lotteryEntries", page.lotteryEntries());
         return "enlist";
     }
 
-    @Retryable(retryFor = ObjectOptimisticLockingFailureException.class, maxAttempts =  10)
+    /** The session's student is replaced w/ the committed one, rather than changed in place. */
     @PostMapping
-    public String enlistOrCancel(@RequestParam String sectionId,
-                                 @RequestParam UserAction userAction, @ModelAttribute Student student) {
-        Section section = sectionRepo.findById(sectionId).orElseThrow();
-        entityManager.unwrap(Session.class).update(student);
+    public String enlistOrCancel(Model model, @RequestParam String sectionId, @RequestParam UserAction userAction,
+                                 @RequestParam(required = false) String idempotencyKey,
+                                 @ModelAttribute Student student) {
         if (userAction == UserAction.ENLIST) {
-            student.enlist(section);
+            model.addAttribute(enlistment.enlist(student, sectionId, idempotencyKey));
         } else if (userAction == UserAction.CANCEL) {
-            student.cancel(section);
+            model.addAttribute(enlistment.cancel(student, sectionId, idempotencyKey));
         }
-        studentRepo.save(student);
-        sectionRepo.save(section);
         return "redirect:enlist";
     }
 
-
-    @ExceptionHandler(EnlistmentException.class)
-    public String handleException(RedirectAttributes redirectAttrs, EnlistmentException e) {
-        redirectAttrs.addFlashAttribute("enlistmentExceptionMessage", e.getMessage());
+    @PostMapping(params = "userAction=HOLD")
+    public String hold(@RequestParam String sectionId, @ModelAttribute Student student) {
+        enlistment.hold(student, sectionId);
         return "redirect:enlist";
     }
 
-    void setSectionRepo(SectionRepository sectionRepo){ this.sectionRepo = sectionRepo; }
-
-    void setStudentRepo(StudentRepository studentRepo){ this.studentRepo = studentRepo; }
-
-    void setEntityManager(EntityManager entityManager){ this.entityManager = entityManager; }
-}
-
-enum UserAction {
-    ENLIST(Student::enlist),
-    CANCEL(Student::cancel);
-
-    private final BiConsumer<Student, Section> action;
-
-    UserAction(BiConsumer<Student, Section> action) {
-        this.action = action;
+    /** Back to the login page, since the enlistment page would turn the student away again. */
+    @ExceptionHandler(EnlistmentWindowClosedException.class)
+    public String windowClosed(RedirectAttributes redirectAttrs, EnlistmentWindowClosedException e) {
+        redirectAttrs.addFlashAttribute("windowClosedMessage", e.getMessage());
+        return "redirect:login.html";
     }
 
-    void act(Student student, Section section) {
-        action.accept(student, section);
+    @ExceptionHandler(EnlistmentException.class)
+    public String handleException(RedirectAttributes redirectAttrs, EnlistmentException e) {
+        redirectAttrs.addFlashAttribute("enlistmentExceptionMessage", e.getMessage());
+        return "redirect:enlist";
     }
-
 }
@@ -0,0 +1,260 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import jakarta.servlet.http.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.*;
+import org.springframework.web.server.*;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * JSON API for enlistment alongside the Thymeleaf flow. Enlist & cancel go through {@link EnlistmentService}, like
+ * the enlistment page, so the same domain rules, retries & bookkeeping apply, but answer w/ the student's schedule
+ * instead of a redirect that costs another request and a full page render.
+ * <p>
+ * A client acts only as the student its session is logged in as, through {@code POST /api/session} or the login
+ * page, which check the same things; a student number in the path must be that student's. The session's student
+ * is replaced w/ the committed one after every change, as on the enlistment page, so requests never load the student.
+ * <p>
+ * Reads are served from the in-process caches and carry ETags, so an unchanged catalog or schedule is answered
+ * w/ 304 Not Modified. The catalog is the same for everyone and may be cached publicly, e.g. by a CDN.
+ */
+@RestController
+@RequestMapping("api")
+class EnlistmentApiController {
+
+    private static final CacheControl CATALOG_CACHE = CacheControl.maxAge(Duration.ofSeconds(30)).cachePublic();
+    private static final CacheControl STUDENT_CACHE = CacheControl.noCache().cachePrivate();
+    /** Shared w/ {@link EnlistController}'s {@code @SessionAttributes}. */
+    static final String STUDENT = "student";
+
+    private final EnlistmentService enlistment;
+    private final SectionRepository sectionRepo;
+    private final SectionCatalog sectionCatalog;
+    private final EnrollmentCache enrollmentCache;
+    private final ConflictMatrix conflictMatrix;
+    private volatile CatalogView catalogView = new CatalogView(List.of(), List.of(), "");
+
+    EnlistmentApiController(EnlistmentService enlistment, SectionRepository sectionRepo,
+                            SectionCatalog sectionCatalog, EnrollmentCache enrollmentCache,
+                            ConflictMatrix conflictMatrix) {
+        this.enlistment = enlistment;
+        this.sectionRepo = sectionRepo;
+        this.sectionCatalog = sectionCatalog;
+        this.enrollmentCache = enrollmentCache;
+        this.conflictMatrix = conflictMatrix;
+    }
+
+    /**
+     * Validated by catalog version & last-modified time, so a conditional GET is answered w/o building the body.
+     * {@link WebRequest#checkNotModified(String, long)} also sets both headers on a full response.
+     */
+    @GetMapping("sections")
+    public ResponseEntity<List<SectionView>> sections(WebRequest request) {
+        if (sectionCatalog.isLoaded()) {
+            if (request.checkNotModified(sectionCatalog.etag(), sectionCatalog.lastModified().toEpochMilli())) {
+                return null;
+            }
+            return ResponseEntity.ok().cacheControl(CATALOG_CACHE).body(catalogView().views());
+        }
+        CatalogView view = catalogView();
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE).eTag(view.etag()).body(view.views());
+    }
+
+    /**
+     * Logs the session in as the student, w/ the login page's checks, and answers w/ their schedule. The student
+     * number is a request parameter, like the login page's, so the rate limit can count logins per student.
+     */
+    @PostMapping("session")
+    public List<SectionView> login(@RequestParam int studentNumber, HttpServletRequest servletRequest) {
+        EnlistController.checkStudentNumber(studentNumber);
+        Student student = enlistment.login(studentNumber);
+        HttpSession session = servletRequest.getSession();
+        servletRequest.changeSessionId(); // a session id set before login isn't the logged-in one
+        session.setAttribute(STUDENT, student);
+        return viewsOf(student.getSections());
+    }
+
+    @GetMapping("students/{studentNumber}/sections")
+    public ResponseEntity<List<SectionView>> schedule(@PathVariable int studentNumber,
+                                                      HttpServletRequest servletRequest) {
+        List<SectionView> schedule = scheduleOf(loggedIn(servletRequest, studentNumber));
+        return ResponseEntity.ok().cacheControl(STUDENT_CACHE).eTag(etagOf(schedule)).body(schedule);
+    }
+
+    /** Sections the student isn't enlisted in, flagged if they conflict w/ the student's schedule. */
+    @GetMapping("students/{studentNumber}/available-sections")
+    public ResponseEntity<List<AvailableSection>> available(@PathVariable int studentNumber,
+                                                            HttpServletRequest servletRequest) {
+        List<String> enlisted = sectionIdsOf(loggedIn(servletRequest, studentNumber));
+        CatalogView catalog = catalogView();
+        Set<String> conflicting = conflictMatrix.conflictingWith(enlisted.stream()
+                .map(this::sectionOf).flatMap(Optional::stream).toList());
+        Set<String> enlistedIds = new HashSet<>(enlisted);
+        List<AvailableSection> available = new ArrayList<>(catalog.views().size());
+        for (SectionView section : catalog.views()) {
+            if (!enlistedIds.contains(section.sectionId())) {
+                available.add(new AvailableSection(section, conflicting.contains(section.sectionId())));
+            }
+        }
+        return ResponseEntity.ok().cacheControl(STUDENT_CACHE)
+                .eTag(catalog.etag() + "-" + etagOf(enlisted)).body(available);
+    }
+
+    @PostMapping("students/{studentNumber}/enlistments")
+    public ResponseEntity<List<SectionView>> enlist(
+            @PathVariable int studentNumber, @RequestBody EnlistRequest request,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletRequest servletRequest) {
+        Student student = loggedIn(servletRequest, studentNumber);
+        Student enlisted = enlistment.enlist(student, request.sectionId(), idempotencyKey);
+        servletRequest.getSession().setAttribute(STUDENT, enlisted);
+        return ResponseEntity.status(HttpStatus.CREATED).body(viewsOf(enlisted.getSections()));
+    }
+
+    @DeleteMapping("students/{studentNumber}/enlistments/{sectionId}")
+    public List<SectionView> cancel(@PathVariable int studentNumber, @PathVariable String sectionId,
+                                    @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                    HttpServletRequest servletRequest) {
+        Student cancelled = enlistment.cancel(loggedIn(servletRequest, studentNumber), sectionId, idempotencyKey);
+        servletRequest.getSession().setAttribute(STUDENT, cancelled);
+        return viewsOf(cancelled.getSections());
+    }
+
+    /** Enlists in each section in its own transaction, in order; a rejection doesn't stop the rest. */
+    @PostMapping("students/{studentNumber}/enlistments/batch")
+    public BatchResult enlistAll(@PathVariable int studentNumber, @RequestBody BatchEnlistRequest request,
+                                 HttpServletRequest servletRequest) {
+        Student student = loggedIn(servletRequest, studentNumber);
+        List<EnlistResult> results = new ArrayList<>(request.sectionIds().size());
+        for (String sectionId : request.sectionIds()) {
+            try {
+                student = enlistment.enlist(student, sectionId, null);
+                results.add(new EnlistResult(sectionId, true, null));
+            } catch (EnlistmentException e) {
+                results.add(new EnlistResult(sectionId, false, ApiError.of(e)));
+            } catch (NoSuchElementException e) {
+                results.add(new EnlistResult(sectionId, false,
+                        new ApiError("NoSuchSection", "no section " + sectionId)));
+            }
+        }
+        servletRequest.getSession().setAttribute(STUDENT, student);
+        return new BatchResult(results, viewsOf(student.getSections()));
+    }
+
+    /**
+     * The session's student, if the session is logged in as the student in the path; reloaded into the session if
+     * they hold a section that has since been archived.
+     *
+     * @throws ResponseStatusException 401 if the session isn't logged in, 403 if it's logged in as someone else
+     */
+    private Student loggedIn(HttpServletRequest request, int studentNumber) {
+        HttpSession session = request.getSession(false);
+        Object student = session == null ? null : session.getAttribute(STUDENT);
+        if (!(student instanceof Student loggedIn)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "log in through POST /api/session first");
+        }
+        if (loggedIn.getStudentNumber() != studentNumber) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "logged in as another student");
+        }
+        Student current = enlistment.current(loggedIn);
+        if (current != loggedIn) {
+            request.getSession().setAttribute(STUDENT, current);
+        }
+        return current;
+    }
+
+    @ExceptionHandler(EnlistmentException.class)
+    public ResponseEntity<ApiError> rejected(EnlistmentException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiError.of(e));
+    }
+
+    @ExceptionHandler(LoginException.class)
+    public ResponseEntity<ApiError> loginRejected(LoginException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ApiError("LoginRejected", e.getMessage()));
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<ApiError> notFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiError("NotFound", e.getMessage()));
+    }
+
+    /** Memoized per catalog snapshot, so the views & their ETag are only rebuilt when the catalog changes. */
+    private CatalogView catalogView() {
+        if (!sectionCatalog.isLoaded()) {
+            List<SectionView> views = viewsOf(sectionRepo.findAll());
+            return new CatalogView(List.of(), views, etagOf(views));
+        }
+        String etag = sectionCatalog.etag(); // read before the sections, so it's never newer than them
+        List<Section> sections = sectionCatalog.sections();
+        CatalogView view = catalogView;
+        if (view.sections() != sections) {
+            view = new CatalogView(sections, viewsOf(sections), etag);
+            catalogView = view;
+        }
+        return view;
+    }
+
+    /** From the enrollment cache when the student is in it, else from the session's copy. */
+    private List<String> sectionIdsOf(Student student) {
+        Optional<List<String>> cached = enrollmentCache.sectionIdsOf(student.getStudentNumber());
+        if (cached.isPresent()) {
+            return cached.get().stream().sorted().toList();
+        }
+        return student.getSections().stream().map(Section::getSectionId).sorted().toList();
+    }
+
+    private List<SectionView> scheduleOf(Student student) {
+        return sectionIdsOf(student).stream().map(this::sectionOf).flatMap(Optional::stream)
+                .map(SectionView::of).toList();
+    }
+
+    private Optional<Section> sectionOf(String sectionId) {
+        return sectionCatalog.isLoaded() ? sectionCatalog.find(sectionId) : sectionRepo.findById(sectionId);
+    }
+
+    private static List<SectionView> viewsOf(Collection<Section> sections) {
+        return sections.stream().map(SectionView::of).sorted(Comparator.comparing(SectionView::sectionId)).toList();
+    }
+
+    /** Unquoted; {@link ResponseEntity.HeadersBuilder#eTag} adds the quotes. */
+    private static String etagOf(List<?> items) {
+        return Integer.toHexString(items.size()) + "-" + Integer.toHexString(items.hashCode());
+    }
+
+    private record CatalogView(List<Section> sections, List<SectionView> views, String etag) {
+    }
+
+    public record SectionView(String sectionId, String subjectId, String schedule, String room) {
+
+        static SectionView of(Section section) {
+            return new SectionView(section.getSectionId(), section.getSubject().toString(),
+                    section.getSchedule().toString(), section.getRoom().getName());
+        }
+    }
+
+    public record AvailableSection(SectionView section, boolean conflicting) {
+    }
+
+    public record EnlistRequest(String sectionId) {
+    }
+
+    public record BatchEnlistRequest(List<String> sectionIds) {
+    }
+
+    public record EnlistResult(String sectionId, boolean enlisted, ApiError error) {
+    }
+
+    public record BatchResult(List<EnlistResult> results, List<SectionView> schedule) {
+    }
+
+    public record ApiError(String type, String message) {
+
+        static ApiError of(EnlistmentException e) {
+            return new ApiError(e.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+}
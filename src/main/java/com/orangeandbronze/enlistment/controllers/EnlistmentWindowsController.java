@@ -0,0 +1,40 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.*;
+import java.util.*;
+
+/** The enlistment windows of each cohort and the load they're projected to produce, as JSON for admins. */
+@RestController
+@RequestMapping("windows")
+class EnlistmentWindowsController {
+
+    private final EnlistmentWindows windows;
+
+    EnlistmentWindowsController(EnlistmentWindows windows) {
+        this.windows = windows;
+    }
+
+    @GetMapping
+    public List<EnlistmentWindows.Cohort> cohorts() {
+        return windows.cohorts();
+    }
+
+    /** E.g. before the term opens, to check the windows keep the load around the target. */
+    @GetMapping("load")
+    public List<EnlistmentWindows.LoadPoint> projectedLoad(@RequestParam(defaultValue = "PT5M") Duration step) {
+        return windows.projectedLoad(step);
+    }
+
+    @GetMapping("{studentNumber}")
+    public StudentWindow student(@PathVariable int studentNumber) {
+        return new StudentWindow(studentNumber, windows.isOpen(studentNumber),
+                windows.opensAt(studentNumber).orElse(null));
+    }
+
+    /** {@code opensAt} is null if there are no windows. */
+    public record StudentWindow(int studentNumber, boolean open, Instant opensAt) {
+    }
+}
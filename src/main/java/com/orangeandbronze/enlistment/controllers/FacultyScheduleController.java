@@ -0,0 +1,38 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+/** Read-only faculty timetable queries for admin views, as JSON. */
+@RestController
+@RequestMapping("faculty")
+class FacultyScheduleController {
+
+    private final FacultyScheduleIndex facultySchedules;
+
+    FacultyScheduleController(FacultyScheduleIndex facultySchedules) {
+        this.facultySchedules = facultySchedules;
+    }
+
+    @GetMapping("{facultyNumber}/timetable")
+    public FacultyScheduleIndex.Timetable timetable(@PathVariable int facultyNumber) {
+        return facultySchedules.timetable(facultyNumber);
+    }
+
+    @GetMapping("{facultyNumber}/free-slots")
+    public List<FacultyScheduleIndex.FreeSlot> freeSlots(@PathVariable int facultyNumber) {
+        return facultySchedules.freeSlots(facultyNumber);
+    }
+
+    @GetMapping("{facultyNumber}/load")
+    public FacultyScheduleIndex.FacultyLoad load(@PathVariable int facultyNumber) {
+        return facultySchedules.load(facultyNumber);
+    }
+
+    @GetMapping("overlaps")
+    public List<FacultyOverlap> overlaps() {
+        return facultySchedules.overlappingAssignments();
+    }
+}
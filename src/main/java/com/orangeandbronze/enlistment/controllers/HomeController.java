@@ -12,4 +12,10 @@ class HomeController {
     RedirectView home() {
         return new RedirectView("login.html");
     }
+
+    /** A template rather than a static page, so its image links get the fingerprinted, long-cached URLs. */
+    @GetMapping("login.html")
+    String login() {
+        return "login";
+    }
 }
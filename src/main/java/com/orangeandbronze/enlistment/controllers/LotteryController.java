@@ -0,0 +1,39 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.*;
+
+import java.time.*;
+import java.util.*;
+
+/** Entries per lottery section, and drawing the lottery ahead of {@code draw-at}, as JSON for admins. */
+@RestController
+@RequestMapping("lottery")
+class LotteryController {
+
+    private final LotteryAllocator lottery;
+
+    LotteryController(LotteryAllocator lottery) {
+        this.lottery = lottery;
+    }
+
+    @GetMapping
+    public LotteryStatus status() {
+        return new LotteryStatus(lottery.getSectionIds(), lottery.getDrawAt().orElse(null), lottery.isCollecting(),
+                lottery.entryCounts());
+    }
+
+    /** 409 if it had already been drawn, e.g. by another node. */
+    @PostMapping("draw")
+    public LotteryAllocator.DrawReport draw() {
+        return lottery.draw()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT, "lottery already drawn"));
+    }
+
+    /** {@code drawAt} is null if the lottery is only drawn by an admin. */
+    public record LotteryStatus(Set<String> sectionIds, Instant drawAt, boolean collecting,
+                                Map<String, Long> entries) {
+    }
+}
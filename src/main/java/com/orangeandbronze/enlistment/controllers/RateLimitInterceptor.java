@@ -0,0 +1,95 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import io.micrometer.core.instrument.*;
+import jakarta.servlet.http.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.http.*;
+import org.springframework.stereotype.*;
+import org.springframework.web.servlet.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Per-student limit on enlist & cancel submissions, so a few scripted clients can't take up the connection pool and
+ * the retry budget. Runs before the handler, so a throttled request never reaches {@code initStudent} or the
+ * database; answered w/ 429 Too Many Requests and a Retry-After. Form posts to {@code /enlist} and the JSON API's
+ * writes are limited separately, each w/ its own burst & rate. Throttled requests are counted as
+ * {@code enlistment.rate-limit.throttled{endpoint=...}}.
+ * <p>
+ * The student is the one the session is logged in as, whatever the request names, so a client can't spread its
+ * requests over other students' buckets. Only a login, before the session has a student, is counted against the
+ * student number it logs in as; login turns away numbers that aren't students' before the database. Requests w/o
+ * either aren't limited here, since they're rejected before the database anyway.
+ */
+@Component
+class RateLimitInterceptor implements HandlerInterceptor {
+
+    static final String FORM = "form";
+    static final String API = "api";
+
+    private final Map<String, TokenBucketLimiter> limiters;
+    private final Map<String, Counter> throttled;
+
+    @Autowired
+    RateLimitInterceptor(@Value("${enlistment.rate-limit.form.burst:10}") int formBurst,
+                         @Value("${enlistment.rate-limit.form.per-minute:30}") int formPerMinute,
+                         @Value("${enlistment.rate-limit.api.burst:20}") int apiBurst,
+                         @Value("${enlistment.rate-limit.api.per-minute:60}") int apiPerMinute,
+                         @Value("${enlistment.rate-limit.max-students:100000}") int maxStudents,
+                         MeterRegistry meterRegistry) {
+        this(Map.of(FORM, new TokenBucketLimiter(formBurst, formPerMinute, maxStudents),
+                API, new TokenBucketLimiter(apiBurst, apiPerMinute, maxStudents)), meterRegistry);
+    }
+
+    RateLimitInterceptor(Map<String, TokenBucketLimiter> limiters, MeterRegistry meterRegistry) {
+        this.limiters = limiters;
+        this.throttled = new HashMap<>();
+        limiters.forEach((endpoint, limiter) -> {
+            throttled.put(endpoint, meterRegistry.counter("enlistment.rate-limit.throttled", "endpoint", endpoint));
+            meterRegistry.gauge("enlistment.rate-limit.tracked", Tags.of("endpoint", endpoint), limiter,
+                    TokenBucketLimiter::size);
+        });
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        Integer studentNumber = studentNumberOf(request);
+        if (studentNumber == null) {
+            return true;
+        }
+        String endpoint = request.getRequestURI().startsWith(request.getContextPath() + "/api/") ? API : FORM;
+        long waitNanos = limiters.get(endpoint).tryAcquire(studentNumber);
+        if (waitNanos == 0) {
+            return true;
+        }
+        throttled.get(endpoint).increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1; // rounded up
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many requests, try again in a moment.");
+        return false;
+    }
+
+    private static Integer studentNumberOf(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute(EnlistmentApiController.STUDENT) instanceof Student student) {
+            return student.getStudentNumber();
+        }
+        String number = request.getParameter("studentNumber");
+        if (number == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(number);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import org.springframework.http.*;
+import org.springframework.web.filter.*;
+
+import java.io.*;
+import java.time.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Read-your-writes on top of {@link ReplicaRoutingDataSource}. Enlist, cancel & every other write request run
+ * entirely on the primary. When one succeeds, the primary's WAL position is given to the client, as the
+ * {@value #LSN_COOKIE} cookie and the {@value #LSN_HEADER} header, and the client's later reads that send either back
+ * only go to a replica that has replayed up to it; so a student never sees a schedule older than their last change,
+ * whether they use the pages or the JSON API, w/ or w/o a session. Reads w/o one, e.g. the public catalog, go to any
+ * replica within the lag bound.
+ * <p>
+ * The position has to be in the response before it's committed, so it's read from the primary when the handler
+ * starts its response (a redirect or a body), which is after its transaction has committed. A forged position can
+ * only send the client's own reads to the primary.
+ */
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String LSN_COOKIE = "enlistment-lsn";
+    static final String LSN_HEADER = "Enlistment-LSN";
+    private static final Duration PIN_FOR = Duration.ofHours(1);
+
+    private final ReplicaRoutingDataSource routing;
+
+    ReadYourWritesFilter(ReplicaRoutingDataSource routing) {
+        notNull(routing, "routing can't be null");
+        this.routing = routing;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isRead(request)) {
+            Long lsn = lsnOf(request);
+            if (lsn != null) {
+                ReplicaRoutingDataSource.requireLsn(lsn);
+            }
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                ReplicaRoutingDataSource.clearRequiredLsn();
+            }
+            return;
+        }
+        ReplicaRoutingDataSource.usePrimary();
+        PinningResponse pinning = new PinningResponse(request, response);
+        try {
+            chain.doFilter(request, pinning);
+            pinning.pin(); // a response w/o a body
+        } finally {
+            ReplicaRoutingDataSource.clearRequiredLsn();
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    /** The header, else the cookie; ignored if malformed. */
+    private static Long lsnOf(HttpServletRequest request) {
+        String lsn = request.getHeader(LSN_HEADER);
+        if (lsn == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (LSN_COOKIE.equals(cookie.getName())) {
+                    lsn = cookie.getValue();
+                }
+            }
+        }
+        if (lsn == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(lsn);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Adds the primary's position just before the response is committed, unless the request failed. */
+    private final class PinningResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private boolean pinned;
+
+        PinningResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        void pin() {
+            if (pinned || isCommitted()) {
+                return;
+            }
+            pinned = true;
+            if (getStatus() >= 400) { // nothing was written
+                return;
+            }
+            String lsn = String.valueOf(routing.primaryLsn());
+            Cookie cookie = new Cookie(LSN_COOKIE, lsn);
+            cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+            cookie.setMaxAge((int) PIN_FOR.toSeconds());
+            cookie.setHttpOnly(true);
+            cookie.setAttribute("SameSite", "Lax");
+            addCookie(cookie);
+            setHeader(LSN_HEADER, lsn);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            pin();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            pinned = true;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            pinned = true;
+            super.sendError(sc);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            pin();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            pin();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            pin();
+            super.flushBuffer();
+        }
+    }
+}
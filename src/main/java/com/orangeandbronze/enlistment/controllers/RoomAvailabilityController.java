@@ -0,0 +1,40 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import com.orangeandbronze.enlistment.domain.Period;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.*;
+import java.util.*;
+
+/** Free-room suggestions for the section form & room utilization heatmaps, as JSON. */
+@RestController
+@RequestMapping("rooms")
+class RoomAvailabilityController {
+
+    private final RoomAvailability roomAvailability;
+
+    RoomAvailabilityController(RoomAvailability roomAvailability) {
+        this.roomAvailability = roomAvailability;
+    }
+
+    @GetMapping("suggestions")
+    public List<RoomAvailability.RoomSuggestion> suggestions(@RequestParam Days days, @RequestParam String startTime,
+                                                             @RequestParam String endTime,
+                                                             @RequestParam(defaultValue = "1") int minCapacity,
+                                                             @RequestParam(defaultValue = "5") int limit) {
+        Schedule schedule = new Schedule(days, new Period(LocalTime.parse(startTime), LocalTime.parse(endTime)));
+        return roomAvailability.suggest(schedule, minCapacity, limit);
+    }
+
+    @GetMapping("heatmaps")
+    public List<RoomAvailability.RoomHeatmap> heatmaps() {
+        return roomAvailability.heatmaps();
+    }
+
+    @GetMapping("{roomName}/heatmap")
+    public RoomAvailability.RoomHeatmap heatmap(@PathVariable String roomName) {
+        return roomAvailability.heatmap(roomName)
+                .orElseThrow(() -> new NoSuchElementException("no room named " + roomName));
+    }
+}
@@ -1,10 +1,12 @@
 package com.orangeandbronze.enlistment.controllers;
 
+import com.orangeandbronze.enlistment.cluster.*;
 import com.orangeandbronze.enlistment.domain.*;
 import com.orangeandbronze.enlistment.domain.Period;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.*;
 import org.springframework.transaction.annotation.*;
+import org.springframework.transaction.support.*;
 import org.springframework.ui.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.*;
@@ -12,7 +14,7 @@ import org.springframework.web.servlet.mvc.support.*;
 import java.time.*;
 import java.util.*;
 
-@Transactional
+@Transactional(readOnly = true)
 @Controller
 @RequestMapping("sections")
 @SessionAttributes("admin")
@@ -28,6 +30,23 @@ class SectionsController {
     private SectionRepository sectionRepo;
     @Autowired
     private FacultyRepository facultyRepo;
+    @Autowired
+    private ClusterCoordinator clusterCoordinator;
+    @Autowired
+    private ConflictMatrix conflictMatrix;
+    @Autowired
+    private FacultyScheduleIndex facultySchedules;
+    @Autowired
+    private RoomAvailability roomAvailability;
+
+    @Autowired
+    private EnlistmentJournal journal;
+
+    @Autowired
+    private SectionCatalog sectionCatalog;
+
+    @Autowired
+    private TermArchive termArchive;
 
 
     public SectionsController(SubjectRepository subjectRepo, AdminRepository adminRepo, RoomRepository roomRepo, SectionRepository sectionRepo, FacultyRepository facultyRepo) {
@@ -51,28 +70,62 @@ class SectionsController {
         model.addAttribute("admin", admin);
         model.addAttribute("subjects", subjectRepo.findAll());
         model.addAttribute("rooms", roomRepo.findAll());
-        model.addAttribute("sections", sectionRepo.findAll());
+        model.addAttribute("sections", sectionCatalog != null && sectionCatalog.isLoaded()
+                ? sectionCatalog.sections() : sectionRepo.findAll());
         model.addAttribute("faculty", facultyRepo.findAll());
         return "sections";
     }
 
+    @Transactional
     @PostMapping
     public String createSection(String sectionId, String subjectId, Days days, String roomId, String startTime, String endTime, int facultyID,RedirectAttributes redirectAttributes) {
         Room room = roomRepo.findById(roomId).orElseThrow(() -> new IllegalArgumentException("Room not found"));
         Subject subject = subjectRepo.findById(subjectId).orElseThrow(() -> new IllegalArgumentException("Subject not found"));
         Period period = new Period(LocalTime.parse(startTime), LocalTime.parse(endTime));
         Schedule schedule = new Schedule(days, period);
-        Section section = new Section(sectionId, subject, schedule, room);
+        Section section = new Section(sectionId, subject, schedule, room,
+                termArchive == null ? null : termArchive.getCurrentTerm());
         if(facultyID != -1){
             Faculty faculty = facultyRepo.findById(facultyID).orElseThrow(() -> new IllegalArgumentException("Faculty not found"));
-            section.assignFaculty(faculty);
+            section.assignFaculty(faculty, sectionRepo.findByFacultyNumber(facultyID));
         }
 
         sectionRepo.save(section);
+        if (conflictMatrix != null) {
+            runAfterCommit(() -> conflictMatrix.put(section));
+        }
+        if (roomAvailability != null) {
+            runAfterCommit(() -> roomAvailability.book(section));
+        }
+        if (facultySchedules != null && facultyID != -1) {
+            runAfterCommit(() -> facultySchedules.assigned(facultyID, section));
+        }
+        if (journal != null) {
+            runAfterCommit(() -> journal.sectionCreated(sectionId));
+        }
+        if (sectionCatalog != null) {
+            runAfterCommit(() -> sectionCatalog.put(section));
+        }
+        if (clusterCoordinator != null) {
+            clusterCoordinator.publishSectionChanged(sectionId);
+        }
         redirectAttributes.addFlashAttribute("sectionSuccessMessage", "Successfully created new section " + sectionId);
         return "redirect:sections";
     }
 
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     @ExceptionHandler(EnlistmentException.class)
     public String handleException(RedirectAttributes redirectAttrs, EnlistmentException e) {
         redirectAttrs.addFlashAttribute("sectionExceptionMessage", e.getMessage());
@@ -0,0 +1,60 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+
+/** The current & archived terms, archiving a closed term, and students' transcripts, as JSON for admins. */
+@RestController
+@RequestMapping("terms")
+class TermController {
+
+    private final TermArchive termArchive;
+
+    TermController(TermArchive termArchive) {
+        this.termArchive = termArchive;
+    }
+
+    /** {@code currentTerm} is null if terms aren't used. */
+    @GetMapping
+    public Terms terms() {
+        return new Terms(termArchive.getCurrentTerm(), termArchive.archivedTerms());
+    }
+
+    @PostMapping("{term}/archive")
+    public TermArchive.ArchiveReport archive(@PathVariable String term) throws IOException {
+        return termArchive.archive(term);
+    }
+
+    @GetMapping("transcripts/{studentNumber}")
+    public List<TranscriptTerm> transcript(@PathVariable int studentNumber) {
+        List<TranscriptTerm> transcript = new ArrayList<>();
+        termArchive.transcriptOf(studentNumber).forEach((term, enrollments) -> transcript.add(new TranscriptTerm(term,
+                enrollments.stream().map(TranscriptEntry::of).toList())));
+        return transcript;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    public record Terms(String currentTerm, List<String> archivedTerms) {
+    }
+
+    public record TranscriptTerm(String term, List<TranscriptEntry> sections) {
+    }
+
+    public record TranscriptEntry(String sectionId, String subjectId, Days days, LocalTime startTime,
+                                  LocalTime endTime, String room) {
+
+        static TranscriptEntry of(ArchivedEnrollment enrollment) {
+            return new TranscriptEntry(enrollment.getSectionId(), enrollment.getSubjectId(), enrollment.getDays(),
+                    enrollment.getStartTime(), enrollment.getEndTime(), enrollment.getRoomName());
+        }
+    }
+}
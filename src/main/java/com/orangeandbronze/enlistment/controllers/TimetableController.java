@@ -0,0 +1,84 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import com.orangeandbronze.enlistment.domain.TimetableSolver.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.*;
+import org.springframework.web.servlet.mvc.method.annotation.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Generates a timetable proposal for the posted subject demand around the rooms & faculty schedules already in the
+ * catalog, streaming the best timetable so far as server-sent "progress" events and the final one as "solution".
+ */
+@RestController
+@RequestMapping("timetable")
+class TimetableController {
+
+    private static final Duration MAX_BUDGET = Duration.ofMinutes(5);
+
+    private final TimetableSolver solver;
+    private final RoomRepository roomRepo;
+    private final RoomAvailability roomAvailability;
+    private final FacultyRepository facultyRepo;
+    private final FacultyScheduleIndex facultySchedules;
+
+    TimetableController(TimetableSolver solver, RoomRepository roomRepo, RoomAvailability roomAvailability,
+                        FacultyRepository facultyRepo, FacultyScheduleIndex facultySchedules) {
+        this.solver = solver;
+        this.roomRepo = roomRepo;
+        this.roomAvailability = roomAvailability;
+        this.facultyRepo = facultyRepo;
+        this.facultySchedules = facultySchedules;
+    }
+
+    @PostMapping(value = "solve", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter solve(@RequestBody SolveRequest request) {
+        Duration budget = request.budget() == null ? Duration.ofSeconds(10) : request.budget();
+        isTrue(!budget.isNegative() && budget.compareTo(MAX_BUDGET) <= 0, "budget must be 0 to %s, was: %s",
+                MAX_BUDGET, budget);
+        List<RoomSupply> rooms = roomRepo.findAll().stream()
+                .map(room -> new RoomSupply(room.getName(), room.getCapacity(), roomAvailability.bookedSlots(room.getName())))
+                .toList();
+        List<FacultySupply> faculty = facultyRepo.findAll().stream()
+                .map(f -> new FacultySupply(f.getFacultyNumber(),
+                        facultySchedules.timetable(f.getFacultyNumber()).busySlots()))
+                .toList();
+        TimetableProblem problem = new TimetableProblem(request.demands(), rooms, faculty);
+
+        SseEmitter emitter = new SseEmitter(budget.plus(Duration.ofSeconds(30)).toMillis());
+        CompletableFuture<TimetableSolution> solution;
+        try {
+            solution = solver.solveAsync(problem, budget, request.seed() == null ? System.nanoTime() : request.seed(),
+                    progress -> send(emitter, progress));
+        } catch (IllegalStateException busy) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, busy.getMessage());
+        }
+        solution.whenComplete((best, failure) -> {
+            if (failure == null) {
+                emitter.complete();
+            } else {
+                emitter.completeWithError(failure);
+            }
+        });
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, Progress progress) {
+        try {
+            emitter.send(SseEmitter.event().name(progress.done() ? "solution" : "progress").data(progress));
+        } catch (IOException | IllegalStateException e) {
+            // client went away; the search still ends at its budget
+        }
+    }
+
+    record SolveRequest(List<SectionDemand> demands, Duration budget, Long seed) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Token buckets keyed by a number, e.g. a student number. Each bucket is one long holding the time at which it will
+ * be full again (the "theoretical arrival time" of GCRA), so taking a token is a map lookup and an add, w/o the
+ * database. Once the key has a bucket the only allocation is the {@code Long} the key is boxed into for the lookup.
+ * <p>
+ * Holds at most {@code maxKeys} buckets, in stripes by key so unrelated keys rarely wait on each other. Each stripe
+ * is in access order, so when it's full the least recently used bucket is evicted in constant time; that key only
+ * loses its debt and starts again w/ a full bucket, and every key is still limited.
+ */
+class TokenBucketLimiter {
+
+    private static final int STRIPES = 16;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+    private final Stripe[] stripes;
+
+    /**
+     * @param burst     tokens in a full bucket
+     * @param perMinute tokens added per minute
+     */
+    TokenBucketLimiter(int burst, int perMinute, int maxKeys) {
+        this(burst, perMinute, maxKeys, System::nanoTime);
+    }
+
+    TokenBucketLimiter(int burst, int perMinute, int maxKeys, LongSupplier nanoClock) {
+        isTrue(burst > 0, "burst must be greater than zero, was: %d", burst);
+        isTrue(perMinute > 0, "perMinute must be greater than zero, was: %d", perMinute);
+        isTrue(maxKeys > 0, "maxKeys must be greater than zero, was: %d", maxKeys);
+        notNull(nanoClock, "nanoClock can't be null");
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+        this.burstNanos = intervalNanos * (burst - 1);
+        this.nanoClock = nanoClock;
+        this.stripes = new Stripe[Math.min(STRIPES, maxKeys)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(maxKeys / stripes.length + (i < maxKeys % stripes.length ? 1 : 0));
+        }
+    }
+
+    /** Takes a token & returns 0, or returns the nanoseconds until the key's bucket will have one. */
+    long tryAcquire(long key) {
+        long now = nanoClock.getAsLong();
+        Stripe stripe = stripes[Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), stripes.length)];
+        synchronized (stripe) {
+            long[] fullAt = stripe.get(key); // boxes the key; moves it to the most recently used end
+            if (fullAt == null) {
+                fullAt = new long[]{now};
+                stripe.put(key, fullAt);
+            }
+            long base = fullAt[0] - now > 0 ? fullAt[0] : now;
+            long wait = base - burstNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            fullAt[0] = base + intervalNanos;
+            return 0;
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private static final class Stripe extends LinkedHashMap<Long, long[]> {
+
+        private final int maxKeys;
+
+        Stripe(int maxKeys) {
+            super(16, 0.75f, true);
+            this.maxKeys = maxKeys;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+            return size() > maxKeys;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+
+import java.util.function.*;
+
+enum UserAction {
+    ENLIST(Student::enlist),
+    CANCEL(Student::cancel);
+
+    private final BiConsumer<Student, Section> action;
+
+    UserAction(BiConsumer<Student, Section> action) {
+        this.action = action;
+    }
+
+    void act(Student student, Section section) {
+        action.accept(student, section);
+    }
+
+}
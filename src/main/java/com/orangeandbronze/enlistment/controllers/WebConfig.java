@@ -0,0 +1,55 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.springframework.boot.autoconfigure.condition.*;
+import org.springframework.context.annotation.*;
+import org.springframework.http.*;
+import org.springframework.web.servlet.config.annotation.*;
+import org.springframework.web.servlet.resource.*;
+
+import java.util.concurrent.*;
+
+@Configuration
+class WebConfig implements WebMvcConfigurer {
+
+    /** A static file as the templates link it, w/ the MD5 of its content before the extension. */
+    static final String FINGERPRINTED_FILE = "{file:.+-" + "[0-9a-f]".repeat(32) + "\\.\\w+}"; // no {n} in patterns
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final AdminInterceptor adminInterceptor;
+
+    WebConfig(RateLimitInterceptor rateLimitInterceptor, AdminInterceptor adminInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+        this.adminInterceptor = adminInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/enlist", "/api/session", "/api/students/**");
+        registry.addInterceptor(adminInterceptor)
+                .addPathPatterns("/lottery/**", "/terms/**", "/timetable/**", "/windows/**", "/demand/**",
+                        "/faculty/**", "/rooms/**");
+    }
+
+    /**
+     * Fingerprinted static URLs change whenever the file does, so they're cached for a year; the same files at their
+     * plain URLs fall through to Spring Boot's handler, whose {@code spring.web.resources.cache} settings have
+     * browsers revalidate them. Static files are at most one directory deep.
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/" + FINGERPRINTED_FILE, "/*/" + FINGERPRINTED_FILE)
+                .addResourceLocations("classpath:/static/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    /** Same condition as the replicas themselves, see {@code ReplicaDataSourceConfiguration}. */
+    @Bean
+    @ConditionalOnExpression("!'${enlistment.replicas.urls:}'.isBlank()")
+    ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingDataSource routing) {
+        return new ReadYourWritesFilter(routing);
+    }
+}
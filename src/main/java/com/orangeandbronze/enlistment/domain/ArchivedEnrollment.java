@@ -0,0 +1,82 @@
+package com.orangeandbronze.enlistment.domain;
+
+import jakarta.persistence.*;
+
+import java.time.*;
+
+/**
+ * An enrollment in a closed term, as it stood when the term was {@link TermArchive archived}: denormalized, so it
+ * stays readable after the term's sections are gone. Written only by the archive, in bulk.
+ */
+@Entity
+@Table(indexes = @Index(name = "archived_enrollment_student_term_idx", columnList = "student_number, term"))
+public class ArchivedEnrollment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private final String term;
+    private final int studentNumber;
+    private final String sectionId;
+    private final String subjectId;
+    private final Days days;
+    private final LocalTime startTime;
+    private final LocalTime endTime;
+    private final String roomName;
+    private final Integer facultyNumber;
+
+    public String getTerm() {
+        return term;
+    }
+
+    public int getStudentNumber() {
+        return studentNumber;
+    }
+
+    public String getSectionId() {
+        return sectionId;
+    }
+
+    public String getSubjectId() {
+        return subjectId;
+    }
+
+    public Days getDays() {
+        return days;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    public String getRoomName() {
+        return roomName;
+    }
+
+    /** Null if the section had no faculty. */
+    public Integer getFacultyNumber() {
+        return facultyNumber;
+    }
+
+    @Override
+    public String toString() {
+        return "ArchivedEnrollment of student# " + studentNumber + " in " + sectionId + " (" + term + ")";
+    }
+
+    // For JPA only. Do not call!
+    private ArchivedEnrollment() {
+        term = null;
+        studentNumber = -1;
+        sectionId = null;
+        subjectId = null;
+        days = null;
+        startTime = null;
+        endTime = null;
+        roomName = null;
+        facultyNumber = null;
+    }
+}
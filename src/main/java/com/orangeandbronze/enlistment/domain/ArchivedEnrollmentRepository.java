@@ -0,0 +1,62 @@
+package com.orangeandbronze.enlistment.domain;
+
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.*;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+import java.util.stream.*;
+
+import static org.hibernate.jpa.HibernateHints.*;
+
+@Repository
+public interface ArchivedEnrollmentRepository extends JpaRepository<ArchivedEnrollment, Long> {
+
+    /** A student's transcript. */
+    List<ArchivedEnrollment> findByStudentNumberOrderByTermAscSectionIdAsc(int studentNumber);
+
+    /** For exporting a term; must be consumed in a transaction. */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<ArchivedEnrollment> streamByTermOrderByStudentNumberAscSectionIdAsc(String term);
+
+    @Query("SELECT DISTINCT e.term FROM ArchivedEnrollment e ORDER BY e.term")
+    List<String> findTerms();
+
+    /** Whether the archive is partitioned by term, as in the Liquibase schema; the one Hibernate creates isn't. */
+    @Query(value = """
+            SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('archived_enrollment'))
+            """, nativeQuery = true)
+    boolean isPartitionedByTerm();
+
+    /** Creates the term's partition of the archive, if there isn't one yet, and returns its name. */
+    @Query(value = "SELECT create_archived_enrollment_partition(:term)", nativeQuery = true)
+    String createPartitionFor(@Param("term") String term);
+
+    /**
+     * Copies every enrollment in the term's sections, w/ what they were for, into the archive; in student order, so a
+     * student's rows for the term end up next to each other.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO archived_enrollment (term, student_number, section_id, subject_id, days, start_time, end_time,
+                                             room_name, faculty_number)
+            SELECT s.term, ss.student_student_number, s.section_id, s.subject_subject_id, s.days, s.start_time,
+                   s.end_time, s.room_name, s.faculty_faculty_number
+            FROM student_sections ss JOIN section s ON s.section_id = ss.sections_section_id
+            WHERE s.term = :term
+            ORDER BY ss.student_student_number, s.section_id
+            """, nativeQuery = true)
+    int copyEnrollmentsOf(@Param("term") String term);
+
+    /** Adds the subjects of the term's enrollments to the students' subjects taken, so prerequisites still see them. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO student_subjects_taken (student_student_number, subjects_taken_subject_id)
+            SELECT DISTINCT ss.student_student_number, s.subject_subject_id
+            FROM student_sections ss JOIN section s ON s.section_id = ss.sections_section_id
+            WHERE s.term = :term
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int recordSubjectsTakenIn(@Param("term") String term);
+}
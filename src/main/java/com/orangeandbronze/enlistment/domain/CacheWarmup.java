@@ -0,0 +1,126 @@
+package com.orangeandbronze.enlistment.domain;
+
+import io.micrometer.core.instrument.*;
+import org.slf4j.*;
+import org.springframework.stereotype.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Fills the in-process caches before the app takes traffic, so a restart during the enlistment window doesn't send
+ * the first wave of requests to the database. Sections (w/ subjects, prerequisites, rooms & faculty), rooms and
+ * faculty are each read in one bulk query, in parallel, alongside the enrollment journal replay; the caches are then
+ * built from the results, again in parallel.
+ * <p>
+ * Run from an {@code ApplicationRunner}, so readiness reports {@code ACCEPTING_TRAFFIC} only once this has returned.
+ * Each step is timed as {@code enlistment.warmup{step=...}}.
+ */
+@Component
+public class CacheWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmup.class);
+
+    private final SectionRepository sectionRepo;
+    private final RoomRepository roomRepo;
+    private final FacultyRepository facultyRepo;
+    private final SectionCatalog sectionCatalog;
+    private final ConflictMatrix conflictMatrix;
+    private final RoomAvailability roomAvailability;
+    private final FacultyScheduleIndex facultySchedules;
+    private final EnlistmentJournal journal;
+    private final MeterRegistry meterRegistry;
+
+    public CacheWarmup(SectionRepository sectionRepo, RoomRepository roomRepo, FacultyRepository facultyRepo,
+                       SectionCatalog sectionCatalog, ConflictMatrix conflictMatrix,
+                       RoomAvailability roomAvailability, FacultyScheduleIndex facultySchedules,
+                       EnlistmentJournal journal, MeterRegistry meterRegistry) {
+        notNull(sectionRepo, "sectionRepo can't be null");
+        notNull(roomRepo, "roomRepo can't be null");
+        notNull(facultyRepo, "facultyRepo can't be null");
+        notNull(sectionCatalog, "sectionCatalog can't be null");
+        notNull(conflictMatrix, "conflictMatrix can't be null");
+        notNull(roomAvailability, "roomAvailability can't be null");
+        notNull(facultySchedules, "facultySchedules can't be null");
+        notNull(journal, "journal can't be null");
+        notNull(meterRegistry, "meterRegistry can't be null");
+        this.sectionRepo = sectionRepo;
+        this.roomRepo = roomRepo;
+        this.facultyRepo = facultyRepo;
+        this.sectionCatalog = sectionCatalog;
+        this.conflictMatrix = conflictMatrix;
+        this.roomAvailability = roomAvailability;
+        this.facultySchedules = facultySchedules;
+        this.journal = journal;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Blocks until every cache is warm; a failed step fails startup rather than serving from a cold cache. */
+    public WarmupReport warmUp() {
+        long started = System.nanoTime();
+        Map<String, Duration> steps = new ConcurrentSkipListMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<List<Section>> sections = CompletableFuture.supplyAsync(
+                    timed("query.sections", steps, sectionRepo::findAllForCatalog), executor);
+            CompletableFuture<List<Room>> rooms = CompletableFuture.supplyAsync(
+                    timed("query.rooms", steps, roomRepo::findAll), executor);
+            CompletableFuture<List<Faculty>> faculty = CompletableFuture.supplyAsync(
+                    timed("query.faculty", steps, facultyRepo::findAll), executor);
+            CompletableFuture<Void> enrollment = CompletableFuture.runAsync(() -> timed("enrollment", steps, () -> {
+                try {
+                    journal.recover();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            }).get(), executor);
+            CompletableFuture.allOf(
+                    sections.thenAcceptAsync(all -> timed("section-catalog", steps, () -> {
+                        sectionCatalog.load(all);
+                        return null;
+                    }).get(), executor),
+                    sections.thenAcceptAsync(all -> timed("conflict-matrix", steps, () -> {
+                        conflictMatrix.loadCatalog(all);
+                        return null;
+                    }).get(), executor),
+                    sections.thenAcceptBothAsync(rooms, (all, allRooms) -> timed("room-availability", steps, () -> {
+                        roomAvailability.loadCatalog(allRooms, all);
+                        return null;
+                    }).get(), executor),
+                    sections.thenAcceptBothAsync(faculty, (all, allFaculty) -> timed("faculty-schedules", steps, () -> {
+                        facultySchedules.preload(allFaculty, all);
+                        return null;
+                    }).get(), executor),
+                    enrollment
+            ).join();
+            WarmupReport report = new WarmupReport(sections.join().size(), rooms.join().size(),
+                    faculty.join().size(), journal.studentCount(), Duration.ofNanos(System.nanoTime() - started),
+                    Map.copyOf(steps));
+            meterRegistry.timer("enlistment.warmup", "step", "total").record(report.total());
+            log.info("Caches warm: {}", report);
+            return report;
+        }
+    }
+
+    private <T> Supplier<T> timed(String step, Map<String, Duration> steps, Supplier<T> work) {
+        return () -> {
+            long started = System.nanoTime();
+            try {
+                return work.get();
+            } finally {
+                Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+                steps.put(step, elapsed);
+                meterRegistry.timer("enlistment.warmup", "step", step).record(elapsed);
+            }
+        };
+    }
+
+    public record WarmupReport(int sections, int rooms, int faculty, int students, Duration total,
+                               Map<String, Duration> steps) {
+    }
+}
@@ -0,0 +1,258 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Precomputed conflict relation over every section in the catalog. Each section has one bitset of the sections
+ * whose schedule overlaps its own and one of the sections with the same subject, indexed by dense section
+ * ordinal, so checking a section against a student's enrolled sections is a bitset intersection instead of
+ * comparing {@link Schedule}s and {@link Subject}s pair by pair.
+ * <p>
+ * Built in bulk by {@link #loadCatalog(Collection)}, then maintained incrementally: {@link #put(Section)} computes
+ * the new section's rows and flips its bit in the rows of the sections it conflicts with. Updates are copy-on-write
+ * and published through one volatile reference, so readers never lock and always see a consistent matrix; writers
+ * are serialized.
+ * <p>
+ * It only drives which sections the enlistment page & API show as unavailable; enlisting itself is checked by
+ * {@link Student#enlist(Section)} against the sections as loaded in its transaction.
+ */
+@Component
+public class ConflictMatrix {
+
+    private volatile State state = State.EMPTY;
+
+    @Autowired
+    private SectionRepository sectionRepo;
+
+    /**
+     * Replaces the matrix w/ one of the given sections, e.g. from {@link CacheWarmup} on startup. Built in one pass
+     * instead of a {@link #put(Section)} each, which would copy the matrix per section: sections of the same subject
+     * share one row, and overlaps are found by sweeping each day pattern's sections in start time order, so only
+     * sections that start before another ends are compared.
+     */
+    public synchronized void loadCatalog(Collection<Section> sections) {
+        notNull(sections, "sections can't be null");
+        Map<String, Section> byId = new LinkedHashMap<>();
+        sections.forEach(section -> byId.put(section.getSectionId(), section));
+        int size = byId.size();
+        Map<String, Integer> ordinals = new HashMap<>(size * 2);
+        String[] sectionIds = new String[size];
+        Schedule[] schedules = new Schedule[size];
+        Subject[] subjects = new Subject[size];
+        int next = 0;
+        for (Section section : byId.values()) {
+            ordinals.put(section.getSectionId(), next);
+            sectionIds[next] = section.getSectionId();
+            schedules[next] = section.getSchedule();
+            subjects[next] = section.getSubject();
+            next++;
+        }
+
+        Map<Subject, long[]> subjectRowOf = new HashMap<>();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            set(subjectRowOf.computeIfAbsent(subjects[ordinal], subject -> new long[words(size)]), ordinal);
+        }
+        long[][] subjectRows = new long[size][];
+        long[][] timeRows = new long[size][];
+        Map<Days, List<Integer>> byDays = new EnumMap<>(Days.class);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            subjectRows[ordinal] = subjectRowOf.get(subjects[ordinal]);
+            timeRows[ordinal] = new long[words(size)];
+            if (schedules[ordinal] != null) {
+                byDays.computeIfAbsent(schedules[ordinal].getDays(), days -> new ArrayList<>()).add(ordinal);
+            }
+        }
+        for (List<Integer> sameDays : byDays.values()) {
+            sameDays.sort(Comparator.comparing(ordinal -> schedules[ordinal].getPeriod().getStartTime()));
+            for (int i = 0; i < sameDays.size(); i++) {
+                int ordinal = sameDays.get(i);
+                set(timeRows[ordinal], ordinal);
+                LocalTime end = schedules[ordinal].getPeriod().getEndTime();
+                for (int j = i + 1; j < sameDays.size()
+                        && schedules[sameDays.get(j)].getPeriod().getStartTime().isBefore(end); j++) {
+                    int other = sameDays.get(j);
+                    if (overlaps(schedules[ordinal], schedules[other])) {
+                        set(timeRows[ordinal], other);
+                        set(timeRows[other], ordinal);
+                    }
+                }
+            }
+        }
+        state = new State(ordinals, sectionIds, schedules, subjects, timeRows, subjectRows, size);
+    }
+
+    /** Sections created or changed on other nodes. */
+    @EventListener
+    public void onSectionChanged(SectionChangedEvent event) {
+        if (!event.local() && sectionRepo != null) {
+            sectionRepo.findById(event.sectionId()).ifPresent(this::put);
+        }
+    }
+
+    /** Adds the section, or recomputes its conflicts if it's already in the matrix. */
+    public synchronized void put(Section section) {
+        notNull(section, "section can't be null");
+        State current = state;
+        Integer existing = current.ordinals.get(section.getSectionId());
+        int ordinal = existing != null ? existing : current.size;
+        int size = existing != null ? current.size : current.size + 1;
+
+        Map<String, Integer> ordinals = current.ordinals;
+        if (existing == null) {
+            ordinals = new HashMap<>(current.ordinals);
+            ordinals.put(section.getSectionId(), ordinal);
+        }
+        String[] sectionIds = Arrays.copyOf(current.sectionIds, size);
+        Schedule[] schedules = Arrays.copyOf(current.schedules, size);
+        Subject[] subjects = Arrays.copyOf(current.subjects, size);
+        long[][] timeRows = Arrays.copyOf(current.timeRows, size);
+        long[][] subjectRows = Arrays.copyOf(current.subjectRows, size);
+        sectionIds[ordinal] = section.getSectionId();
+        schedules[ordinal] = section.getSchedule();
+        subjects[ordinal] = section.getSubject();
+
+        long[] timeRow = new long[words(size)];
+        long[] subjectRow = new long[words(size)];
+        for (int other = 0; other < size; other++) { // including itself: a section conflicts with itself
+            boolean overlaps = overlaps(schedules[ordinal], schedules[other]);
+            boolean sameSubject = subjects[ordinal].equals(subjects[other]);
+            if (overlaps) {
+                set(timeRow, other);
+            }
+            if (sameSubject) {
+                set(subjectRow, other);
+            }
+            if (other != ordinal) {
+                timeRows[other] = withBit(timeRows[other], ordinal, overlaps);
+                subjectRows[other] = withBit(subjectRows[other], ordinal, sameSubject);
+            }
+        }
+        timeRows[ordinal] = timeRow;
+        subjectRows[ordinal] = subjectRow;
+        state = new State(ordinals, sectionIds, schedules, subjects, timeRows, subjectRows, size);
+    }
+
+    public boolean contains(String sectionId) {
+        return state.ordinals.containsKey(sectionId);
+    }
+
+    public int size() {
+        return state.size;
+    }
+
+    /**
+     * Schedule conflict or same subject between the candidate and any of the enrolled sections; schedule
+     * conflicts are reported first. Sections not in the matrix yet are compared directly.
+     */
+    public EnlistmentCheck check(Section candidate, Collection<Section> enrolled) {
+        notNull(candidate, "candidate can't be null");
+        notNull(enrolled, "enrolled can't be null");
+        State current = state;
+        Integer candidateOrdinal = current.ordinals.get(candidate.getSectionId());
+        long[] enrolledBits = new long[words(current.size)];
+        boolean sameSubject = false;
+        for (Section section : enrolled) {
+            Integer ordinal = current.ordinals.get(section.getSectionId());
+            if (candidateOrdinal != null && ordinal != null) {
+                set(enrolledBits, ordinal);
+            } else if (section.hasScheduleConflict(candidate)) {
+                return EnlistmentCheck.scheduleConflict(candidate, enrolled);
+            } else {
+                sameSubject |= section.hasSameSubject(candidate);
+            }
+        }
+        if (candidateOrdinal != null) {
+            if (intersects(current.timeRows[candidateOrdinal], enrolledBits)) {
+                return EnlistmentCheck.scheduleConflict(candidate, enrolled);
+            }
+            sameSubject |= intersects(current.subjectRows[candidateOrdinal], enrolledBits);
+        }
+        return sameSubject ? EnlistmentCheck.sameSubject(candidate, enrolled) : EnlistmentCheck.OK;
+    }
+
+    /** Ids of every section in the matrix that conflicts, by schedule or subject, with any of the enrolled sections. */
+    public Set<String> conflictingWith(Collection<Section> enrolled) {
+        notNull(enrolled, "enrolled can't be null");
+        State current = state;
+        long[] union = new long[words(current.size)];
+        for (Section section : enrolled) {
+            Integer ordinal = current.ordinals.get(section.getSectionId());
+            if (ordinal != null) {
+                or(union, current.timeRows[ordinal]);
+                or(union, current.subjectRows[ordinal]);
+            }
+        }
+        Set<String> conflicting = new HashSet<>();
+        for (int word = 0; word < union.length; word++) {
+            for (long bits = union[word]; bits != 0; bits &= bits - 1) {
+                conflicting.add(current.sectionIds[word * 64 + Long.numberOfTrailingZeros(bits)]);
+            }
+        }
+        return conflicting;
+    }
+
+    void setSectionRepo(SectionRepository sectionRepo) {
+        this.sectionRepo = sectionRepo;
+    }
+
+    private static boolean overlaps(Schedule schedule, Schedule other) {
+        return schedule != null && other != null && schedule.overlaps(other);
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private static void set(long[] row, int bit) {
+        row[bit >>> 6] |= 1L << bit;
+    }
+
+    private static boolean get(long[] row, int bit) {
+        return (bit >>> 6) < row.length && (row[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /** Copy of the row with the bit set or cleared, or the row itself if it already is. Rows are never mutated once published. */
+    private static long[] withBit(long[] row, int bit, boolean value) {
+        if (get(row, bit) == value) {
+            return row;
+        }
+        long[] copy = Arrays.copyOf(row, Math.max(row.length, words(bit + 1)));
+        if (value) {
+            set(copy, bit);
+        } else {
+            copy[bit >>> 6] &= ~(1L << bit);
+        }
+        return copy;
+    }
+
+    private static boolean intersects(long[] row, long[] bits) {
+        for (int word = 0, words = Math.min(row.length, bits.length); word < words; word++) {
+            if ((row[word] & bits[word]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void or(long[] into, long[] row) {
+        for (int word = 0, words = Math.min(row.length, into.length); word < words; word++) {
+            into[word] |= row[word];
+        }
+    }
+
+    /** One published version of the matrix. Never mutated after it's published. */
+    private record State(Map<String, Integer> ordinals, String[] sectionIds, Schedule[] schedules, Subject[] subjects,
+                         long[][] timeRows, long[][] subjectRows, int size) {
+
+        static final State EMPTY = new State(Map.of(), new String[0], new Schedule[0], new Subject[0],
+                new long[0][], new long[0][], 0);
+    }
+}
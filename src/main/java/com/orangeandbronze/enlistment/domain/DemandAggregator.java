@@ -0,0 +1,183 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.context.*;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Streaming per-section demand from {@link EnlistmentAttempt}s: exponentially decayed rates of attempts, enlistments,
+ * cancellations & capacity rejections, so recent minutes count most and nothing is stored per attempt.
+ * <p>
+ * A section is hot when it is projected to fill within {@code horizon} at its current net enlistment rate, or when
+ * a large share of recent attempts already bounce off capacity. This is advisory, for admins: they can list sections
+ * by {@link #hottest(int)}, and a {@link HotSectionEvent} is published & logged when a section turns hot. Nothing
+ * gates enlistment on it.
+ */
+@Component
+public class DemandAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(DemandAggregator.class);
+
+    static final double HOT_REJECTION_RATIO = 0.25;
+
+    private final double tauMillis;
+    private final long horizonMillis;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, SectionDemand> sections = new ConcurrentHashMap<>();
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public DemandAggregator(@Value("${enlistment.demand.half-life:PT5M}") Duration halfLife,
+                            @Value("${enlistment.demand.horizon:PT15M}") Duration horizon,
+                            ApplicationEventPublisher eventPublisher) {
+        this(halfLife, horizon, System::currentTimeMillis);
+        this.eventPublisher = eventPublisher;
+    }
+
+    DemandAggregator(Duration halfLife, Duration horizon, LongSupplier clock) {
+        notNull(halfLife, "halfLife can't be null");
+        notNull(horizon, "horizon can't be null");
+        notNull(clock, "clock can't be null");
+        isTrue(halfLife.toMillis() > 0, "halfLife must be positive, was: " + halfLife);
+        this.tauMillis = halfLife.toMillis() / Math.log(2);
+        this.horizonMillis = horizon.toMillis();
+        this.clock = clock;
+    }
+
+    public void accept(EnlistmentAttempt attempt) {
+        notNull(attempt, "attempt can't be null");
+        SectionDemand demand = sections.computeIfAbsent(attempt.sectionId(), SectionDemand::new);
+        boolean turnedHot;
+        synchronized (demand) {
+            boolean wasHot = demand.isHot(attempt.epochMillis());
+            demand.add(attempt);
+            turnedHot = !wasHot && demand.isHot(attempt.epochMillis());
+        }
+        if (turnedHot) {
+            DemandStats stats = stats(attempt.sectionId()).orElseThrow();
+            log.info("section turned hot: {}", stats);
+            if (eventPublisher != null) {
+                eventPublisher.publishEvent(new HotSectionEvent(stats));
+            }
+        }
+    }
+
+    public boolean isHot(String sectionId) {
+        SectionDemand demand = sections.get(sectionId);
+        if (demand == null) {
+            return false;
+        }
+        synchronized (demand) {
+            return demand.isHot(clock.getAsLong());
+        }
+    }
+
+    public Optional<DemandStats> stats(String sectionId) {
+        SectionDemand demand = sections.get(sectionId);
+        if (demand == null) {
+            return Optional.empty();
+        }
+        synchronized (demand) {
+            return Optional.of(demand.stats(clock.getAsLong()));
+        }
+    }
+
+    /** Sections by how soon they're projected to fill, hot ones first. */
+    public List<DemandStats> hottest(int limit) {
+        isTrue(limit > 0, "limit must be greater than zero, was: %d", limit);
+        long now = clock.getAsLong();
+        List<DemandStats> all = new ArrayList<>();
+        for (SectionDemand demand : sections.values()) {
+            synchronized (demand) {
+                all.add(demand.stats(now));
+            }
+        }
+        all.sort(Comparator.comparing(DemandStats::hot).reversed()
+                .thenComparingDouble(DemandStats::minutesToFull)
+                .thenComparing(Comparator.comparingDouble(DemandStats::rejectionRatio).reversed()));
+        return all.size() > limit ? List.copyOf(all.subList(0, limit)) : all;
+    }
+
+    /**
+     * @param attemptsPerMinute   decayed rate of all attempts on the section
+     * @param enlistsPerMinute    decayed rate of successful enlistments
+     * @param cancelsPerMinute    decayed rate of successful cancellations
+     * @param rejectionRatio      share of recent enlist attempts rejected for capacity
+     * @param seatsLeft           as of the latest attempt
+     * @param minutesToFull       at the current net enlistment rate, infinite if not filling
+     */
+    public record DemandStats(String sectionId, double attemptsPerMinute, double enlistsPerMinute,
+                              double cancelsPerMinute, double rejectionRatio, int seatsLeft, double minutesToFull,
+                              boolean hot) {
+    }
+
+    public record HotSectionEvent(DemandStats stats) {
+    }
+
+    /** Decayed counters of one section. Guarded by its own monitor. */
+    private final class SectionDemand {
+        private final String sectionId;
+        private long lastMillis = Long.MIN_VALUE;
+        private double attempts, enlists, cancels, enlistAttempts, capacityRejections;
+        private int seatsLeft = Integer.MAX_VALUE;
+
+        SectionDemand(String sectionId) {
+            this.sectionId = sectionId;
+        }
+
+        void add(EnlistmentAttempt attempt) {
+            decayTo(attempt.epochMillis());
+            attempts++;
+            if (attempt.enlist()) {
+                enlistAttempts++;
+                if (attempt.outcome() == EnlistmentAttempt.Outcome.SUCCEEDED) {
+                    enlists++;
+                } else if (attempt.outcome() == EnlistmentAttempt.Outcome.CAPACITY) {
+                    capacityRejections++;
+                }
+            } else if (attempt.outcome() == EnlistmentAttempt.Outcome.SUCCEEDED) {
+                cancels++;
+            }
+            seatsLeft = attempt.seatsLeft();
+        }
+
+        /** Counters decay w/ e^(-elapsed/tau); out-of-order attempts count as if they arrived now. */
+        private void decayTo(long millis) {
+            if (lastMillis != Long.MIN_VALUE && millis > lastMillis) {
+                double factor = Math.exp(-(millis - lastMillis) / tauMillis);
+                attempts *= factor;
+                enlists *= factor;
+                cancels *= factor;
+                enlistAttempts *= factor;
+                capacityRejections *= factor;
+            }
+            lastMillis = Math.max(lastMillis, millis);
+        }
+
+        boolean isHot(long now) {
+            DemandStats stats = stats(now);
+            return stats.hot();
+        }
+
+        DemandStats stats(long now) {
+            double factor = now > lastMillis ? Math.exp(-(now - lastMillis) / tauMillis) : 1;
+            double perMinute = factor * 60_000 / tauMillis; // a decayed count over tau is a rate
+            double rejectionRatio = enlistAttempts < 1e-9 ? 0 : capacityRejections / enlistAttempts;
+            double netPerMinute = (enlists - cancels) * perMinute;
+            double minutesToFull = seatsLeft <= 0 ? 0
+                    : netPerMinute > 1e-9 ? seatsLeft / netPerMinute : Double.POSITIVE_INFINITY;
+            boolean hot = minutesToFull * 60_000 <= horizonMillis
+                    || (rejectionRatio >= HOT_REJECTION_RATIO && capacityRejections * factor >= 1);
+            return new DemandStats(sectionId, attempts * perMinute, enlists * perMinute, cancels * perMinute,
+                    rejectionRatio, seatsLeft, minutesToFull, hot);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.orangeandbronze.enlistment.domain;
+
+import java.nio.*;
+import java.nio.charset.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * One enlist or cancel attempt & its outcome, as written to the {@link EnlistmentAttemptLog}.
+ *
+ * @param seatsLeft seats left in the section when the attempt was decided
+ */
+public record EnlistmentAttempt(long epochMillis, int studentNumber, String sectionId, boolean enlist,
+                                Outcome outcome, int seatsLeft) {
+
+    public enum Outcome {
+        SUCCEEDED, CAPACITY, SCHEDULE_CONFLICT, SAME_SUBJECT, PREREQ_MISSING, OTHER_REJECTION;
+
+        public static Outcome of(EnlistmentException rejection) {
+            if (rejection instanceof CapacityException) {
+                return CAPACITY;
+            } else if (rejection instanceof ScheduleConflictException) {
+                return SCHEDULE_CONFLICT;
+            } else if (rejection instanceof SameSubjectException) {
+                return SAME_SUBJECT;
+            } else if (rejection instanceof PrereqMissingException) {
+                return PREREQ_MISSING;
+            }
+            return OTHER_REJECTION;
+        }
+    }
+
+    public EnlistmentAttempt {
+        notBlank(sectionId, "sectionId can't be blank");
+        notNull(outcome, "outcome can't be null");
+    }
+
+    /** {@code [long epochMillis][int studentNumber][byte enlist][byte outcome][int seatsLeft][UTF-8 sectionId]} */
+    byte[] toBytes() {
+        byte[] id = sectionId.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(18 + id.length).putLong(epochMillis).putInt(studentNumber)
+                .put((byte) (enlist ? 1 : 0)).put((byte) outcome.ordinal()).putInt(seatsLeft).put(id).array();
+    }
+
+    static EnlistmentAttempt fromBytes(ByteBuffer bytes) {
+        long epochMillis = bytes.getLong();
+        int studentNumber = bytes.getInt();
+        boolean enlist = bytes.get() == 1;
+        Outcome outcome = Outcome.values()[bytes.get()];
+        int seatsLeft = bytes.getInt();
+        byte[] id = new byte[bytes.remaining()];
+        bytes.get(id);
+        return new EnlistmentAttempt(epochMillis, studentNumber, new String(id, StandardCharsets.UTF_8), enlist,
+                outcome, seatsLeft);
+    }
+}
@@ -0,0 +1,110 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.slf4j.*;
+import org.springframework.beans.factory.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Durable record of every enlist & cancel attempt and its outcome, appended to a {@link MappedAppendLog} and fed
+ * to the {@link DemandAggregator}. On startup the recent part of the log is replayed into the aggregator so demand
+ * rates survive restarts; replay starts at the segment the window begins in, not at the start of the log. Segments
+ * that only hold attempts older than {@code retention} are deleted on a schedule, so the log doesn't grow w/o bound.
+ * Per node: each node logs & aggregates the attempts it served.
+ */
+@Component
+public class EnlistmentAttemptLog implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EnlistmentAttemptLog.class);
+
+    private final MappedAppendLog appendLog;
+    private final DemandAggregator aggregator;
+    private final long retentionMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public EnlistmentAttemptLog(@Value("${enlistment.attempt-log.directory}") Path directory,
+                                @Value("${enlistment.attempt-log.segment-bytes:16777216}") int segmentBytes,
+                                @Value("${enlistment.attempt-log.replay:PT1H}") Duration replay,
+                                @Value("${enlistment.attempt-log.retention:P1D}") Duration retention,
+                                DemandAggregator aggregator) throws IOException {
+        this(directory, segmentBytes, replay, retention, aggregator, System::currentTimeMillis);
+    }
+
+    EnlistmentAttemptLog(Path directory, int segmentBytes, Duration replay, Duration retention,
+                         DemandAggregator aggregator, LongSupplier clock) throws IOException {
+        notNull(replay, "replay can't be null");
+        notNull(retention, "retention can't be null");
+        notNull(aggregator, "aggregator can't be null");
+        notNull(clock, "clock can't be null");
+        isTrue(!retention.minus(replay).isNegative(), "retention must be at least replay, was: %s < %s", retention, replay);
+        this.appendLog = new MappedAppendLog(directory, segmentBytes);
+        this.aggregator = aggregator;
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+        long since = clock.getAsLong() - replay.toMillis();
+        int[] replayed = {0};
+        appendLog.forEach(positionOf(since), (position, bytes) -> {
+            EnlistmentAttempt attempt = EnlistmentAttempt.fromBytes(bytes);
+            if (attempt.epochMillis() >= since) {
+                aggregator.accept(attempt);
+                replayed[0]++;
+            }
+        });
+        log.info("replayed {} enlistment attempts from {}", replayed[0], directory);
+    }
+
+    public void record(EnlistmentAttempt attempt) {
+        notNull(attempt, "attempt can't be null");
+        appendLog.append(attempt.toBytes());
+        aggregator.accept(attempt);
+    }
+
+    @Scheduled(fixedDelayString = "${enlistment.attempt-log.flush-interval:PT1S}")
+    public void flush() {
+        appendLog.force();
+    }
+
+    /** Deletes the segments that only hold attempts older than the retention; never the one being appended to. */
+    @Scheduled(fixedDelayString = "${enlistment.attempt-log.expire-interval:PT10M}")
+    public void expire() throws IOException {
+        int deleted = appendLog.deleteSegmentsBefore(positionOf(clock.getAsLong() - retentionMillis));
+        if (deleted > 0) {
+            log.info("deleted {} enlistment attempt segments older than {} ms", deleted, retentionMillis);
+        }
+    }
+
+    int segmentCount() {
+        return appendLog.segmentCount();
+    }
+
+    /**
+     * Start of the segment holding the first attempt at or after the time: the last segment whose first attempt is
+     * before it. Attempts are appended in about time order, so every segment before that one is older.
+     */
+    private long positionOf(long epochMillis) {
+        long position = 0;
+        for (Map.Entry<Long, ByteBuffer> first : appendLog.firstRecords().entrySet()) {
+            if (EnlistmentAttempt.fromBytes(first.getValue()).epochMillis() >= epochMillis) {
+                break;
+            }
+            position = first.getKey();
+        }
+        return position;
+    }
+
+    @Override
+    public void destroy() {
+        appendLog.close();
+    }
+}
@@ -0,0 +1,106 @@
+package com.orangeandbronze.enlistment.domain;
+
+import java.util.*;
+
+/**
+ * Result of {@link Student#checkEnlist(Section)}: whether an enlistment would be accepted, and if not, which rule
+ * rejects it & why. An acceptance is the shared {@link #OK}; a rejection only keeps references to the section and
+ * to what it was checked against, so checking builds no strings & copies no collections. The {@link #detail()} is
+ * built on first read, from the student's enlistments as they are then, and {@link #exception()} turns a rejection
+ * into the {@link EnlistmentException} that {@link Student#enlist(Section)} throws.
+ */
+public final class EnlistmentCheck {
+
+    public enum Result {
+        OK,
+        SCHEDULE_CONFLICT,
+        SAME_SUBJECT,
+        PREREQ_MISSING,
+        CAPACITY
+    }
+
+    public static final EnlistmentCheck OK = new EnlistmentCheck(Result.OK, null, List.of(), List.of());
+
+    private final Result result;
+    private final Section section;
+    private final Collection<Section> enlisted;
+    private final Collection<Subject> subjectsTaken;
+    private String detail;
+
+    private EnlistmentCheck(Result result, Section section, Collection<Section> enlisted,
+                            Collection<Subject> subjectsTaken) {
+        this.result = result;
+        this.section = section;
+        this.enlisted = enlisted;
+        this.subjectsTaken = subjectsTaken;
+    }
+
+    /** One of the enlisted sections overlaps the section's schedule. */
+    static EnlistmentCheck scheduleConflict(Section section, Collection<Section> enlisted) {
+        return new EnlistmentCheck(Result.SCHEDULE_CONFLICT, section, enlisted, List.of());
+    }
+
+    /** One of the enlisted sections has the section's subject. */
+    static EnlistmentCheck sameSubject(Section section, Collection<Section> enlisted) {
+        return new EnlistmentCheck(Result.SAME_SUBJECT, section, enlisted, List.of());
+    }
+
+    static EnlistmentCheck prereqMissing(Section section, Collection<Subject> subjectsTaken) {
+        return new EnlistmentCheck(Result.PREREQ_MISSING, section, List.of(), subjectsTaken);
+    }
+
+    static EnlistmentCheck capacity(Section section) {
+        return new EnlistmentCheck(Result.CAPACITY, section, List.of(), List.of());
+    }
+
+    public Result result() {
+        return result;
+    }
+
+    public boolean isOk() {
+        return result == Result.OK;
+    }
+
+    /** Why the enlistment is rejected, in the words of the exception {@link #exception()} builds; empty if OK. */
+    public String detail() {
+        String built = detail;
+        if (built == null) {
+            built = buildDetail();
+            detail = built;
+        }
+        return built;
+    }
+
+    /** The exception for this rejection, w/ its {@link #detail()} as the message. */
+    public EnlistmentException exception() {
+        return switch (result) {
+            case OK -> throw new IllegalStateException("enlistment is not rejected");
+            case SCHEDULE_CONFLICT -> new ScheduleConflictException(detail());
+            case SAME_SUBJECT -> new SameSubjectException(detail());
+            case PREREQ_MISSING -> new PrereqMissingException(detail());
+            case CAPACITY -> new CapacityException(detail());
+        };
+    }
+
+    private String buildDetail() {
+        return switch (result) {
+            case OK -> "";
+            case SCHEDULE_CONFLICT -> enlisted.stream().filter(other -> other.hasScheduleConflict(section)).findFirst()
+                    .map(other -> "This section " + section + " at " + section.getSchedule() + " & other section "
+                            + other + " at " + other.getSchedule() + " have overlapping schedules")
+                    .orElse("This section " + section + " at " + section.getSchedule() + " has a schedule conflict");
+            case SAME_SUBJECT -> enlisted.stream().filter(other -> other.hasSameSubject(section)).findFirst()
+                    .map(other -> "This section " + section + " & other section " + other
+                            + " have same subject of " + section.getSubject())
+                    .orElse("This section " + section + " has the subject of another section");
+            case PREREQ_MISSING -> "missing prereqs: " + section.getSubject().missingPrereqs(subjectsTaken);
+            case CAPACITY -> "at or over capacity of " + section.getRoom().getCapacity() + "  at occupancy of "
+                    + section.getOccupancy();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return isOk() ? result.name() : result + ": " + detail();
+    }
+}
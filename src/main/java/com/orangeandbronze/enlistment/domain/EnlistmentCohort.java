@@ -0,0 +1,74 @@
+package com.orangeandbronze.enlistment.domain;
+
+import jakarta.persistence.*;
+
+import java.time.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * A cohort of {@link EnlistmentWindows} as planned, so every node and a restarted one use the same cohorts &
+ * openings, and the actions its students took on all nodes, which later windows are sized from.
+ */
+@Entity
+public class EnlistmentCohort {
+
+    @Id
+    private final int cohortIndex;
+    private final boolean priority;
+    private final int firstStudentNumber;
+    private final int lastStudentNumber;
+    private final int students;
+    private Instant opensAt;
+    private Instant closesAt;
+    private long actions;
+
+    EnlistmentCohort(EnlistmentWindows.Cohort cohort) {
+        notNull(cohort, "cohort can't be null");
+        this.cohortIndex = cohort.index();
+        this.priority = cohort.priority();
+        this.firstStudentNumber = cohort.firstStudentNumber();
+        this.lastStudentNumber = cohort.lastStudentNumber();
+        this.students = cohort.students();
+        this.opensAt = cohort.opensAt();
+        this.closesAt = cohort.opensAt().plus(cohort.window());
+    }
+
+    EnlistmentWindows.Cohort toCohort() {
+        return new EnlistmentWindows.Cohort(cohortIndex, priority, firstStudentNumber, lastStudentNumber, students,
+                opensAt, Duration.between(opensAt, closesAt));
+    }
+
+    void reschedule(EnlistmentWindows.Cohort cohort) {
+        notNull(cohort, "cohort can't be null");
+        isTrue(cohort.index() == cohortIndex, "cohort %d is not %d", cohort.index(), cohortIndex);
+        this.opensAt = cohort.opensAt();
+        this.closesAt = cohort.opensAt().plus(cohort.window());
+    }
+
+    void addActions(long actions) {
+        this.actions += actions;
+    }
+
+    public int getCohortIndex() {
+        return cohortIndex;
+    }
+
+    public long getActions() {
+        return actions;
+    }
+
+    @Override
+    public String toString() {
+        return "EnlistmentCohort " + cohortIndex + " opens at " + opensAt + ", closes at " + closesAt;
+    }
+
+    // For JPA only. Do not call!
+    private EnlistmentCohort() {
+        cohortIndex = 0;
+        priority = false;
+        firstStudentNumber = 0;
+        lastStudentNumber = 0;
+        students = 0;
+    }
+}
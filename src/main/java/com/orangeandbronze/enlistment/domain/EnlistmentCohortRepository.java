@@ -0,0 +1,12 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+
+@Repository
+public interface EnlistmentCohortRepository extends JpaRepository<EnlistmentCohort, Integer> {
+
+    List<EnlistmentCohort> findAllByOrderByCohortIndex();
+}
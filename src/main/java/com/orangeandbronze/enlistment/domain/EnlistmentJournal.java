@@ -0,0 +1,346 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.slf4j.*;
+import org.springframework.beans.factory.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.stream.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Event-sourced record of committed enlistments, cancellations, section creations & archivals, as compact binary
+ * events in a {@link MappedAppendLog}, with the enrollment state they add up to kept in memory.
+ * <p>
+ * The state is periodically written to a snapshot file tagged w/ the journal position it covers, after which the
+ * journal segments before that position are deleted. On startup the state is rebuilt from the latest snapshot plus
+ * the events after it and loaded into the {@link EnrollmentCache}, instead of reading every student's sections from
+ * the database. The rebuilt state is only trusted if it agrees w/ the database on the number of sections, the number
+ * of enrollments & the sum of a hash of each (student, section) pair (see
+ * {@link StudentRepository#enrollmentChecksum()}), so a student enlisted in a different section also counts; otherwise
+ * (first start, a recreated schema, writes the journal missed) it's seeded from the section table & the enrollment
+ * join table and snapshotted.
+ * <p>
+ * {@link #forEach(long, java.util.function.Consumer)} only sees the events since about the latest snapshot, since a
+ * snapshot deletes the segments before it; it's a recent history, not a full audit trail.
+ * <p>
+ * Per node: in a multi-node deployment each node journals the actions it served, so a node that restarts after
+ * others have served enlistments fails the check and re-seeds.
+ */
+@Component
+public class EnlistmentJournal implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EnlistmentJournal.class);
+    private static final int SNAPSHOT_MAGIC = 0x454a534e; // "EJSN"
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    private final Path directory;
+    private final MappedAppendLog appendLog;
+    private final State state = new State(); // guarded by this, together w/ appends to the log
+
+    @Autowired
+    private SectionRepository sectionRepo;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private EnrollmentCache enrollmentCache;
+
+    @Autowired
+    public EnlistmentJournal(@Value("${enlistment.journal.directory}") Path directory,
+                             @Value("${enlistment.journal.segment-bytes:16777216}") int segmentBytes) throws IOException {
+        this.directory = directory;
+        this.appendLog = new MappedAppendLog(directory.resolve("events"), segmentBytes);
+    }
+
+    /** Called by {@link CacheWarmup} on startup. */
+    public void recover() throws IOException {
+        long started = System.nanoTime();
+        int replayed = restore();
+        if (sectionRepo != null && studentRepo != null && !agreesWithDatabase()) {
+            seed(sectionRepo.findAllSectionIds(), studentRepo.findAllEnrollments());
+            snapshot();
+        }
+        if (enrollmentCache != null) {
+            synchronized (this) {
+                state.sectionsByStudent.forEach(enrollmentCache::load);
+            }
+        }
+        log.info("rebuilt enrollment of {} students from journal ({} events replayed) in {} ms",
+                studentCount(), replayed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private boolean agreesWithDatabase() {
+        if (sectionRepo.count() != sectionCount()) {
+            return false;
+        }
+        StudentRepository.EnrollmentChecksum database = studentRepo.enrollmentChecksum();
+        long enrollments = 0;
+        long hashSum = 0;
+        synchronized (this) {
+            for (Map.Entry<Integer, Set<String>> student : state.sectionsByStudent.entrySet()) {
+                for (String sectionId : student.getValue()) {
+                    enrollments++;
+                    hashSum += enrollmentHash(student.getKey(), sectionId);
+                }
+            }
+        }
+        if (database.getEnrollments() == enrollments && database.getEnrollmentHashSum() == hashSum) {
+            return true;
+        }
+        log.warn("journal has {} enrollments (checksum {}), database {} ({}); re-seeding from the database",
+                enrollments, hashSum, database.getEnrollments(), database.getEnrollmentHashSum());
+        return false;
+    }
+
+    /** The first 4 bytes of the MD5 of {@code studentNumber:sectionId}, as {@link StudentRepository} sums them. */
+    static int enrollmentHash(int studentNumber, String sectionId) {
+        try {
+            byte[] md5 = MessageDigest.getInstance("MD5")
+                    .digest((studentNumber + ":" + sectionId).getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(md5).getInt();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JDK has MD5
+        }
+    }
+
+    /** Loads the latest snapshot & replays the events after it, returning how many were replayed. */
+    synchronized int restore() throws IOException {
+        state.clear();
+        long from = 0;
+        Optional<Path> latest = latestSnapshot();
+        if (latest.isPresent()) {
+            from = readSnapshot(latest.get());
+        }
+        int[] replayed = {0};
+        appendLog.forEach(from, (position, bytes) -> {
+            state.apply(Event.fromBytes(bytes));
+            replayed[0]++;
+        });
+        return replayed[0];
+    }
+
+    /** Replaces the state w/ the database's, e.g. when the journal starts empty. */
+    synchronized void seed(Collection<String> sectionIds, Collection<StudentSection> enrollments) {
+        state.clear();
+        sectionIds.forEach(state.sections::add);
+        for (StudentSection enrollment : enrollments) {
+            state.apply(new Event(Type.ENLISTED, 0, enrollment.getStudentNumber(), enrollment.getSectionId()));
+        }
+    }
+
+    public void enlisted(int studentNumber, String sectionId) {
+        append(new Event(Type.ENLISTED, System.currentTimeMillis(), studentNumber, sectionId));
+    }
+
+    public void cancelled(int studentNumber, String sectionId) {
+        append(new Event(Type.CANCELLED, System.currentTimeMillis(), studentNumber, sectionId));
+    }
+
+    public void sectionCreated(String sectionId) {
+        append(new Event(Type.SECTION_CREATED, System.currentTimeMillis(), 0, sectionId));
+    }
+
+    /** The section & its enrollments have moved to the {@link TermArchive}. */
+    public void sectionArchived(String sectionId) {
+        append(new Event(Type.SECTION_ARCHIVED, System.currentTimeMillis(), 0, sectionId));
+    }
+
+    private synchronized void append(Event event) {
+        appendLog.append(event.toBytes());
+        state.apply(event);
+    }
+
+    /** Calls back w/ every event still in the journal at or after the position, oldest first. */
+    public void forEach(long fromPosition, java.util.function.Consumer<Event> consumer) {
+        appendLog.forEach(fromPosition, (position, bytes) -> consumer.accept(Event.fromBytes(bytes)));
+    }
+
+    public synchronized Set<String> sectionsOf(int studentNumber) {
+        return Set.copyOf(state.sectionsByStudent.getOrDefault(studentNumber, Set.of()));
+    }
+
+    public synchronized int studentCount() {
+        return state.sectionsByStudent.size();
+    }
+
+    public synchronized int sectionCount() {
+        return state.sections.size();
+    }
+
+    /**
+     * Writes the state & the journal position it covers to a new snapshot file, then deletes older snapshots and
+     * the journal segments the snapshot makes redundant.
+     */
+    @Scheduled(fixedDelayString = "${enlistment.journal.snapshot-interval:PT10M}",
+            initialDelayString = "${enlistment.journal.snapshot-interval:PT10M}")
+    public void snapshot() throws IOException {
+        long position;
+        State copy;
+        synchronized (this) {
+            position = appendLog.endPosition();
+            copy = state.copy();
+        }
+        Path file = directory.resolve(String.format("%s%020d", SNAPSHOT_PREFIX, position));
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(position);
+            out.writeInt(copy.sections.size());
+            for (String sectionId : copy.sections) {
+                out.writeUTF(sectionId);
+            }
+            out.writeInt(copy.sectionsByStudent.size());
+            for (Map.Entry<Integer, Set<String>> student : copy.sectionsByStudent.entrySet()) {
+                out.writeInt(student.getKey());
+                out.writeShort(student.getValue().size());
+                for (String sectionId : student.getValue()) {
+                    out.writeUTF(sectionId);
+                }
+            }
+            out.flush();
+            stream.getFD().sync(); // durable before the segments it replaces are deleted
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        try (Stream<Path> snapshots = snapshotFiles()) {
+            for (Path older : snapshots.filter(f -> !f.equals(file)).toList()) {
+                Files.deleteIfExists(older);
+            }
+        }
+        appendLog.deleteSegmentsBefore(position);
+    }
+
+    @Scheduled(fixedDelayString = "${enlistment.journal.flush-interval:PT1S}")
+    public void flush() {
+        appendLog.force();
+    }
+
+    @Override
+    public void destroy() {
+        appendLog.close();
+    }
+
+    private long readSnapshot(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            isTrue(in.readInt() == SNAPSHOT_MAGIC, "not a journal snapshot: %s", file);
+            long position = in.readLong();
+            int sections = in.readInt();
+            for (int i = 0; i < sections; i++) {
+                state.sections.add(in.readUTF());
+            }
+            int students = in.readInt();
+            for (int i = 0; i < students; i++) {
+                int studentNumber = in.readInt();
+                int count = in.readShort();
+                Set<String> sectionIds = new HashSet<>(count * 2);
+                for (int j = 0; j < count; j++) {
+                    sectionIds.add(in.readUTF());
+                }
+                state.sectionsByStudent.put(studentNumber, sectionIds);
+            }
+            return position;
+        }
+    }
+
+    private Optional<Path> latestSnapshot() throws IOException {
+        try (Stream<Path> snapshots = snapshotFiles()) {
+            return snapshots.max(Comparator.comparing(Path::getFileName));
+        }
+    }
+
+    private Stream<Path> snapshotFiles() throws IOException {
+        return Files.list(directory).filter(f -> {
+            String name = f.getFileName().toString();
+            return name.startsWith(SNAPSHOT_PREFIX) && !name.endsWith(".tmp");
+        });
+    }
+
+    void setSectionRepo(SectionRepository sectionRepo) {
+        this.sectionRepo = sectionRepo;
+    }
+
+    void setStudentRepo(StudentRepository studentRepo) {
+        this.studentRepo = studentRepo;
+    }
+
+    void setEnrollmentCache(EnrollmentCache enrollmentCache) {
+        this.enrollmentCache = enrollmentCache;
+    }
+
+    public enum Type {
+        ENLISTED, CANCELLED, SECTION_CREATED, SECTION_ARCHIVED // new types go last, the ordinal is what's written
+    }
+
+    /** {@code [byte type][long epochMillis][int studentNumber][UTF-8 sectionId]}; no student for section events. */
+    public record Event(Type type, long epochMillis, int studentNumber, String sectionId) {
+
+        public Event {
+            notNull(type, "type can't be null");
+            notBlank(sectionId, "sectionId can't be blank");
+        }
+
+        byte[] toBytes() {
+            byte[] id = sectionId.getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(13 + id.length).put((byte) type.ordinal()).putLong(epochMillis)
+                    .putInt(studentNumber).put(id).array();
+        }
+
+        static Event fromBytes(ByteBuffer bytes) {
+            Type type = Type.values()[bytes.get()];
+            long epochMillis = bytes.getLong();
+            int studentNumber = bytes.getInt();
+            byte[] id = new byte[bytes.remaining()];
+            bytes.get(id);
+            return new Event(type, epochMillis, studentNumber, new String(id, StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Known sections & each student's sections, as the events so far add up to. */
+    private static final class State {
+        final Set<String> sections = new HashSet<>();
+        final Map<Integer, Set<String>> sectionsByStudent = new HashMap<>();
+
+        void apply(Event event) {
+            switch (event.type()) {
+                case SECTION_CREATED -> sections.add(event.sectionId());
+                case ENLISTED -> {
+                    sections.add(event.sectionId());
+                    sectionsByStudent.computeIfAbsent(event.studentNumber(), n -> new HashSet<>()).add(event.sectionId());
+                }
+                case CANCELLED -> {
+                    Set<String> sectionIds = sectionsByStudent.get(event.studentNumber());
+                    if (sectionIds != null) {
+                        sectionIds.remove(event.sectionId());
+                    }
+                }
+                case SECTION_ARCHIVED -> {
+                    sections.remove(event.sectionId());
+                    sectionsByStudent.values().forEach(sectionIds -> sectionIds.remove(event.sectionId()));
+                }
+            }
+        }
+
+        State copy() {
+            State copy = new State();
+            copy.sections.addAll(sections);
+            sectionsByStudent.forEach((studentNumber, sectionIds) ->
+                    copy.sectionsByStudent.put(studentNumber, new HashSet<>(sectionIds)));
+            return copy;
+        }
+
+        void clear() {
+            sections.clear();
+            sectionsByStudent.clear();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.orm.*;
+import org.springframework.retry.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * The enlist & cancel pipeline shared by the enlistment page and the JSON API: the student's enlistment window,
+ * then lottery sections, then duplicate submissions, then the seat change itself. Only the seat change runs in a
+ * (write) transaction, so a pooled connection is held just for the lookups & the enlistment's updates; an optimistic
+ * lock failure retries the whole pipeline. Caches, the journal & the attempt log only hear about a change once it has
+ * committed.
+ * <p>
+ * The seat change is applied to a copy of the student loaded in its own transaction, never to the caller's (e.g.
+ * the session's), so a rolled-back attempt can't leave the caller's copy w/ changes the database doesn't have.
+ */
+@Component
+public class EnlistmentService {
+
+    private final SectionRepository sectionRepo;
+    private final StudentRepository studentRepo;
+    private final TransactionTemplate writeTx;
+    private final ClusterCoordinator clusterCoordinator;
+    private final EnlistmentWindows windows;
+    private final LotteryAllocator lottery;
+    private final IdempotencyStore idempotencyStore;
+    private final SeatHoldRegistry seatHolds;
+    private final EnrollmentCache enrollmentCache;
+    private final SectionCatalog sectionCatalog;
+    private final ConflictMatrix conflictMatrix;
+    private final EnlistmentAttemptLog attemptLog;
+    private final EnlistmentJournal journal;
+
+    @Autowired
+    public EnlistmentService(SectionRepository sectionRepo, StudentRepository studentRepo,
+                             PlatformTransactionManager transactionManager, ClusterCoordinator clusterCoordinator,
+                             EnlistmentWindows windows, LotteryAllocator lottery, IdempotencyStore idempotencyStore,
+                             SeatHoldRegistry seatHolds, EnrollmentCache enrollmentCache,
+                             SectionCatalog sectionCatalog, ConflictMatrix conflictMatrix,
+                             EnlistmentAttemptLog attemptLog, EnlistmentJournal journal) {
+        this(sectionRepo, studentRepo, new TransactionTemplate(transactionManager), clusterCoordinator,
+                windows, lottery, idempotencyStore, seatHolds, enrollmentCache, sectionCatalog,
+                conflictMatrix, attemptLog, journal);
+    }
+
+    EnlistmentService(SectionRepository sectionRepo, StudentRepository studentRepo, TransactionTemplate writeTx,
+                      ClusterCoordinator clusterCoordinator, EnlistmentWindows windows, LotteryAllocator lottery,
+                      IdempotencyStore idempotencyStore, SeatHoldRegistry seatHolds, EnrollmentCache enrollmentCache,
+                      SectionCatalog sectionCatalog, ConflictMatrix conflictMatrix, EnlistmentAttemptLog attemptLog,
+                      EnlistmentJournal journal) {
+        notNull(sectionRepo, "sectionRepo can't be null");
+        notNull(studentRepo, "studentRepo can't be null");
+        notNull(writeTx, "writeTx can't be null");
+        notNull(clusterCoordinator, "clusterCoordinator can't be null");
+        notNull(windows, "windows can't be null");
+        notNull(lottery, "lottery can't be null");
+        notNull(idempotencyStore, "idempotencyStore can't be null");
+        notNull(seatHolds, "seatHolds can't be null");
+        notNull(enrollmentCache, "enrollmentCache can't be null");
+        notNull(sectionCatalog, "sectionCatalog can't be null");
+        notNull(conflictMatrix, "conflictMatrix can't be null");
+        notNull(attemptLog, "attemptLog can't be null");
+        notNull(journal, "journal can't be null");
+        this.sectionRepo = sectionRepo;
+        this.studentRepo = studentRepo;
+        this.writeTx = writeTx;
+        this.clusterCoordinator = clusterCoordinator;
+        this.windows = windows;
+        this.lottery = lottery;
+        this.idempotencyStore = idempotencyStore;
+        this.seatHolds = seatHolds;
+        this.enrollmentCache = enrollmentCache;
+        this.sectionCatalog = sectionCatalog;
+        this.conflictMatrix = conflictMatrix;
+        this.attemptLog = attemptLog;
+        this.journal = journal;
+    }
+
+    /**
+     * Loads the student for a new session, once their enlistment window is open.
+     *
+     * @throws EnlistmentWindowClosedException before touching the database, if the window isn't open yet
+     */
+    public Student login(int studentNumber) {
+        windows.checkOpen(studentNumber);
+        Student student = studentRepo.findById(studentNumber)
+                .orElseThrow(() -> new NoSuchElementException("No student for studentNumber " + studentNumber));
+        enrollmentCache.load(student);
+        return student;
+    }
+
+    /**
+     * The student, reloaded if they hold a section that's gone from the catalog, e.g. archived w/ its term, or if
+     * the enrollment cache has their enlistments differently, e.g. after an enlist or cancel on another node; for a
+     * session's copy, which would otherwise keep showing & checking against what it had.
+     */
+    public Student current(Student student) {
+        notNull(student, "student can't be null");
+        if (isCurrent(student)) {
+            return student;
+        }
+        return studentRepo.findById(student.getStudentNumber()).orElse(student);
+    }
+
+    private boolean isCurrent(Student student) {
+        Collection<Section> sections = student.getSections();
+        if (sectionCatalog.isLoaded()
+                && !sections.stream().allMatch(section -> sectionCatalog.find(section.getSectionId()).isPresent())) {
+            return false;
+        }
+        // the cache hears about other nodes' changes (EnrollmentCache#onSeatsChanged), the session's copy doesn't
+        return enrollmentCache.sectionIdsOf(student.getStudentNumber())
+                .map(cached -> cached.size() == sections.size() && sections.stream()
+                        .allMatch(section -> cached.contains(section.getSectionId())))
+                .orElse(true);
+    }
+
+    /** What the enlistment page shows the student, from the caches where they're loaded. */
+    public EnlistmentPage page(Student student) {
+        notNull(student, "student can't be null");
+        Predicate<Section> enlisted = enrollmentCache.isLoaded(student.getStudentNumber())
+                ? section -> enrollmentCache.isEnlisted(student.getStudentNumber(), section.getSectionId())
+                : student::isEnlistedIn;
+        List<Section> sections = sectionCatalog.isLoaded() ? sectionCatalog.sections() : sectionRepo.findAll();
+        return new EnlistmentPage(student.getSections(),
+                sections.stream().filter(enlisted.negate()).collect(Collectors.toList()),
+                conflictMatrix.conflictingWith(student.getSections()),
+                lottery.isCollecting() ? lottery.entriesOf(student.getStudentNumber()) : List.of());
+    }
+
+    /**
+     * Enlists the student in the section, or enters them in its lottery while it's collecting entries. A submission
+     * w/ the same idempotency key as an earlier one gets the earlier one's outcome instead of running again.
+     *
+     * @return the student as committed, to replace the given one; the given one if no seat changed hands
+     */
+    @Retryable(retryFor = ObjectOptimisticLockingFailureException.class, maxAttempts = 10)
+    public Student enlist(Student student, String sectionId, String idempotencyKey) {
+        return apply(student, sectionId, idempotencyKey, true);
+    }
+
+    /**
+     * Cancels the student's enlistment in the section, or withdraws their lottery entry for it.
+     *
+     * @return the student as committed, to replace the given one; the given one if no seat changed hands
+     */
+    @Retryable(retryFor = ObjectOptimisticLockingFailureException.class, maxAttempts = 10)
+    public Student cancel(Student student, String sectionId, String idempotencyKey) {
+        return apply(student, sectionId, idempotencyKey, false);
+    }
+
+    /**
+     * Holds a seat in the section for the student, checked like an enlistment: the window must be open, and the
+     * student must be able to enlist in the section as it is now, under the same seat lock as enlistments. Holds are
+     * per-node (see {@link SeatHoldRegistry}), so under multi-node they only keep the seat from enlistments on this
+     * node.
+     */
+    public SeatHoldRegistry.SeatHold hold(Student student, String sectionId) {
+        notNull(student, "student can't be null");
+        notNull(sectionId, "sectionId can't be null");
+        int studentNumber = student.getStudentNumber();
+        windows.checkOpen(studentNumber);
+        return writeTx.execute(status -> {
+            clusterCoordinator.lockSeats(sectionId);
+            Section section = sectionRepo.findById(sectionId).orElseThrow();
+            studentRepo.findById(studentNumber).orElseThrow().checkCanEnlist(section);
+            return seatHolds.hold(student, section);
+        });
+    }
+
+    private Student apply(Student student, String sectionId, String idempotencyKey, boolean enlist) {
+        notNull(student, "student can't be null");
+        notNull(sectionId, "sectionId can't be null");
+        windows.admit(student.getStudentNumber());
+        if (lottery.isCollecting(sectionId)) { // no seat changes hands until the draw
+            if (enlist ? lottery.enter(student.getStudentNumber(), sectionId)
+                    : lottery.withdraw(student.getStudentNumber(), sectionId)) {
+                return student;
+            }
+        }
+        String dedupeKey = idempotencyKey == null ? null : student.getStudentNumber() + ":" + idempotencyKey;
+        if (dedupeKey != null) {
+            Optional<IdempotencyStore.Outcome> firstOutcome = idempotencyStore.claim(dedupeKey);
+            if (firstOutcome.isPresent()) { // duplicate submission, answered without touching the database
+                firstOutcome.get().replay();
+                return student;
+            }
+        }
+        EnlistmentException rejection = null;
+        boolean failed = true;
+        int studentNumber = student.getStudentNumber();
+        try {
+            // commits (or retries from the top) before returning, so no connection outlives the action
+            Student committed = writeTx.execute(status -> applyInTransaction(sectionId, enlist, studentNumber));
+            failed = false;
+            return committed;
+        } catch (EnlistmentException e) {
+            rejection = e;
+            throw e;
+        } finally {
+            if (dedupeKey != null) {
+                recordOutcomeAfterTransaction(dedupeKey, rejection, failed);
+            }
+        }
+    }
+
+    /** Success only counts once committed; a rolled-back attempt (e.g. before a retry) frees the key again. */
+    private void recordOutcomeAfterTransaction(String dedupeKey, EnlistmentException rejection, boolean failed) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    recordOutcome(dedupeKey, rejection, failed || status != STATUS_COMMITTED);
+                }
+            });
+        } else {
+            recordOutcome(dedupeKey, rejection, failed);
+        }
+    }
+
+    private void recordOutcome(String dedupeKey, EnlistmentException rejection, boolean failed) {
+        if (rejection != null) {
+            idempotencyStore.complete(dedupeKey, IdempotencyStore.Outcome.rejected(rejection));
+        } else if (failed) {
+            idempotencyStore.forget(dedupeKey);
+        } else {
+            idempotencyStore.complete(dedupeKey, IdempotencyStore.Outcome.NOTHING_TO_REPLAY);
+        }
+    }
+
+    private Student applyInTransaction(String sectionId, boolean enlist, int studentNumber) {
+        clusterCoordinator.lockSeats(sectionId); // serialize seat updates for this section across nodes
+        Section section = sectionRepo.findById(sectionId).orElseThrow();
+        // fresh & managed, so the flush writes only the changed join row, and a rollback only discards this copy
+        Student student = studentRepo.findById(studentNumber).orElseThrow();
+        try {
+            if (enlist) {
+                enlist(section, student);
+            } else {
+                cancel(section, student);
+            }
+        } catch (EnlistmentException e) {
+            recordAttempt(student, section, enlist, EnlistmentAttempt.Outcome.of(e));
+            throw e;
+        }
+        runAfterCommit(() -> recordAttempt(student, section, enlist, EnlistmentAttempt.Outcome.SUCCEEDED));
+        // both are managed, so the commit flushes them; save() would merge them for nothing
+        clusterCoordinator.publishSeatsChanged(sectionId, studentNumber);
+        return student;
+    }
+
+    private void enlist(Section section, Student student) {
+        String sectionId = section.getSectionId();
+        section.countHeldSeats(seatHolds.seatsHeldByOthers(sectionId, student.getStudentNumber()));
+        student.enlist(section);
+        runAfterCommit(() -> seatHolds.release(student.getStudentNumber(), sectionId));
+        runAfterCommit(() -> enrollmentCache.enlisted(student.getStudentNumber(), sectionId));
+        runAfterCommit(() -> journal.enlisted(student.getStudentNumber(), sectionId));
+    }
+
+    private void cancel(Section section, Student student) {
+        String sectionId = section.getSectionId();
+        student.cancel(section);
+        runAfterCommit(() -> enrollmentCache.cancelled(student.getStudentNumber(), sectionId));
+        runAfterCommit(() -> journal.cancelled(student.getStudentNumber(), sectionId));
+    }
+
+    /** Rejections are recorded right away, successes only once committed, so demand never counts a rolled-back seat. */
+    private void recordAttempt(Student student, Section section, boolean enlist, EnlistmentAttempt.Outcome outcome) {
+        attemptLog.record(new EnlistmentAttempt(System.currentTimeMillis(), student.getStudentNumber(),
+                section.getSectionId(), enlist, outcome, section.getSeatsLeft()));
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /** The student's sections, the sections they can still enlist in & which of those clash, and lottery entries. */
+    public record EnlistmentPage(Collection<Section> enlisted, List<Section> available,
+                                 Set<String> conflictingSectionIds, List<String> lotteryEntries) {
+    }
+}
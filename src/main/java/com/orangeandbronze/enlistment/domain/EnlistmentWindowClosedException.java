@@ -0,0 +1,17 @@
+package com.orangeandbronze.enlistment.domain;
+
+import java.time.*;
+
+public class EnlistmentWindowClosedException extends EnlistmentException {
+
+    private final Instant opensAt;
+
+    EnlistmentWindowClosedException(int studentNumber, Instant opensAt) {
+        super("Enlistment for student# " + studentNumber + " opens at " + opensAt);
+        this.opensAt = opensAt;
+    }
+
+    public Instant getOpensAt() {
+        return opensAt;
+    }
+}
@@ -0,0 +1,362 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Staggered enlistment windows, so students don't all arrive the moment enlistment opens. Students are split into
+ * cohorts of equal size by student number, after an optional cohort of priority students (e.g. graduating ones)
+ * that opens first. Each cohort opens when the previous one's window ends, and stays open from then on.
+ * <p>
+ * A cohort's window is sized so its students' actions arrive at about {@code target-per-minute}: students × actions
+ * per student ÷ target, within {@code min-window} & {@code max-window}. Actions per student start at
+ * {@code actions-per-student} and are then learned from the actions each cohort actually took during its window, so
+ * cohorts that haven't opened yet get longer windows if students turn out busier than expected, or shorter ones if
+ * not. Openings that have already passed, or are less than an {@code adjust-interval} away, never move.
+ * <p>
+ * The plan is kept as {@link EnlistmentCohort}s: the first node to start plans & saves it, and every other node, or
+ * this one after a restart, loads it, so all agree on the cohorts & pinned openings. Adjusting adds the actions this
+ * node counted to the saved ones and reschedules from the totals, one node at a time under the windows lock
+ * ({@link ClusterCoordinator}); each node picks up the others' adjustments on its own next adjust, which is before
+ * any of them passes, as openings within an interval are pinned.
+ * <p>
+ * W/o {@code enlistment.windows.opens-at} there are no windows and enlistment is open to everyone.
+ */
+@Component
+public class EnlistmentWindows {
+
+    private static final Logger log = LoggerFactory.getLogger(EnlistmentWindows.class);
+
+    private final Instant opensAt;
+    private final int cohortSize;
+    private final Set<Integer> priorityStudents;
+    private final Duration minWindow;
+    private final Duration maxWindow;
+    private final double targetPerMinute;
+    private final double expectedActionsPerStudent;
+    private final long adjustIntervalMillis;
+    private final LongSupplier clock;
+    private volatile Plan plan; // null until planned, or if there are no windows
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private EnlistmentCohortRepository cohortRepo;
+
+    @Autowired
+    private ClusterCoordinator clusterCoordinator;
+
+    private TransactionTemplate writeTx;
+
+    @Autowired
+    public EnlistmentWindows(@Value("${enlistment.windows.opens-at:}") String opensAt,
+                             @Value("${enlistment.windows.zone:}") String zone,
+                             @Value("${enlistment.windows.cohort-size:500}") int cohortSize,
+                             @Value("${enlistment.windows.priority-students:}") Set<Integer> priorityStudents,
+                             @Value("${enlistment.windows.min-window:PT5M}") Duration minWindow,
+                             @Value("${enlistment.windows.max-window:PT2H}") Duration maxWindow,
+                             @Value("${enlistment.windows.target-per-minute:600}") double targetPerMinute,
+                             @Value("${enlistment.windows.actions-per-student:6}") double expectedActionsPerStudent,
+                             @Value("${enlistment.windows.adjust-interval:PT1M}") Duration adjustInterval) {
+        this(opensAt.isBlank() ? null : LocalDateTime.parse(opensAt)
+                        .atZone(zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone)).toInstant(),
+                cohortSize, priorityStudents, minWindow, maxWindow, targetPerMinute, expectedActionsPerStudent,
+                adjustInterval, System::currentTimeMillis);
+    }
+
+    EnlistmentWindows(Instant opensAt, int cohortSize, Set<Integer> priorityStudents, Duration minWindow,
+                      Duration maxWindow, double targetPerMinute, double expectedActionsPerStudent,
+                      Duration adjustInterval, LongSupplier clock) {
+        isTrue(cohortSize > 0, "cohortSize must be greater than zero, was: %d", cohortSize);
+        notNull(priorityStudents, "priorityStudents can't be null");
+        notNull(minWindow, "minWindow can't be null");
+        notNull(maxWindow, "maxWindow can't be null");
+        isTrue(minWindow.compareTo(maxWindow) <= 0, "minWindow %s is longer than maxWindow %s", minWindow, maxWindow);
+        isTrue(targetPerMinute > 0, "targetPerMinute must be positive, was: %f", targetPerMinute);
+        isTrue(expectedActionsPerStudent > 0, "expectedActionsPerStudent must be positive, was: %f",
+                expectedActionsPerStudent);
+        notNull(adjustInterval, "adjustInterval can't be null");
+        notNull(clock, "clock can't be null");
+        this.opensAt = opensAt;
+        this.cohortSize = cohortSize;
+        this.priorityStudents = Set.copyOf(priorityStudents);
+        this.minWindow = minWindow;
+        this.maxWindow = maxWindow;
+        this.targetPerMinute = targetPerMinute;
+        this.expectedActionsPerStudent = expectedActionsPerStudent;
+        this.adjustIntervalMillis = adjustInterval.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Loads the saved plan on startup, or splits the students into cohorts & saves them if there's none yet; a no-op
+     * once planned or if there are no windows.
+     */
+    public synchronized void plan() {
+        if (opensAt == null || plan != null || studentRepo == null) {
+            return;
+        }
+        if (cohortRepo == null) {
+            plan(studentRepo.findAllStudentNumbers());
+            return;
+        }
+        writeTx.executeWithoutResult(status -> {
+            clusterCoordinator.lockWindows();
+            List<EnlistmentCohort> saved = cohortRepo.findAllByOrderByCohortIndex();
+            if (saved.isEmpty()) {
+                plan(studentRepo.findAllStudentNumbers());
+                cohortRepo.saveAll(plan.cohorts.stream().map(EnlistmentCohort::new).toList());
+            } else {
+                AtomicLong[] actions = new AtomicLong[saved.size()];
+                Arrays.setAll(actions, i -> new AtomicLong());
+                this.plan = planOf(saved, actions);
+                log.info("enlistment opens at {} in {} cohorts, as planned before", opensAt, saved.size());
+            }
+        });
+    }
+
+    /** Cohorts are fixed from here on, so a student's cohort never changes; students added later join the last. */
+    synchronized void plan(Collection<Integer> studentNumbers) {
+        notNull(studentNumbers, "studentNumbers can't be null");
+        if (opensAt == null || plan != null) {
+            return;
+        }
+        List<Integer> priority = studentNumbers.stream().filter(priorityStudents::contains).sorted().toList();
+        List<Integer> others = studentNumbers.stream().filter(n -> !priorityStudents.contains(n)).sorted().toList();
+        List<Cohort> cohorts = new ArrayList<>();
+        if (!priority.isEmpty()) {
+            cohorts.add(new Cohort(0, true, priority.get(0), priority.get(priority.size() - 1), priority.size(),
+                    opensAt, Duration.ZERO));
+        }
+        int regular = 0;
+        do { // at least one regular cohort, for students added later
+            List<Integer> members = others.subList(regular * cohortSize,
+                    Math.min((regular + 1) * cohortSize, others.size()));
+            cohorts.add(new Cohort(cohorts.size(), false, members.isEmpty() ? 0 : members.get(0),
+                    members.isEmpty() ? Integer.MAX_VALUE : members.get(members.size() - 1), members.size(),
+                    opensAt, Duration.ZERO));
+            regular++;
+        } while (regular * cohortSize < others.size());
+        AtomicLong[] actions = new AtomicLong[cohorts.size()];
+        Arrays.setAll(actions, i -> new AtomicLong());
+        this.plan = schedule(new Plan(List.copyOf(cohorts), new long[cohorts.size()], actions), true,
+                clock.getAsLong());
+        log.info("enlistment opens at {} for {} students in {} cohorts", opensAt, studentNumbers.size(), cohorts.size());
+    }
+
+    /** Resizes the windows of cohorts that haven't opened yet from the actions students have taken so far. */
+    @Scheduled(fixedDelayString = "${enlistment.windows.adjust-interval:PT1M}")
+    public synchronized void adjust() {
+        Plan current = plan;
+        if (current == null) {
+            return;
+        }
+        if (cohortRepo == null) {
+            this.plan = schedule(current, false, clock.getAsLong());
+            return;
+        }
+        long[] added = new long[current.actions.length];
+        Plan adjusted = writeTx.execute(status -> {
+            clusterCoordinator.lockWindows();
+            List<EnlistmentCohort> saved = cohortRepo.findAllByOrderByCohortIndex();
+            for (EnlistmentCohort cohort : saved) {
+                added[cohort.getCohortIndex()] = current.actions[cohort.getCohortIndex()].get();
+                cohort.addActions(added[cohort.getCohortIndex()]);
+            }
+            AtomicLong[] none = new AtomicLong[saved.size()];
+            Arrays.setAll(none, i -> new AtomicLong());
+            Plan rescheduled = schedule(planOf(saved, none), false, clock.getAsLong());
+            saved.forEach(cohort -> cohort.reschedule(rescheduled.cohorts.get(cohort.getCohortIndex())));
+            return rescheduled;
+        });
+        for (int i = 0; i < added.length; i++) {
+            current.actions[i].addAndGet(-added[i]); // counted while adjusting are kept for the next time
+        }
+        this.plan = new Plan(adjusted.cohorts, adjusted.recorded, current.actions);
+    }
+
+    /** The saved cohorts, w/ the actions saved for them as recorded & the given counters for this node's. */
+    private static Plan planOf(List<EnlistmentCohort> saved, AtomicLong[] actions) {
+        return new Plan(saved.stream().map(EnlistmentCohort::toCohort).toList(),
+                saved.stream().mapToLong(EnlistmentCohort::getActions).toArray(), actions);
+    }
+
+    /**
+     * Each cohort that hasn't opened opens when the previous one's window ends; a window ends at the next opening.
+     * Openings less than an adjust interval away are pinned too, so every node has seen them before they pass.
+     */
+    private Plan schedule(Plan current, boolean initial, long now) {
+        double actionsPerStudent = actionsPerStudent(current, now);
+        List<Instant> openings = new ArrayList<>(current.cohorts.size());
+        Instant next = opensAt;
+        for (Cohort cohort : current.cohorts) {
+            Instant opening = !initial && cohort.opensAt.toEpochMilli() <= now + adjustIntervalMillis
+                    ? cohort.opensAt : next;
+            openings.add(opening);
+            next = opening.plus(windowFor(cohort.students, actionsPerStudent));
+        }
+        openings.add(next);
+        List<Cohort> cohorts = new ArrayList<>(current.cohorts.size());
+        for (Cohort cohort : current.cohorts) {
+            Instant opening = openings.get(cohort.index);
+            cohorts.add(new Cohort(cohort.index, cohort.priority, cohort.firstStudentNumber,
+                    cohort.lastStudentNumber, cohort.students, opening,
+                    Duration.between(opening, openings.get(cohort.index + 1))));
+        }
+        return new Plan(List.copyOf(cohorts), current.recorded, current.actions);
+    }
+
+    private Duration windowFor(int students, double actionsPerStudent) {
+        Duration window = Duration.ofMillis((long) (students * actionsPerStudent / targetPerMinute * 60_000));
+        return window.compareTo(minWindow) < 0 ? minWindow : window.compareTo(maxWindow) > 0 ? maxWindow : window;
+    }
+
+    /** Learned from cohorts whose windows have ended; the configured estimate until there are any. */
+    private double actionsPerStudent(Plan plan, long now) {
+        long actions = 0;
+        long students = 0;
+        for (Cohort cohort : plan.cohorts) {
+            if (!cohort.window.isZero() && cohort.opensAt.plus(cohort.window).toEpochMilli() <= now) {
+                actions += plan.recorded[cohort.index] + plan.actions[cohort.index].get();
+                students += cohort.students;
+            }
+        }
+        return actions == 0 || students == 0 ? expectedActionsPerStudent : (double) actions / students;
+    }
+
+    public boolean isOpen(int studentNumber) {
+        return opensAt(studentNumber).map(at -> at.toEpochMilli() <= clock.getAsLong()).orElse(true);
+    }
+
+    /** When the student's window opens; empty if there are no windows. */
+    public Optional<Instant> opensAt(int studentNumber) {
+        Plan current = plan;
+        return current == null ? Optional.empty() : Optional.of(cohortOf(current, studentNumber).opensAt);
+    }
+
+    /** Throws if the student's window hasn't opened yet. */
+    public void checkOpen(int studentNumber) {
+        if (!isOpen(studentNumber)) {
+            throw new EnlistmentWindowClosedException(studentNumber, opensAt(studentNumber).orElseThrow());
+        }
+    }
+
+    /** Same as {@link #checkOpen(int)}, and counts the action towards the student's cohort when it's let through. */
+    public void admit(int studentNumber) {
+        checkOpen(studentNumber);
+        Plan current = plan;
+        if (current != null) {
+            current.actions[cohortOf(current, studentNumber).index].incrementAndGet();
+        }
+    }
+
+    public List<Cohort> cohorts() {
+        Plan current = plan;
+        return current == null ? List.of() : current.cohorts;
+    }
+
+    /**
+     * The projected actions per minute, every {@code step} from the first opening until the last window ends, w/
+     * each cohort's actions spread evenly over its window.
+     */
+    public List<LoadPoint> projectedLoad(Duration step) {
+        notNull(step, "step can't be null");
+        isTrue(!step.isNegative() && !step.isZero(), "step must be positive, was: %s", step);
+        Plan current = plan;
+        if (current == null) {
+            return List.of();
+        }
+        double actionsPerStudent = actionsPerStudent(current, clock.getAsLong());
+        Cohort last = current.cohorts.get(current.cohorts.size() - 1);
+        Instant end = last.opensAt.plus(last.window);
+        List<LoadPoint> load = new ArrayList<>();
+        for (Instant at = opensAt; at.isBefore(end); at = at.plus(step)) {
+            double perMinute = 0;
+            int open = 0;
+            for (Cohort cohort : current.cohorts) {
+                if (!at.isBefore(cohort.opensAt)) {
+                    open++;
+                    if (at.isBefore(cohort.opensAt.plus(cohort.window))) {
+                        perMinute += cohort.students * actionsPerStudent / (cohort.window.toMillis() / 60_000.0);
+                    }
+                }
+            }
+            load.add(new LoadPoint(at, perMinute, open));
+        }
+        return load;
+    }
+
+    void setStudentRepo(StudentRepository studentRepo) {
+        this.studentRepo = studentRepo;
+    }
+
+    void setCohortRepo(EnlistmentCohortRepository cohortRepo) {
+        this.cohortRepo = cohortRepo;
+    }
+
+    void setClusterCoordinator(ClusterCoordinator clusterCoordinator) {
+        this.clusterCoordinator = clusterCoordinator;
+    }
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.writeTx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @param priority          the priority students' cohort, which opens first
+     * @param window            until the next cohort opens
+     */
+    public record Cohort(int index, boolean priority, int firstStudentNumber, int lastStudentNumber, int students,
+                         Instant opensAt, Duration window) {
+    }
+
+    /**
+     * @param attemptsPerMinute projected enlist & cancel actions per minute
+     * @param openCohorts       cohorts whose windows have opened by then
+     */
+    public record LoadPoint(Instant at, double attemptsPerMinute, int openCohorts) {
+    }
+
+    /** Priority students are in the first cohort; everyone else in the first cohort whose range reaches them. */
+    private Cohort cohortOf(Plan plan, int studentNumber) {
+        List<Cohort> cohorts = plan.cohorts;
+        int low = 0;
+        if (cohorts.get(0).priority()) {
+            if (priorityStudents.contains(studentNumber)) {
+                return cohorts.get(0);
+            }
+            low = 1;
+        }
+        int high = cohorts.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cohorts.get(mid).lastStudentNumber() < studentNumber) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return cohorts.get(low);
+    }
+
+    /**
+     * Cohorts in opening order, w/ the actions each has taken: recorded in the database as of the last adjust, and
+     * counted on this node since. Immutable but for the counters.
+     */
+    private record Plan(List<Cohort> cohorts, long[] recorded, AtomicLong[] actions) {
+    }
+}
@@ -0,0 +1,134 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Node-local cache of which sections each student is enrolled in, kept in an {@link EnrollmentIndex} so that tens
+ * of thousands of students cost a few megabytes instead of a {@link Section} collection each. Students are loaded
+ * on first sight (e.g. login) and kept current by calling {@link #enlisted(int, String)} and
+ * {@link #cancelled(int, String)} once an enlist or cancel has committed, and reloaded once one commits on another
+ * node. A student w/ more sections than a record holds is simply not cached, so callers fall back to the
+ * {@link Student} itself; the cache never fails a request.
+ */
+@Component
+public class EnrollmentCache {
+
+    private final SectionOrdinals ordinals = new SectionOrdinals();
+    private final EnrollmentIndex index;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    public EnrollmentCache(@Value("${enlistment.enrollment-cache.expected-students:50000}") int expectedStudents,
+                           @Value("${enlistment.enrollment-cache.max-sections-per-student:16}") int maxSectionsPerStudent,
+                           @Value("${enlistment.enrollment-cache.off-heap:false}") boolean offHeap) {
+        this.index = new EnrollmentIndex(expectedStudents, maxSectionsPerStudent, offHeap);
+    }
+
+    /** (Re)loads the student's enrolled sections into the cache. */
+    public void load(Student student) {
+        notNull(student, "student can't be null");
+        load(student.getStudentNumber(), student.getSections().stream().map(Section::getSectionId).toList());
+    }
+
+    /**
+     * (Re)loads the student's enrolled sections into the cache, e.g. from {@link EnlistmentJournal} on startup; or
+     * drops the student from it if they have more sections than it holds per student.
+     */
+    public void load(int studentNumber, Collection<String> sectionIds) {
+        notNull(sectionIds, "sectionIds can't be null");
+        if (sectionIds.size() > index.getMaxSectionsPerStudent()) {
+            index.removeStudent(studentNumber);
+            return;
+        }
+        int[] sectionOrdinals = new int[index.getMaxSectionsPerStudent()];
+        int count = 0;
+        for (String sectionId : sectionIds) {
+            sectionOrdinals[count++] = ordinals.ordinalOf(sectionId);
+        }
+        index.put(studentNumber, sectionOrdinals, count);
+    }
+
+    public boolean isLoaded(int studentNumber) {
+        return index.isIndexed(studentNumber);
+    }
+
+    /** Only meaningful for a {@link #isLoaded(int) loaded} student. */
+    public boolean isEnlisted(int studentNumber, String sectionId) {
+        int ordinal = ordinals.find(sectionId);
+        return ordinal >= 0 && index.contains(studentNumber, ordinal);
+    }
+
+    /** The student's section IDs, or empty if the student isn't {@link #isLoaded(int) loaded}. */
+    public Optional<List<String>> sectionIdsOf(int studentNumber) {
+        int[] sectionOrdinals = new int[index.getMaxSectionsPerStudent()];
+        int count = index.sectionsOf(studentNumber, sectionOrdinals);
+        if (count < 0) {
+            return Optional.empty();
+        }
+        List<String> sectionIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sectionIds.add(ordinals.sectionIdOf(sectionOrdinals[i]));
+        }
+        return Optional.of(sectionIds);
+    }
+
+    /** Called after commit, so a student whose record is full is dropped from the cache rather than failing. */
+    public void enlisted(int studentNumber, String sectionId) {
+        if (!index.isIndexed(studentNumber)) { // students not loaded yet are loaded whole on first sight
+            return;
+        }
+        try {
+            index.add(studentNumber, ordinals.ordinalOf(sectionId));
+        } catch (IllegalStateException full) {
+            index.removeStudent(studentNumber);
+        }
+    }
+
+    public void cancelled(int studentNumber, String sectionId) {
+        int ordinal = ordinals.find(sectionId);
+        if (ordinal >= 0) {
+            index.remove(studentNumber, ordinal);
+        }
+    }
+
+    /** Drops the sections from every loaded student, once they're archived w/ their term. */
+    public void sectionsArchived(Collection<String> sectionIds) {
+        notNull(sectionIds, "sectionIds can't be null");
+        for (String sectionId : sectionIds) {
+            int ordinal = ordinals.find(sectionId);
+            if (ordinal >= 0) {
+                index.removeSection(ordinal);
+            }
+        }
+    }
+
+    /** Enlistments & cancellations on other nodes: the student is reloaded if loaded here. */
+    @EventListener
+    public void onSeatsChanged(SeatsChangedEvent event) {
+        if (!event.local() && studentRepo != null && isLoaded(event.studentNumber())) {
+            studentRepo.findById(event.studentNumber()).ifPresentOrElse(this::load,
+                    () -> index.removeStudent(event.studentNumber()));
+        }
+    }
+
+    void setStudentRepo(StudentRepository studentRepo) {
+        this.studentRepo = studentRepo;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long getFootprintBytes() {
+        return index.getFootprintBytes();
+    }
+}
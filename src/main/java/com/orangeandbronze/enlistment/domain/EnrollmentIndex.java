@@ -0,0 +1,340 @@
+package com.orangeandbronze.enlistment.domain;
+
+import java.nio.*;
+import java.util.concurrent.locks.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Compact student → enrolled-sections index for large in-memory caches. Each indexed student takes one fixed-width
+ * record of ints in an open-addressing hash table keyed by student number:
+ * <pre>[studentNumber + 1][count][section ordinal] x maxSectionsPerStudent</pre>
+ * so a student costs {@code 4 * (2 + maxSectionsPerStudent)} bytes (e.g. 72 bytes for 16 sections), and no lookup
+ * boxes or allocates. The table lives in one {@link IntBuffer}, either on the heap or, for off-heap storage, in a
+ * direct buffer outside the garbage-collected heap.
+ * <p>
+ * A student has a record only once {@link #put(int, int[], int)} or {@link #add(int, int)} was called for them, so
+ * {@link #isIndexed(int)} tells "not loaded" apart from "enrolled in nothing". Section ordinals come from
+ * {@link SectionOrdinals}. Reads take an optimistic {@link StampedLock} stamp and only block during writes; the
+ * table & its size are swapped together as one {@link Table}, so an optimistic read never pairs a new size w/ an old
+ * table.
+ */
+public class EnrollmentIndex {
+
+    private static final int EMPTY = 0;
+    private static final int HEADER = 2;
+    private static final double MAX_LOAD = 0.7;
+
+    private final int maxSectionsPerStudent;
+    private final int recordWidth;
+    private final boolean offHeap;
+    private final StampedLock lock = new StampedLock();
+    private Table table;
+    private int students = 0;
+
+    public EnrollmentIndex(int expectedStudents, int maxSectionsPerStudent, boolean offHeap) {
+        isTrue(expectedStudents >= 0, "expectedStudents can't be negative, was: %d", expectedStudents);
+        isTrue(maxSectionsPerStudent > 0, "maxSectionsPerStudent must be greater than zero, was: %d", maxSectionsPerStudent);
+        this.maxSectionsPerStudent = maxSectionsPerStudent;
+        this.recordWidth = HEADER + maxSectionsPerStudent;
+        this.offHeap = offHeap;
+        this.table = allocate(Integer.highestOneBit(Math.max(16, (int) (expectedStudents / MAX_LOAD)) * 2 - 1));
+    }
+
+    private Table allocate(int slots) {
+        int ints = Math.multiplyExact(slots, recordWidth);
+        return new Table(offHeap
+                ? ByteBuffer.allocateDirect(Math.multiplyExact(ints, Integer.BYTES)).order(ByteOrder.nativeOrder()).asIntBuffer()
+                : IntBuffer.allocate(ints), slots);
+    }
+
+    public boolean isIndexed(int studentNumber) {
+        long stamp = lock.tryOptimisticRead();
+        boolean indexed = slotOf(table, studentNumber) >= 0;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                indexed = slotOf(table, studentNumber) >= 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return indexed;
+    }
+
+    public boolean contains(int studentNumber, int sectionOrdinal) {
+        long stamp = lock.tryOptimisticRead();
+        boolean found = positionOf(table, studentNumber, sectionOrdinal) >= 0;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = positionOf(table, studentNumber, sectionOrdinal) >= 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return found;
+    }
+
+    /** Number of sections the student is enrolled in, 0 if not indexed. */
+    public int count(int studentNumber) {
+        long stamp = lock.readLock();
+        try {
+            int slot = slotOf(table, studentNumber);
+            return slot < 0 ? 0 : table.buffer().get(slot * recordWidth + 1);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Copies the student's section ordinals into {@code into} and returns how many there are, or -1 if the student
+     * isn't indexed. {@code into} should have room for {@link #getMaxSectionsPerStudent()} ordinals.
+     */
+    public int sectionsOf(int studentNumber, int[] into) {
+        long stamp = lock.readLock();
+        try {
+            int slot = slotOf(table, studentNumber);
+            if (slot < 0) {
+                return -1;
+            }
+            int base = slot * recordWidth;
+            int count = table.buffer().get(base + 1);
+            isTrue(into.length >= count, "into has room for %d ordinals but needs %d", into.length, count);
+            table.buffer().get(base + HEADER, into, 0, count);
+            return count;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Replaces everything indexed for the student with the first {@code count} ordinals. */
+    public void put(int studentNumber, int[] sectionOrdinals, int count) {
+        isTrue(studentNumber >= 0, "studentNumber can't be negative, was: %d", studentNumber);
+        isTrue(count >= 0 && count <= maxSectionsPerStudent, "count must be 0 to %d, was: %d",
+                maxSectionsPerStudent, count);
+        long stamp = lock.writeLock();
+        try {
+            int base = claimSlot(studentNumber) * recordWidth;
+            table.buffer().put(base + 1, count);
+            table.buffer().put(base + HEADER, sectionOrdinals, 0, count);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Returns false if the student was already enrolled in the section. */
+    public boolean add(int studentNumber, int sectionOrdinal) {
+        isTrue(studentNumber >= 0, "studentNumber can't be negative, was: %d", studentNumber);
+        isTrue(sectionOrdinal >= 0, "sectionOrdinal can't be negative, was: %d", sectionOrdinal);
+        long stamp = lock.writeLock();
+        try {
+            if (positionOf(table, studentNumber, sectionOrdinal) >= 0) {
+                return false;
+            }
+            int base = claimSlot(studentNumber) * recordWidth;
+            int count = table.buffer().get(base + 1);
+            if (count == maxSectionsPerStudent) {
+                throw new IllegalStateException("student " + studentNumber + " already has the maximum of "
+                        + maxSectionsPerStudent + " indexed sections");
+            }
+            table.buffer().put(base + HEADER + count, sectionOrdinal);
+            table.buffer().put(base + 1, count + 1);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Returns false if the student wasn't enrolled in the section. */
+    public boolean remove(int studentNumber, int sectionOrdinal) {
+        long stamp = lock.writeLock();
+        try {
+            int position = positionOf(table, studentNumber, sectionOrdinal);
+            if (position < 0) {
+                return false;
+            }
+            IntBuffer buffer = table.buffer();
+            int base = slotOf(table, studentNumber) * recordWidth;
+            int last = base + HEADER + buffer.get(base + 1) - 1;
+            buffer.put(position, buffer.get(last)); // order within a record doesn't matter
+            buffer.put(base + 1, buffer.get(base + 1) - 1);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Removes the section from every student enrolled in it, e.g. once it's archived; returns how many were. */
+    public int removeSection(int sectionOrdinal) {
+        long stamp = lock.writeLock();
+        try {
+            IntBuffer buffer = table.buffer();
+            int removed = 0;
+            for (int base = 0; base < table.slots() * recordWidth; base += recordWidth) {
+                if (buffer.get(base) == EMPTY) {
+                    continue;
+                }
+                int count = buffer.get(base + 1);
+                for (int i = base + HEADER; i < base + HEADER + count; i++) {
+                    if (buffer.get(i) == sectionOrdinal) {
+                        buffer.put(i, buffer.get(base + HEADER + count - 1));
+                        buffer.put(base + 1, count - 1);
+                        removed++;
+                        break;
+                    }
+                }
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Drops the student's record, so they're no longer {@link #isIndexed(int) indexed}. Returns false if they weren't.
+     * Records after it in the same probe run are shifted back into the gap, so lookups need no tombstones.
+     */
+    public boolean removeStudent(int studentNumber) {
+        long stamp = lock.writeLock();
+        try {
+            int hole = slotOf(table, studentNumber);
+            if (hole < 0) {
+                return false;
+            }
+            IntBuffer buffer = table.buffer();
+            int mask = table.slots() - 1;
+            for (int next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+                int key = buffer.get(next * recordWidth);
+                if (key == EMPTY) {
+                    break;
+                }
+                int home = mix(key - 1) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) { // the gap is on its probe path
+                    buffer.put(hole * recordWidth, buffer, next * recordWidth, recordWidth);
+                    hole = next;
+                }
+            }
+            buffer.put(hole * recordWidth, EMPTY);
+            students--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return students;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int getMaxSectionsPerStudent() {
+        return maxSectionsPerStudent;
+    }
+
+    public int getBytesPerStudent() {
+        return recordWidth * Integer.BYTES;
+    }
+
+    /** Bytes held by the table, including its empty slots. */
+    public long getFootprintBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) table.slots() * recordWidth * Integer.BYTES;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /** Slot of the student's record, or -1. Linear probing; the key stored is studentNumber + 1 so 0 means empty. */
+    private int slotOf(Table table, int studentNumber) {
+        int key = studentNumber + 1;
+        int mask = table.slots() - 1;
+        for (int slot = mix(studentNumber) & mask, probes = 0; probes < table.slots();
+             slot = (slot + 1) & mask, probes++) {
+            int stored = table.buffer().get(slot * recordWidth);
+            if (stored == key) {
+                return slot;
+            }
+            if (stored == EMPTY) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /** Absolute int position of the ordinal in the student's record, or -1. */
+    private int positionOf(Table table, int studentNumber, int sectionOrdinal) {
+        int slot = slotOf(table, studentNumber);
+        if (slot < 0) {
+            return -1;
+        }
+        int base = slot * recordWidth;
+        int count = Math.min(table.buffer().get(base + 1), maxSectionsPerStudent); // bounded even if read mid-write
+        for (int i = base + HEADER; i < base + HEADER + count; i++) {
+            if (table.buffer().get(i) == sectionOrdinal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Must hold the write lock. Finds or creates the student's record, growing the table if needed. */
+    private int claimSlot(int studentNumber) {
+        int slot = slotOf(table, studentNumber);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (students + 1 > table.slots() * MAX_LOAD) {
+            grow();
+        }
+        IntBuffer buffer = table.buffer();
+        int mask = table.slots() - 1;
+        slot = mix(studentNumber) & mask;
+        while (buffer.get(slot * recordWidth) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        buffer.put(slot * recordWidth, studentNumber + 1);
+        buffer.put(slot * recordWidth + 1, 0);
+        students++;
+        return slot;
+    }
+
+    /** Fills the bigger table before publishing it. */
+    private void grow() {
+        IntBuffer old = table.buffer();
+        int oldSlots = table.slots();
+        Table grown = allocate(oldSlots * 2);
+        IntBuffer buffer = grown.buffer();
+        int mask = grown.slots() - 1;
+        for (int oldSlot = 0; oldSlot < oldSlots; oldSlot++) {
+            int key = old.get(oldSlot * recordWidth);
+            if (key == EMPTY) {
+                continue;
+            }
+            int slot = mix(key - 1) & mask;
+            while (buffer.get(slot * recordWidth) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            buffer.put(slot * recordWidth, old, oldSlot * recordWidth, recordWidth);
+        }
+        table = grown;
+    }
+
+    private static int mix(int studentNumber) {
+        int h = studentNumber * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** The buffer & its number of slots, always read together. */
+    private record Table(IntBuffer buffer, int slots) {
+    }
+}
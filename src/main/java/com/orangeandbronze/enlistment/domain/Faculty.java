@@ -32,4 +32,11 @@ public class Faculty {
         return lastname;
     }
 
+    // For JPA only! Do not call!
+    private Faculty() {
+        facultyNumber = -1;
+        firstname = null;
+        lastname = null;
+    }
+
 }
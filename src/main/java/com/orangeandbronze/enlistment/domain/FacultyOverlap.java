@@ -0,0 +1,11 @@
+package com.orangeandbronze.enlistment.domain;
+
+/** Projection of {@link SectionRepository#findOverlappingFacultyAssignments()}. */
+public interface FacultyOverlap {
+
+    int getFacultyNumber();
+
+    String getSectionId();
+
+    String getOtherSectionId();
+}
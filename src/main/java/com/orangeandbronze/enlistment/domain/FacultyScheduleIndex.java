@@ -0,0 +1,174 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Per-faculty timetables for admin views: sections taught, free slots, teaching load and double-booked
+ * assignments. A faculty's timetable is loaded once through the indexed
+ * {@link SectionRepository#findByFacultyNumber(int)} and then kept current with {@link #assigned(int, Section)},
+ * so views never scan every section. Each timetable also keeps its busy half-hours as one
+ * {@link Schedule#halfHourSlots() slot mask}, so free slots and availability are bit operations.
+ */
+@Component
+public class FacultyScheduleIndex {
+
+    private static final LocalTime DAY_START = LocalTime.of(8, 30);
+
+    private final SectionRepository sectionRepo;
+    private final ConcurrentMap<Integer, Timetable> timetables = new ConcurrentHashMap<>();
+    /** Bumped before each change to the timetables, so a load can tell whether it raced w/ one. */
+    private final AtomicLong changes = new AtomicLong();
+
+    public FacultyScheduleIndex(SectionRepository sectionRepo) {
+        notNull(sectionRepo, "sectionRepo can't be null");
+        this.sectionRepo = sectionRepo;
+    }
+
+    /**
+     * Loads the timetable outside the map, so the query never runs while holding a map bin's lock, then caches it
+     * unless it raced w/ a change: a query that ran before an assignment committed may miss it, and
+     * {@link #assigned(int, Section)} doesn't update timetables not yet cached, so it's reloaded on next use instead.
+     */
+    public Timetable timetable(int facultyNumber) {
+        Timetable cached = timetables.get(facultyNumber);
+        if (cached != null) {
+            return cached;
+        }
+        long changesBefore = changes.get();
+        Timetable loaded = Timetable.of(sectionRepo.findByFacultyNumber(facultyNumber));
+        Timetable raced = timetables.putIfAbsent(facultyNumber, loaded);
+        if (raced != null) {
+            return raced;
+        }
+        if (changes.get() != changesBefore) {
+            timetables.remove(facultyNumber, loaded);
+        }
+        return loaded;
+    }
+
+    public boolean isFree(int facultyNumber, Schedule schedule) {
+        notNull(schedule, "schedule can't be null");
+        return (timetable(facultyNumber).busySlots() & schedule.halfHourSlots()) == 0;
+    }
+
+    /** Maximal free stretches in the faculty's week, in timetable order. */
+    public List<FreeSlot> freeSlots(int facultyNumber) {
+        long busy = timetable(facultyNumber).busySlots();
+        List<FreeSlot> free = new ArrayList<>();
+        for (Days days : Days.values()) {
+            int slot = 0;
+            while (slot < Schedule.HALF_HOURS_PER_DAY) {
+                if (isBusy(busy, days, slot)) {
+                    slot++;
+                    continue;
+                }
+                int start = slot;
+                while (slot < Schedule.HALF_HOURS_PER_DAY && !isBusy(busy, days, slot)) {
+                    slot++;
+                }
+                free.add(new FreeSlot(days, DAY_START.plusMinutes(30L * start), DAY_START.plusMinutes(30L * slot)));
+            }
+        }
+        return free;
+    }
+
+    /** Sections & weekly teaching minutes; every {@link Days} value meets twice a week. */
+    public FacultyLoad load(int facultyNumber) {
+        Timetable timetable = timetable(facultyNumber);
+        return new FacultyLoad(facultyNumber, timetable.entries().size(),
+                Long.bitCount(timetable.busySlots()) * 30 * 2);
+    }
+
+    /** Sections assigned to the same faculty at overlapping times, across all faculty, straight from the database. */
+    public List<FacultyOverlap> overlappingAssignments() {
+        return sectionRepo.findOverlappingFacultyAssignments();
+    }
+
+    /**
+     * Builds every faculty's timetable from the catalog, so none is loaded on first use, replacing the ones built
+     * before. Called by {@link CacheWarmup}.
+     */
+    public void preload(Collection<Faculty> faculty, Collection<Section> sections) {
+        notNull(faculty, "faculty can't be null");
+        notNull(sections, "sections can't be null");
+        Map<Integer, List<Section>> byFaculty = new HashMap<>();
+        faculty.forEach(f -> byFaculty.put(f.getFacultyNumber(), new ArrayList<>()));
+        for (Section section : sections) {
+            if (section.getFacultyID() != -1) {
+                byFaculty.computeIfAbsent(section.getFacultyID(), number -> new ArrayList<>()).add(section);
+            }
+        }
+        byFaculty.forEach((number, assigned) -> timetables.put(number, Timetable.of(assigned)));
+        timetables.keySet().retainAll(byFaculty.keySet());
+    }
+
+    /** Call once a section's assignment to the faculty has committed. */
+    public void assigned(int facultyNumber, Section section) {
+        notNull(section, "section can't be null");
+        changes.incrementAndGet();
+        timetables.computeIfPresent(facultyNumber, (number, timetable) -> timetable.with(section));
+    }
+
+    /** Assignments made on other nodes: timetables are reloaded on next use. */
+    @EventListener
+    public void onSectionChanged(SectionChangedEvent event) {
+        if (!event.local()) {
+            changes.incrementAndGet();
+            timetables.clear();
+        }
+    }
+
+    private static boolean isBusy(long busySlots, Days days, int slot) {
+        return (busySlots & (1L << (days.ordinal() * Schedule.HALF_HOURS_PER_DAY + slot))) != 0;
+    }
+
+    /** A faculty's sections in timetable order & the half-hours they occupy. Immutable. */
+    public record Timetable(List<TimetableEntry> entries, long busySlots) {
+
+        static Timetable of(Collection<Section> sections) {
+            Timetable timetable = new Timetable(List.of(), 0);
+            for (Section section : sections) {
+                timetable = timetable.with(section);
+            }
+            return timetable;
+        }
+
+        Timetable with(Section section) {
+            List<TimetableEntry> withSection = new ArrayList<>(entries);
+            withSection.removeIf(entry -> entry.sectionId().equals(section.getSectionId()));
+            withSection.add(TimetableEntry.of(section));
+            withSection.sort(Comparator.comparing(TimetableEntry::days).thenComparing(TimetableEntry::start));
+            long busy = 0;
+            for (TimetableEntry entry : withSection) {
+                busy |= entry.halfHourSlots();
+            }
+            return new Timetable(List.copyOf(withSection), busy);
+        }
+    }
+
+    public record TimetableEntry(String sectionId, String subjectId, Days days, LocalTime start, LocalTime end,
+                                 String roomName, long halfHourSlots) {
+
+        static TimetableEntry of(Section section) {
+            Schedule schedule = section.getSchedule();
+            return new TimetableEntry(section.getSectionId(), section.getSubject().toString(), schedule.getDays(),
+                    schedule.getPeriod().getStartTime(), schedule.getPeriod().getEndTime(),
+                    section.getRoom().getName(), schedule.halfHourSlots());
+        }
+    }
+
+    public record FreeSlot(Days days, LocalTime start, LocalTime end) {
+    }
+
+    public record FacultyLoad(int facultyNumber, int sections, long weeklyMinutes) {
+    }
+}
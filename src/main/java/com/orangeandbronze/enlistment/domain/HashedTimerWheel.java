@@ -0,0 +1,85 @@
+package com.orangeandbronze.enlistment.domain;
+
+import java.util.*;
+import java.util.function.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Hashed timer wheel: timeouts are dropped into one of {@code wheelSize} buckets by deadline tick, so scheduling
+ * and cancelling are O(1) and each {@link #advanceTo(long, Consumer)} only looks at the buckets of the ticks that
+ * passed. Deadlines further away than one revolution wait out the extra rounds in their bucket. Cancelled
+ * timeouts are removed lazily when their bucket comes up.
+ * <p>
+ * Not driven by a thread of its own; the owner calls {@link #advanceTo(long, Consumer)} with the current time.
+ */
+class HashedTimerWheel<T> {
+
+    private final long tickMillis;
+    private final List<ArrayDeque<Timeout<T>>> buckets;
+    private final int mask;
+    private long currentTick;
+
+    HashedTimerWheel(long tickMillis, int wheelSize, long startMillis) {
+        isTrue(tickMillis > 0, "tickMillis must be greater than zero, was: " + tickMillis);
+        isTrue(wheelSize > 0 && Integer.bitCount(wheelSize) == 1, "wheelSize must be a power of two, was: " + wheelSize);
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.mask = wheelSize - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /** Schedules the item to expire at {@code deadlineMillis}, rounded up to the next tick. */
+    synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+        notNull(item, "item can't be null");
+        long deadlineTick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        buckets.get((int) (deadlineTick & mask)).add(timeout);
+        return timeout;
+    }
+
+    /** Expires, in deadline-tick order, every timeout due at or before {@code nowMillis}. */
+    void advanceTo(long nowMillis, Consumer<T> onExpiry) {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = nowMillis / tickMillis;
+            long fromTick = Math.max(currentTick + 1, targetTick - mask); // a full revolution visits every bucket
+            for (long tick = fromTick; tick <= targetTick; tick++) {
+                Iterator<Timeout<T>> bucket = buckets.get((int) (tick & mask)).iterator();
+                while (bucket.hasNext()) {
+                    Timeout<T> timeout = bucket.next();
+                    if (timeout.cancelled) {
+                        bucket.remove();
+                    } else if (timeout.deadlineTick <= targetTick) {
+                        bucket.remove();
+                        expired.add(timeout.item);
+                    }
+                }
+            }
+            currentTick = Math.max(currentTick, targetTick);
+        }
+        expired.forEach(onExpiry); // outside the lock, so callbacks may schedule or cancel
+    }
+
+    static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Remembers the outcome of recent enlist/cancel submissions by idempotency key, so that a double-click or a
+ * refresh gets the first submission's outcome instead of running again. A duplicate that arrives while the first
+ * submission is still running is told so right away, rather than holding a request thread until it finishes.
+ * Holds at most {@code maxEntries} keys, evicting the oldest first, and forgets keys older than {@code window}.
+ * <p>
+ * Keys are claimed w/ a compare-and-set on a concurrent map, so submissions only contend on the same key.
+ */
+@Component
+class IdempotencyStore {
+
+    private final int maxEntries;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> oldestFirst = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    IdempotencyStore(@Value("${enlistment.idempotency.max-entries:100000}") int maxEntries,
+                     @Value("${enlistment.idempotency.window:PT2M}") Duration window) {
+        this(maxEntries, window, System::currentTimeMillis);
+    }
+
+    IdempotencyStore(int maxEntries, Duration window, LongSupplier clock) {
+        isTrue(maxEntries > 0, "maxEntries must be greater than zero, was: " + maxEntries);
+        notNull(window, "window can't be null");
+        notNull(clock, "clock can't be null");
+        this.maxEntries = maxEntries;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Claims the key for the caller, returning empty if the caller should run the command and then
+     * {@link #complete(String, Outcome)} or {@link #forget(String)} it. Otherwise returns the outcome of the first
+     * submission with this key, or {@link Outcome#IN_PROGRESS} if it's still running.
+     */
+    Optional<Outcome> claim(String key) {
+        notBlank(key, "key can't be blank");
+        long now = clock.getAsLong();
+        Entry claimed = new Entry(key, now);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, claimed);
+            if (existing == null || isExpired(existing, now) && entries.replace(key, existing, claimed)) {
+                oldestFirst.add(claimed);
+                evict(now);
+                return Optional.empty();
+            }
+            if (!isExpired(existing, now)) {
+                Outcome outcome = existing.outcome;
+                return Optional.of(outcome == null ? Outcome.IN_PROGRESS : outcome);
+            }
+            // expired, but replaced or removed by someone else in the meantime: try again
+        }
+    }
+
+    void complete(String key, Outcome outcome) {
+        notNull(outcome, "outcome can't be null");
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.outcome = outcome;
+        }
+    }
+
+    /** Drops a claimed key whose command failed for reasons other than a domain rule, so it can be resubmitted. */
+    void forget(String key) {
+        entries.remove(key);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAt > windowMillis;
+    }
+
+    /**
+     * Drops expired keys and, past {@code maxEntries}, the oldest ones. The queue is in claim order, so both are at
+     * its head; a queued entry that was since forgotten or re-claimed is just skipped.
+     */
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = oldestFirst.peek()) != null
+                && (entries.size() > maxEntries || isExpired(oldest, now) || entries.get(oldest.key) != oldest)) {
+            if (oldestFirst.remove(oldest)) {
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    /**
+     * The first submission's result as far as a duplicate is concerned: the rejection to show again, nothing to
+     * replay (it succeeded), or that it's still running.
+     */
+    record Outcome(EnlistmentException rejection, boolean inProgress) {
+
+        static final Outcome NOTHING_TO_REPLAY = new Outcome(null, false);
+        static final Outcome IN_PROGRESS = new Outcome(null, true);
+
+        static Outcome rejected(EnlistmentException rejection) {
+            notNull(rejection, "rejection can't be null");
+            return new Outcome(rejection, false);
+        }
+
+        /**
+         * Rethrows the first submission's rejection, if it was rejected.
+         *
+         * @throws SubmissionInProgressException if the first submission is still running
+         */
+        void replay() {
+            if (inProgress) {
+                throw new SubmissionInProgressException();
+            }
+            if (rejection != null) {
+                throw rejection;
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        final String key;
+        final long createdAt;
+        volatile Outcome outcome; // null while in flight
+
+        Entry(String key, long createdAt) {
+            this.key = key;
+            this.createdAt = createdAt;
+        }
+    }
+}
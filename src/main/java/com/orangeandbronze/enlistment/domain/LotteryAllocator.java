@@ -0,0 +1,289 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import io.micrometer.core.instrument.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.dao.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+import java.security.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Lottery mode for oversubscribed sections. Until the draw, enlisting in a lottery section only records a
+ * {@link LotteryEntry}; no seat is taken, so there's nothing to race for and no contention on the section's row.
+ * <p>
+ * The draw then assigns the seats in one transaction: students in a random order, seeded & reported for auditing,
+ * take turns in rounds, each getting at most one seat per round from their entries in the order they submitted
+ * them. The order reverses every round, so whoever picked first in one round picks last in the next; and no one gets
+ * more than {@code max-seats-per-student} lottery seats. Every seat goes through {@link Student#enlist(Section)}, so
+ * room capacity, schedule conflicts, same subjects & prerequisites apply as always; an entry that fails them is
+ * skipped for the student's next one. All join rows & counter updates are flushed together at commit.
+ * <p>
+ * The draw runs at {@code draw-at}, or when an admin triggers it, on whichever node gets the lottery lock first;
+ * it records a {@link LotteryDraw} per section in the same transaction, so the others, and this one after a restart,
+ * see it was drawn. Entries take the same lock shared & check for the draw, so none is accepted after it. Afterwards
+ * the sections are first-come, first-served like any other.
+ */
+@Component
+public class LotteryAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(LotteryAllocator.class);
+
+    private final LotteryEntryRepository entryRepo;
+    private final LotteryDrawRepository drawRepo;
+    private final SectionRepository sectionRepo;
+    private final StudentRepository studentRepo;
+    private final TransactionTemplate writeTx;
+    private final ClusterCoordinator clusterCoordinator;
+    private final Set<String> sectionIds;
+    private final Instant drawAt;
+    private final int maxSeatsPerStudent;
+    private final LongSupplier clock;
+    private final Counter entries;
+    private final Counter seats;
+    private volatile boolean drawn; // on any node; only ever set once seen in the database
+
+    @Autowired
+    private EnrollmentCache enrollmentCache;
+
+    @Autowired
+    private EnlistmentJournal journal;
+
+    @Autowired
+    public LotteryAllocator(LotteryEntryRepository entryRepo, LotteryDrawRepository drawRepo,
+                            SectionRepository sectionRepo, StudentRepository studentRepo,
+                            PlatformTransactionManager transactionManager, ClusterCoordinator clusterCoordinator,
+                            MeterRegistry meterRegistry,
+                            @Value("${enlistment.lottery.sections:}") Set<String> sectionIds,
+                            @Value("${enlistment.lottery.draw-at:}") String drawAt,
+                            @Value("${enlistment.lottery.zone:}") String zone,
+                            @Value("${enlistment.lottery.max-seats-per-student:2}") int maxSeatsPerStudent) {
+        this(entryRepo, drawRepo, sectionRepo, studentRepo, new TransactionTemplate(transactionManager),
+                clusterCoordinator, meterRegistry, sectionIds, drawAt.isBlank() ? null : LocalDateTime.parse(drawAt)
+                        .atZone(zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone)).toInstant(),
+                maxSeatsPerStudent, System::currentTimeMillis);
+    }
+
+    LotteryAllocator(LotteryEntryRepository entryRepo, LotteryDrawRepository drawRepo, SectionRepository sectionRepo,
+                     StudentRepository studentRepo, TransactionTemplate writeTx, ClusterCoordinator clusterCoordinator,
+                     MeterRegistry meterRegistry, Set<String> sectionIds, Instant drawAt, int maxSeatsPerStudent,
+                     LongSupplier clock) {
+        notNull(entryRepo, "entryRepo can't be null");
+        notNull(drawRepo, "drawRepo can't be null");
+        notNull(sectionRepo, "sectionRepo can't be null");
+        notNull(studentRepo, "studentRepo can't be null");
+        notNull(writeTx, "writeTx can't be null");
+        notNull(clusterCoordinator, "clusterCoordinator can't be null");
+        notNull(meterRegistry, "meterRegistry can't be null");
+        notNull(sectionIds, "sectionIds can't be null");
+        isTrue(maxSeatsPerStudent > 0, "maxSeatsPerStudent must be greater than zero, was: %d", maxSeatsPerStudent);
+        notNull(clock, "clock can't be null");
+        this.entryRepo = entryRepo;
+        this.drawRepo = drawRepo;
+        this.sectionRepo = sectionRepo;
+        this.studentRepo = studentRepo;
+        this.writeTx = writeTx;
+        this.clusterCoordinator = clusterCoordinator;
+        this.sectionIds = Set.copyOf(sectionIds);
+        this.drawAt = drawAt;
+        this.maxSeatsPerStudent = maxSeatsPerStudent;
+        this.clock = clock;
+        this.entries = meterRegistry.counter("enlistment.lottery.entries");
+        this.seats = meterRegistry.counter("enlistment.lottery.seats");
+    }
+
+    /** Whether enlisting in the section only enters its lottery, i.e. it's a lottery section not yet drawn. */
+    public boolean isCollecting(String sectionId) {
+        return sectionIds.contains(sectionId) && isCollecting();
+    }
+
+    public boolean isCollecting() {
+        return !sectionIds.isEmpty() && !drawn && (drawAt == null || clock.getAsLong() < drawAt.toEpochMilli());
+    }
+
+    /**
+     * Enters the student in the section's lottery; entering twice is the same as entering once. Returns false,
+     * entering nothing, if the lottery has been drawn meanwhile (on any node), so the section is first-come,
+     * first-served.
+     */
+    public boolean enter(int studentNumber, String sectionId) {
+        isTrue(sectionIds.contains(sectionId), "section %s isn't in a lottery", sectionId);
+        boolean entered;
+        try {
+            entered = writeTx.execute(status -> {
+                clusterCoordinator.lockLotteryShared(); // waits for a draw in progress
+                if (drawRepo.existsById(sectionId)) {
+                    return false;
+                }
+                if (!entryRepo.existsByStudentNumberAndSectionId(studentNumber, sectionId)) {
+                    entryRepo.saveAndFlush(new LotteryEntry(studentNumber, sectionId,
+                            Instant.ofEpochMilli(clock.getAsLong())));
+                    entries.increment();
+                }
+                return true;
+            });
+        } catch (DataIntegrityViolationException alreadyEntered) { // the same submission, racing this one
+            return true;
+        }
+        if (!entered) {
+            drawn = true;
+        }
+        return entered;
+    }
+
+    /** Returns whether the student had entered. */
+    public boolean withdraw(int studentNumber, String sectionId) {
+        return writeTx.execute(status -> entryRepo.withdraw(studentNumber, sectionId)) > 0;
+    }
+
+    /** The sections the student has entered, in the order entered. */
+    public List<String> entriesOf(int studentNumber) {
+        return entryRepo.findByStudentNumberOrderBySubmittedAt(studentNumber).stream()
+                .map(LotteryEntry::getSectionId).toList();
+    }
+
+    public Map<String, Long> entryCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        entryRepo.countBySection().forEach(count -> counts.put(count.getSectionId(), count.getEntries()));
+        return counts;
+    }
+
+    public Set<String> getSectionIds() {
+        return sectionIds;
+    }
+
+    public Optional<Instant> getDrawAt() {
+        return Optional.ofNullable(drawAt);
+    }
+
+    /** Draws once {@code draw-at} has passed; until then, notices a draw by an admin or another node. */
+    @Scheduled(fixedDelayString = "${enlistment.lottery.check-interval:PT10S}")
+    public void scheduledDraw() {
+        if (drawn || sectionIds.isEmpty()) {
+            return;
+        }
+        if (drawAt != null && clock.getAsLong() >= drawAt.toEpochMilli()) {
+            draw();
+        } else if (drawRepo.existsBySectionIdIn(sectionIds)) {
+            drawn = true;
+        }
+    }
+
+    /** Empty if the lottery had already been drawn, here or on another node. */
+    public Optional<DrawReport> draw() {
+        return draw(new SecureRandom().nextLong());
+    }
+
+    /** The same seed & entries give the same seats. */
+    synchronized Optional<DrawReport> draw(long seed) {
+        DrawReport report = writeTx.execute(status -> {
+            clusterCoordinator.lockLottery(); // after entries in flight, and any other node's draw
+            return drawRepo.existsBySectionIdIn(sectionIds) ? null : allocate(seed);
+        });
+        drawn = true;
+        if (report == null) {
+            log.info("Lottery already drawn");
+            return Optional.empty();
+        }
+        for (Seat seat : report.seats()) { // committed
+            if (enrollmentCache != null) {
+                enrollmentCache.enlisted(seat.studentNumber(), seat.sectionId());
+            }
+            if (journal != null) {
+                journal.enlisted(seat.studentNumber(), seat.sectionId());
+            }
+        }
+        seats.increment(report.seats().size());
+        log.info("Lottery drawn: {}", report);
+        return Optional.of(report);
+    }
+
+    private DrawReport allocate(long seed) {
+        List<LotteryEntry> all = new ArrayList<>(entryRepo.findBySectionIdIn(sectionIds));
+        all.sort(Comparator.comparing(LotteryEntry::getSubmittedAt).thenComparing(LotteryEntry::getSectionId));
+        Map<String, Section> sections = new HashMap<>();
+        sectionRepo.findAllById(sectionIds).forEach(section -> sections.put(section.getSectionId(), section));
+        Map<Integer, Student> students = new HashMap<>();
+        Set<Integer> studentNumbers = new HashSet<>();
+        all.forEach(entry -> studentNumbers.add(entry.getStudentNumber()));
+        studentRepo.findByStudentNumberIn(studentNumbers).forEach(s -> students.put(s.getStudentNumber(), s));
+        Map<Student, List<Section>> preferences = new LinkedHashMap<>();
+        for (LotteryEntry entry : all) {
+            Student student = students.get(entry.getStudentNumber());
+            Section section = sections.get(entry.getSectionId());
+            if (student != null && section != null) {
+                preferences.computeIfAbsent(student, s -> new ArrayList<>()).add(section);
+            }
+        }
+        List<Student> order = new ArrayList<>(preferences.keySet());
+        order.sort(Comparator.comparingInt(Student::getStudentNumber)); // the seed alone decides the shuffle
+        Collections.shuffle(order, new Random(seed));
+        List<Seat> seats = allocate(order, preferences, maxSeatsPerStudent);
+        entryRepo.deleteAllInBatch(all);
+        Instant drawnAt = Instant.ofEpochMilli(clock.getAsLong());
+        drawRepo.saveAll(sectionIds.stream().map(sectionId -> new LotteryDraw(sectionId, seed, drawnAt)).toList());
+        return new DrawReport(seed, all.size(), order.size(), seats);
+    }
+
+    /** Rounds of one seat per student, in snake order; enlists each seat in the student & section as it goes. */
+    static List<Seat> allocate(List<Student> order, Map<Student, List<Section>> preferences, int maxSeatsPerStudent) {
+        Map<Student, Deque<Section>> remaining = new HashMap<>();
+        preferences.forEach((student, sections) -> remaining.put(student, new ArrayDeque<>(sections)));
+        Map<Student, Integer> won = new HashMap<>();
+        List<Student> turn = new ArrayList<>(order);
+        List<Seat> seats = new ArrayList<>();
+        while (!turn.isEmpty()) {
+            for (Student student : turn) {
+                Deque<Section> sections = remaining.get(student);
+                while (!sections.isEmpty()) {
+                    Section section = sections.poll();
+                    if (student.checkEnlist(section).isOk()) {
+                        student.enlist(section);
+                        seats.add(new Seat(student.getStudentNumber(), section.getSectionId()));
+                        if (won.merge(student, 1, Integer::sum) >= maxSeatsPerStudent) {
+                            sections.clear();
+                        }
+                        break;
+                    }
+                }
+            }
+            turn.removeIf(student -> remaining.get(student).isEmpty());
+            Collections.reverse(turn);
+        }
+        return seats;
+    }
+
+    void setEnrollmentCache(EnrollmentCache enrollmentCache) {
+        this.enrollmentCache = enrollmentCache;
+    }
+
+    void setJournal(EnlistmentJournal journal) {
+        this.journal = journal;
+    }
+
+    public record Seat(int studentNumber, String sectionId) {
+    }
+
+    /**
+     * @param seed     of the order students took turns in; drawing the same entries w/ it gives the same seats
+     * @param entries  entered in all lottery sections
+     * @param students who entered
+     */
+    public record DrawReport(long seed, int entries, int students, List<Seat> seats) {
+
+        @Override
+        public String toString() {
+            return "seed " + seed + ", " + entries + " entries from " + students + " students, " + seats.size()
+                    + " seats assigned";
+        }
+    }
+}
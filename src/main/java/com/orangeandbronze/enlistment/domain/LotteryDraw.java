@@ -0,0 +1,52 @@
+package com.orangeandbronze.enlistment.domain;
+
+import jakarta.persistence.*;
+
+import java.time.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * That a lottery section's seats have been {@link LotteryAllocator drawn}, so every node stops collecting entries for
+ * it, also after a restart.
+ */
+@Entity
+public class LotteryDraw {
+
+    @Id
+    private final String sectionId;
+    private final long seed;
+    private final Instant drawnAt;
+
+    LotteryDraw(String sectionId, long seed, Instant drawnAt) {
+        notBlank(sectionId, "sectionId can't be blank");
+        notNull(drawnAt, "drawnAt can't be null");
+        this.sectionId = sectionId;
+        this.seed = seed;
+        this.drawnAt = drawnAt;
+    }
+
+    public String getSectionId() {
+        return sectionId;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Instant getDrawnAt() {
+        return drawnAt;
+    }
+
+    @Override
+    public String toString() {
+        return "LotteryDraw of " + sectionId + " w/ seed " + seed + " at " + drawnAt;
+    }
+
+    // For JPA only. Do not call!
+    private LotteryDraw() {
+        sectionId = null;
+        seed = 0;
+        drawnAt = null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+
+@Repository
+public interface LotteryDrawRepository extends JpaRepository<LotteryDraw, String> {
+
+    boolean existsBySectionIdIn(Collection<String> sectionIds);
+}
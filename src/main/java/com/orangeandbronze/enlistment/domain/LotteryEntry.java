@@ -0,0 +1,53 @@
+package com.orangeandbronze.enlistment.domain;
+
+import jakarta.persistence.*;
+
+import java.time.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/** A student's request for a seat in a lottery section, waiting for the {@link LotteryAllocator draw}. */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "lottery_entry_student_section_uk",
+        columnNames = {"student_number", "section_id"}))
+public class LotteryEntry {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+    private final int studentNumber;
+    private final String sectionId;
+    private final Instant submittedAt;
+
+    LotteryEntry(int studentNumber, String sectionId, Instant submittedAt) {
+        notBlank(sectionId, "sectionId can't be blank");
+        notNull(submittedAt, "submittedAt can't be null");
+        this.studentNumber = studentNumber;
+        this.sectionId = sectionId;
+        this.submittedAt = submittedAt;
+    }
+
+    public int getStudentNumber() {
+        return studentNumber;
+    }
+
+    public String getSectionId() {
+        return sectionId;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "LotteryEntry of student# " + studentNumber + " for " + sectionId;
+    }
+
+    // For JPA only. Do not call!
+    private LotteryEntry() {
+        studentNumber = -1;
+        sectionId = null;
+        submittedAt = null;
+    }
+}
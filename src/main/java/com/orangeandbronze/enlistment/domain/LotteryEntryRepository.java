@@ -0,0 +1,40 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.*;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+
+@Repository
+public interface LotteryEntryRepository extends JpaRepository<LotteryEntry, Long> {
+
+    boolean existsByStudentNumberAndSectionId(int studentNumber, String sectionId);
+
+    List<LotteryEntry> findByStudentNumberOrderBySubmittedAt(int studentNumber);
+
+    List<LotteryEntry> findBySectionIdIn(Collection<String> sectionIds);
+
+    @Modifying
+    @Query("DELETE FROM LotteryEntry e WHERE e.studentNumber = :studentNumber AND e.sectionId = :sectionId")
+    int withdraw(@Param("studentNumber") int studentNumber, @Param("sectionId") String sectionId);
+
+    @Modifying
+    @Query("DELETE FROM LotteryEntry e WHERE e.sectionId IN :sectionIds")
+    int deleteBySectionIds(@Param("sectionIds") Collection<String> sectionIds);
+
+    /** Forgets that the sections' lotteries were drawn, e.g. once their term is archived & their IDs may be reused. */
+    @Modifying
+    @Query("DELETE FROM LotteryDraw d WHERE d.sectionId IN :sectionIds")
+    int deleteDrawsBySectionIds(@Param("sectionIds") Collection<String> sectionIds);
+
+    @Query("SELECT e.sectionId AS sectionId, COUNT(e) AS entries FROM LotteryEntry e GROUP BY e.sectionId")
+    List<LotteryEntryCount> countBySection();
+
+    interface LotteryEntryCount {
+
+        String getSectionId();
+
+        long getEntries();
+    }
+}
@@ -0,0 +1,214 @@
+package com.orangeandbronze.enlistment.domain;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+import java.util.zip.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Append-only log of binary records in memory-mapped segment files of a fixed size. Appending is a copy into the
+ * mapped segment, so the cost is a memcpy and no system call; the OS writes pages back in the background and
+ * {@link #force()} flushes them on demand. Each record is framed as {@code [int length][int CRC32C][payload]}.
+ * <p>
+ * A record's position is the segment's base position plus its offset in the segment, so positions only grow and
+ * can be used as replay checkpoints. Segment files are named after their base position. When opened, the log
+ * scans the last segment and resumes after the last intact record, dropping a torn write from a crash. Readers check
+ * every record's CRC too and treat a mismatch as the end of its segment, so a corrupted record (in any segment) is
+ * never handed out, nor anything after it in that segment.
+ */
+public class MappedAppendLog implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final byte[] ZEROS = new byte[64 * 1024];
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    private long activeBase;
+    private MappedByteBuffer active;
+
+    public MappedAppendLog(Path directory, int segmentBytes) throws IOException {
+        notNull(directory, "directory can't be null");
+        isTrue(segmentBytes > HEADER_BYTES, "segmentBytes must be greater than %d, was: %d", HEADER_BYTES, segmentBytes);
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())), map(file));
+            }
+        }
+        if (segments.isEmpty()) {
+            activeBase = 0;
+            active = createSegment(0);
+        } else {
+            activeBase = segments.lastKey();
+            active = segments.lastEntry().getValue();
+            active.position(endOfRecords(active));
+        }
+    }
+
+    /** Appends the record and returns its position. */
+    public synchronized long append(byte[] payload) {
+        notNull(payload, "payload can't be null");
+        isTrue(payload.length > 0 && payload.length <= segmentBytes - HEADER_BYTES,
+                "payload must be 1 to %d bytes, was: %d", segmentBytes - HEADER_BYTES, payload.length);
+        if (active.remaining() < HEADER_BYTES + payload.length) {
+            roll();
+        }
+        long position = activeBase + active.position();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int at = active.position();
+        active.putInt(at + 4, (int) crc.getValue());
+        active.put(at + HEADER_BYTES, payload);
+        active.putInt(at, payload.length); // length last, so a torn record reads as the end of the log
+        active.position(at + HEADER_BYTES + payload.length);
+        return position;
+    }
+
+    /** Calls back w/ the position & a read-only view of every record at or after {@code fromPosition}, in order. */
+    public synchronized void forEach(long fromPosition, BiConsumer<Long, ByteBuffer> consumer) {
+        notNull(consumer, "consumer can't be null");
+        Long firstBase = segments.floorKey(fromPosition);
+        for (Map.Entry<Long, MappedByteBuffer> segment : segments.tailMap(firstBase == null ? 0 : firstBase, true).entrySet()) {
+            ByteBuffer view = segment.getValue().duplicate();
+            int offset = 0;
+            while (offset + HEADER_BYTES <= view.capacity()) {
+                int length = view.getInt(offset);
+                if (!isIntact(view, offset, length)) {
+                    break;
+                }
+                long position = segment.getKey() + offset;
+                if (position >= fromPosition) {
+                    consumer.accept(position, view.slice(offset + HEADER_BYTES, length).asReadOnlyBuffer());
+                }
+                offset += HEADER_BYTES + length;
+            }
+        }
+    }
+
+    /**
+     * Read-only view of the first record of each segment, by the segment's base position; an empty segment is left
+     * out. For finding where to start reading or up to where to delete w/o scanning whole segments.
+     */
+    public synchronized NavigableMap<Long, ByteBuffer> firstRecords() {
+        NavigableMap<Long, ByteBuffer> firstRecords = new TreeMap<>();
+        for (Map.Entry<Long, MappedByteBuffer> segment : segments.entrySet()) {
+            ByteBuffer view = segment.getValue().duplicate();
+            int length = view.getInt(0);
+            if (isIntact(view, 0, length)) {
+                firstRecords.put(segment.getKey(), view.slice(HEADER_BYTES, length).asReadOnlyBuffer());
+            }
+        }
+        return firstRecords;
+    }
+
+    /** Position the next record will get. */
+    public synchronized long endPosition() {
+        return activeBase + active.position();
+    }
+
+    /** Deletes whole segments that end at or before the position, e.g. once a snapshot covers them. */
+    public synchronized int deleteSegmentsBefore(long position) throws IOException {
+        int deleted = 0;
+        Iterator<Map.Entry<Long, MappedByteBuffer>> it = segments.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, MappedByteBuffer> segment = it.next();
+            if (segment.getKey() == activeBase || segment.getKey() + segmentBytes > position) {
+                break;
+            }
+            it.remove();
+            Files.deleteIfExists(segmentFile(segment.getKey()));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /** Writes mapped pages of the active segment back to the file. */
+    public synchronized void force() {
+        active.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.values().forEach(MappedByteBuffer::force);
+    }
+
+    private void roll() {
+        active.force();
+        activeBase += segmentBytes;
+        try {
+            active = createSegment(activeBase);
+        } catch (IOException e) {
+            throw new UncheckedIOException("can't create log segment in " + directory, e);
+        }
+    }
+
+    private MappedByteBuffer createSegment(long base) throws IOException {
+        Path file = segmentFile(base);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            segments.put(base, segment);
+            return segment;
+        }
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private Path segmentFile(long base) {
+        return directory.resolve(String.format("%020d%s", base, SUFFIX));
+    }
+
+    /**
+     * Offset just past the last intact record of the segment. After a clean shutdown the scan stops on a zeroed
+     * header and the rest of the segment is left alone; only a torn or corrupted record is cleared, so later appends
+     * never end up next to its bytes.
+     */
+    private static int endOfRecords(ByteBuffer segment) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segment.capacity()) {
+            int length = segment.getInt(offset);
+            if (!isIntact(segment, offset, length)) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        // the CRC is written before the length, so a record torn before its length was written has a CRC
+        boolean torn = offset + HEADER_BYTES <= segment.capacity()
+                && (segment.getInt(offset) != 0 || segment.getInt(offset + 4) != 0);
+        if (torn) {
+            for (int i = offset; i < segment.capacity(); i += ZEROS.length) {
+                segment.put(i, ZEROS, 0, Math.min(ZEROS.length, segment.capacity() - i));
+            }
+        }
+        return offset;
+    }
+
+    /** Whether a record w/ the given length starts at the offset, fits in the segment & matches its CRC. */
+    private static boolean isIntact(ByteBuffer segment, int offset, int length) {
+        if (length <= 0 || offset + HEADER_BYTES + length > segment.capacity()) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(segment.slice(offset + HEADER_BYTES, length));
+        return (int) crc.getValue() == segment.getInt(offset + 4);
+    }
+}
@@ -33,8 +33,27 @@ public class Period {
         }
     }
 
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    /** Bitmask of the half-hour slots this period covers, bit 0 being 8:30am - 9:00am. */
+    long halfHourSlots() {
+        int first = (int) Duration.between(LocalTime.of(8, 30), startTime).toMinutes() / 30;
+        int length = (int) Duration.between(startTime, endTime).toMinutes() / 30;
+        return ((1L << length) - 1) << first;
+    }
+
+    boolean overlaps(Period other) {
+        return this.startTime.isBefore(other.endTime) && this.endTime.isAfter(other.startTime);
+    }
+
     void checkOverlap(Period other) {
-        if (this.startTime.isBefore(other.endTime) && this.endTime.isAfter(other.startTime)) {
+        if (overlaps(other)) {
             throw new ScheduleConflictException("Period overlap between this: " + this + " & other: " + other);
         }
     }
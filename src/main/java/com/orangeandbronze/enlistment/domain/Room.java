@@ -30,9 +30,15 @@ public class Room {
         this(roomName, capacity, Collections.emptyList());
     }
 
+    boolean isAtOrOverCapacity(int occupancy) {
+        return occupancy >= capacity;
+    }
+
     void checkIfAtOrOverCapacity(int occupancy) {
-        isTrue(occupancy >= 0, "occupancy must be non-negative, was: " + occupancy);
-        if (occupancy >= capacity) {
+        if (occupancy < 0) { // not Validate.isTrue, its varargs box & allocate on every enlistment
+            throw new IllegalArgumentException("occupancy must be non-negative, was: " + occupancy);
+        }
+        if (isAtOrOverCapacity(occupancy)) {
             throw new CapacityException("at or over capacity of " + capacity + "  at occupancy of " + occupancy);
         }
     }
@@ -0,0 +1,218 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * In-memory room availability for the section form: which rooms are free for a schedule, ranked by fit, and how
+ * booked each room is over the week. Every room is one {@link Schedule#halfHourSlots() 54-bit slot mask} in a
+ * flat array sorted by capacity, so a search is a scan of a few longs per room with no allocation until a match.
+ * <p>
+ * Bookings are added with {@link #book(Section)} once a section has been created. Like {@link ConflictMatrix},
+ * updates are copy-on-write behind a volatile reference, so searches never lock.
+ */
+@Component
+public class RoomAvailability {
+
+    private static final long WEEK_MASK = (1L << Schedule.HALF_HOURS_PER_WEEK) - 1;
+
+    private volatile Rooms rooms = new Rooms(new String[0], new int[0], new long[0], Map.of());
+
+    @Autowired
+    private SectionRepository sectionRepo;
+
+    /**
+     * Replaces every room & booking w/ the given ones, in one swap; called by {@link CacheWarmup}, on startup and
+     * whenever the catalog is rebuilt, e.g. once a term is archived.
+     */
+    public synchronized void loadCatalog(Collection<Room> rooms, Collection<Section> sections) {
+        notNull(rooms, "rooms can't be null");
+        notNull(sections, "sections can't be null");
+        Map<String, Integer> capacitiesByName = new LinkedHashMap<>();
+        rooms.forEach(room -> capacitiesByName.putIfAbsent(room.getName(), room.getCapacity()));
+        sections.stream().filter(section -> section.getSchedule() != null)
+                .forEach(section -> capacitiesByName.putIfAbsent(section.getRoom().getName(),
+                        section.getRoom().getCapacity()));
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(capacitiesByName.entrySet());
+        sorted.sort(Map.Entry.comparingByValue()); // stable, so rooms of equal capacity stay in the order given
+        String[] names = new String[sorted.size()];
+        int[] capacities = new int[sorted.size()];
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            names[i] = sorted.get(i).getKey();
+            capacities[i] = sorted.get(i).getValue();
+            indexes.put(names[i], i);
+        }
+        long[] booked = new long[names.length];
+        for (Section section : sections) {
+            if (section.getSchedule() != null) {
+                booked[indexes.get(section.getRoom().getName())] |= section.getSchedule().halfHourSlots();
+            }
+        }
+        this.rooms = new Rooms(names, capacities, booked, indexes);
+    }
+
+    /** Sections created on other nodes. */
+    @EventListener
+    public void onSectionChanged(SectionChangedEvent event) {
+        if (!event.local() && sectionRepo != null) {
+            sectionRepo.findById(event.sectionId()).ifPresent(this::book);
+        }
+    }
+
+    public synchronized void addRoom(Room room) {
+        notNull(room, "room can't be null");
+        Rooms current = rooms;
+        if (current.indexOf(room.getName()) >= 0) {
+            return;
+        }
+        int size = current.names.length;
+        int at = 0;
+        while (at < size && current.capacities[at] <= room.getCapacity()) {
+            at++;
+        }
+        String[] names = new String[size + 1];
+        int[] capacities = new int[size + 1];
+        long[] booked = new long[size + 1];
+        System.arraycopy(current.names, 0, names, 0, at);
+        System.arraycopy(current.capacities, 0, capacities, 0, at);
+        System.arraycopy(current.booked, 0, booked, 0, at);
+        names[at] = room.getName();
+        capacities[at] = room.getCapacity();
+        System.arraycopy(current.names, at, names, at + 1, size - at);
+        System.arraycopy(current.capacities, at, capacities, at + 1, size - at);
+        System.arraycopy(current.booked, at, booked, at + 1, size - at);
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            indexes.put(names[i], i);
+        }
+        rooms = new Rooms(names, capacities, booked, indexes);
+    }
+
+    /** Marks the section's schedule as taken in its room, adding the room if it's new. */
+    public synchronized void book(Section section) {
+        notNull(section, "section can't be null");
+        if (section.getSchedule() == null) {
+            return;
+        }
+        addRoom(section.getRoom());
+        Rooms current = rooms;
+        long[] booked = current.booked.clone();
+        booked[current.indexOf(section.getRoom().getName())] |= section.getSchedule().halfHourSlots();
+        rooms = new Rooms(current.names, current.capacities, booked, current.indexes);
+    }
+
+    /** The room's booked half-hours as a slot mask, 0 for an unknown room. */
+    public long bookedSlots(String roomName) {
+        Rooms current = rooms;
+        int index = current.indexOf(roomName);
+        return index < 0 ? 0 : current.booked[index];
+    }
+
+    public boolean isFree(String roomName, Schedule schedule) {
+        notNull(schedule, "schedule can't be null");
+        Rooms current = rooms;
+        int index = current.indexOf(roomName);
+        return index >= 0 && (current.booked[index] & schedule.halfHourSlots()) == 0;
+    }
+
+    /**
+     * Rooms w/ at least {@code minCapacity} seats that are free for the whole schedule, best fit first: fewest
+     * spare seats, then the most booked half-hours right before or after the schedule (so bookings stay packed
+     * and leave long free stretches elsewhere), then by name.
+     */
+    public List<RoomSuggestion> suggest(Schedule schedule, int minCapacity, int limit) {
+        notNull(schedule, "schedule can't be null");
+        isTrue(limit > 0, "limit must be greater than zero, was: %d", limit);
+        Rooms current = rooms;
+        long wanted = schedule.halfHourSlots();
+        long dayMask = ((1L << Schedule.HALF_HOURS_PER_DAY) - 1) << (schedule.getDays().ordinal() * Schedule.HALF_HOURS_PER_DAY);
+        long neighbours = ((wanted << 1) | (wanted >>> 1)) & ~wanted & dayMask;
+        List<RoomSuggestion> suggestions = new ArrayList<>();
+        int first = firstWithCapacity(current.capacities, minCapacity);
+        for (int i = first; i < current.names.length; i++) {
+            if ((current.booked[i] & wanted) != 0) {
+                continue;
+            }
+            if (suggestions.size() == limit && current.capacities[i] > suggestions.get(limit - 1).capacity()) {
+                break; // sorted by capacity: every remaining room fits worse than the ones found
+            }
+            suggestions.add(new RoomSuggestion(current.names[i], current.capacities[i],
+                    current.capacities[i] - minCapacity, Long.bitCount(current.booked[i] & neighbours)));
+        }
+        suggestions.sort(Comparator.comparingInt(RoomSuggestion::spareSeats)
+                .thenComparing(Comparator.comparingInt(RoomSuggestion::adjacentBookedSlots).reversed())
+                .thenComparing(RoomSuggestion::roomName));
+        return suggestions.size() > limit ? List.copyOf(suggestions.subList(0, limit)) : suggestions;
+    }
+
+    /** One room's week: booked[days.ordinal()][n] for the n-th half hour from 8:30am. */
+    public Optional<RoomHeatmap> heatmap(String roomName) {
+        Rooms current = rooms;
+        int index = current.indexOf(roomName);
+        return index < 0 ? Optional.empty() : Optional.of(heatmapOf(current, index));
+    }
+
+    /** Every room's week, busiest first. */
+    public List<RoomHeatmap> heatmaps() {
+        Rooms current = rooms;
+        List<RoomHeatmap> heatmaps = new ArrayList<>(current.names.length);
+        for (int i = 0; i < current.names.length; i++) {
+            heatmaps.add(heatmapOf(current, i));
+        }
+        heatmaps.sort(Comparator.comparingDouble(RoomHeatmap::utilization).reversed()
+                .thenComparing(RoomHeatmap::roomName));
+        return heatmaps;
+    }
+
+    private static RoomHeatmap heatmapOf(Rooms rooms, int index) {
+        long booked = rooms.booked[index];
+        boolean[][] grid = new boolean[Days.values().length][Schedule.HALF_HOURS_PER_DAY];
+        for (int day = 0; day < grid.length; day++) {
+            for (int slot = 0; slot < Schedule.HALF_HOURS_PER_DAY; slot++) {
+                grid[day][slot] = (booked & (1L << (day * Schedule.HALF_HOURS_PER_DAY + slot))) != 0;
+            }
+        }
+        return new RoomHeatmap(rooms.names[index], rooms.capacities[index],
+                (double) Long.bitCount(booked & WEEK_MASK) / Schedule.HALF_HOURS_PER_WEEK, grid);
+    }
+
+    /** Index of the first room w/ at least the capacity, by binary search over the sorted capacities. */
+    private static int firstWithCapacity(int[] capacities, int minCapacity) {
+        int low = 0;
+        int high = capacities.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (capacities[mid] < minCapacity) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    void setSectionRepo(SectionRepository sectionRepo) {
+        this.sectionRepo = sectionRepo;
+    }
+
+    /** Rooms sorted by capacity, w/ their booked slot masks. Never mutated once published. */
+    private record Rooms(String[] names, int[] capacities, long[] booked, Map<String, Integer> indexes) {
+
+        int indexOf(String roomName) {
+            return indexes.getOrDefault(roomName, -1);
+        }
+    }
+
+    public record RoomSuggestion(String roomName, int capacity, int spareSeats, int adjacentBookedSlots) {
+    }
+
+    public record RoomHeatmap(String roomName, int capacity, double utilization, boolean[][] booked) {
+    }
+}
@@ -6,6 +6,11 @@ import static org.apache.commons.lang3.Validate.notNull;
 
 @Embeddable
 public class Schedule {
+    /** Half-hour slots per day pair, 8:30am - 5:30pm. */
+    public static final int HALF_HOURS_PER_DAY = 18;
+    /** Half-hour slots in a week, across all {@link Days}; fits in one long. */
+    public static final int HALF_HOURS_PER_WEEK = HALF_HOURS_PER_DAY * Days.values().length;
+
     private final Days days;
     @Embedded
     private final Period period;
@@ -17,6 +22,26 @@ public class Schedule {
         this.period = period;
     }
 
+    public Days getDays() {
+        return days;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    /**
+     * This schedule as a bitmask of weekly half-hour slots, bit {@code days.ordinal() * 18 + n} standing for the n-th
+     * half hour from 8:30am. Two schedules overlap exactly when their masks intersect.
+     */
+    public long halfHourSlots() {
+        return period.halfHourSlots() << (days.ordinal() * HALF_HOURS_PER_DAY);
+    }
+
+    boolean overlaps(Schedule other) {
+        return this.days == other.days && this.period.overlaps(other.period);
+    }
+
     void checkOverlap(Schedule other) {
         if (this.days.equals(other.days)) {
             this.period.checkOverlap(other.period);
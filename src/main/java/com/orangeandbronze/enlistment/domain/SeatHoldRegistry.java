@@ -0,0 +1,161 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.springframework.beans.factory.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Short-lived seat holds ("cart" reservations). A hold counts against the section's room capacity like an
+ * enlisted student until it is converted with {@link #release(int, String)} after enlisting, or until its TTL
+ * runs out on the timer wheel. Held-seat counts live in memory only, so capacity checks see them without a
+ * database round-trip; they are lost on restart, and they are per-node: another node neither sees nor counts them,
+ * so w/ multi-node enabled a hold only keeps its seat from enlistments through this node, and the database's seat
+ * count stays the only cluster-wide limit.
+ */
+@Component
+public class SeatHoldRegistry implements InitializingBean, DisposableBean {
+
+    private static final int WHEEL_SIZE = 512;
+
+    private final Duration ttl;
+    private final LongSupplier clock;
+    private final HashedTimerWheel<SeatHold> wheel;
+    private final ConcurrentMap<String, AtomicInteger> heldSeats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<HoldKey, Entry> holds = new ConcurrentHashMap<>();
+    private final Duration tick;
+    private final boolean startTicker;
+    private ScheduledExecutorService ticker;
+
+    @Autowired
+    public SeatHoldRegistry(@Value("${enlistment.holds.ttl:PT10M}") Duration ttl,
+                            @Value("${enlistment.holds.tick:PT1S}") Duration tick) {
+        this(ttl, tick, System::currentTimeMillis, true);
+    }
+
+    SeatHoldRegistry(Duration ttl, Duration tick, LongSupplier clock, boolean startTicker) {
+        notNull(ttl, "ttl can't be null");
+        notNull(tick, "tick can't be null");
+        notNull(clock, "clock can't be null");
+        isTrue(!ttl.isNegative() && !ttl.isZero(), "ttl must be positive, was: " + ttl);
+        this.ttl = ttl;
+        this.tick = tick;
+        this.clock = clock;
+        this.startTicker = startTicker;
+        this.wheel = new HashedTimerWheel<>(tick.toMillis(), WHEEL_SIZE, clock.getAsLong());
+    }
+
+    /** Starts expiring holds, once constructed, so the ticker never sees a half-built registry. */
+    @Override
+    public void afterPropertiesSet() {
+        if (!startTicker) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireDueHolds, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Holds a seat in the section for the student, or extends the student's existing hold on it.
+     *
+     * @throws CapacityException if enlisted students plus other holds already fill the room
+     */
+    public SeatHold hold(Student student, Section section) {
+        notNull(student, "student can't be null");
+        notNull(section, "section can't be null");
+        HoldKey key = new HoldKey(student.getStudentNumber(), section.getSectionId());
+        AtomicInteger held = heldSeats.computeIfAbsent(section.getSectionId(), id -> new AtomicInteger());
+        synchronized (held) { // one hold decision at a time per section
+            Entry previous = holds.get(key);
+            if (previous == null) {
+                section.checkSeatAvailable(held.get());
+            }
+            SeatHold seatHold = new SeatHold(key.studentNumber(), key.sectionId(),
+                    Instant.ofEpochMilli(clock.getAsLong()).plus(ttl));
+            holds.put(key, new Entry(seatHold, wheel.schedule(seatHold, seatHold.expiresAt().toEpochMilli())));
+            if (previous == null) {
+                held.incrementAndGet();
+            } else {
+                previous.timeout().cancel();
+            }
+            return seatHold;
+        }
+    }
+
+    public Optional<SeatHold> find(int studentNumber, String sectionId) {
+        Entry entry = holds.get(new HoldKey(studentNumber, sectionId));
+        return entry == null ? Optional.empty() : Optional.of(entry.seatHold());
+    }
+
+    /** Seats held in the section, not counting the given student's own hold. */
+    public int seatsHeldByOthers(String sectionId, int studentNumber) {
+        AtomicInteger held = heldSeats.get(sectionId);
+        if (held == null) {
+            return 0;
+        }
+        int others = held.get() - (holds.containsKey(new HoldKey(studentNumber, sectionId)) ? 1 : 0);
+        return Math.max(others, 0);
+    }
+
+    /** Drops the student's hold on the section, if any, e.g. once it has been converted into an enlistment. */
+    public void release(int studentNumber, String sectionId) {
+        Entry entry = holds.get(new HoldKey(studentNumber, sectionId));
+        if (entry != null) {
+            entry.timeout().cancel();
+            remove(entry.seatHold());
+        }
+    }
+
+    /** The student enlisted in (or cancelled) the section through another node, so a hold here is used up. */
+    @EventListener
+    public void onSeatsChanged(SeatsChangedEvent event) {
+        if (!event.local()) {
+            release(event.studentNumber(), event.sectionId());
+        }
+    }
+
+    void expireDueHolds() {
+        wheel.advanceTo(clock.getAsLong(), this::remove);
+    }
+
+    private void remove(SeatHold seatHold) {
+        HoldKey key = new HoldKey(seatHold.studentNumber(), seatHold.sectionId());
+        AtomicInteger held = heldSeats.get(seatHold.sectionId());
+        synchronized (held) {
+            Entry current = holds.get(key);
+            if (current != null && current.seatHold() == seatHold) { // not already extended or released
+                holds.remove(key);
+                held.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    public record SeatHold(int studentNumber, String sectionId, Instant expiresAt) {
+    }
+
+    private record HoldKey(int studentNumber, String sectionId) {
+    }
+
+    private record Entry(SeatHold seatHold, HashedTimerWheel.Timeout<SeatHold> timeout) {
+    }
+}
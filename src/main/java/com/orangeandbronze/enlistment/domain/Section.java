@@ -4,7 +4,8 @@ import org.hibernate.annotations.*;
 
 import jakarta.persistence.*;
 import jakarta.persistence.Entity;
-import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 import java.util.*;
 import java.util.concurrent.locks.*;
@@ -13,6 +14,9 @@ import static org.apache.commons.lang3.StringUtils.*;
 import static org.apache.commons.lang3.Validate.*;
 
 @Entity
+@DynamicUpdate // the enlist path only changes the counter, so that's all its version-checked UPDATE sets
+@Table(indexes = {@Index(name = "section_faculty_schedule_idx",
+        columnList = "faculty_faculty_number, days, start_time"), @Index(name = "section_term_idx", columnList = "term")})
 public class Section {
     @Id
     private final String sectionId;
@@ -27,8 +31,8 @@ public class Section {
 
     private int numberOfStudents = 0;
 
-    @Autowired
-    private SectionRepository sectionRepository;
+    /** Null for sections created w/o terms, which are treated as the current term's. */
+    private final String term;
 
     @Version
     @ColumnDefault("0")
@@ -37,7 +41,15 @@ public class Section {
     @Transient
     private final ReentrantLock lock = new ReentrantLock();
 
+    /** Seats held by other students' unexpired seat holds; counted against capacity, never persisted. */
+    @Transient
+    private int seatsHeldByOthers = 0;
+
     public Section(String sectionId, Subject subject, Schedule schedule, Room room) {
+        this(sectionId, subject, schedule, room, (String) null);
+    }
+
+    public Section(String sectionId, Subject subject, Schedule schedule, Room room, String term) {
         notBlank(sectionId,
                 "sectionId can't be null, empty or whitespace ");
         notNull(subject, "subject can't be null");
@@ -50,6 +62,7 @@ public class Section {
         this.schedule = schedule;
         room.addSection(this);
         this.room = room;
+        this.term = term;
     }
 
     Section(String sectionId, Subject subject, Schedule schedule, Room room, int numberOfStudents) {
@@ -70,42 +83,78 @@ public class Section {
         this.schedule.checkOverlap(other.schedule);
     }
 
+    boolean hasSameSubject(Section other) {
+        return this.subject.equals(other.subject);
+    }
+
+    boolean hasScheduleConflict(Section other) {
+        return this.schedule.overlaps(other.schedule);
+    }
+
+    boolean hasSeatAvailable() {
+        return !room.isAtOrOverCapacity(getOccupancy());
+    }
+
+    /** Enlisted students plus seats held by others. */
+    int getOccupancy() {
+        return numberOfStudents + seatsHeldByOthers;
+    }
+
+    boolean prereqsSatisfiedBy(Collection<Subject> subjectsTaken) {
+        return subject.prereqsSatisfiedBy(subjectsTaken);
+    }
+
     int getNumberOfStudents() {
         return numberOfStudents;
     }
 
+    /** Seats not taken by enlisted students or held by others, never negative. */
+    public int getSeatsLeft() {
+        return Math.max(0, room.getCapacity() - numberOfStudents - seatsHeldByOthers);
+    }
+
     void incrementNumberOfStudents() {
-        room.checkIfAtOrOverCapacity(numberOfStudents);
+        checkSeatAvailable(seatsHeldByOthers);
         numberOfStudents++;
     }
 
+    void checkSeatAvailable(int heldSeats) {
+        room.checkIfAtOrOverCapacity(numberOfStudents + heldSeats);
+    }
+
+    /** Makes the next enlistment in this section also count the given seats held through {@link SeatHoldRegistry}. */
+    public void countHeldSeats(int seatsHeldByOthers) {
+        isTrue(seatsHeldByOthers >= 0, "seatsHeldByOthers must be non-negative, was: " + seatsHeldByOthers);
+        this.seatsHeldByOthers = seatsHeldByOthers;
+    }
+
     void decrementNumberOfStudents() {
         numberOfStudents--;
     }
 
     void checkPrereqs(Collection<Subject> subjectsTaken) {
         notNull(subjectsTaken, "subjectsTaken can't be null");
-        Collection<Subject> copy = new HashSet<>(subjectsTaken); // sets are quicker to search through
-        subject.checkPrereqs(copy);
-    }
-
-    boolean checkSchedule(Faculty faculty){
-        List<Section> sectionList = sectionRepository.findAll();
-
-        for (Section section : sectionList) {
-            if (section.getSchedule() == this.schedule && section.checkFaculty(this.faculty)) {
-                return true;
-            }
-        }
-        return false;
+        subject.checkPrereqs(subjectsTaken);
     }
 
     public boolean checkFaculty(Faculty faculty){
         return this.faculty == faculty;
     }
 
-    public void assignFaculty(Faculty faculty){
-        isTrue(!checkSchedule(faculty), "Faculty has conflicting schedule");
+    /**
+     * Assigns the faculty, who must not already teach a section w/ an overlapping schedule.
+     *
+     * @param facultySections the sections the faculty is currently assigned to
+     */
+    public void assignFaculty(Faculty faculty, Collection<Section> facultySections) {
+        notNull(faculty, "faculty can't be null");
+        notNull(facultySections, "facultySections can't be null");
+        for (Section other : facultySections) {
+            if (!this.equals(other) && hasScheduleConflict(other)) {
+                throw new ScheduleConflictException("Faculty " + faculty.getFacultyNumber() + " already teaches section "
+                        + other + " at " + other.schedule + ", which overlaps this section " + this + " at " + schedule);
+            }
+        }
         this.faculty = faculty;
     }
 
@@ -135,6 +184,10 @@ public class Section {
         return room;
     }
 
+    public String getTerm() {
+        return term;
+    }
+
     public int getFacultyID() {
         if (faculty == null){
             return -1;
@@ -170,5 +223,6 @@ public class Section {
         subject = null;
         schedule = null;
         room = null;
+        term = null;
     }
 }
@@ -0,0 +1,116 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.time.temporal.*;
+import java.util.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * In-process copy of the section catalog for listing sections, w/ subjects, rooms & faculty already fetched, so
+ * the enlistment page doesn't query every section on every view. Loaded by {@link CacheWarmup} on startup.
+ * <p>
+ * Sections are detached: for display & read-only checks only, never for enlisting. Copy-on-write behind a
+ * volatile reference like {@link ConflictMatrix}.
+ * <p>
+ * Every change bumps the {@link #version() version} and {@link #lastModified() last-modified time}, from which
+ * HTTP caches validate catalog responses. Seat counts aren't part of the catalog, so enlistments don't change it.
+ */
+@Component
+public class SectionCatalog {
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    private SectionRepository sectionRepo;
+
+    public synchronized void load(Collection<Section> sections) {
+        notNull(sections, "sections can't be null");
+        List<Section> sorted = new ArrayList<>(sections);
+        sorted.sort(Comparator.comparing(Section::getSectionId));
+        Map<String, Section> byId = new HashMap<>();
+        sorted.forEach(section -> byId.put(section.getSectionId(), section));
+        Snapshot current = snapshot;
+        this.snapshot = new Snapshot(Collections.unmodifiableList(sorted), byId,
+                current == null ? 1 : current.version + 1, Instant.now().truncatedTo(ChronoUnit.SECONDS),
+                byId.keySet().hashCode());
+    }
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * Every section by ID; empty until {@link #load(Collection) loaded}. The same list instance is returned until
+     * the catalog changes, so views derived from it can be cached by identity.
+     */
+    public List<Section> sections() {
+        Snapshot current = snapshot;
+        return current == null ? List.of() : current.sections;
+    }
+
+    /** Starts at 1 once loaded & goes up w/ every change; 0 until loaded. */
+    public long version() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.version;
+    }
+
+    /**
+     * Entity tag of this version of the catalog. Versions count changes per node, so the tag also has a hash of the
+     * section IDs, keeping nodes that loaded different catalogs from handing out the same tag.
+     */
+    public String etag() {
+        Snapshot current = snapshot;
+        return current == null ? "v0" : "v" + current.version + "-" + Integer.toHexString(current.idsHash);
+    }
+
+    /** To the second, as HTTP dates are; {@link Instant#EPOCH} until loaded. */
+    public Instant lastModified() {
+        Snapshot current = snapshot;
+        return current == null ? Instant.EPOCH : current.lastModified;
+    }
+
+    public Optional<Section> find(String sectionId) {
+        Snapshot current = snapshot;
+        return current == null ? Optional.empty() : Optional.ofNullable(current.byId.get(sectionId));
+    }
+
+    /** Adds or replaces the section, once its creation has committed. */
+    public synchronized void put(Section section) {
+        notNull(section, "section can't be null");
+        Snapshot current = snapshot;
+        if (current == null) {
+            return; // loaded whole on startup
+        }
+        List<Section> updated = new ArrayList<>(current.sections.size() + 1);
+        for (Section existing : current.sections) {
+            if (!existing.getSectionId().equals(section.getSectionId())) {
+                updated.add(existing);
+            }
+        }
+        updated.add(section);
+        load(updated);
+    }
+
+    /** Sections created on other nodes. */
+    @EventListener
+    public void onSectionChanged(SectionChangedEvent event) {
+        if (!event.local() && sectionRepo != null && isLoaded()) {
+            sectionRepo.findById(event.sectionId()).ifPresent(this::put);
+        }
+    }
+
+    void setSectionRepo(SectionRepository sectionRepo) {
+        this.sectionRepo = sectionRepo;
+    }
+
+    /** Sections sorted by ID & indexed by ID. Never mutated once published. */
+    private record Snapshot(List<Section> sections, Map<String, Section> byId, long version, Instant lastModified,
+                            int idsHash) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.orangeandbronze.enlistment.domain;
+
+import io.micrometer.core.instrument.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Brings {@code Section.numberOfStudents} back in line with the rows in {@code student_sections}.
+ * <p>
+ * Counts are read in large keyset-paginated chunks, each in its own short read-only transaction.
+ * Drifted counters are then corrected in small batches, each batch in its own write transaction, using
+ * a conditional update so that a counter changed by a concurrent enlistment is left alone until the next run.
+ */
+@Component
+public class SectionCounterReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(SectionCounterReconciler.class);
+
+    private final SectionRepository sectionRepo;
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate writeTx;
+    private final int chunkSize;
+    private final int batchSize;
+
+    private final Counter sectionsChecked;
+    private final Counter sectionsDrifted;
+    private final Counter sectionsCorrected;
+    private final DistributionSummary driftMagnitude;
+    private final Timer runTimer;
+    private final AtomicInteger lastRunDrifted = new AtomicInteger();
+
+    public SectionCounterReconciler(SectionRepository sectionRepo, PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${enlistment.reconciliation.chunk-size:5000}") int chunkSize,
+                                    @Value("${enlistment.reconciliation.batch-size:50}") int batchSize) {
+        notNull(sectionRepo, "sectionRepo can't be null");
+        notNull(transactionManager, "transactionManager can't be null");
+        notNull(meterRegistry, "meterRegistry can't be null");
+        isTrue(chunkSize > 0, "chunkSize must be greater than zero, was: " + chunkSize);
+        isTrue(batchSize > 0, "batchSize must be greater than zero, was: " + batchSize);
+        this.sectionRepo = sectionRepo;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.sectionsChecked = meterRegistry.counter("enlistment.reconciliation.sections.checked");
+        this.sectionsDrifted = meterRegistry.counter("enlistment.reconciliation.sections.drifted");
+        this.sectionsCorrected = meterRegistry.counter("enlistment.reconciliation.sections.corrected");
+        this.driftMagnitude = DistributionSummary.builder("enlistment.reconciliation.drift")
+                .description("absolute difference between number_of_students and student_sections rows")
+                .register(meterRegistry);
+        this.runTimer = meterRegistry.timer("enlistment.reconciliation.run");
+        meterRegistry.gauge("enlistment.reconciliation.last.drifted", lastRunDrifted);
+    }
+
+    @Scheduled(fixedDelayString = "${enlistment.reconciliation.interval:PT5M}",
+            initialDelayString = "${enlistment.reconciliation.interval:PT5M}")
+    public void scheduledReconcile() {
+        ReconciliationReport report = reconcile();
+        if (report.drifted() > 0) {
+            log.warn("Section counter reconciliation: {}", report);
+        } else {
+            log.debug("Section counter reconciliation: {}", report);
+        }
+    }
+
+    public ReconciliationReport reconcile() {
+        return runTimer.record(this::reconcileAllChunks);
+    }
+
+    private ReconciliationReport reconcileAllChunks() {
+        int checked = 0;
+        int drifted = 0;
+        long totalDrift = 0;
+        int corrected = 0;
+        String after = "";
+        List<SectionEnrollmentCount> chunk;
+        do {
+            final String chunkStart = after;
+            chunk = readTx.execute(status -> sectionRepo.countEnrollmentsAfter(chunkStart, chunkSize));
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            List<SectionEnrollmentCount> driftedInChunk = new ArrayList<>();
+            for (SectionEnrollmentCount count : chunk) {
+                if (count.drift() != 0) {
+                    driftedInChunk.add(count);
+                    driftMagnitude.record(Math.abs(count.drift()));
+                    totalDrift += Math.abs(count.drift());
+                }
+            }
+            checked += chunk.size();
+            drifted += driftedInChunk.size();
+            corrected += correct(driftedInChunk);
+            after = chunk.get(chunk.size() - 1).getSectionId();
+        } while (chunk.size() == chunkSize);
+        sectionsChecked.increment(checked);
+        sectionsDrifted.increment(drifted);
+        sectionsCorrected.increment(corrected);
+        lastRunDrifted.set(drifted);
+        return new ReconciliationReport(checked, drifted, totalDrift, corrected);
+    }
+
+    private int correct(List<SectionEnrollmentCount> drifted) {
+        int corrected = 0;
+        for (int from = 0; from < drifted.size(); from += batchSize) {
+            List<SectionEnrollmentCount> batch = drifted.subList(from, Math.min(from + batchSize, drifted.size()));
+            Integer updated = writeTx.execute(status -> {
+                int rows = 0;
+                for (SectionEnrollmentCount count : batch) {
+                    rows += sectionRepo.correctNumberOfStudents(count.getSectionId(),
+                            count.getNumberOfStudents(), Math.toIntExact(count.getEnrolled()));
+                }
+                return rows;
+            });
+            corrected += updated == null ? 0 : updated;
+        }
+        return corrected;
+    }
+
+    /**
+     * Outcome of one reconciliation run. {@code drifted} sections had a counter that disagreed with
+     * the join table, {@code corrected} of them still held the value read and were overwritten.
+     */
+    public record ReconciliationReport(int checked, int drifted, long totalDrift, int corrected) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.orangeandbronze.enlistment.domain;
+
+/** Projection of {@link SectionRepository#countEnrollmentsAfter(String, int)}. */
+public interface SectionEnrollmentCount {
+
+    String getSectionId();
+
+    int getNumberOfStudents();
+
+    long getEnrolled();
+
+    default int drift() {
+        return Math.toIntExact(getNumberOfStudents() - getEnrolled());
+    }
+}
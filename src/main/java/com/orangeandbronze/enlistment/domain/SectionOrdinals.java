@@ -0,0 +1,55 @@
+package com.orangeandbronze.enlistment.domain;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Dense, stable int ordinals for sectionIds (0, 1, 2, ... in order of first sight), so that per-student and
+ * per-section structures can be primitive arrays and bitsets instead of collections of {@link Section}s.
+ * Ordinals are never reused for the lifetime of this object.
+ */
+public class SectionOrdinals {
+
+    private final ConcurrentMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private volatile String[] sectionIds = new String[64];
+    private int size = 0; // guarded by this
+
+    /** Returns the section's ordinal, assigning the next one if the section hasn't been seen yet. */
+    public int ordinalOf(String sectionId) {
+        Integer ordinal = ordinals.get(sectionId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        notBlank(sectionId, "sectionId can't be blank");
+        synchronized (this) {
+            ordinal = ordinals.get(sectionId);
+            if (ordinal == null) {
+                if (size == sectionIds.length) {
+                    sectionIds = Arrays.copyOf(sectionIds, size * 2);
+                }
+                sectionIds[size] = sectionId;
+                ordinal = size++;
+                ordinals.put(sectionId, ordinal);
+            }
+            return ordinal;
+        }
+    }
+
+    /** Returns the section's ordinal, or -1 if it hasn't been assigned one. */
+    public int find(String sectionId) {
+        Integer ordinal = ordinals.get(sectionId);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public String sectionIdOf(int ordinal) {
+        String[] ids = sectionIds;
+        isTrue(ordinal >= 0 && ordinal < ids.length && ids[ordinal] != null, "unknown ordinal: %d", ordinal);
+        return ids[ordinal];
+    }
+
+    public int size() {
+        return ordinals.size();
+    }
+}
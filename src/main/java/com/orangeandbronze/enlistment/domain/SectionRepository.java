@@ -1,9 +1,90 @@
 package com.orangeandbronze.enlistment.domain;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.*;
 import org.springframework.stereotype.*;
 
+import java.util.*;
+
 @Repository
 public interface SectionRepository extends JpaRepository<Section, String> {
 
+    /**
+     * Keyset-paginated per-section enrollment counts straight from the join table,
+     * next to the denormalized counter, for sections with IDs after {@code afterSectionId}.
+     */
+    @Query(value = """
+            SELECT s.section_id AS "sectionId", s.number_of_students AS "numberOfStudents",
+                   COUNT(ss.student_student_number) AS "enrolled"
+            FROM section s LEFT JOIN student_sections ss ON ss.sections_section_id = s.section_id
+            WHERE s.section_id > :afterSectionId
+            GROUP BY s.section_id, s.number_of_students
+            ORDER BY s.section_id
+            LIMIT :chunkSize
+            """, nativeQuery = true)
+    List<SectionEnrollmentCount> countEnrollmentsAfter(@Param("afterSectionId") String afterSectionId,
+                                                       @Param("chunkSize") int chunkSize);
+
+    /**
+     * Overwrites the counter only if it still holds the value that was read, and bumps the version
+     * so that in-flight enlistments holding the old version fail their optimistic check and retry.
+     */
+    @Modifying
+    @Query("""
+            UPDATE Section s SET s.numberOfStudents = :enrolled, s.version = s.version + 1
+            WHERE s.sectionId = :sectionId AND s.numberOfStudents = :expected
+            """)
+    int correctNumberOfStudents(@Param("sectionId") String sectionId, @Param("expected") int expected,
+                                @Param("enrolled") int enrolled);
+
+    /** The faculty's sections in timetable order; served by the faculty/schedule index on section. */
+    @Query("""
+            SELECT s FROM Section s WHERE s.faculty.facultyNumber = :facultyNumber
+            ORDER BY s.schedule.days, s.schedule.period.startTime
+            """)
+    List<Section> findByFacultyNumber(@Param("facultyNumber") int facultyNumber);
+
+    /** Pairs of sections assigned to the same faculty whose schedules overlap. */
+    @Query("""
+            SELECT a.faculty.facultyNumber AS facultyNumber, a.sectionId AS sectionId, b.sectionId AS otherSectionId
+            FROM Section a JOIN Section b ON b.faculty = a.faculty AND b.schedule.days = a.schedule.days
+            WHERE a.sectionId < b.sectionId
+              AND a.schedule.period.startTime < b.schedule.period.endTime
+              AND b.schedule.period.startTime < a.schedule.period.endTime
+            ORDER BY a.faculty.facultyNumber, a.sectionId, b.sectionId
+            """)
+    List<FacultyOverlap> findOverlappingFacultyAssignments();
+
+    @Query("SELECT s.sectionId FROM Section s")
+    List<String> findAllSectionIds();
+
+    /** Every section w/ its subject & the subject's prerequisites, room and faculty, in one query. */
+    @Query("""
+            SELECT DISTINCT s FROM Section s JOIN FETCH s.subject sub LEFT JOIN FETCH sub.prerequisites
+            JOIN FETCH s.room LEFT JOIN FETCH s.faculty
+            """)
+    List<Section> findAllForCatalog();
+
+    @Query("SELECT s.sectionId FROM Section s WHERE s.term = :term")
+    List<String> findSectionIdsByTerm(@Param("term") String term);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM student_sections
+            WHERE sections_section_id IN (SELECT section_id FROM section WHERE term = :term)
+            """, nativeQuery = true)
+    int deleteEnrollmentsInTerm(@Param("term") String term);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM room_sections
+            WHERE sections_section_id IN (SELECT section_id FROM section WHERE term = :term)
+            """, nativeQuery = true)
+    int deleteRoomAssignmentsInTerm(@Param("term") String term);
+
+    /** Only once nothing refers to the term's sections anymore. */
+    @Modifying
+    @Query("DELETE FROM Section s WHERE s.term = :term")
+    int deleteAllInTerm(@Param("term") String term);
+
 }
@@ -9,10 +9,10 @@ public class Student {
     private final int studentNumber;
     private final String firstname;
     private final String lastname;
+    @ManyToMany // a Set, not a bag, so adding or removing a section touches just its join row
+    private final Set<Section> sections = new HashSet<>();
     @ManyToMany
-    private final Collection<Section> sections = new HashSet<>();
-    @ManyToMany
-    private final Collection<Subject> subjectsTaken = new HashSet<>();
+    private final Set<Subject> subjectsTaken = new HashSet<>();
 
     Student(int studentNumber, String firstname, String lastname, Collection<Section> sections, Collection<Subject> subjectsTaken) {
         isTrue (studentNumber >= 0,
@@ -38,10 +38,49 @@ public class Student {
         this(studentNumber, firstname, lastname, sections, Collections.emptyList());
     }
 
+    /**
+     * Checks every enlistment rule without enlisting or throwing, and w/o building messages: an OK allocates nothing,
+     * a rejection one small {@link EnlistmentCheck} w/ a lazily built detail. Capacity is checked without the
+     * section's lock, so an OK is only advisory for capacity until {@link #enlist(Section)} rechecks it under the lock.
+     */
+    public EnlistmentCheck checkEnlist(Section newSection) {
+        if (newSection == null) { // not Validate.notNull, its varargs allocate on every call
+            throw new NullPointerException("section can't be null");
+        }
+        for (Section currSection : sections) {
+            if (currSection.hasScheduleConflict(newSection)) {
+                return EnlistmentCheck.scheduleConflict(newSection, sections);
+            }
+            if (currSection.hasSameSubject(newSection)) {
+                return EnlistmentCheck.sameSubject(newSection, sections);
+            }
+        }
+        return checkPrereqsAndCapacity(newSection);
+    }
+
+    /**
+     * Same as {@link #checkEnlist(Section)}, but checks schedule conflicts & same subjects against the enlisted
+     * sections through the precomputed {@link ConflictMatrix}.
+     */
+    public EnlistmentCheck checkEnlist(Section newSection, ConflictMatrix conflicts) {
+        notNull(conflicts, "conflicts can't be null");
+        EnlistmentCheck conflict = conflicts.check(newSection, sections);
+        return conflict.isOk() ? checkPrereqsAndCapacity(newSection) : conflict;
+    }
+
+    private EnlistmentCheck checkPrereqsAndCapacity(Section newSection) {
+        if (!newSection.prereqsSatisfiedBy(subjectsTaken)) {
+            return EnlistmentCheck.prereqMissing(newSection, subjectsTaken);
+        }
+        if (!newSection.hasSeatAvailable()) {
+            return EnlistmentCheck.capacity(newSection);
+        }
+        return EnlistmentCheck.OK;
+    }
+
     public void enlist(Section newSection) {
         notNull(newSection,"section can't be null") ;
-        sections.forEach(currSection -> checkForConflict(currSection, newSection) );
-        newSection.checkPrereqs(subjectsTaken);
+        checkCanEnlist(newSection);
         newSection.lock(); // one thread at a time... this only works on a single section object
         try {
             newSection.incrementNumberOfStudents();
@@ -51,9 +90,12 @@ public class Student {
         }
     }
 
-    private void checkForConflict(Section currSection, Section newSection) {
-        currSection.checkForScheduleConflict(newSection);
-        currSection.checkSameSubject(newSection);
+    /** Throws what {@link #enlist(Section)} would, without enlisting. */
+    void checkCanEnlist(Section newSection) {
+        EnlistmentCheck check = checkEnlist(newSection);
+        if (!check.isOk()) {
+            throw check.exception(); // only now is the detailed message built
+        }
     }
 
     public void cancel(Section section) {
@@ -76,6 +118,11 @@ public class Student {
         return lastname;
     }
 
+    /** Membership check without copying the sections like {@link #getSections()} does. */
+    public boolean isEnlistedIn(Section section) {
+        return sections.contains(section);
+    }
+
     public Collection<Section> getSections() {
         return new ArrayList<>(sections);
     }
@@ -3,8 +3,48 @@ package com.orangeandbronze.enlistment.domain;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.*;
 
+import java.util.*;
+
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Integer> {
 
+    /** W/ the sections in the same query, so they can be read after the repository's transaction has ended. */
+    @Override
+    @EntityGraph(attributePaths = "sections")
+    Optional<Student> findById(Integer studentNumber);
+
+    /** Every enrollment straight from the join table, w/o loading students or sections. */
+    @Query(value = """
+            SELECT ss.student_student_number AS "studentNumber", ss.sections_section_id AS "sectionId"
+            FROM student_sections ss
+            """, nativeQuery = true)
+    List<StudentSection> findAllEnrollments();
+
+    /**
+     * The number of enrollments & the sum of a hash of each (student, section) pair, a cheap checksum of the join
+     * table for {@link EnlistmentJournal} to check its state against; read off an index alone. The hash is the
+     * first 4 bytes of the MD5 of {@code studentNumber:sectionId} as a signed int, see
+     * {@link EnlistmentJournal#enrollmentHash(int, String)}.
+     */
+    @Query(value = """
+            SELECT COUNT(*) AS "enrollments",
+                   COALESCE(SUM(('x' || LEFT(MD5(ss.student_student_number || ':' || ss.sections_section_id), 8))
+                           ::BIT(32)::INT), 0) AS "enrollmentHashSum"
+            FROM student_sections ss
+            """, nativeQuery = true)
+    EnrollmentChecksum enrollmentChecksum();
+
+    /** W/ their sections & subjects taken, for checking enlistments in bulk. */
+    @EntityGraph(attributePaths = {"sections", "subjectsTaken"})
+    List<Student> findByStudentNumberIn(Collection<Integer> studentNumbers);
+
+    @Query("SELECT s.studentNumber FROM Student s")
+    List<Integer> findAllStudentNumbers();
+
+    interface EnrollmentChecksum {
+
+        long getEnrollments();
 
+        long getEnrollmentHashSum();
+    }
 }
@@ -0,0 +1,9 @@
+package com.orangeandbronze.enlistment.domain;
+
+/** Projection of {@link StudentRepository#findAllEnrollments()}: one row of the student/section join table. */
+public interface StudentSection {
+
+    int getStudentNumber();
+
+    String getSectionId();
+}
@@ -25,17 +25,30 @@ public class Subject {
         this(subjectId, Collections.emptyList());
     }
 
+    /** No copying: relies on subjectsTaken having a fast contains(), like the HashSet kept by Student. */
+    boolean prereqsSatisfiedBy(Collection<Subject> subjectsTaken) {
+        for (Subject prerequisite : prerequisites) {
+            if (!subjectsTaken.contains(prerequisite)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     void checkPrereqs(Collection<Subject> subjectsTaken) {
         notNull(subjectsTaken, "subjectsTaken can't be null");
-        Collection<Subject> copySubjectsTaken = new HashSet<>(subjectsTaken); // sets are quicker to search through
-        if (!copySubjectsTaken.containsAll(prerequisites)) {
-            Collection<Subject> copyOfPrereqs = new HashSet<>(prerequisites);
-            copyOfPrereqs.removeAll(copySubjectsTaken);
+        if (!prereqsSatisfiedBy(subjectsTaken)) {
             throw new PrereqMissingException(
-                    "missing prereqs: " + copyOfPrereqs);
+                    "missing prereqs: " + missingPrereqs(subjectsTaken));
         }
     }
 
+    Collection<Subject> missingPrereqs(Collection<Subject> subjectsTaken) {
+        Collection<Subject> copyOfPrereqs = new HashSet<>(prerequisites);
+        copyOfPrereqs.removeAll(new HashSet<>(subjectsTaken));
+        return copyOfPrereqs;
+    }
+
     @Override
     public String toString() {
         return subjectId;
@@ -0,0 +1,7 @@
+package com.orangeandbronze.enlistment.domain;
+
+class SubmissionInProgressException extends EnlistmentException {
+    SubmissionInProgressException() {
+        super("Your previous submission is still being processed.");
+    }
+}
@@ -0,0 +1,241 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+import java.util.zip.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Moves closed terms out of the tables & collections the enlist path works on, so those only ever hold the
+ * current term ({@code enlistment.term.current}). Archiving a term, in one transaction:
+ * <ol>
+ *     <li>copies its enrollments, denormalized, to {@link ArchivedEnrollment}, which serves transcripts, into a
+ *     partition of the term's own where the archive is partitioned by term (the Liquibase schema);</li>
+ *     <li>adds their subjects to the students' subjects taken, so prerequisites are still met;</li>
+ *     <li>deletes its enrollments, room assignments, lottery entries & sections.</li>
+ * </ol>
+ * Once committed, the term is also exported as gzipped CSV to {@code enlistment.archive.directory} for cold storage,
+ * the sections are journaled as archived, and the caches are rebuilt w/o them. The other nodes are notified through
+ * {@link ClusterCoordinator} in the same transaction and rebuild theirs from the database. Sessions' students still
+ * holding an archived section are reloaded by {@link EnlistmentService#current(Student)}. Archive a term after
+ * enlistment for it has closed.
+ */
+@Component
+public class TermArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(TermArchive.class);
+    private static final String CSV_HEADER =
+            "term,student_number,section_id,subject_id,days,start_time,end_time,room_name,faculty_number";
+
+    private final ArchivedEnrollmentRepository archiveRepo;
+    private final SectionRepository sectionRepo;
+    private final LotteryEntryRepository lotteryRepo;
+    private final TransactionTemplate writeTx;
+    private final TransactionTemplate readTx;
+    private final String currentTerm;
+    private final Path directory;
+
+    @Autowired
+    private EnlistmentJournal journal;
+
+    @Autowired
+    private CacheWarmup cacheWarmup;
+
+    @Autowired
+    private EnrollmentCache enrollmentCache;
+
+    @Autowired
+    private SectionCatalog sectionCatalog;
+
+    @Autowired
+    private ClusterCoordinator clusterCoordinator;
+
+    @Autowired
+    public TermArchive(ArchivedEnrollmentRepository archiveRepo, SectionRepository sectionRepo,
+                       LotteryEntryRepository lotteryRepo, PlatformTransactionManager transactionManager,
+                       @Value("${enlistment.term.current:}") String currentTerm,
+                       @Value("${enlistment.archive.directory}") Path directory) {
+        this(archiveRepo, sectionRepo, lotteryRepo, new TransactionTemplate(transactionManager), currentTerm,
+                directory);
+    }
+
+    TermArchive(ArchivedEnrollmentRepository archiveRepo, SectionRepository sectionRepo,
+                LotteryEntryRepository lotteryRepo, TransactionTemplate writeTx, String currentTerm, Path directory) {
+        notNull(archiveRepo, "archiveRepo can't be null");
+        notNull(sectionRepo, "sectionRepo can't be null");
+        notNull(lotteryRepo, "lotteryRepo can't be null");
+        notNull(writeTx, "writeTx can't be null");
+        notNull(currentTerm, "currentTerm can't be null");
+        notNull(directory, "directory can't be null");
+        this.archiveRepo = archiveRepo;
+        this.sectionRepo = sectionRepo;
+        this.lotteryRepo = lotteryRepo;
+        this.writeTx = writeTx;
+        this.readTx = new TransactionTemplate(writeTx.getTransactionManager());
+        this.readTx.setReadOnly(true);
+        this.currentTerm = currentTerm;
+        this.directory = directory;
+    }
+
+    /** The term new sections are created in; null if terms aren't used. */
+    public String getCurrentTerm() {
+        return currentTerm.isBlank() ? null : currentTerm;
+    }
+
+    public List<String> archivedTerms() {
+        return archiveRepo.findTerms();
+    }
+
+    /** The student's archived enrollments by term, oldest term first. */
+    public Map<String, List<ArchivedEnrollment>> transcriptOf(int studentNumber) {
+        Map<String, List<ArchivedEnrollment>> transcript = new LinkedHashMap<>();
+        for (ArchivedEnrollment enrollment : archiveRepo.findByStudentNumberOrderByTermAscSectionIdAsc(studentNumber)) {
+            transcript.computeIfAbsent(enrollment.getTerm(), term -> new ArrayList<>()).add(enrollment);
+        }
+        return transcript;
+    }
+
+    public synchronized ArchiveReport archive(String term) throws IOException {
+        notBlank(term, "term can't be blank");
+        isTrue(term.matches("[A-Za-z0-9_-]+"), "term must be alphanumeric, '-' or '_', was: %s", term);
+        isTrue(!term.equals(currentTerm), "can't archive the current term %s", term);
+        int[] enrollments = {0};
+        List<String> sectionIds = writeTx.execute(status -> {
+            List<String> ids = sectionRepo.findSectionIdsByTerm(term);
+            if (ids.isEmpty()) {
+                return ids;
+            }
+            if (archiveRepo.isPartitionedByTerm()) {
+                archiveRepo.createPartitionFor(term);
+            }
+            enrollments[0] = archiveRepo.copyEnrollmentsOf(term);
+            archiveRepo.recordSubjectsTakenIn(term);
+            sectionRepo.deleteEnrollmentsInTerm(term);
+            sectionRepo.deleteRoomAssignmentsInTerm(term);
+            lotteryRepo.deleteBySectionIds(ids);
+            lotteryRepo.deleteDrawsBySectionIds(ids);
+            sectionRepo.deleteAllInTerm(term);
+            if (clusterCoordinator != null) {
+                clusterCoordinator.publishTermArchived(term);
+            }
+            return ids;
+        });
+        if (sectionIds.isEmpty()) {
+            return new ArchiveReport(term, 0, 0, null);
+        }
+        if (journal != null) { // committed
+            sectionIds.forEach(journal::sectionArchived);
+        }
+        Path export = export(term);
+        rebuildCaches(sectionIds);
+        ArchiveReport report = new ArchiveReport(term, sectionIds.size(), enrollments[0], export.toString());
+        log.info("Archived {}", report);
+        return report;
+    }
+
+    /** A term archived on another node: its sections are gone from the database, so the caches are rebuilt. */
+    @EventListener
+    public synchronized void onTermArchived(TermArchivedEvent event) {
+        if (event.local() || sectionCatalog == null || !sectionCatalog.isLoaded()) {
+            return;
+        }
+        List<String> sectionIds = sectionCatalog.sections().stream()
+                .filter(section -> event.term().equals(section.getTerm())).map(Section::getSectionId).toList();
+        rebuildCaches(sectionIds);
+        log.info("Rebuilt caches w/o the {} sections of term {} archived on node {}", sectionIds.size(),
+                event.term(), event.originNodeId());
+    }
+
+    /** Each cache load replaces what was there, so the archived sections are left out. */
+    private void rebuildCaches(List<String> sectionIds) {
+        if (enrollmentCache != null) {
+            enrollmentCache.sectionsArchived(sectionIds);
+        }
+        if (cacheWarmup != null) {
+            cacheWarmup.warmUp();
+        }
+    }
+
+    /** Writes to a temporary file first, so a half-written export is never mistaken for a whole one. */
+    Path export(String term) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("term-" + term + ".csv.gz");
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+            out.write(CSV_HEADER);
+            out.write('\n');
+            readTx.executeWithoutResult(status -> {
+                try (Stream<ArchivedEnrollment> rows =
+                             archiveRepo.streamByTermOrderByStudentNumberAscSectionIdAsc(term)) {
+                    rows.forEach(row -> {
+                        try {
+                            out.write(toCsv(row));
+                            out.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Text fields are quoted (RFC 4180), as section, subject & room names aren't restricted to alphanumerics. */
+    static String toCsv(ArchivedEnrollment row) {
+        return String.join(",", quote(row.getTerm()), String.valueOf(row.getStudentNumber()),
+                quote(row.getSectionId()), quote(row.getSubjectId()), quote(String.valueOf(row.getDays())),
+                String.valueOf(row.getStartTime()), String.valueOf(row.getEndTime()), quote(row.getRoomName()),
+                row.getFacultyNumber() == null ? "" : row.getFacultyNumber().toString());
+    }
+
+    /** Empty for null. */
+    private static String quote(String field) {
+        return field == null ? "" : '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    void setJournal(EnlistmentJournal journal) {
+        this.journal = journal;
+    }
+
+    void setCacheWarmup(CacheWarmup cacheWarmup) {
+        this.cacheWarmup = cacheWarmup;
+    }
+
+    void setEnrollmentCache(EnrollmentCache enrollmentCache) {
+        this.enrollmentCache = enrollmentCache;
+    }
+
+    void setSectionCatalog(SectionCatalog sectionCatalog) {
+        this.sectionCatalog = sectionCatalog;
+    }
+
+    void setClusterCoordinator(ClusterCoordinator clusterCoordinator) {
+        this.clusterCoordinator = clusterCoordinator;
+    }
+
+    /** @param export the gzipped CSV the term was exported to; null if the term had no sections to archive */
+    public record ArchiveReport(String term, int sections, int enrollments, String export) {
+
+        @Override
+        public String toString() {
+            return "term " + term + ": " + sections + " sections, " + enrollments + " enrollments"
+                    + (export == null ? "" : ", exported to " + export);
+        }
+    }
+}
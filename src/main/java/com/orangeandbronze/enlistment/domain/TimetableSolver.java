@@ -0,0 +1,542 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.springframework.beans.factory.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Generates a term's timetable: places sections of each demanded subject into a room, a {@link Days}/{@link Period}
+ * slot and a faculty, under the same hard rules as {@link Room#addSection(Section)} and
+ * {@link Section#assignFaculty(Faculty, Collection)} (no room or faculty teaches two overlapping sections) plus room
+ * capacity and faculty availability. Among valid timetables it prefers placing every section, spreading the sections
+ * of a subject over different times so students can choose, and rooms that fit the class snugly.
+ * <p>
+ * Runs a parallel local search: each worker builds a randomized greedy timetable and then repeatedly re-places one
+ * section at a time, accepting worse timetables with a probability that shrinks as the time budget runs out
+ * (simulated annealing). Rooms and faculty are tracked as {@link Schedule#halfHourSlots() half-hour slot masks}, so
+ * checking a placement is a couple of bit operations. Workers share the best timetable found, which is reported to
+ * a progress callback whenever it improves.
+ * <p>
+ * The search keeps every worker busy until the budget runs out, so it runs on a fixed pool of {@code threads}
+ * workers, half the processors by default, leaving the rest to serve enlistment; and one search at a time; another
+ * is turned away w/ an {@link IllegalStateException} while one is running.
+ */
+@Component
+public class TimetableSolver implements DisposableBean {
+
+    static final long UNPLACED_COST = 1_000_000;
+    static final long SAME_SUBJECT_OVERLAP_COST = 1_000;
+    private static final int CANDIDATES_PER_MOVE = 24;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int threads;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public TimetableSolver(@Value("${enlistment.timetable.threads:0}") int threads) {
+        isTrue(threads >= 0, "threads can't be negative, was: %d", threads);
+        this.threads = threads == 0 ? Math.max(1, Runtime.getRuntime().availableProcessors() / 2) : threads;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.threads + 1, runnable -> { // + 1 for solveAsync's caller
+            Thread thread = new Thread(runnable, "timetable-solver-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Like {@link #solve} but on the solver's own threads.
+     *
+     * @throws IllegalStateException right away if a search is already running
+     */
+    public CompletableFuture<TimetableSolution> solveAsync(TimetableProblem problem, Duration budget, long seed,
+                                                           Consumer<Progress> progress) {
+        begin();
+        try {
+            return CompletableFuture.supplyAsync(() -> search(problem, budget, seed, progress), executor)
+                    .whenComplete((solution, failure) -> running.set(false));
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Searches until the budget runs out or a timetable that can't be improved on is found, and returns the best
+     * timetable found. The callback runs on solver threads, one call at a time, at most every 100ms plus once at
+     * the end.
+     *
+     * @throws IllegalStateException if a search is already running
+     */
+    public TimetableSolution solve(TimetableProblem problem, Duration budget, long seed, Consumer<Progress> progress) {
+        begin();
+        try {
+            return search(problem, budget, seed, progress);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void begin() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("a timetable is already being solved, try again once it's done");
+        }
+    }
+
+    private TimetableSolution search(TimetableProblem problem, Duration budget, long seed,
+                                     Consumer<Progress> progress) {
+        notNull(problem, "problem can't be null");
+        notNull(budget, "budget can't be null");
+        notNull(progress, "progress can't be null");
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        Model model = new Model(problem);
+        Shared shared = new Shared(model, start, progress);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long workerSeed = seed + i * 0x9E3779B97F4A7C15L;
+            workers.add(executor.submit(() -> new Search(model, new SplittableRandom(workerSeed), shared).run(deadline)));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shared.stop.set(true);
+        } catch (ExecutionException e) {
+            shared.stop.set(true);
+            throw new IllegalStateException("timetable search failed", e.getCause());
+        }
+        return shared.finish();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public record SectionDemand(String subjectId, int sections, int studentsPerSection, int halfHours) {
+
+        public SectionDemand {
+            notBlank(subjectId, "subjectId can't be blank");
+            isTrue(sections >= 0, "sections can't be negative, was: %d", sections);
+            isTrue(studentsPerSection > 0, "studentsPerSection must be greater than zero, was: %d", studentsPerSection);
+            isTrue(halfHours > 0 && halfHours <= Schedule.HALF_HOURS_PER_DAY,
+                    "halfHours must be 1 to %d, was: %d", Schedule.HALF_HOURS_PER_DAY, halfHours);
+        }
+    }
+
+    /** A room & the half-hours already booked in it. */
+    public record RoomSupply(String roomName, int capacity, long bookedSlots) {
+
+        public RoomSupply {
+            notBlank(roomName, "roomName can't be blank");
+        }
+    }
+
+    /** A faculty & the half-hours they can't teach, e.g. sections they're already assigned to. */
+    public record FacultySupply(int facultyNumber, long unavailableSlots) {
+    }
+
+    /** With no faculty, sections are placed without one. */
+    public record TimetableProblem(List<SectionDemand> demands, List<RoomSupply> rooms, List<FacultySupply> faculty) {
+
+        public TimetableProblem {
+            notNull(demands, "demands can't be null");
+            notNull(rooms, "rooms can't be null");
+            notNull(faculty, "faculty can't be null");
+            demands = List.copyOf(demands);
+            rooms = List.copyOf(rooms);
+            faculty = List.copyOf(faculty);
+        }
+    }
+
+    /** Proposed section; facultyNumber is -1 when placed without faculty. */
+    public record Placement(String sectionId, String subjectId, Days days, LocalTime start, LocalTime end,
+                            String roomName, int facultyNumber) {
+    }
+
+    public record TimetableSolution(List<Placement> placements, List<String> unplacedSectionIds,
+                                    int sameSubjectOverlaps, int spareSeats, long cost) {
+
+        public boolean isComplete() {
+            return unplacedSectionIds.isEmpty();
+        }
+    }
+
+    public record Progress(Duration elapsed, long iterations, TimetableSolution best, boolean done) {
+    }
+
+    /** The problem flattened into arrays, shared read-only by all workers. */
+    private static final class Model {
+        final int sections;
+        final String[] sectionIds;
+        final String[] subjectIds;
+        final int[] subjectOf;
+        final int[] students;
+        final int[] halfHours;
+        final int subjects;
+        final String[] roomNames;
+        final int[] capacities; // ascending
+        final long[] roomBooked;
+        final int[] facultyNumbers;
+        final long[] facultyUnavailable;
+        final int[] firstRoomFor; // first room index w/ enough capacity for section i, rooms.length if none
+        final long minimumSpareSeats;
+
+        Model(TimetableProblem problem) {
+            List<RoomSupply> rooms = new ArrayList<>(problem.rooms());
+            rooms.sort(Comparator.comparingInt(RoomSupply::capacity));
+            roomNames = rooms.stream().map(RoomSupply::roomName).toArray(String[]::new);
+            capacities = rooms.stream().mapToInt(RoomSupply::capacity).toArray();
+            roomBooked = rooms.stream().mapToLong(RoomSupply::bookedSlots).toArray();
+            facultyNumbers = problem.faculty().stream().mapToInt(FacultySupply::facultyNumber).toArray();
+            facultyUnavailable = problem.faculty().stream().mapToLong(FacultySupply::unavailableSlots).toArray();
+
+            Map<String, Integer> subjectIndexes = new LinkedHashMap<>();
+            List<String> ids = new ArrayList<>();
+            List<Integer> subjectList = new ArrayList<>();
+            List<Integer> studentList = new ArrayList<>();
+            List<Integer> lengthList = new ArrayList<>();
+            for (SectionDemand demand : problem.demands()) {
+                int subject = subjectIndexes.computeIfAbsent(demand.subjectId(), id -> subjectIndexes.size());
+                for (int n = 1; n <= demand.sections(); n++) {
+                    ids.add(demand.subjectId() + "T" + n);
+                    subjectList.add(subject);
+                    studentList.add(demand.studentsPerSection());
+                    lengthList.add(demand.halfHours());
+                }
+            }
+            sections = ids.size();
+            sectionIds = ids.toArray(String[]::new);
+            subjectIds = subjectIndexes.keySet().toArray(String[]::new);
+            subjects = subjectIds.length;
+            subjectOf = subjectList.stream().mapToInt(Integer::intValue).toArray();
+            students = studentList.stream().mapToInt(Integer::intValue).toArray();
+            halfHours = lengthList.stream().mapToInt(Integer::intValue).toArray();
+            firstRoomFor = new int[sections];
+            long spare = 0;
+            for (int i = 0; i < sections; i++) {
+                int room = Arrays.binarySearch(capacities, students[i]);
+                if (room < 0) {
+                    room = -room - 1;
+                } else {
+                    while (room > 0 && capacities[room - 1] == students[i]) {
+                        room--;
+                    }
+                }
+                firstRoomFor[i] = room;
+                spare += room < capacities.length ? capacities[room] - students[i] : 0;
+            }
+            minimumSpareSeats = spare;
+        }
+
+        static long slotsOf(int day, int start, int halfHours) {
+            return ((1L << halfHours) - 1) << (day * Schedule.HALF_HOURS_PER_DAY + start);
+        }
+    }
+
+    /** The best timetable so far across workers, & progress reporting. */
+    private static final class Shared {
+        final Model model;
+        final long startNanos;
+        final Consumer<Progress> progress;
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicLong iterations = new AtomicLong();
+        private long bestCost = Long.MAX_VALUE;
+        private int[] bestRoom, bestDay, bestStart, bestFaculty;
+        private long lastReportNanos = 0;
+
+        Shared(Model model, long startNanos, Consumer<Progress> progress) {
+            this.model = model;
+            this.startNanos = startNanos;
+            this.progress = progress;
+        }
+
+        synchronized long bestCost() {
+            return bestCost;
+        }
+
+        synchronized void offer(long cost, int[] room, int[] day, int[] start, int[] faculty) {
+            if (cost >= bestCost) {
+                return;
+            }
+            bestCost = cost;
+            bestRoom = room.clone();
+            bestDay = day.clone();
+            bestStart = start.clone();
+            bestFaculty = faculty.clone();
+            if (cost <= model.minimumSpareSeats) {
+                stop.set(true); // every section placed, no overlaps & the snuggest rooms: can't do better
+            }
+            long now = System.nanoTime();
+            if (now - lastReportNanos >= PROGRESS_INTERVAL_NANOS) {
+                report(now, false);
+            }
+        }
+
+        synchronized TimetableSolution finish() {
+            report(System.nanoTime(), true);
+            return solution();
+        }
+
+        private void report(long now, boolean done) {
+            lastReportNanos = now;
+            progress.accept(new Progress(Duration.ofNanos(now - startNanos), iterations.get(), solution(), done));
+        }
+
+        private TimetableSolution solution() {
+            if (bestRoom == null) {
+                return new TimetableSolution(List.of(), List.of(model.sectionIds), 0, 0,
+                        model.sections * UNPLACED_COST);
+            }
+            List<Placement> placements = new ArrayList<>();
+            List<String> unplaced = new ArrayList<>();
+            int overlaps = 0;
+            int spare = 0;
+            for (int i = 0; i < model.sections; i++) {
+                if (bestRoom[i] < 0) {
+                    unplaced.add(model.sectionIds[i]);
+                    continue;
+                }
+                LocalTime start = LocalTime.of(8, 30).plusMinutes(30L * bestStart[i]);
+                placements.add(new Placement(model.sectionIds[i], model.subjectIds[model.subjectOf[i]],
+                        Days.values()[bestDay[i]], start, start.plusMinutes(30L * model.halfHours[i]),
+                        model.roomNames[bestRoom[i]],
+                        bestFaculty[i] < 0 ? -1 : model.facultyNumbers[bestFaculty[i]]));
+                spare += model.capacities[bestRoom[i]] - model.students[i];
+                for (int j = i + 1; j < model.sections; j++) {
+                    if (bestRoom[j] >= 0 && model.subjectOf[i] == model.subjectOf[j]
+                            && (slots(i) & slots(j)) != 0) {
+                        overlaps++;
+                    }
+                }
+            }
+            return new TimetableSolution(List.copyOf(placements), List.copyOf(unplaced), overlaps, spare, bestCost);
+        }
+
+        private long slots(int i) {
+            return Model.slotsOf(bestDay[i], bestStart[i], model.halfHours[i]);
+        }
+    }
+
+    /** One worker's local search. Not thread-safe; each worker has its own. */
+    private static final class Search {
+        private final Model model;
+        private final SplittableRandom random;
+        private final Shared shared;
+        private final int[] room, day, start, faculty;
+        private final long[] roomBooked, facultyBooked;
+        private final int[][] subjectSlotCounts; // sections of the subject in each half-hour
+        private long cost;
+        private long bestCost = Long.MAX_VALUE;
+        private int unplacedCount;
+
+        Search(Model model, SplittableRandom random, Shared shared) {
+            this.model = model;
+            this.random = random;
+            this.shared = shared;
+            room = new int[model.sections];
+            day = new int[model.sections];
+            start = new int[model.sections];
+            faculty = new int[model.sections];
+            Arrays.fill(room, -1);
+            Arrays.fill(faculty, -1);
+            roomBooked = model.roomBooked.clone();
+            facultyBooked = model.facultyUnavailable.clone();
+            subjectSlotCounts = new int[model.subjects][Schedule.HALF_HOURS_PER_WEEK];
+            unplacedCount = model.sections;
+            cost = model.sections * UNPLACED_COST;
+        }
+
+        void run(long deadline) {
+            if (model.sections == 0) {
+                shared.offer(0, room, day, start, faculty);
+                return;
+            }
+            int[] order = new int[model.sections];
+            for (int i = 0; i < order.length; i++) { // randomized greedy start
+                int j = random.nextInt(i + 1);
+                order[i] = order[j];
+                order[j] = i;
+            }
+            for (int i : order) {
+                placeBest(i);
+            }
+            offerIfBetter();
+            long begin = System.nanoTime();
+            double startTemperature = UNPLACED_COST / 10.0;
+            long iterations = 0;
+            while (!shared.stop.get()) {
+                if ((++iterations & 255) == 0) {
+                    shared.iterations.addAndGet(256);
+                    if (System.nanoTime() >= deadline) {
+                        break;
+                    }
+                }
+                double progress = Math.min(1.0, (double) (System.nanoTime() - begin) / Math.max(1, deadline - begin));
+                double temperature = startTemperature * Math.pow(1e-6, progress);
+                move(temperature);
+                if (cost < bestCost) {
+                    offerIfBetter();
+                }
+            }
+        }
+
+        /** Re-places one section; undoes it if the annealing test rejects the result. */
+        private void move(double temperature) {
+            int i = pickSection();
+            int oldRoom = room[i], oldDay = day[i], oldStart = start[i], oldFaculty = faculty[i];
+            long before = cost;
+            unplace(i);
+            placeBest(i);
+            long delta = cost - before;
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                return;
+            }
+            unplace(i);
+            if (oldRoom >= 0) {
+                place(i, oldRoom, oldDay, oldStart, oldFaculty);
+            }
+        }
+
+        private int pickSection() {
+            if (unplacedCount > 0 && random.nextBoolean()) {
+                int from = random.nextInt(model.sections);
+                for (int k = 0; k < model.sections; k++) {
+                    int i = (from + k) % model.sections;
+                    if (room[i] < 0) {
+                        return i;
+                    }
+                }
+            }
+            return random.nextInt(model.sections);
+        }
+
+        /** Places an unplaced section at the cheapest of a random sample of valid placements, if any. */
+        private void placeBest(int i) {
+            int firstRoom = model.firstRoomFor[i];
+            int rooms = model.capacities.length - firstRoom;
+            if (rooms <= 0) {
+                return;
+            }
+            int length = model.halfHours[i];
+            long bestDelta = Long.MAX_VALUE;
+            int bestRoom = -1, bestDay = 0, bestStart = 0, bestFaculty = -1;
+            for (int candidate = 0; candidate < CANDIDATES_PER_MOVE; candidate++) {
+                // bias towards snug rooms: the smaller of two random rooms that are big enough
+                int r = firstRoom + Math.min(random.nextInt(rooms), random.nextInt(rooms));
+                int d = random.nextInt(Days.values().length);
+                int s = random.nextInt(Schedule.HALF_HOURS_PER_DAY - length + 1);
+                long slots = Model.slotsOf(d, s, length);
+                if ((roomBooked[r] & slots) != 0) {
+                    continue;
+                }
+                int f = freeFaculty(slots);
+                if (f == -2) {
+                    continue;
+                }
+                long delta = placementCost(i, r, d, s, length);
+                if (delta < bestDelta) {
+                    bestDelta = delta;
+                    bestRoom = r;
+                    bestDay = d;
+                    bestStart = s;
+                    bestFaculty = f;
+                }
+            }
+            if (bestRoom >= 0) {
+                place(i, bestRoom, bestDay, bestStart, bestFaculty);
+            }
+        }
+
+        /** A random faculty free for the slots, -1 if there's no faculty to assign, -2 if none is free. */
+        private int freeFaculty(long slots) {
+            int count = facultyBooked.length;
+            if (count == 0) {
+                return -1;
+            }
+            int from = random.nextInt(count);
+            for (int k = 0; k < count; k++) {
+                int f = from + k < count ? from + k : from + k - count;
+                if ((facultyBooked[f] & slots) == 0) {
+                    return f;
+                }
+            }
+            return -2;
+        }
+
+        private long placementCost(int i, int r, int d, int s, int length) {
+            long overlaps = 0;
+            int[] counts = subjectSlotCounts[model.subjectOf[i]];
+            int base = d * Schedule.HALF_HOURS_PER_DAY + s;
+            for (int slot = base; slot < base + length; slot++) {
+                overlaps += counts[slot];
+            }
+            return overlaps * SAME_SUBJECT_OVERLAP_COST + model.capacities[r] - model.students[i] - UNPLACED_COST;
+        }
+
+        private void place(int i, int r, int d, int s, int f) {
+            int length = model.halfHours[i];
+            cost += placementCost(i, r, d, s, length);
+            long slots = Model.slotsOf(d, s, length);
+            room[i] = r;
+            day[i] = d;
+            start[i] = s;
+            faculty[i] = f;
+            roomBooked[r] |= slots;
+            if (f >= 0) {
+                facultyBooked[f] |= slots;
+            }
+            int[] counts = subjectSlotCounts[model.subjectOf[i]];
+            int base = d * Schedule.HALF_HOURS_PER_DAY + s;
+            for (int slot = base; slot < base + length; slot++) {
+                counts[slot]++;
+            }
+            unplacedCount--;
+        }
+
+        private void unplace(int i) {
+            int r = room[i];
+            if (r < 0) {
+                return;
+            }
+            int length = model.halfHours[i];
+            long slots = Model.slotsOf(day[i], start[i], length);
+            roomBooked[r] &= ~slots;
+            if (faculty[i] >= 0) {
+                facultyBooked[faculty[i]] &= ~slots;
+            }
+            int[] counts = subjectSlotCounts[model.subjectOf[i]];
+            int base = day[i] * Schedule.HALF_HOURS_PER_DAY + start[i];
+            for (int slot = base; slot < base + length; slot++) {
+                counts[slot]--;
+            }
+            cost -= placementCost(i, r, day[i], start[i], length); // counts no longer include i
+            room[i] = -1;
+            faculty[i] = -1;
+            unplacedCount++;
+        }
+
+        private void offerIfBetter() {
+            bestCost = cost;
+            if (cost < shared.bestCost()) {
+                shared.offer(cost, room, day, start, faculty);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+--liquibase formatted sql
+
+-- Production schema, applied by Spring Boot under the prod profile or by `gradle update`. Tables & columns are what
+-- Hibernate maps the domain to; outside prod, Hibernate still creates them itself w/o the indexes & partitions below.
+
+--changeset enlistment:1-tables
+CREATE TABLE subject (
+    subject_id VARCHAR(255) NOT NULL PRIMARY KEY
+);
+
+CREATE TABLE subject_prerequisites (
+    subject_subject_id       VARCHAR(255) NOT NULL REFERENCES subject,
+    prerequisites_subject_id VARCHAR(255) NOT NULL REFERENCES subject
+);
+
+CREATE TABLE room (
+    name     VARCHAR(255) NOT NULL PRIMARY KEY,
+    capacity INTEGER      NOT NULL
+);
+
+CREATE TABLE faculty (
+    faculty_number INTEGER NOT NULL PRIMARY KEY,
+    firstname      VARCHAR(255),
+    lastname       VARCHAR(255)
+);
+
+CREATE TABLE admin (
+    id        INTEGER NOT NULL PRIMARY KEY,
+    firstname VARCHAR(255),
+    lastname  VARCHAR(255)
+);
+
+CREATE TABLE section (
+    section_id             VARCHAR(255) NOT NULL PRIMARY KEY,
+    subject_subject_id     VARCHAR(255) REFERENCES subject,
+    faculty_faculty_number INTEGER      REFERENCES faculty,
+    days                   SMALLINT CHECK (days BETWEEN 0 AND 2),
+    start_time             TIME(6),
+    end_time               TIME(6),
+    room_name              VARCHAR(255) REFERENCES room,
+    number_of_students     INTEGER      NOT NULL CHECK (number_of_students >= 0),
+    version                INTEGER      NOT NULL DEFAULT 0
+);
+
+CREATE TABLE room_sections (
+    room_name           VARCHAR(255) NOT NULL REFERENCES room,
+    sections_section_id VARCHAR(255) NOT NULL UNIQUE REFERENCES section
+);
+
+CREATE TABLE student (
+    student_number INTEGER NOT NULL PRIMARY KEY,
+    firstname      VARCHAR(255),
+    lastname       VARCHAR(255)
+);
+
+CREATE TABLE student_subjects_taken (
+    student_student_number    INTEGER      NOT NULL REFERENCES student,
+    subjects_taken_subject_id VARCHAR(255) NOT NULL REFERENCES subject,
+    PRIMARY KEY (student_student_number, subjects_taken_subject_id)
+);
+
+CREATE SEQUENCE lottery_entry_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE lottery_entry (
+    id             BIGINT                      NOT NULL PRIMARY KEY,
+    student_number INTEGER                     NOT NULL,
+    section_id     VARCHAR(255),
+    submitted_at   TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT lottery_entry_student_section_uk UNIQUE (student_number, section_id)
+);
+--rollback DROP TABLE lottery_entry; DROP SEQUENCE lottery_entry_seq; DROP TABLE student_subjects_taken; DROP TABLE student; DROP TABLE room_sections; DROP TABLE section; DROP TABLE admin; DROP TABLE faculty; DROP TABLE room; DROP TABLE subject_prerequisites; DROP TABLE subject;
+
+-- Enrollment, the table every enlist & cancel writes, split by student into 8 hash partitions: a student's rows,
+-- which is what the enlist path & the student's schedule read, are all in one partition, and each partition's
+-- indexes & vacuum work stay an eighth of the size. The primary key leads w/ the student, so a student's sections
+-- are read off the key alone.
+--changeset enlistment:2-student-sections
+CREATE TABLE student_sections (
+    student_student_number INTEGER      NOT NULL REFERENCES student,
+    sections_section_id    VARCHAR(255) NOT NULL REFERENCES section,
+    PRIMARY KEY (student_student_number, sections_section_id)
+) PARTITION BY HASH (student_student_number);
+
+CREATE TABLE student_sections_p0 PARTITION OF student_sections FOR VALUES WITH (MODULUS 8, REMAINDER 0);
+CREATE TABLE student_sections_p1 PARTITION OF student_sections FOR VALUES WITH (MODULUS 8, REMAINDER 1);
+CREATE TABLE student_sections_p2 PARTITION OF student_sections FOR VALUES WITH (MODULUS 8, REMAINDER 2);
+CREATE TABLE student_sections_p3 PARTITION OF student_sections FOR VALUES WITH (MODULUS 8, REMAINDER 3);
+CREATE TABLE student_sections_p4 PARTITION OF student_sections FOR VALUES WITH (MODULUS 8, REMAINDER 4);
+CREATE TABLE student_sections_p5 PARTITION OF student_sections FOR VALUES WITH (MODULUS 8, REMAINDER 5);
+CREATE TABLE student_sections_p6 PARTITION OF student_sections FOR VALUES WITH (MODULUS 8, REMAINDER 6);
+CREATE TABLE student_sections_p7 PARTITION OF student_sections FOR VALUES WITH (MODULUS 8, REMAINDER 7);
+--rollback DROP TABLE student_sections;
+
+-- Indexes for the access paths that aren't a primary key lookup. Each is named after what it serves.
+--changeset enlistment:3-indexes
+-- Section rosters & the reconciler's per-section counts: the student number is in the key, so they're index-only.
+CREATE INDEX student_sections_roster_idx ON student_sections (sections_section_id, student_student_number);
+-- A faculty's timetable in order (SectionRepository.findByFacultyNumber) & the overlap check; covers the end time.
+CREATE INDEX section_faculty_schedule_idx ON section (faculty_faculty_number, days, start_time) INCLUDE (end_time);
+-- A room's occupied slots, for room availability; covers the end time.
+CREATE INDEX section_room_schedule_idx ON section (room_name, days, start_time) INCLUDE (end_time);
+-- Sections of a subject, for same-subject checks.
+CREATE INDEX section_subject_idx ON section (subject_subject_id);
+CREATE INDEX subject_prerequisites_subject_idx ON subject_prerequisites (subject_subject_id);
+CREATE INDEX room_sections_room_idx ON room_sections (room_name);
+-- A student's lottery entries in the order entered.
+CREATE INDEX lottery_entry_student_submitted_idx ON lottery_entry (student_number, submitted_at);
+-- Entries per lottery section, for the draw & the entry counts; covers the id, which is what COUNT(e) counts.
+CREATE INDEX lottery_entry_section_idx ON lottery_entry (section_id) INCLUDE (id);
+--rollback DROP INDEX lottery_entry_section_idx; DROP INDEX lottery_entry_student_submitted_idx; DROP INDEX room_sections_room_idx; DROP INDEX subject_prerequisites_subject_idx; DROP INDEX section_subject_idx; DROP INDEX section_room_schedule_idx; DROP INDEX section_faculty_schedule_idx; DROP INDEX student_sections_roster_idx;
+
+-- Terms. Sections belong to a term (null: created before terms, counted as the current one); closed terms are moved
+-- to archived_enrollment by TermArchive, so section & student_sections only ever hold the current term. The archive
+-- is append-only & read by student, so its pages are packed full, and each term is written in student order.
+--changeset enlistment:4-terms
+ALTER TABLE section ADD COLUMN term VARCHAR(255);
+CREATE INDEX section_term_idx ON section (term);
+
+CREATE TABLE archived_enrollment (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    term           VARCHAR(255),
+    student_number INTEGER NOT NULL,
+    section_id     VARCHAR(255),
+    subject_id     VARCHAR(255),
+    days           SMALLINT CHECK (days BETWEEN 0 AND 2),
+    start_time     TIME(6),
+    end_time       TIME(6),
+    room_name      VARCHAR(255),
+    faculty_number INTEGER
+) WITH (fillfactor = 100);
+CREATE INDEX archived_enrollment_student_term_idx ON archived_enrollment (student_number, term);
+--rollback DROP TABLE archived_enrollment; DROP INDEX section_term_idx; ALTER TABLE section DROP COLUMN term;
+
+-- Lottery draws, one row per lottery section drawn. A draw on any node, or before a restart, stops every node
+-- collecting entries for the section; the draw itself runs under an advisory lock (ClusterCoordinator).
+--changeset enlistment:5-lottery-draws
+CREATE TABLE lottery_draw (
+    section_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    seed       BIGINT       NOT NULL,
+    drawn_at   TIMESTAMP(6) WITH TIME ZONE
+);
+--rollback DROP TABLE lottery_draw;
+
+-- Enlistment windows as planned, one row per cohort (EnlistmentWindows). The first node to start plans & saves them;
+-- the others, and any node after a restart, load them, so openings that have passed never move. Adjusting adds the
+-- actions each node counted under an advisory lock (ClusterCoordinator).
+--changeset enlistment:6-enlistment-cohorts
+CREATE TABLE enlistment_cohort (
+    cohort_index         INTEGER      NOT NULL PRIMARY KEY,
+    priority             BOOLEAN      NOT NULL,
+    first_student_number INTEGER      NOT NULL,
+    last_student_number  INTEGER      NOT NULL,
+    students             INTEGER      NOT NULL,
+    opens_at             TIMESTAMP(6) WITH TIME ZONE,
+    closes_at            TIMESTAMP(6) WITH TIME ZONE,
+    actions              BIGINT       NOT NULL
+);
+--rollback DROP TABLE enlistment_cohort;
+
+-- The archive, LIST-partitioned by term: one partition per archived term, which TermArchive creates before copying
+-- the term into it (create_archived_enrollment_partition), and a default partition as a catch-all. A term is only
+-- ever read by student across terms (transcripts, via the index, one probe per partition) or exported whole (one
+-- partition scan), and a term that's no longer needed is dropped w/ its partition instead of a bulk DELETE.
+-- Decided w/o a DBA sign-off, which wasn't available: partitions grow by 2-3 a year, far below what costs the
+-- planner anything. PostgreSQL requires the primary key to include the term; ids stay unique alone, as Hibernate
+-- assumes, since they all come from the one identity.
+-- Existing rows are copied over w/ their ids, and the identity continues after the highest.
+--changeset enlistment:7-archived-enrollment-by-term
+ALTER TABLE archived_enrollment RENAME TO archived_enrollment_unpartitioned;
+ALTER INDEX archived_enrollment_student_term_idx RENAME TO archived_enrollment_unpartitioned_student_term_idx;
+CREATE TABLE archived_enrollment (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    term           VARCHAR(255) NOT NULL,
+    student_number INTEGER NOT NULL,
+    section_id     VARCHAR(255),
+    subject_id     VARCHAR(255),
+    days           SMALLINT CHECK (days BETWEEN 0 AND 2),
+    start_time     TIME(6),
+    end_time       TIME(6),
+    room_name      VARCHAR(255),
+    faculty_number INTEGER,
+    PRIMARY KEY (term, id)
+) PARTITION BY LIST (term);
+CREATE TABLE archived_enrollment_default PARTITION OF archived_enrollment DEFAULT WITH (fillfactor = 100);
+CREATE INDEX archived_enrollment_student_term_idx ON archived_enrollment (student_number, term);
+INSERT INTO archived_enrollment SELECT * FROM archived_enrollment_unpartitioned;
+SELECT setval(pg_get_serial_sequence('archived_enrollment', 'id'), COALESCE(MAX(id), 0) + 1, false)
+FROM archived_enrollment;
+DROP TABLE archived_enrollment_unpartitioned;
+--rollback ALTER TABLE archived_enrollment RENAME TO archived_enrollment_partitioned; CREATE TABLE archived_enrollment (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, term VARCHAR(255), student_number INTEGER NOT NULL, section_id VARCHAR(255), subject_id VARCHAR(255), days SMALLINT CHECK (days BETWEEN 0 AND 2), start_time TIME(6), end_time TIME(6), room_name VARCHAR(255), faculty_number INTEGER) WITH (fillfactor = 100); INSERT INTO archived_enrollment SELECT * FROM archived_enrollment_partitioned; DROP TABLE archived_enrollment_partitioned; CREATE INDEX archived_enrollment_student_term_idx ON archived_enrollment (student_number, term);
+
+-- Creates the term's partition of the archive if it doesn't exist yet, filled to the last byte like the rest; returns
+-- its name. TermArchive calls it in the archiving transaction, before the term's rows are copied.
+--changeset enlistment:8-archived-enrollment-partition-function splitStatements:false
+CREATE FUNCTION create_archived_enrollment_partition(archived_term TEXT) RETURNS TEXT AS $$
+DECLARE
+    partition_name TEXT := 'archived_enrollment_' || archived_term;
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF archived_enrollment FOR VALUES IN (%L) '
+                   'WITH (fillfactor = 100)', partition_name, archived_term);
+    RETURN partition_name;
+END
+$$ LANGUAGE plpgsql;
+--rollback DROP FUNCTION create_archived_enrollment_partition(TEXT);
@@ -0,0 +1,67 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+import org.slf4j.*;
+
+import java.lang.management.*;
+import java.time.*;
+import java.util.*;
+
+import static com.orangeandbronze.enlistment.domain.Days.*;
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bytes allocated per {@link Student#checkEnlist(Section)}, from HotSpot's per-thread allocation counter. Kept out of
+ * the unit tests since the numbers depend on the JVM, JIT timing & escape analysis; run w/ {@code gradle perfTest}.
+ */
+class CheckEnlistAllocationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckEnlistAllocationTest.class);
+    private static final int ATTEMPTS = 2_000_000;
+    private static final Period H0830 = new Period(LocalTime.of(8, 30), LocalTime.of(10, 0));
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void rejected_and_accepted_checks_allocate_almost_nothing() {
+        // Given a student w/ enlisted sections & prereqs taken, a section w/ the same subject as one of them,
+        // and an eligible section
+        Subject prereq = new Subject("prereq");
+        Section sec1 = new SectionBuilder("A").subject("C").schedule(MTH830to10).room("X").build();
+        Section sec2 = new SectionBuilder("B").subject("D").schedule(TF830to10).room("Y").build();
+        Section eligible = new SectionBuilder("E").subject(new Subject("F", List.of(prereq)))
+                .schedule(TF10to1130).room("Z").build();
+        Section sameSubject = new SectionBuilder("G").subject("C").schedule(new Schedule(WS, H0830)).room("W").build();
+        Student student = newStudent(1, List.of(sec1, sec2), List.of(prereq));
+        // When many rejected, then many accepted attempts are checked, each after warming up so the JIT compiles &
+        // inlines the check
+        long rejectedBytes = bytesPerCheck(student, sameSubject, EnlistmentCheck.Result.SAME_SUBJECT);
+        long acceptedBytes = bytesPerCheck(student, eligible, EnlistmentCheck.Result.OK);
+        log.info("bytes allocated per check: rejected {}, accepted {}", rejectedBytes, acceptedBytes);
+        // Then each allocates practically nothing (the iterator over the enlisted sections, the rejection's result
+        // unless it's scalar-replaced, plus slack for JIT timing), where the exception path builds messages, copies
+        // collections & fills in a stack trace
+        assertAll(
+                () -> assertTrue(rejectedBytes <= 128, "bytes allocated per rejected check: " + rejectedBytes),
+                () -> assertTrue(acceptedBytes <= 128, "bytes allocated per accepted check: " + acceptedBytes)
+        );
+    }
+
+    private long bytesPerCheck(Student student, Section section, EnlistmentCheck.Result expected) {
+        for (int i = 0; i < ATTEMPTS; i++) {
+            student.checkEnlist(section);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        int matching = 0;
+        for (int i = 0; i < ATTEMPTS; i++) {
+            if (student.checkEnlist(section).result() == expected) {
+                matching++;
+            }
+        }
+        long bytes = (threads.getCurrentThreadAllocatedBytes() - before) / ATTEMPTS;
+        assertEquals(ATTEMPTS, matching);
+        return bytes;
+    }
+}
@@ -0,0 +1,85 @@
+package com.orangeandbronze.enlistment.cluster;
+
+import org.junit.jupiter.api.*;
+import org.springframework.transaction.support.*;
+
+import javax.sql.*;
+import java.util.*;
+
+import static com.orangeandbronze.enlistment.cluster.ReplicaRoutingDataSource.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(mock(DataSource.class),
+            new LinkedHashMap<>(Map.of("replica-0", mock(DataSource.class), "replica-1", mock(DataSource.class))),
+            1000);
+
+    @AfterEach
+    void clear() {
+        ReplicaRoutingDataSource.clearRequiredLsn();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void reads_spread_over_replicas_within_lag() {
+        // Given both replicas caught up to within the allowed lag
+        routing.primaryAt(10_000);
+        routing.replayed("replica-0", 9_500);
+        routing.replayed("replica-1", 9_000);
+        // When routing 4 reads
+        List<String> routed = List.of(routing.route(0), routing.route(0), routing.route(0), routing.route(0));
+        // Then
+        assertEquals(Set.of("replica-0", "replica-1"), new HashSet<>(routed));
+    }
+
+    @Test
+    void lagging_or_unreachable_replica_skipped() {
+        // Given one replica more than 1000 bytes behind, and the other never polled
+        routing.primaryAt(10_000);
+        routing.replayed("replica-0", 8_000);
+        // When
+        String routed = routing.route(0);
+        // Then
+        assertEquals(PRIMARY, routed);
+    }
+
+    @Test
+    void read_waits_for_replica_at_required_lsn() {
+        // Given one replica behind the session's last write, the other past it
+        routing.primaryAt(10_000);
+        routing.replayed("replica-0", 9_800);
+        routing.replayed("replica-1", 10_000);
+        // When
+        Set<String> routed = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            routed.add(routing.route(9_900));
+        }
+        // Then
+        assertAll(
+                () -> assertEquals(Set.of("replica-1"), routed),
+                () -> assertEquals(PRIMARY, routing.route(10_001)),
+                () -> assertEquals(PRIMARY, routing.route(PRIMARY_ONLY))
+        );
+    }
+
+    @Test
+    void only_read_only_transactions_leave_primary() {
+        // Given a caught-up replica
+        routing.replayed("replica-0", 0);
+        routing.replayed("replica-1", 0);
+        // When
+        Object write = routing.determineCurrentLookupKey();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Object read = routing.determineCurrentLookupKey();
+        ReplicaRoutingDataSource.usePrimary();
+        Object pinned = routing.determineCurrentLookupKey();
+        // Then
+        assertAll(
+                () -> assertEquals(PRIMARY, write),
+                () -> assertNotEquals(PRIMARY, read),
+                () -> assertEquals(PRIMARY, pinned)
+        );
+    }
+}
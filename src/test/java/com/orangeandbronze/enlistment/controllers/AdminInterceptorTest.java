@@ -0,0 +1,48 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import org.junit.jupiter.api.*;
+import org.springframework.http.*;
+import org.springframework.mock.web.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdminInterceptorTest {
+
+    private final AdminInterceptor interceptor = new AdminInterceptor();
+
+    @Test
+    void admin_session_let_through() throws Exception {
+        // Given a session logged in as an admin
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/lottery/draw");
+        request.getSession().setAttribute(AdminInterceptor.ADMIN, mock(Admin.class));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        // When & Then
+        assertAll(
+                () -> assertTrue(interceptor.preHandle(request, response, new Object())),
+                () -> assertEquals(HttpStatus.OK.value(), response.getStatus())
+        );
+    }
+
+    @Test
+    void no_session_or_student_session_turned_away() throws Exception {
+        // Given a request w/o a session, and one logged in as a student
+        MockHttpServletRequest anonymous = new MockHttpServletRequest("POST", "/lottery/draw");
+        MockHttpServletRequest student = new MockHttpServletRequest("POST", "/terms/2025-2/archive");
+        student.getSession().setAttribute("student", mock(Student.class));
+        MockHttpServletResponse anonymousResponse = new MockHttpServletResponse();
+        MockHttpServletResponse studentResponse = new MockHttpServletResponse();
+        // When
+        boolean anonymousHandled = interceptor.preHandle(anonymous, anonymousResponse, new Object());
+        boolean studentHandled = interceptor.preHandle(student, studentResponse, new Object());
+        // Then
+        assertAll(
+                () -> assertFalse(anonymousHandled),
+                () -> assertFalse(studentHandled),
+                () -> assertNull(anonymous.getSession(false)),
+                () -> assertEquals(HttpStatus.UNAUTHORIZED.value(), anonymousResponse.getStatus()),
+                () -> assertEquals(HttpStatus.UNAUTHORIZED.value(), studentResponse.getStatus())
+        );
+    }
+}
@@ -1,64 +1,61 @@
 package com.orangeandbronze.enlistment.controllers;
 
 import com.orangeandbronze.enlistment.domain.*;
-import jakarta.transaction.Transactional;
-import org.hibernate.*;
 import org.junit.jupiter.api.*;
-
-import jakarta.persistence.*;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.SessionAttributes;
+import org.springframework.ui.*;
 
 import java.util.*;
 
-import static com.orangeandbronze.enlistment.controllers.UserAction.CANCEL;
 import static com.orangeandbronze.enlistment.domain.TestUtils.*;
-import static org.junit.jupiter.api.Assertions.assertAll;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 
 class EnlistControllerTest {
 
+    private final EnlistmentService enlistment = mock(EnlistmentService.class);
+    private final EnlistController controller = new EnlistController(enlistment);
+
     @Test
     void enlistOrCancel_enlist_student_in_section() {
         // Given the EnlistController w/ a student in session
-
-        // and param sectionId to enlist and UserAction "ENLIST"
-        EnlistController controller = new EnlistController();
-        StudentRepository studentRepository = mock(StudentRepository.class);
-        SectionRepository sectionRepository = mock(SectionRepository.class);
-
-        String sectionId = DEFAULT_SECTION_ID;
-        Student student = mock(Student.class);
-        Section section = newDefaultSection();
-        when(sectionRepository.findById(DEFAULT_SECTION_ID)).thenReturn(Optional.of(section));
-        controller.setSectionRepo(sectionRepository);
-        controller.setStudentRepo(studentRepository);
-        EntityManager entityManager = mock(EntityManager.class);
-        Session session = mock(Session.class);
-        when(entityManager.unwrap(Session.class)).thenReturn(session);
-        controller.setEntityManager(entityManager);
-        // When enlistOrCancel is called
-        String returnVal =  controller.enlistOrCancel(sectionId, UserAction.ENLIST, student);
+        Student student = newDefaultStudent();
+        Student enlisted = newDefaultStudent();
+        when(enlistment.enlist(student, DEFAULT_SECTION_ID, "key1")).thenReturn(enlisted);
+        Model model = new ExtendedModelMap().addAttribute(student);
+        // When enlistOrCancel is called w/ param sectionId to enlist and UserAction "ENLIST"
+        String returnVal = controller.enlistOrCancel(model, DEFAULT_SECTION_ID, UserAction.ENLIST, "key1", student);
         // Then
         assertAll(
-            // fetch the section object from the SectionRepository
-            () -> verify(sectionRepository).findById(sectionId),
-            () -> verify(session).update(student),
-            // student will enlist in section
-            () -> verify(student).enlist(section),
-            // StudentRepository should save student
-            () -> verify(studentRepository).save(student),
-            // SectionRepository should save section
-            // refresh (redirect) the
-            ()-> assertEquals("redirect:enlist", returnVal)
+                // the service enlists the student, under the submission's idempotency key
+                () -> verify(enlistment).enlist(student, DEFAULT_SECTION_ID, "key1"),
+                // and the session gets the student as committed
+                () -> assertSame(enlisted, model.getAttribute("student")),
+                () -> verify(enlistment, never()).cancel(any(), any(), any()),
+                // refresh (redirect) the page
+                () -> assertEquals("redirect:enlist", returnVal)
         );
+    }
 
-
-
+    @Test
+    void initStudent_loads_student_for_new_session_only() {
+        // Given a student already in session
+        Student student = newStudent(1, List.of());
+        Student reloaded = newStudent(1, List.of());
+        when(enlistment.login(1)).thenReturn(student);
+        when(enlistment.current(student)).thenReturn(reloaded);
+        Model login = new ExtendedModelMap();
+        Model inSession = new ExtendedModelMap().addAttribute(student);
+        // When the login page posts the student number, and when the session's student comes back
+        controller.initStudent(login, 1);
+        controller.initStudent(inSession, null);
+        // Then only the login loads the student; the session's is replaced w/ the current one, e.g. after an archive
+        assertAll(
+                () -> assertSame(student, login.getAttribute("student")),
+                () -> assertSame(reloaded, inSession.getAttribute("student")),
+                () -> verify(enlistment, times(1)).login(1),
+                () -> assertThrows(LoginException.class, () -> controller.initStudent(new ExtendedModelMap(), 4))
+        );
     }
 
 }
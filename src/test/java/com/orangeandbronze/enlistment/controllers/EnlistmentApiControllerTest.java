@@ -0,0 +1,137 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.domain.*;
+import org.junit.jupiter.api.*;
+import org.springframework.http.*;
+import org.springframework.mock.web.*;
+import org.springframework.web.context.request.*;
+import org.springframework.web.server.*;
+
+import java.util.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EnlistmentApiControllerTest {
+
+    private final EnlistmentService enlistment = mock(EnlistmentService.class);
+    private final SectionRepository sectionRepo = mock(SectionRepository.class);
+    private final SectionCatalog catalog = new SectionCatalog();
+    private final EnrollmentCache enrollmentCache = new EnrollmentCache(16, 4, false);
+    private final ConflictMatrix conflictMatrix = new ConflictMatrix();
+    private final EnlistmentApiController controller = new EnlistmentApiController(enlistment, sectionRepo, catalog,
+            enrollmentCache, conflictMatrix);
+
+    private final Section mth = new SectionBuilder("A").subject("S1").schedule(MTH830to10).build();
+    private final Section clash = new SectionBuilder("B").subject("S2").schedule(MTH830to10).build();
+    private final Section tf = new SectionBuilder("C").subject("S3").schedule(TF830to10).build();
+
+    @BeforeEach
+    void loadCatalog() {
+        catalog.load(List.of(tf, clash, mth));
+        conflictMatrix.loadCatalog(List.of(mth, clash, tf));
+        when(enlistment.current(any())).thenAnswer(invocation -> invocation.getArgument(0)); // nothing archived
+    }
+
+    @Test
+    void available_sections_from_caches_flagging_conflicts_w_stable_etag() {
+        // Given a session logged in as a student enlisted in A
+        MockHttpServletRequest request = loggedInAs(newStudent(1, List.of(mth)));
+        // When
+        ResponseEntity<List<EnlistmentApiController.AvailableSection>> first = controller.available(1, request);
+        ResponseEntity<List<EnlistmentApiController.AvailableSection>> second = controller.available(1, request);
+        ResponseEntity<List<EnlistmentApiController.SectionView>> sections = controller.sections(
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/sections"), new MockHttpServletResponse()));
+        // Then
+        assertAll(
+                () -> assertEquals(List.of(
+                        new EnlistmentApiController.AvailableSection(EnlistmentApiController.SectionView.of(clash), true),
+                        new EnlistmentApiController.AvailableSection(EnlistmentApiController.SectionView.of(tf), false)),
+                        first.getBody()),
+                () -> assertNotNull(first.getHeaders().getETag()),
+                () -> assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag()),
+                () -> assertEquals(List.of("A", "B", "C"), sections.getBody().stream()
+                        .map(EnlistmentApiController.SectionView::sectionId).toList()),
+                () -> assertTrue(sections.getHeaders().getCacheControl().contains("public")),
+                () -> verify(sectionRepo, never()).findAll()
+        );
+    }
+
+    @Test
+    void catalog_not_modified_until_section_added() {
+        // Given the ETag of the catalog
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        controller.sections(new ServletWebRequest(new MockHttpServletRequest("GET", "/api/sections"), first));
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        // When the catalog is requested again w/ that ETag, before & after a section is added
+        MockHttpServletResponse unchanged = new MockHttpServletResponse();
+        ResponseEntity<?> unchangedBody = controller.sections(new ServletWebRequest(conditionalGet(etag), unchanged));
+        catalog.put(new SectionBuilder("D").subject("S4").schedule(TF10to1130).build());
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        ResponseEntity<List<EnlistmentApiController.SectionView>> changedBody =
+                controller.sections(new ServletWebRequest(conditionalGet(etag), changed));
+        // Then
+        assertAll(
+                () -> assertNotNull(etag),
+                () -> assertNotNull(first.getHeader(HttpHeaders.LAST_MODIFIED)),
+                () -> assertEquals(304, unchanged.getStatus()),
+                () -> assertNull(unchangedBody),
+                () -> assertEquals(4, changedBody.getBody().size()),
+                () -> assertNotEquals(etag, changed.getHeader(HttpHeaders.ETAG))
+        );
+    }
+
+    private static MockHttpServletRequest conditionalGet(String etag) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sections");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        return request;
+    }
+
+    @Test
+    void batch_enlist_continues_past_rejections() {
+        // Given a student whose enlistment in B is rejected
+        Student student = newStudent(1, List.of());
+        MockHttpServletRequest request = loggedInAs(student);
+        EnlistmentException rejection = mock(EnlistmentException.class);
+        when(enlistment.enlist(eq(student), anyString(), isNull())).thenReturn(student);
+        doThrow(rejection).when(enlistment).enlist(student, "B", null);
+        // When
+        EnlistmentApiController.BatchResult result = controller.enlistAll(1,
+                new EnlistmentApiController.BatchEnlistRequest(List.of("A", "B", "C")), request);
+        // Then
+        assertAll(
+                () -> assertEquals(List.of(true, false, true), result.results().stream()
+                        .map(EnlistmentApiController.EnlistResult::enlisted).toList()),
+                () -> verify(enlistment).enlist(student, "C", null),
+                () -> assertSame(student, request.getSession().getAttribute(EnlistmentApiController.STUDENT))
+        );
+    }
+
+    @Test
+    void student_acts_only_as_the_session_student() {
+        // Given a session logged in as student 1, and one not logged in
+        MockHttpServletRequest loggedIn = loggedInAs(newStudent(1, List.of()));
+        MockHttpServletRequest anonymous = new MockHttpServletRequest();
+        EnlistmentApiController.EnlistRequest enlist = new EnlistmentApiController.EnlistRequest("A");
+        // When either tries to enlist student 2
+        ResponseStatusException otherStudent = assertThrows(ResponseStatusException.class,
+                () -> controller.enlist(2, enlist, null, loggedIn));
+        ResponseStatusException notLoggedIn = assertThrows(ResponseStatusException.class,
+                () -> controller.enlist(2, enlist, null, anonymous));
+        // Then
+        assertAll(
+                () -> assertEquals(HttpStatus.FORBIDDEN, otherStudent.getStatusCode()),
+                () -> assertEquals(HttpStatus.UNAUTHORIZED, notLoggedIn.getStatusCode()),
+                () -> assertNull(anonymous.getSession(false)),
+                () -> verifyNoInteractions(enlistment)
+        );
+    }
+
+    private static MockHttpServletRequest loggedInAs(Student student) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession().setAttribute(EnlistmentApiController.STUDENT, student);
+        return request;
+    }
+}
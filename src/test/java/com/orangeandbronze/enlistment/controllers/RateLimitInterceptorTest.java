@@ -0,0 +1,112 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import io.micrometer.core.instrument.simple.*;
+import org.junit.jupiter.api.*;
+import org.springframework.http.*;
+import org.springframework.mock.web.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+
+    private final AtomicLong now = new AtomicLong(-5_000_000_000L); // nanoTime may be negative
+
+    @Test
+    void bucket_allows_burst_then_one_per_interval() {
+        // Given a bucket of 3 tokens that refills at 60 a minute
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 60, 10, now::get);
+        // When
+        long[] burst = {limiter.tryAcquire(1), limiter.tryAcquire(1), limiter.tryAcquire(1)};
+        long throttled = limiter.tryAcquire(1);
+        long otherStudent = limiter.tryAcquire(2);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        long refilled = limiter.tryAcquire(1);
+        // Then
+        assertAll(
+                () -> assertArrayEquals(new long[]{0, 0, 0}, burst),
+                () -> assertEquals(TimeUnit.SECONDS.toNanos(1), throttled),
+                () -> assertEquals(0, otherStudent),
+                () -> assertEquals(0, refilled),
+                () -> assertTrue(limiter.tryAcquire(1) > 0)
+        );
+    }
+
+    @Test
+    void store_bounded_w_every_key_still_limited() {
+        // Given a store of 32 buckets of 1 token
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 60, 32, now::get);
+        // When 1000 students each post twice
+        AtomicInteger limited = new AtomicInteger();
+        for (long key = 0; key < 1000; key++) {
+            limiter.tryAcquire(key);
+            if (limiter.tryAcquire(key) > 0) {
+                limited.incrementAndGet();
+            }
+        }
+        // Then least recently used buckets made room, and no one got past their bucket
+        assertAll(
+                () -> assertEquals(32, limiter.size()),
+                () -> assertEquals(1000, limited.get())
+        );
+    }
+
+    @Test
+    void session_student_counted_whatever_the_request_names() throws Exception {
+        // Given a form limit of 1 submission, and a session logged in as student 1
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(Map.of(
+                RateLimitInterceptor.FORM, new TokenBucketLimiter(1, 1, 10, now::get),
+                RateLimitInterceptor.API, new TokenBucketLimiter(1, 1, 10, now::get)), new SimpleMeterRegistry());
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(EnlistmentApiController.STUDENT, newStudent(1, List.of()));
+        // When the session posts twice, naming a different student each time
+        MockHttpServletRequest first = post("/enlist", "2");
+        first.setSession(session);
+        MockHttpServletRequest second = post("/enlist", "3");
+        second.setSession(session);
+        boolean firstPassed = interceptor.preHandle(first, new MockHttpServletResponse(), null);
+        boolean secondPassed = interceptor.preHandle(second, new MockHttpServletResponse(), null);
+        // Then both count against student 1
+        assertAll(
+                () -> assertTrue(firstPassed),
+                () -> assertFalse(secondPassed)
+        );
+    }
+
+    @Test
+    void throttled_post_answered_w_429_before_handler() throws Exception {
+        // Given a form limit of 1 submission
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(Map.of(
+                RateLimitInterceptor.FORM, new TokenBucketLimiter(1, 1, 10, now::get),
+                RateLimitInterceptor.API, new TokenBucketLimiter(1, 1, 10, now::get)), meterRegistry);
+        // When a student posts twice, then GETs
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        boolean firstPassed = interceptor.preHandle(post("/enlist", "1"), first, null);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        boolean secondPassed = interceptor.preHandle(post("/enlist", "1"), second, null);
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/enlist");
+        get.setParameter("studentNumber", "1");
+        boolean getPassed = interceptor.preHandle(get, new MockHttpServletResponse(), null);
+        // Then
+        assertAll(
+                () -> assertTrue(firstPassed),
+                () -> assertFalse(secondPassed),
+                () -> assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), second.getStatus()),
+                () -> assertEquals("60", second.getHeader(HttpHeaders.RETRY_AFTER)),
+                () -> assertTrue(getPassed),
+                () -> assertEquals(1, meterRegistry.get("enlistment.rate-limit.throttled")
+                        .tag("endpoint", RateLimitInterceptor.FORM).counter().count())
+        );
+    }
+
+    private static MockHttpServletRequest post(String uri, String studentNumber) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setParameter("studentNumber", studentNumber);
+        return request;
+    }
+}
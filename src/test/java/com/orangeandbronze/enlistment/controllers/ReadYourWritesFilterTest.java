@@ -0,0 +1,54 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import jakarta.servlet.http.*;
+import org.junit.jupiter.api.*;
+import org.springframework.mock.web.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadYourWritesFilterTest {
+
+    private final ReplicaRoutingDataSource routing = mock(ReplicaRoutingDataSource.class);
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(routing);
+
+    @Test
+    void successful_write_pins_client_to_primary_position_before_response_commits() throws Exception {
+        // Given the primary at position 42
+        when(routing.primaryLsn()).thenReturn(42L);
+        // When an enlistment redirects, and a rejected API call answers 409 w/ a body
+        MockHttpServletResponse redirected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/enlist"), redirected,
+                (request, response) -> ((HttpServletResponse) response).sendRedirect("enlist"));
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/students/1/enlistments"), rejected,
+                (request, response) -> {
+                    ((HttpServletResponse) response).setStatus(409);
+                    response.getWriter().write("{}");
+                });
+        // Then only the enlistment's client gets the position, as cookie & header
+        assertAll(
+                () -> assertEquals("42", redirected.getCookie(ReadYourWritesFilter.LSN_COOKIE).getValue()),
+                () -> assertTrue(redirected.getCookie(ReadYourWritesFilter.LSN_COOKIE).isHttpOnly()),
+                () -> assertEquals("42", redirected.getHeader(ReadYourWritesFilter.LSN_HEADER)),
+                () -> assertEquals("enlist", redirected.getRedirectedUrl()),
+                () -> assertNull(rejected.getCookie(ReadYourWritesFilter.LSN_COOKIE)),
+                () -> verify(routing, times(1)).primaryLsn()
+        );
+    }
+
+    @Test
+    void read_w_malformed_position_not_pinned() throws Exception {
+        // Given a read w/ a cookie that isn't a position
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/enlist");
+        read.setCookies(new Cookie(ReadYourWritesFilter.LSN_COOKIE, "latest"));
+        // When / Then it goes through, w/o a position to give back
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(read, response, new MockFilterChain());
+        assertAll(
+                () -> assertNull(response.getCookie(ReadYourWritesFilter.LSN_COOKIE)),
+                () -> verifyNoInteractions(routing)
+        );
+    }
+}
@@ -0,0 +1,25 @@
+package com.orangeandbronze.enlistment.controllers;
+
+import org.junit.jupiter.api.*;
+import org.springframework.http.server.*;
+import org.springframework.web.util.pattern.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebConfigTest {
+
+    @Test
+    void only_fingerprinted_files_match_the_long_cache_pattern() {
+        // Given
+        PathPattern root = PathPatternParser.defaultInstance.parse("/" + WebConfig.FINGERPRINTED_FILE);
+        PathPattern nested = PathPatternParser.defaultInstance.parse("/*/" + WebConfig.FINGERPRINTED_FILE);
+        // Then
+        assertAll(
+                () -> assertTrue(root.matches(PathContainer.parsePath("/mer-0123456789abcdef0123456789abcdef.jpeg"))),
+                () -> assertTrue(nested.matches(PathContainer.parsePath("/error/4xx-0123456789abcdef0123456789abcdef.html"))),
+                () -> assertFalse(root.matches(PathContainer.parsePath("/mer.jpeg"))),
+                () -> assertFalse(root.matches(PathContainer.parsePath("/some-face.jpeg"))),
+                () -> assertFalse(root.matches(PathContainer.parsePath("/mer-0123456789abcdef.jpeg")))
+        );
+    }
+}
@@ -0,0 +1,61 @@
+package com.orangeandbronze.enlistment.domain;
+
+import io.micrometer.core.instrument.simple.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CacheWarmupTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void warm_up_loads_every_cache_from_one_query_per_table() throws IOException {
+        // Given 2 sections, one taught by faculty 1, in rooms R1 & R2, & a 3rd room w/o sections
+        Room r1 = new Room("R1", 10);
+        Room r2 = new Room("R2", 20);
+        Room r3 = new Room("R3", 30);
+        Faculty faculty = new Faculty(1, "Ada", "Lovelace");
+        Section a = new SectionBuilder("A").subject("S1").schedule(MTH830to10).room(r1).build();
+        Section b = new SectionBuilder("B").subject("S2").schedule(MTH830to10).room(r2).build();
+        a.assignFaculty(faculty, List.of());
+        SectionRepository sectionRepo = mock(SectionRepository.class);
+        when(sectionRepo.findAllForCatalog()).thenReturn(List.of(b, a));
+        RoomRepository roomRepo = mock(RoomRepository.class);
+        when(roomRepo.findAll()).thenReturn(List.of(r1, r2, r3));
+        FacultyRepository facultyRepo = mock(FacultyRepository.class);
+        when(facultyRepo.findAll()).thenReturn(List.of(faculty));
+        SectionCatalog catalog = new SectionCatalog();
+        ConflictMatrix matrix = new ConflictMatrix();
+        RoomAvailability rooms = new RoomAvailability();
+        FacultyScheduleIndex facultySchedules = new FacultyScheduleIndex(sectionRepo);
+        EnlistmentJournal journal = new EnlistmentJournal(directory, 1024);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CacheWarmup warmup = new CacheWarmup(sectionRepo, roomRepo, facultyRepo, catalog, matrix, rooms,
+                facultySchedules, journal, meterRegistry);
+        // When
+        CacheWarmup.WarmupReport report = warmup.warmUp();
+        // Then
+        assertAll(
+                () -> assertEquals(List.of(a, b), catalog.sections()),
+                () -> assertTrue(matrix.contains("A") && matrix.contains("B")),
+                () -> assertFalse(rooms.isFree("R1", MTH830to10)),
+                () -> assertTrue(rooms.isFree("R3", MTH830to10)),
+                () -> assertFalse(facultySchedules.isFree(1, MTH830to10)),
+                () -> assertEquals(new CacheWarmup.WarmupReport(2, 3, 1, 0, report.total(), report.steps()), report),
+                () -> assertTrue(report.steps().containsKey("faculty-schedules")),
+                () -> assertNotNull(meterRegistry.find("enlistment.warmup").tag("step", "total").timer()),
+                // timetables are preloaded, so none is queried on first use
+                () -> verify(sectionRepo, never()).findByFacultyNumber(anyInt()),
+                () -> verify(sectionRepo, never()).findAll()
+        );
+    }
+}
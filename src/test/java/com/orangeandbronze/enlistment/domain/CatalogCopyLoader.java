@@ -0,0 +1,108 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.postgresql.*;
+import org.postgresql.copy.*;
+
+import java.nio.charset.*;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Bulk-loads a {@link CatalogGenerator.Catalog} into an existing schema with PostgreSQL {@code COPY ... FROM STDIN},
+ * one table at a time in foreign-key order. Much faster than JPA or batched inserts for production-sized catalogs.
+ */
+public class CatalogCopyLoader {
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final CopyManager copyManager;
+
+    public CatalogCopyLoader(Connection connection) throws SQLException {
+        this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    /** Returns the number of rows copied into each table. */
+    public Map<String, Long> load(CatalogGenerator.Catalog catalog) throws SQLException {
+        Map<String, Long> rowCounts = new LinkedHashMap<>();
+        try (Rows rows = copy(rowCounts, "subject", "subject_id")) {
+            catalog.subjects().forEach(subject -> rows.add(subject.toString()));
+        }
+        try (Rows rows = copy(rowCounts, "subject_prerequisites", "subject_subject_id", "prerequisites_subject_id")) {
+            catalog.prerequisites().forEach((subject, prereqs) ->
+                    prereqs.forEach(prereq -> rows.add(subject.toString(), prereq.toString())));
+        }
+        try (Rows rows = copy(rowCounts, "room", "name", "capacity")) {
+            catalog.rooms().forEach(room -> rows.add(room.getName(), String.valueOf(room.getCapacity())));
+        }
+        try (Rows rows = copy(rowCounts, "section", "section_id", "number_of_students", "days", "start_time",
+                "end_time", "room_name", "subject_subject_id", "version")) {
+            catalog.sections().forEach(section -> rows.add(section.getSectionId(),
+                    String.valueOf(section.getNumberOfStudents()),
+                    String.valueOf(section.getSchedule().getDays().ordinal()),
+                    section.getSchedule().getPeriod().getStartTime().toString(),
+                    section.getSchedule().getPeriod().getEndTime().toString(),
+                    section.getRoom().getName(), section.getSubject().toString(), "0"));
+        }
+        try (Rows rows = copy(rowCounts, "room_sections", "room_name", "sections_section_id")) {
+            catalog.sections().forEach(section -> rows.add(section.getRoom().getName(), section.getSectionId()));
+        }
+        try (Rows rows = copy(rowCounts, "student", "student_number", "firstname", "lastname")) {
+            catalog.students().forEach(student -> rows.add(String.valueOf(student.getStudentNumber()),
+                    student.getFirstname(), student.getLastname()));
+        }
+        try (Rows rows = copy(rowCounts, "student_sections", "student_student_number", "sections_section_id")) {
+            catalog.students().forEach(student -> student.getSections().forEach(section ->
+                    rows.add(String.valueOf(student.getStudentNumber()), section.getSectionId())));
+        }
+        try (Rows rows = copy(rowCounts, "student_subjects_taken", "student_student_number", "subjects_taken_subject_id")) {
+            catalog.subjectsTaken().forEach((student, taken) -> taken.forEach(subject ->
+                    rows.add(String.valueOf(student.getStudentNumber()), subject.toString())));
+        }
+        return rowCounts;
+    }
+
+    private Rows copy(Map<String, Long> rowCounts, String table, String... columns) throws SQLException {
+        String sql = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN (FORMAT csv)";
+        return new Rows(copyManager.copyIn(sql), table, rowCounts);
+    }
+
+    /** Buffers CSV rows and streams them to the open COPY. Generated values never need CSV quoting. */
+    private static class Rows implements AutoCloseable {
+        private final CopyIn copyIn;
+        private final String table;
+        private final Map<String, Long> rowCounts;
+        private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD * 2);
+        private long count = 0;
+
+        Rows(CopyIn copyIn, String table, Map<String, Long> rowCounts) {
+            this.copyIn = copyIn;
+            this.table = table;
+            this.rowCounts = rowCounts;
+        }
+
+        void add(String... values) {
+            buffer.append(String.join(",", values)).append('\n');
+            count++;
+            if (buffer.length() >= FLUSH_THRESHOLD) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                throw new IllegalStateException("COPY into " + table + " failed", e);
+            }
+            buffer.setLength(0);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            flush();
+            copyIn.endCopy();
+            rowCounts.put(table, count);
+        }
+    }
+}
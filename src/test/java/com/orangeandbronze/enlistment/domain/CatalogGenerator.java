@@ -0,0 +1,180 @@
+package com.orangeandbronze.enlistment.domain;
+
+import java.time.*;
+import java.util.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+
+/**
+ * Deterministic generator of university-sized catalogs for benchmarks and load tests. The same seed and settings
+ * always give the same catalog.
+ * <ul>
+ *     <li>subjects form a prerequisite DAG: a subject's prerequisites are always subjects generated before it</li>
+ *     <li>sections get valid {@link Days}/{@link Period} schedules, never double-booking a room</li>
+ *     <li>students get a history of subjects taken in prerequisite order, and are enlisted through
+ *     {@link Student#enlist(Section)} so enlistments obey every rule and section counters match</li>
+ * </ul>
+ * Use {@link CatalogCopyLoader} to bulk-load the result into PostgreSQL.
+ */
+public class CatalogGenerator {
+
+    static final LocalTime DAY_START = LocalTime.of(8, 30);
+    static final int HALF_HOURS_PER_DAY = 18; // 8:30am - 5:30pm
+    private static final int[] PERIOD_LENGTHS_IN_HALF_HOURS = {3, 3, 3, 2, 4, 6}; // weighted towards 1.5 hours
+    private static final int[] ROOM_CAPACITIES = {10, 20, 30, 40, 50, 60, 100};
+    private static final int FIRST_STUDENT_NUMBER = 1000;
+
+    // Defaults
+    private final long seed;
+    private int subjects = 200;
+    private int maxPrereqs = 3;
+    private int rooms = 100;
+    private int sections = 1000;
+    private int students = 2000;
+    private int sectionsPerStudent = 5;
+
+    public CatalogGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public CatalogGenerator subjects(int subjects) {
+        this.subjects = subjects;
+        return this;
+    }
+
+    public CatalogGenerator maxPrereqs(int maxPrereqs) {
+        this.maxPrereqs = maxPrereqs;
+        return this;
+    }
+
+    public CatalogGenerator rooms(int rooms) {
+        this.rooms = rooms;
+        return this;
+    }
+
+    public CatalogGenerator sections(int sections) {
+        this.sections = sections;
+        return this;
+    }
+
+    public CatalogGenerator students(int students) {
+        this.students = students;
+        return this;
+    }
+
+    public CatalogGenerator sectionsPerStudent(int sectionsPerStudent) {
+        this.sectionsPerStudent = sectionsPerStudent;
+        return this;
+    }
+
+    public Catalog generate() {
+        Random random = new Random(seed);
+        Map<Subject, List<Subject>> prerequisites = generateSubjects(random);
+        List<Subject> subjectList = new ArrayList<>(prerequisites.keySet());
+        List<Room> roomList = generateRooms(random);
+        List<Section> sectionList = generateSections(random, subjectList, roomList);
+        Map<Student, List<Subject>> subjectsTaken = generateStudents(random, prerequisites, sectionList);
+        return new Catalog(prerequisites, roomList, sectionList, subjectsTaken);
+    }
+
+    private Map<Subject, List<Subject>> generateSubjects(Random random) {
+        Map<Subject, List<Subject>> prerequisites = new LinkedHashMap<>();
+        List<Subject> generated = new ArrayList<>();
+        for (int i = 0; i < subjects; i++) {
+            List<Subject> prereqs = new ArrayList<>();
+            int window = Math.min(i, 50); // prereqs come from nearby, earlier subjects, like a curriculum track
+            int numberOfPrereqs = window == 0 ? 0 : random.nextInt(Math.min(maxPrereqs, window) + 1);
+            while (prereqs.size() < numberOfPrereqs) {
+                Subject prereq = generated.get(i - 1 - random.nextInt(window));
+                if (!prereqs.contains(prereq)) {
+                    prereqs.add(prereq);
+                }
+            }
+            Subject subject = new Subject(String.format("SUBJ%05d", i), prereqs);
+            generated.add(subject);
+            prerequisites.put(subject, prereqs);
+        }
+        return prerequisites;
+    }
+
+    private List<Room> generateRooms(Random random) {
+        List<Room> roomList = new ArrayList<>();
+        for (int i = 0; i < rooms; i++) {
+            roomList.add(new Room(String.format("R%05d", i), ROOM_CAPACITIES[random.nextInt(ROOM_CAPACITIES.length)]));
+        }
+        return roomList;
+    }
+
+    private List<Section> generateSections(Random random, List<Subject> subjectList, List<Room> roomList) {
+        long[] bookedHalfHours = new long[roomList.size()]; // bit (day * 18 + halfHour) set when booked
+        List<Section> sectionList = new ArrayList<>();
+        int attempts = 0;
+        while (sectionList.size() < sections) {
+            if (++attempts > sections * 20) {
+                throw new IllegalStateException("rooms are full after " + sectionList.size()
+                        + " sections, add rooms or lower sections");
+            }
+            int roomIndex = random.nextInt(roomList.size());
+            Days days = Days.values()[random.nextInt(Days.values().length)];
+            int length = PERIOD_LENGTHS_IN_HALF_HOURS[random.nextInt(PERIOD_LENGTHS_IN_HALF_HOURS.length)];
+            int start = random.nextInt(HALF_HOURS_PER_DAY - length + 1);
+            long mask = ((1L << length) - 1) << (days.ordinal() * HALF_HOURS_PER_DAY + start);
+            if ((bookedHalfHours[roomIndex] & mask) != 0) {
+                continue;
+            }
+            bookedHalfHours[roomIndex] |= mask;
+            Period period = new Period(DAY_START.plusMinutes(30L * start), DAY_START.plusMinutes(30L * (start + length)));
+            sectionList.add(new SectionBuilder(String.format("SEC%06d", sectionList.size()))
+                    .subject(subjectList.get(random.nextInt(subjectList.size())))
+                    .schedule(new Schedule(days, period))
+                    .room(roomList.get(roomIndex))
+                    .build());
+        }
+        return sectionList;
+    }
+
+    private Map<Student, List<Subject>> generateStudents(Random random, Map<Subject, List<Subject>> prerequisites,
+                                                         List<Section> sectionList) {
+        Map<Student, List<Subject>> subjectsTaken = new LinkedHashMap<>();
+        for (int i = 0; i < students; i++) {
+            double progress = random.nextDouble(); // freshman ~0, graduating ~1
+            Set<Subject> taken = new LinkedHashSet<>();
+            int index = 0;
+            for (Map.Entry<Subject, List<Subject>> subject : prerequisites.entrySet()) {
+                double depth = (double) index++ / prerequisites.size();
+                if (taken.containsAll(subject.getValue()) && random.nextDouble() < progress * 1.5 - depth) {
+                    taken.add(subject.getKey());
+                }
+            }
+            List<Subject> history = new ArrayList<>(taken);
+            Student student = newStudent(FIRST_STUDENT_NUMBER + i, Collections.emptyList(), history);
+            int enlisted = 0;
+            for (int attempt = 0; attempt < sectionsPerStudent * 3 && enlisted < sectionsPerStudent; attempt++) {
+                try {
+                    student.enlist(sectionList.get(random.nextInt(sectionList.size())));
+                    enlisted++;
+                } catch (EnlistmentException e) {
+                    // rejected like a real attempt would be, try another section
+                }
+            }
+            subjectsTaken.put(student, history);
+        }
+        return subjectsTaken;
+    }
+
+    /**
+     * A generated catalog. Prerequisites and subjects taken are kept alongside the domain objects, since the domain
+     * objects don't expose them.
+     */
+    public record Catalog(Map<Subject, List<Subject>> prerequisites, List<Room> rooms, List<Section> sections,
+                          Map<Student, List<Subject>> subjectsTaken) {
+
+        public Collection<Subject> subjects() {
+            return prerequisites.keySet();
+        }
+
+        public Collection<Student> students() {
+            return subjectsTaken.keySet();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogGeneratorTest {
+
+    private static CatalogGenerator.Catalog smallCatalog(long seed) {
+        return new CatalogGenerator(seed).subjects(50).rooms(20).sections(200).students(300).generate();
+    }
+
+    private static List<String> describe(CatalogGenerator.Catalog catalog) {
+        return catalog.sections().stream()
+                .map(section -> section.getSectionId() + " " + section.getSubject() + " " + section.getSchedule()
+                        + " " + section.getRoom() + " " + section.getNumberOfStudents())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void generate_same_seed_same_catalog() {
+        assertEquals(describe(smallCatalog(42)), describe(smallCatalog(42)));
+    }
+
+    @Test
+    void generate_consistent_catalog() {
+        CatalogGenerator.Catalog catalog = smallCatalog(7);
+        // every student's enlistments are reflected in the section counters
+        Map<Section, Long> enlisted = catalog.students().stream()
+                .flatMap(student -> student.getSections().stream())
+                .collect(Collectors.groupingBy(section -> section, Collectors.counting()));
+        // prerequisites always come earlier in the catalog, so they form a DAG
+        List<Subject> order = new ArrayList<>(catalog.subjects());
+        assertAll(
+                () -> assertEquals(200, catalog.sections().size()),
+                () -> catalog.sections().forEach(section ->
+                        assertEquals(enlisted.getOrDefault(section, 0L).intValue(), section.getNumberOfStudents())),
+                () -> catalog.prerequisites().forEach((subject, prereqs) -> prereqs.forEach(prereq ->
+                        assertTrue(order.indexOf(prereq) < order.indexOf(subject)))),
+                () -> assertTrue(enlisted.values().stream().mapToLong(Long::longValue).sum() > 0)
+        );
+    }
+}
@@ -0,0 +1,122 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+
+import static com.orangeandbronze.enlistment.domain.Days.*;
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictMatrixTest {
+
+    @Test
+    void check_schedule_conflict_same_subject_and_no_conflict() {
+        // Given a matrix of sections, two of which overlap & two of which share a subject
+        Section a = new SectionBuilder("A").subject("S1").schedule(MTH830to10).room("R1").build();
+        Section b = new SectionBuilder("B").subject("S2").schedule(MTH830to10).room("R2").build();
+        Section c = new SectionBuilder("C").subject("S1").schedule(TF830to10).room("R3").build();
+        Section d = new SectionBuilder("D").subject("S3").schedule(TF10to1130).room("R4").build();
+        ConflictMatrix matrix = new ConflictMatrix();
+        List.of(a, b, c, d).forEach(matrix::put);
+        // When & Then
+        assertAll(
+                () -> assertEquals(EnlistmentCheck.Result.SCHEDULE_CONFLICT, matrix.check(b, List.of(a)).result()),
+                () -> assertEquals(EnlistmentCheck.Result.SAME_SUBJECT, matrix.check(c, List.of(a, d)).result()),
+                () -> assertEquals(EnlistmentCheck.Result.OK, matrix.check(d, List.of(a, b)).result()),
+                () -> assertEquals(EnlistmentCheck.Result.SCHEDULE_CONFLICT, matrix.check(a, List.of(a)).result()),
+                () -> assertEquals(Set.of("A", "B", "C"), matrix.conflictingWith(List.of(a))),
+                () -> assertEquals(4, matrix.size())
+        );
+    }
+
+    @Test
+    void check_falls_back_to_direct_comparison_for_sections_not_in_matrix() {
+        // Given a matrix without the candidate
+        Section a = new SectionBuilder("A").subject("S1").schedule(MTH830to10).room("R1").build();
+        Section notInMatrix = new SectionBuilder("B").subject("S2").schedule(MTH830to10).room("R2").build();
+        ConflictMatrix matrix = new ConflictMatrix();
+        matrix.put(a);
+        // When & Then
+        assertEquals(EnlistmentCheck.Result.SCHEDULE_CONFLICT, matrix.check(notInMatrix, List.of(a)).result());
+    }
+
+    @Test
+    void put_replacing_section_clears_stale_conflicts() {
+        // Given two conflicting sections
+        Section a = new SectionBuilder("A").subject("S1").schedule(MTH830to10).room("R1").build();
+        Section b = new SectionBuilder("B").subject("S2").schedule(MTH830to10).room("R2").build();
+        ConflictMatrix matrix = new ConflictMatrix();
+        matrix.put(a);
+        matrix.put(b);
+        // When B is put again w/ a new schedule
+        matrix.put(new SectionBuilder("B").subject("S2").schedule(TF830to10).room("R3").build());
+        // Then
+        assertAll(
+                () -> assertEquals(Set.of("A"), matrix.conflictingWith(List.of(a))),
+                () -> assertEquals(2, matrix.size())
+        );
+    }
+
+    @Test
+    void matches_pairwise_check_across_many_sections() {
+        // Given a generated catalog, more sections than fit in one bitset word
+        CatalogGenerator.Catalog catalog = new CatalogGenerator(7).subjects(40).rooms(30).sections(300)
+                .students(50).sectionsPerStudent(3).generate();
+        ConflictMatrix matrix = new ConflictMatrix();
+        catalog.sections().forEach(matrix::put);
+        // When & Then the matrix agrees w/ comparing schedules & subjects directly for every student & section
+        for (Student student : catalog.students()) {
+            for (Section section : catalog.sections()) {
+                assertEquals(directCheck(section, student.getSections()),
+                        matrix.check(section, student.getSections()).result(), () -> student + " " + section);
+            }
+        }
+    }
+
+    @Test
+    void bulk_load_same_as_put_one_by_one_and_replaces_what_was_there() {
+        // Given a generated catalog, and a matrix that already has a section not in it
+        CatalogGenerator.Catalog catalog = new CatalogGenerator(11).subjects(40).rooms(30).sections(300)
+                .students(1).sectionsPerStudent(1).generate();
+        ConflictMatrix put = new ConflictMatrix();
+        catalog.sections().forEach(put::put);
+        ConflictMatrix loaded = new ConflictMatrix();
+        loaded.put(new SectionBuilder("STALE").build());
+        // When
+        loaded.loadCatalog(catalog.sections());
+        // Then every section conflicts w/ the same sections either way, and the stale one is gone
+        for (Section section : catalog.sections()) {
+            assertEquals(put.conflictingWith(List.of(section)), loaded.conflictingWith(List.of(section)),
+                    section::toString);
+        }
+        assertAll(
+                () -> assertEquals(catalog.sections().size(), loaded.size()),
+                () -> assertFalse(loaded.contains("STALE"))
+        );
+    }
+
+    @Test
+    void student_checkEnlist_through_matrix() {
+        // Given a student enlisted in one section, & a section w/ an overlapping schedule
+        Section enlisted = new SectionBuilder("A").subject("S1")
+                .schedule(new Schedule(WS, new Period(LocalTime.of(8, 30), LocalTime.of(10, 0)))).room("R1").build();
+        Section overlapping = new SectionBuilder("B").subject("S2")
+                .schedule(new Schedule(WS, new Period(LocalTime.of(9, 0), LocalTime.of(10, 0)))).room("R2").build();
+        Student student = newStudent(1, List.of(enlisted));
+        ConflictMatrix matrix = new ConflictMatrix();
+        matrix.put(enlisted);
+        matrix.put(overlapping);
+        // When & Then
+        assertEquals(EnlistmentCheck.Result.SCHEDULE_CONFLICT, student.checkEnlist(overlapping, matrix).result());
+    }
+
+    private static EnlistmentCheck.Result directCheck(Section candidate, Collection<Section> enrolled) {
+        if (enrolled.stream().anyMatch(section -> section.hasScheduleConflict(candidate))) {
+            return EnlistmentCheck.Result.SCHEDULE_CONFLICT;
+        }
+        return enrolled.stream().anyMatch(section -> section.hasSameSubject(candidate))
+                ? EnlistmentCheck.Result.SAME_SUBJECT : EnlistmentCheck.Result.OK;
+    }
+}
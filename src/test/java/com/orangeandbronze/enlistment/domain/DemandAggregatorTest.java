@@ -0,0 +1,77 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static com.orangeandbronze.enlistment.domain.EnlistmentAttempt.Outcome.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DemandAggregatorTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final DemandAggregator aggregator = new DemandAggregator(Duration.ofMinutes(5), Duration.ofMinutes(15), now::get);
+
+    @Test
+    void section_filling_within_horizon_is_hot() {
+        // Given 2 enlistments a minute into a section w/ 30 seats
+        for (int i = 0; i < 20; i++) {
+            now.addAndGet(30_000);
+            aggregator.accept(new EnlistmentAttempt(now.get(), i, "FAST", true, SUCCEEDED, 30 - i));
+        }
+        // and 2 enlistments an hour into another section w/ 100 seats
+        aggregator.accept(new EnlistmentAttempt(now.get() - 1_800_000, 1, "SLOW", true, SUCCEEDED, 99));
+        aggregator.accept(new EnlistmentAttempt(now.get(), 2, "SLOW", true, SUCCEEDED, 98));
+        // When
+        DemandAggregator.DemandStats fast = aggregator.stats("FAST").orElseThrow();
+        // Then
+        assertAll(
+                () -> assertTrue(fast.enlistsPerMinute() > 1 && fast.enlistsPerMinute() < 3,
+                        "enlistsPerMinute " + fast.enlistsPerMinute()),
+                () -> assertTrue(fast.minutesToFull() < 15, "minutesToFull " + fast.minutesToFull()),
+                () -> assertTrue(aggregator.isHot("FAST")),
+                () -> assertFalse(aggregator.isHot("SLOW")),
+                () -> assertFalse(aggregator.isHot("UNKNOWN")),
+                () -> assertEquals("FAST", aggregator.hottest(1).get(0).sectionId())
+        );
+    }
+
+    @Test
+    void section_w_many_capacity_rejections_is_hot_until_they_decay() {
+        // Given 3 enlistments & 2 capacity rejections, w/ as many cancellations keeping seats open
+        for (int i = 0; i < 3; i++) {
+            aggregator.accept(new EnlistmentAttempt(now.get(), i, "A", true, SUCCEEDED, 1));
+            aggregator.accept(new EnlistmentAttempt(now.get(), i, "A", false, SUCCEEDED, 2));
+        }
+        aggregator.accept(new EnlistmentAttempt(now.get(), 4, "A", true, CAPACITY, 2));
+        aggregator.accept(new EnlistmentAttempt(now.get(), 5, "A", true, CAPACITY, 2));
+        // When
+        DemandAggregator.DemandStats stats = aggregator.stats("A").orElseThrow();
+        boolean hotNow = aggregator.isHot("A");
+        now.addAndGet(Duration.ofHours(1).toMillis());
+        // Then
+        assertAll(
+                () -> assertEquals(0.4, stats.rejectionRatio(), 1e-9),
+                () -> assertEquals(Double.POSITIVE_INFINITY, stats.minutesToFull()),
+                () -> assertTrue(hotNow),
+                () -> assertFalse(aggregator.isHot("A"))
+        );
+    }
+
+    @Test
+    void full_section_is_hot() {
+        // When
+        aggregator.accept(new EnlistmentAttempt(now.get(), 1, "A", true, SUCCEEDED, 0));
+        // Then
+        assertEquals(0, aggregator.stats("A").orElseThrow().minutesToFull());
+        assertTrue(aggregator.isHot("A"));
+    }
+
+    @Test
+    void attempt_round_trips_through_bytes() {
+        EnlistmentAttempt attempt = new EnlistmentAttempt(123L, 7, "MATH101A", false, SCHEDULE_CONFLICT, 12);
+        assertEquals(attempt, EnlistmentAttempt.fromBytes(java.nio.ByteBuffer.wrap(attempt.toBytes())));
+    }
+}
@@ -0,0 +1,63 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+
+import static com.orangeandbronze.enlistment.domain.EnlistmentAttempt.Outcome.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EnlistmentAttemptLogTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    @TempDir
+    Path directory;
+
+    private long now = 100 * HOUR;
+
+    /** A framed attempt on section "ABC" is 29 bytes, so 3 to a segment. */
+    private EnlistmentAttemptLog attemptLog(DemandAggregator aggregator) throws IOException {
+        return new EnlistmentAttemptLog(directory, 96, Duration.ofHours(1), Duration.ofHours(24), aggregator,
+                () -> now);
+    }
+
+    @Test
+    void expire_deletes_segments_older_than_retention() throws IOException {
+        // Given 3 segments of attempts 40, 30 & 10 hours old, and one segment being appended to
+        EnlistmentAttemptLog log = attemptLog(mock(DemandAggregator.class));
+        for (int hoursAgo : new int[]{40, 40, 40, 30, 30, 30, 10, 10, 10, 0}) {
+            log.record(attempt(now - hoursAgo * HOUR));
+        }
+        // When
+        log.expire();
+        // Then the 40-hour-old segment is gone; the 30-hour-old one is kept, as it is only known to be old once the
+        // segment after it starts before the retention
+        assertEquals(3, log.segmentCount());
+        log.destroy();
+    }
+
+    @Test
+    void replay_skips_segments_before_the_window() throws IOException {
+        // Given attempts 3 hours old in the first segments and 30 minutes old in the last
+        EnlistmentAttemptLog log = attemptLog(mock(DemandAggregator.class));
+        for (long millisAgo : new long[]{3 * HOUR, 3 * HOUR, 3 * HOUR, 3 * HOUR, 3 * HOUR, 3 * HOUR, HOUR / 2}) {
+            log.record(attempt(now - millisAgo));
+        }
+        log.destroy();
+        // When reopened
+        DemandAggregator aggregator = mock(DemandAggregator.class);
+        attemptLog(aggregator).destroy();
+        // Then only the attempt within the last hour is replayed
+        verify(aggregator).accept(attempt(now - HOUR / 2));
+        verifyNoMoreInteractions(aggregator);
+    }
+
+    private static EnlistmentAttempt attempt(long epochMillis) {
+        return new EnlistmentAttempt(epochMillis, 1, "ABC", true, SUCCEEDED, 1);
+    }
+}
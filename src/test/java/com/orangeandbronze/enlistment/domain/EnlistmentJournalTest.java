@@ -0,0 +1,193 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EnlistmentJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void state_rebuilt_from_snapshot_and_replay_tail() throws IOException {
+        // Given events before & after a snapshot, w/ segments small enough that the snapshot makes some redundant
+        EnlistmentJournal journal = new EnlistmentJournal(directory, 64);
+        journal.sectionCreated("A");
+        journal.sectionCreated("B");
+        journal.enlisted(1, "A");
+        journal.enlisted(1, "B");
+        journal.enlisted(2, "A");
+        journal.snapshot();
+        journal.cancelled(1, "A");
+        journal.sectionCreated("C");
+        journal.enlisted(2, "C");
+        journal.destroy();
+        // When the journal is reopened
+        EnlistmentJournal reopened = new EnlistmentJournal(directory, 64);
+        int replayed = reopened.restore();
+        List<EnlistmentJournal.Event> audit = new ArrayList<>();
+        reopened.forEach(0, audit::add);
+        // Then only the events after the snapshot are replayed
+        assertAll(
+                () -> assertEquals(3, replayed),
+                () -> assertEquals(Set.of("B"), reopened.sectionsOf(1)),
+                () -> assertEquals(Set.of("A", "C"), reopened.sectionsOf(2)),
+                () -> assertEquals(3, reopened.sectionCount()),
+                () -> assertEquals(new EnlistmentJournal.Event(EnlistmentJournal.Type.ENLISTED,
+                        audit.get(audit.size() - 1).epochMillis(), 2, "C"), audit.get(audit.size() - 1)),
+                () -> assertEquals(4, audit.size(), "segments before the snapshot deleted")
+        );
+    }
+
+    @Test
+    void recover_seeds_from_database_when_journal_does_not_know_its_sections() throws IOException {
+        // Given an empty journal & a database w/ 2 sections, one of them enlisted in by student 1
+        SectionRepository sectionRepo = mock(SectionRepository.class);
+        when(sectionRepo.count()).thenReturn(2L);
+        when(sectionRepo.findAllSectionIds()).thenReturn(List.of("A", "B"));
+        StudentSection enrollment = mock(StudentSection.class);
+        when(enrollment.getStudentNumber()).thenReturn(1);
+        when(enrollment.getSectionId()).thenReturn("B");
+        StudentRepository studentRepo = mock(StudentRepository.class);
+        when(studentRepo.findAllEnrollments()).thenReturn(List.of(enrollment));
+        EnrollmentCache cache = new EnrollmentCache(16, 4, false);
+        EnlistmentJournal journal = new EnlistmentJournal(directory, 1024);
+        journal.setSectionRepo(sectionRepo);
+        journal.setStudentRepo(studentRepo);
+        journal.setEnrollmentCache(cache);
+        // When
+        journal.recover();
+        // Then the state is seeded, snapshotted & loaded into the cache
+        EnlistmentJournal reopened = new EnlistmentJournal(directory, 1024);
+        reopened.restore();
+        assertAll(
+                () -> assertTrue(cache.isLoaded(1)),
+                () -> assertTrue(cache.isEnlisted(1, "B")),
+                () -> assertEquals(Set.of("B"), reopened.sectionsOf(1)),
+                () -> assertEquals(2, reopened.sectionCount())
+        );
+    }
+
+    @Test
+    void recover_reseeds_when_database_has_enrollments_the_journal_missed() throws IOException {
+        // Given a journal that knows both sections & student 1's enrollment, but not student 2's from another node
+        EnlistmentJournal journal = new EnlistmentJournal(directory, 1024);
+        journal.sectionCreated("A");
+        journal.sectionCreated("B");
+        journal.enlisted(1, "A");
+        SectionRepository sectionRepo = mock(SectionRepository.class);
+        when(sectionRepo.count()).thenReturn(2L);
+        when(sectionRepo.findAllSectionIds()).thenReturn(List.of("A", "B"));
+        StudentRepository.EnrollmentChecksum checksum = checksum(enrollment(1, "A"), enrollment(2, "B"));
+        List<StudentSection> enrollments = List.of(enrollment(1, "A"), enrollment(2, "B"));
+        StudentRepository studentRepo = mock(StudentRepository.class);
+        when(studentRepo.enrollmentChecksum()).thenReturn(checksum);
+        when(studentRepo.findAllEnrollments()).thenReturn(enrollments);
+        journal.setSectionRepo(sectionRepo);
+        journal.setStudentRepo(studentRepo);
+        // When
+        journal.recover();
+        // Then
+        assertEquals(Set.of("B"), journal.sectionsOf(2));
+    }
+
+    @Test
+    void recover_trusts_journal_that_agrees_with_database() throws IOException {
+        // Given a journal w/ the same sections & enrollments as the database
+        EnlistmentJournal journal = new EnlistmentJournal(directory, 1024);
+        journal.sectionCreated("A");
+        journal.enlisted(1, "A");
+        journal.enlisted(2, "A");
+        SectionRepository sectionRepo = mock(SectionRepository.class);
+        when(sectionRepo.count()).thenReturn(1L);
+        StudentRepository.EnrollmentChecksum checksum = checksum(enrollment(1, "A"), enrollment(2, "A"));
+        StudentRepository studentRepo = mock(StudentRepository.class);
+        when(studentRepo.enrollmentChecksum()).thenReturn(checksum);
+        journal.setSectionRepo(sectionRepo);
+        journal.setStudentRepo(studentRepo);
+        // When
+        journal.recover();
+        // Then
+        verify(studentRepo, never()).findAllEnrollments();
+    }
+
+    @Test
+    void recover_reseeds_when_a_student_is_in_another_section_in_the_database() throws IOException {
+        // Given a journal w/ as many enrollments as the database, but student 2 in A where the database has B
+        EnlistmentJournal journal = new EnlistmentJournal(directory, 1024);
+        journal.sectionCreated("A");
+        journal.sectionCreated("B");
+        journal.enlisted(1, "A");
+        journal.enlisted(2, "A");
+        SectionRepository sectionRepo = mock(SectionRepository.class);
+        when(sectionRepo.count()).thenReturn(2L);
+        when(sectionRepo.findAllSectionIds()).thenReturn(List.of("A", "B"));
+        StudentRepository.EnrollmentChecksum checksum = checksum(enrollment(1, "A"), enrollment(2, "B"));
+        List<StudentSection> enrollments = List.of(enrollment(1, "A"), enrollment(2, "B"));
+        StudentRepository studentRepo = mock(StudentRepository.class);
+        when(studentRepo.enrollmentChecksum()).thenReturn(checksum);
+        when(studentRepo.findAllEnrollments()).thenReturn(enrollments);
+        journal.setSectionRepo(sectionRepo);
+        journal.setStudentRepo(studentRepo);
+        // When
+        journal.recover();
+        // Then
+        assertEquals(Set.of("B"), journal.sectionsOf(2));
+    }
+
+    @Test
+    void enrollment_hash_is_the_first_4_bytes_of_the_md5_as_postgres_computes_it() {
+        // Then, the expected values being ('x' || LEFT(MD5('1:A'), 8))::BIT(32)::INT etc.
+        assertAll(
+                () -> assertEquals(-1867006826, EnlistmentJournal.enrollmentHash(1, "A")),
+                () -> assertEquals(158691388, EnlistmentJournal.enrollmentHash(2, "B"))
+        );
+    }
+
+    private static StudentRepository.EnrollmentChecksum checksum(StudentSection... enrollments) {
+        StudentRepository.EnrollmentChecksum checksum = mock(StudentRepository.EnrollmentChecksum.class);
+        when(checksum.getEnrollments()).thenReturn((long) enrollments.length);
+        long hashSum = 0;
+        for (StudentSection enrollment : enrollments) {
+            hashSum += EnlistmentJournal.enrollmentHash(enrollment.getStudentNumber(), enrollment.getSectionId());
+        }
+        when(checksum.getEnrollmentHashSum()).thenReturn(hashSum);
+        return checksum;
+    }
+
+    private static StudentSection enrollment(int studentNumber, String sectionId) {
+        StudentSection enrollment = mock(StudentSection.class);
+        when(enrollment.getStudentNumber()).thenReturn(studentNumber);
+        when(enrollment.getSectionId()).thenReturn(sectionId);
+        return enrollment;
+    }
+
+    @Test
+    void archived_section_dropped_from_sections_and_every_students_enrollment() throws IOException {
+        // Given a section enlisted in by 2 students, one of them also in another section
+        EnlistmentJournal journal = new EnlistmentJournal(directory, 1024);
+        journal.sectionCreated("A");
+        journal.sectionCreated("B");
+        journal.enlisted(1, "A");
+        journal.enlisted(1, "B");
+        journal.enlisted(2, "A");
+        // When the section is archived, and the journal reopened
+        journal.sectionArchived("A");
+        journal.destroy();
+        EnlistmentJournal reopened = new EnlistmentJournal(directory, 1024);
+        reopened.restore();
+        // Then
+        assertAll(
+                () -> assertEquals(Set.of("B"), reopened.sectionsOf(1)),
+                () -> assertEquals(Set.of(), reopened.sectionsOf(2)),
+                () -> assertEquals(1, reopened.sectionCount())
+        );
+    }
+}
@@ -0,0 +1,218 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+import org.springframework.context.annotation.*;
+import org.springframework.orm.*;
+import org.springframework.retry.annotation.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EnlistmentServiceTest {
+
+    private final StudentRepository studentRepository = mock(StudentRepository.class);
+    private final SectionRepository sectionRepository = mock(SectionRepository.class);
+    private final ClusterCoordinator clusterCoordinator = mock(ClusterCoordinator.class);
+    private final EnlistmentJournal journal = mock(EnlistmentJournal.class);
+    private final EnlistmentWindows windows = mock(EnlistmentWindows.class);
+    private final SeatHoldRegistry seatHolds = mock(SeatHoldRegistry.class);
+    private final SectionCatalog sectionCatalog = new SectionCatalog();
+    private final EnrollmentCache enrollmentCache = new EnrollmentCache(16, 4, false);
+
+    private EnlistmentService service(PlatformTransactionManager transactionManager) {
+        return new EnlistmentService(sectionRepository, studentRepository, new TransactionTemplate(transactionManager),
+                clusterCoordinator, windows,
+                mock(LotteryAllocator.class), new IdempotencyStore(10, Duration.ofMinutes(1)),
+                seatHolds, enrollmentCache, sectionCatalog,
+                new ConflictMatrix(), mock(EnlistmentAttemptLog.class), journal);
+    }
+
+    @Test
+    void enlist_student_in_section() {
+        // Given a student in session and the section to enlist in
+        Student inSession = newStudent(1, List.of());
+        Student managed = mock(Student.class);
+        when(studentRepository.findById(1)).thenReturn(Optional.of(managed));
+        Section section = newDefaultSection();
+        when(sectionRepository.findById(DEFAULT_SECTION_ID)).thenReturn(Optional.of(section));
+        // When
+        Student enlisted = service(mock(PlatformTransactionManager.class)).enlist(inSession, DEFAULT_SECTION_ID, null);
+        // Then the student is loaded again in the transaction, after the section's seats are locked
+        assertAll(
+                () -> verify(clusterCoordinator).lockSeats(DEFAULT_SECTION_ID),
+                () -> verify(managed).enlist(section),
+                () -> assertSame(managed, enlisted),
+                () -> assertTrue(inSession.getSections().isEmpty()),
+                // both are managed & flushed on commit, not merged again
+                () -> verify(studentRepository, never()).save(any()),
+                () -> verify(sectionRepository, never()).save(any())
+        );
+    }
+
+    @Test
+    void session_student_reloaded_once_another_node_changed_their_enlistments() {
+        // Given session students enlisted in one section, one of whom the enrollment cache has in another as well
+        Section first = new SectionBuilder("A").build();
+        Section second = new SectionBuilder("B").schedule(TF830to10).build();
+        Student stale = newStudent(1, List.of(first));
+        Student upToDate = newStudent(2, List.of(first));
+        Student reloaded = newStudent(1, List.of(first, second));
+        enrollmentCache.load(1, List.of("A", "B"));
+        enrollmentCache.load(2, List.of("A"));
+        when(studentRepository.findById(1)).thenReturn(Optional.of(reloaded));
+        EnlistmentService service = service(mock(PlatformTransactionManager.class));
+        // When
+        Student staleNow = service.current(stale);
+        Student upToDateNow = service.current(upToDate);
+        // Then
+        assertAll(
+                () -> assertSame(reloaded, staleNow),
+                () -> assertSame(upToDate, upToDateNow),
+                () -> verify(studentRepository, never()).findById(2)
+        );
+    }
+
+    @Test
+    void session_student_reloaded_once_a_section_of_theirs_is_archived() {
+        // Given a catalog w/o last term's section, and session students w/ & w/o it
+        Section archived = new SectionBuilder("OLD").build();
+        Section current = new SectionBuilder("NEW").schedule(TF830to10).build();
+        sectionCatalog.load(List.of(current));
+        Student stale = newStudent(1, List.of(archived, current));
+        Student upToDate = newStudent(2, List.of(current));
+        Student reloaded = newStudent(1, List.of(current));
+        when(studentRepository.findById(1)).thenReturn(Optional.of(reloaded));
+        EnlistmentService service = service(mock(PlatformTransactionManager.class));
+        // When
+        Student staleNow = service.current(stale);
+        Student upToDateNow = service.current(upToDate);
+        // Then
+        assertAll(
+                () -> assertSame(reloaded, staleNow),
+                () -> assertSame(upToDate, upToDateNow),
+                () -> verify(studentRepository, never()).findById(2)
+        );
+    }
+
+    @Test
+    void duplicate_submission_not_applied_again() {
+        // Given a student whose enlistment gets rejected
+        Student student = mock(Student.class);
+        when(studentRepository.findById(anyInt())).thenReturn(Optional.of(student));
+        Section section = newDefaultSection();
+        when(sectionRepository.findById(DEFAULT_SECTION_ID)).thenReturn(Optional.of(section));
+        EnlistmentException rejection = mock(EnlistmentException.class);
+        doThrow(rejection).when(student).enlist(section);
+        EnlistmentService service = service(mock(PlatformTransactionManager.class));
+        // When the same submission is posted twice
+        EnlistmentException first = assertThrows(EnlistmentException.class,
+                () -> service.enlist(student, DEFAULT_SECTION_ID, "key1"));
+        EnlistmentException second = assertThrows(EnlistmentException.class,
+                () -> service.enlist(student, DEFAULT_SECTION_ID, "key1"));
+        // Then the second gets the first's rejection without loading or enlisting again
+        assertAll(
+                () -> assertSame(first, second),
+                () -> verify(sectionRepository, times(1)).findById(DEFAULT_SECTION_ID),
+                () -> verify(student, times(1)).enlist(section)
+        );
+    }
+
+    @Test
+    void enlist_retried_after_optimistic_lock_failure_w_fresh_student() {
+        // Given a commit that fails once on the section's version, and a fresh student & section on every load
+        Student inSession = newStudent(1, List.of());
+        when(studentRepository.findById(1)).thenAnswer(invocation -> Optional.of(newStudent(1, List.of())));
+        when(sectionRepository.findById(DEFAULT_SECTION_ID)).thenAnswer(invocation -> Optional.of(newDefaultSection()));
+        FailingFirstCommit transactionManager = new FailingFirstCommit();
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(RetryConfig.class);
+            context.registerBean(EnlistmentService.class, () -> service(transactionManager));
+            context.refresh();
+            EnlistmentService service = context.getBean(EnlistmentService.class);
+            // When the student enlists
+            Student enlisted = service.enlist(inSession, DEFAULT_SECTION_ID, "key1");
+            // Then the retry succeeds on a copy the failed attempt never touched, and only it reaches the journal
+            assertAll(
+                    () -> assertEquals(2, transactionManager.commits.get()),
+                    () -> verify(studentRepository, times(2)).findById(1),
+                    () -> assertTrue(enlisted.isEnlistedIn(newDefaultSection())),
+                    () -> assertTrue(inSession.getSections().isEmpty()),
+                    () -> verify(journal, times(1)).enlisted(1, DEFAULT_SECTION_ID)
+            );
+        }
+    }
+
+    @Test
+    void hold_checked_like_an_enlistment_under_the_seat_lock() {
+        // Given a student whose saved schedule has a section at the same time as the one to hold
+        Section enlisted = new SectionBuilder("ENLISTED").subject("Math2").build();
+        Section section = newDefaultSection();
+        Student inSession = newStudent(1, List.of());
+        when(studentRepository.findById(1)).thenReturn(Optional.of(newStudent(1, List.of(enlisted))));
+        when(sectionRepository.findById(DEFAULT_SECTION_ID)).thenReturn(Optional.of(section));
+        // When the student tries to hold a seat in it
+        EnlistmentService service = service(mock(PlatformTransactionManager.class));
+        // Then it's rejected as the enlistment would be, checked against the student as saved, and nothing is held
+        InOrder inOrder = inOrder(windows, clusterCoordinator, sectionRepository);
+        assertAll(
+                () -> assertThrows(ScheduleConflictException.class, () -> service.hold(inSession, DEFAULT_SECTION_ID)),
+                () -> inOrder.verify(windows).checkOpen(1),
+                () -> inOrder.verify(clusterCoordinator).lockSeats(DEFAULT_SECTION_ID),
+                () -> inOrder.verify(sectionRepository).findById(DEFAULT_SECTION_ID),
+                () -> verifyNoInteractions(seatHolds)
+        );
+    }
+
+    @Test
+    void hold_not_taken_while_window_closed() {
+        // Given a student whose window hasn't opened
+        doThrow(EnlistmentWindowClosedException.class).when(windows).checkOpen(1);
+        // When & Then
+        assertThrows(EnlistmentWindowClosedException.class,
+                () -> service(mock(PlatformTransactionManager.class)).hold(newStudent(1), DEFAULT_SECTION_ID));
+        assertAll(
+                () -> verifyNoInteractions(clusterCoordinator, seatHolds),
+                () -> verify(sectionRepository, never()).findById(any())
+        );
+    }
+
+    @Configuration
+    @EnableRetry
+    static class RetryConfig {
+    }
+
+    /** Runs transaction synchronizations like a real one, so after-commit hooks only run for the commit that stuck. */
+    private static class FailingFirstCommit extends AbstractPlatformTransactionManager {
+
+        final AtomicInteger commits = new AtomicInteger();
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            if (commits.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException(Section.class, DEFAULT_SECTION_ID);
+            }
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
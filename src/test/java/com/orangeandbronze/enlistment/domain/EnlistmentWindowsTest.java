@@ -0,0 +1,185 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.junit.jupiter.api.*;
+import org.springframework.transaction.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EnlistmentWindowsTest {
+
+    private static final Instant OPENS_AT = Instant.parse("2026-06-01T08:00:00Z");
+
+    private final AtomicLong now = new AtomicLong(OPENS_AT.minus(Duration.ofHours(1)).toEpochMilli());
+
+    /** 2 actions per student at 60 per minute: a cohort of 30 gets a 1-minute window. */
+    private EnlistmentWindows windows(Set<Integer> priorityStudents) {
+        EnlistmentWindows windows = unplanned(priorityStudents);
+        windows.plan(IntStream.rangeClosed(1, 90).boxed().toList());
+        return windows;
+    }
+
+    private EnlistmentWindows unplanned(Set<Integer> priorityStudents) {
+        return new EnlistmentWindows(OPENS_AT, 30, priorityStudents, Duration.ofSeconds(30), Duration.ofHours(1), 60,
+                2, Duration.ofSeconds(30), now::get);
+    }
+
+    /** A node whose plan is saved in the given list, standing in for the database. */
+    @SuppressWarnings("unchecked")
+    private EnlistmentWindows node(List<EnlistmentCohort> database) {
+        EnlistmentCohortRepository cohortRepo = mock(EnlistmentCohortRepository.class);
+        when(cohortRepo.findAllByOrderByCohortIndex()).thenAnswer(invocation -> List.copyOf(database));
+        when(cohortRepo.saveAll(anyList())).thenAnswer(invocation -> {
+            database.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        StudentRepository studentRepo = mock(StudentRepository.class);
+        when(studentRepo.findAllStudentNumbers()).thenReturn(IntStream.rangeClosed(1, 90).boxed().toList());
+        EnlistmentWindows windows = unplanned(Set.of());
+        windows.setStudentRepo(studentRepo);
+        windows.setCohortRepo(cohortRepo);
+        windows.setClusterCoordinator(mock(ClusterCoordinator.class));
+        windows.setTransactionManager(mock(PlatformTransactionManager.class));
+        windows.plan();
+        return windows;
+    }
+
+    @Test
+    void priority_students_first_then_equal_cohorts_by_student_number() {
+        // Given 90 students, 10 of them priority students
+        EnlistmentWindows windows = windows(IntStream.rangeClosed(81, 90).boxed().collect(Collectors.toSet()));
+        // When
+        List<EnlistmentWindows.Cohort> cohorts = windows.cohorts();
+        // Then
+        assertAll(
+                () -> assertEquals(List.of(10, 30, 30, 20), cohorts.stream().map(EnlistmentWindows.Cohort::students).toList()),
+                () -> assertTrue(cohorts.get(0).priority()),
+                () -> assertEquals(Optional.of(OPENS_AT), windows.opensAt(85)),
+                () -> assertEquals(Optional.of(cohorts.get(1).opensAt()), windows.opensAt(1)),
+                () -> assertEquals(Optional.of(cohorts.get(2).opensAt()), windows.opensAt(31)),
+                () -> assertEquals(Optional.of(cohorts.get(3).opensAt()), windows.opensAt(80)),
+                // a student added later joins the last cohort
+                () -> assertEquals(Optional.of(cohorts.get(3).opensAt()), windows.opensAt(1000)),
+                // each window ends when the next cohort opens
+                () -> assertEquals(cohorts.get(1).opensAt().plus(cohorts.get(1).window()), cohorts.get(2).opensAt()),
+                () -> assertEquals(Duration.ofMinutes(1), cohorts.get(2).window())
+        );
+    }
+
+    @Test
+    void closed_until_the_cohort_opens() {
+        // Given students 1-30 in the 1st cohort & 31-60 in the 2nd, opening a minute later
+        EnlistmentWindows windows = windows(Set.of());
+        // When the 1st cohort's window opens
+        now.set(OPENS_AT.toEpochMilli());
+        // Then
+        EnlistmentWindowClosedException e = assertThrows(EnlistmentWindowClosedException.class,
+                () -> windows.admit(31));
+        assertAll(
+                () -> assertDoesNotThrow(() -> windows.admit(1)),
+                () -> assertEquals(OPENS_AT.plus(Duration.ofMinutes(1)), e.getOpensAt()),
+                () -> assertFalse(windows.isOpen(60)),
+                () -> assertTrue(windows.isOpen(30))
+        );
+    }
+
+    @Test
+    void later_windows_sized_from_the_actions_students_took() {
+        // Given a 1st cohort that took 6 actions per student in its window, 3x as many as expected
+        EnlistmentWindows windows = windows(Set.of());
+        now.set(OPENS_AT.toEpochMilli());
+        for (int i = 0; i < 6; i++) {
+            IntStream.rangeClosed(1, 30).forEach(windows::admit);
+        }
+        now.set(OPENS_AT.plus(Duration.ofSeconds(61)).toEpochMilli());
+        // When the windows are adjusted after the 2nd cohort has opened
+        windows.adjust();
+        // Then the opened cohorts stay put, and the 3rd waits out the 2nd's 3x longer window
+        List<EnlistmentWindows.Cohort> cohorts = windows.cohorts();
+        assertAll(
+                () -> assertEquals(OPENS_AT, cohorts.get(0).opensAt()),
+                () -> assertEquals(OPENS_AT.plus(Duration.ofMinutes(1)), cohorts.get(1).opensAt()),
+                () -> assertEquals(OPENS_AT.plus(Duration.ofMinutes(4)), cohorts.get(2).opensAt()),
+                () -> assertFalse(windows.isOpen(61))
+        );
+    }
+
+    @Test
+    void nodes_share_the_saved_plan_and_the_actions_taken_on_each() {
+        // Given 2 nodes, each serving half of the 1st cohort's 6 actions per student
+        List<EnlistmentCohort> database = new ArrayList<>();
+        EnlistmentWindows first = node(database);
+        EnlistmentWindows second = node(database);
+        now.set(OPENS_AT.toEpochMilli());
+        for (int i = 0; i < 3; i++) {
+            IntStream.rangeClosed(1, 30).forEach(first::admit);
+            IntStream.rangeClosed(1, 30).forEach(second::admit);
+        }
+        now.set(OPENS_AT.plus(Duration.ofSeconds(61)).toEpochMilli());
+        // When both adjust, the 1st once more on its next interval, and then a 3rd node starts, e.g. a restart
+        first.adjust();
+        second.adjust();
+        first.adjust();
+        EnlistmentWindows restarted = node(database);
+        // Then the plan was saved once, and all 3 size the 3rd cohort's window from the actions on both nodes
+        Instant third = OPENS_AT.plus(Duration.ofMinutes(4));
+        assertAll(
+                () -> assertEquals(3, database.size()),
+                () -> assertEquals(third, first.cohorts().get(2).opensAt()),
+                () -> assertEquals(third, second.cohorts().get(2).opensAt()),
+                () -> assertEquals(first.cohorts(), restarted.cohorts())
+        );
+    }
+
+    @Test
+    void opening_less_than_an_adjust_interval_away_is_pinned() {
+        // Given the 1st cohort took 3x the actions expected, and the 3rd cohort opens 20 seconds from now
+        EnlistmentWindows windows = windows(Set.of());
+        now.set(OPENS_AT.toEpochMilli());
+        for (int i = 0; i < 6; i++) {
+            IntStream.rangeClosed(1, 30).forEach(windows::admit);
+        }
+        now.set(OPENS_AT.plus(Duration.ofSeconds(100)).toEpochMilli());
+        // When
+        windows.adjust();
+        // Then it still opens when planned, as other nodes may not have seen a later one by then
+        assertEquals(OPENS_AT.plus(Duration.ofMinutes(2)), windows.cohorts().get(2).opensAt());
+    }
+
+    @Test
+    void projected_load_stays_at_target() {
+        // Given 3 cohorts w/ 1-minute windows at 60 actions per minute
+        EnlistmentWindows windows = windows(Set.of());
+        // When
+        List<EnlistmentWindows.LoadPoint> load = windows.projectedLoad(Duration.ofSeconds(30));
+        // Then
+        assertAll(
+                () -> assertEquals(6, load.size()),
+                () -> assertEquals(OPENS_AT, load.get(0).at()),
+                () -> load.forEach(point -> assertEquals(60, point.attemptsPerMinute(), 0.001)),
+                () -> assertEquals(List.of(1, 1, 2, 2, 3, 3), load.stream().map(EnlistmentWindows.LoadPoint::openCohorts).toList())
+        );
+    }
+
+    @Test
+    void open_to_everyone_without_windows() {
+        // Given no opening time
+        EnlistmentWindows windows = new EnlistmentWindows(null, 30, Set.of(), Duration.ofSeconds(30),
+                Duration.ofHours(1), 60, 2, Duration.ofSeconds(30), now::get);
+        // When
+        windows.plan(List.of(1, 2, 3));
+        // Then
+        assertAll(
+                () -> assertTrue(windows.isOpen(1)),
+                () -> assertEquals(Optional.empty(), windows.opensAt(1)),
+                () -> assertEquals(List.of(), windows.projectedLoad(Duration.ofMinutes(5)))
+        );
+    }
+}
@@ -0,0 +1,190 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EnrollmentIndexTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void add_remove_and_lookup_sections_of_a_student(boolean offHeap) {
+        // Given an index with a student enrolled in two sections
+        EnrollmentIndex index = new EnrollmentIndex(10, 4, offHeap);
+        index.add(7, 3);
+        index.add(7, 11);
+        // When one section is removed and another added twice
+        boolean removed = index.remove(7, 3);
+        boolean added = index.add(7, 5);
+        boolean addedAgain = index.add(7, 5);
+        // Then
+        int[] sections = new int[4];
+        int count = index.sectionsOf(7, sections);
+        assertAll(
+                () -> assertTrue(removed),
+                () -> assertTrue(added),
+                () -> assertFalse(addedAgain),
+                () -> assertFalse(index.contains(7, 3)),
+                () -> assertTrue(index.contains(7, 11)),
+                () -> assertEquals(2, count),
+                () -> assertEquals(Set.of(5, 11), Set.of(sections[0], sections[1])),
+                () -> assertEquals(offHeap, index.isOffHeap())
+        );
+    }
+
+    @Test
+    void student_with_no_sections_is_indexed_but_unknown_student_is_not() {
+        // Given
+        EnrollmentIndex index = new EnrollmentIndex(10, 4, false);
+        // When
+        index.put(0, new int[0], 0);
+        // Then
+        assertAll(
+                () -> assertTrue(index.isIndexed(0)),
+                () -> assertEquals(0, index.sectionsOf(0, new int[4])),
+                () -> assertFalse(index.isIndexed(1)),
+                () -> assertEquals(-1, index.sectionsOf(1, new int[4])),
+                () -> assertFalse(index.contains(1, 0))
+        );
+    }
+
+    @Test
+    void add_beyond_max_sections_per_student_rejected() {
+        // Given a student already at the maximum
+        EnrollmentIndex index = new EnrollmentIndex(10, 2, false);
+        index.put(1, new int[]{0, 1}, 2);
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> index.add(1, 2));
+    }
+
+    @Test
+    void grows_past_expected_students_keeping_every_record() {
+        // Given an index sized for far fewer students than are added
+        EnrollmentIndex index = new EnrollmentIndex(16, 3, false);
+        int students = 50_000;
+        // When
+        for (int studentNumber = 0; studentNumber < students; studentNumber++) {
+            index.put(studentNumber, new int[]{studentNumber % 100, 100 + studentNumber % 7}, 2);
+        }
+        // Then
+        int[] sections = new int[3];
+        for (int studentNumber = 0; studentNumber < students; studentNumber++) {
+            assertEquals(2, index.sectionsOf(studentNumber, sections));
+            assertEquals(studentNumber % 100, sections[0]);
+            assertEquals(100 + studentNumber % 7, sections[1]);
+        }
+        assertAll(
+                () -> assertEquals(students, index.size()),
+                () -> assertEquals(20, index.getBytesPerStudent()),
+                // open addressing at most doubles (then halves the load of) what the records need
+                () -> assertTrue(index.getFootprintBytes() <= 4L * students * index.getBytesPerStudent())
+        );
+    }
+
+    @Test
+    void enrollment_cache_tracks_enlist_and_cancel_of_loaded_students() {
+        // Given a loaded student enlisted in one section
+        EnrollmentCache cache = new EnrollmentCache(10, 4, false);
+        Section section = TestUtils.newDefaultSection();
+        Student student = TestUtils.newStudent(1, List.of(section));
+        cache.load(student);
+        // When the student cancels it and enlists in another
+        cache.cancelled(1, section.getSectionId());
+        cache.enlisted(1, "B");
+        cache.enlisted(2, "B"); // not loaded, ignored
+        // Then
+        assertAll(
+                () -> assertFalse(cache.isEnlisted(1, section.getSectionId())),
+                () -> assertTrue(cache.isEnlisted(1, "B")),
+                () -> assertFalse(cache.isLoaded(2)),
+                () -> assertEquals(1, cache.size())
+        );
+    }
+
+    @Test
+    void enrollment_cache_reloads_loaded_students_changed_on_other_nodes() {
+        // Given 2 loaded students, enlisted in A as far as this node knows
+        StudentRepository studentRepo = mock(StudentRepository.class);
+        EnrollmentCache cache = new EnrollmentCache(10, 4, false);
+        cache.setStudentRepo(studentRepo);
+        cache.load(1, List.of("A"));
+        cache.load(2, List.of("A"));
+        when(studentRepo.findById(1)).thenReturn(Optional.of(TestUtils.newStudent(1, List.of(
+                new SectionBuilder("A").build(), new SectionBuilder("B").schedule(TestUtils.TF830to10).build()))));
+        // When student 1 enlists in B on another node, student 2 on this one, and student 3 (not loaded) anywhere
+        cache.onSeatsChanged(new SeatsChangedEvent("B", 1, "other", false));
+        cache.onSeatsChanged(new SeatsChangedEvent("B", 2, "this", true));
+        cache.onSeatsChanged(new SeatsChangedEvent("B", 3, "other", false));
+        // Then only student 1 is reloaded
+        assertAll(
+                () -> assertEquals(Optional.of(List.of("A", "B")), cache.sectionIdsOf(1)),
+                () -> assertEquals(Optional.of(List.of("A")), cache.sectionIdsOf(2)),
+                () -> assertFalse(cache.isLoaded(3)),
+                () -> verify(studentRepo, only()).findById(1)
+        );
+    }
+
+    @Test
+    void enrollment_cache_drops_archived_sections_from_every_student() {
+        // Given 2 loaded students in last term's section, one also in this term's
+        EnrollmentCache cache = new EnrollmentCache(10, 4, false);
+        cache.load(1, List.of("LAST", "THIS"));
+        cache.load(2, List.of("LAST"));
+        // When last term is archived
+        cache.sectionsArchived(List.of("LAST", "UNKNOWN"));
+        // Then
+        assertAll(
+                () -> assertEquals(Optional.of(List.of("THIS")), cache.sectionIdsOf(1)),
+                () -> assertEquals(Optional.of(List.of()), cache.sectionIdsOf(2))
+        );
+    }
+
+    @Test
+    void removed_students_leave_the_rest_of_their_probe_runs_reachable() {
+        // Given a small, crowded index
+        EnrollmentIndex index = new EnrollmentIndex(16, 2, false);
+        for (int studentNumber = 0; studentNumber < 20; studentNumber++) {
+            index.put(studentNumber, new int[]{studentNumber}, 1);
+        }
+        // When every other student is removed
+        for (int studentNumber = 0; studentNumber < 20; studentNumber += 2) {
+            assertTrue(index.removeStudent(studentNumber));
+        }
+        // Then the rest are still found, w/ their sections
+        int[] sections = new int[2];
+        for (int studentNumber = 0; studentNumber < 20; studentNumber++) {
+            assertEquals(studentNumber % 2 == 1, index.isIndexed(studentNumber));
+            if (studentNumber % 2 == 1) {
+                assertEquals(1, index.sectionsOf(studentNumber, sections));
+                assertEquals(studentNumber, sections[0]);
+            }
+        }
+        assertAll(
+                () -> assertEquals(10, index.size()),
+                () -> assertFalse(index.removeStudent(0))
+        );
+    }
+
+    @Test
+    void enrollment_cache_drops_students_with_more_sections_than_it_holds() {
+        // Given a cache holding 2 sections per student, and a loaded student already at 2
+        EnrollmentCache cache = new EnrollmentCache(10, 2, false);
+        cache.load(1, List.of("A", "B"));
+        // When the student enlists in a third, and another student w/ 3 sections is loaded
+        cache.enlisted(1, "C");
+        cache.load(2, List.of("A", "B", "C"));
+        // Then neither is cached, so callers fall back to the students themselves
+        assertAll(
+                () -> assertFalse(cache.isLoaded(1)),
+                () -> assertFalse(cache.isLoaded(2)),
+                () -> assertEquals(Optional.empty(), cache.sectionIdsOf(1)),
+                () -> assertEquals(0, cache.size())
+        );
+    }
+}
@@ -0,0 +1,81 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+
+import static com.orangeandbronze.enlistment.domain.Days.*;
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FacultyScheduleIndexTest {
+
+    @Test
+    void timetable_free_slots_and_load_of_faculty() {
+        // Given a faculty teaching MTH 8:30-10 & TF 10-11:30
+        SectionRepository sectionRepo = mock(SectionRepository.class);
+        Section mth = new SectionBuilder("A").subject("S1").schedule(MTH830to10).room("R1").build();
+        Section tf = new SectionBuilder("B").subject("S2").schedule(TF10to1130).room("R2").build();
+        when(sectionRepo.findByFacultyNumber(1)).thenReturn(List.of(tf, mth));
+        FacultyScheduleIndex index = new FacultyScheduleIndex(sectionRepo);
+        // When
+        FacultyScheduleIndex.Timetable timetable = index.timetable(1);
+        List<FacultyScheduleIndex.FreeSlot> freeSlots = index.freeSlots(1);
+        FacultyScheduleIndex.FacultyLoad load = index.load(1);
+        // Then
+        assertAll(
+                () -> assertEquals(List.of("A", "B"),
+                        timetable.entries().stream().map(FacultyScheduleIndex.TimetableEntry::sectionId).toList()),
+                () -> assertEquals(List.of(
+                        new FacultyScheduleIndex.FreeSlot(MTH, LocalTime.of(10, 0), LocalTime.of(17, 30)),
+                        new FacultyScheduleIndex.FreeSlot(TF, LocalTime.of(8, 30), LocalTime.of(10, 0)),
+                        new FacultyScheduleIndex.FreeSlot(TF, LocalTime.of(11, 30), LocalTime.of(17, 30)),
+                        new FacultyScheduleIndex.FreeSlot(WS, LocalTime.of(8, 30), LocalTime.of(17, 30))), freeSlots),
+                () -> assertEquals(new FacultyScheduleIndex.FacultyLoad(1, 2, 360), load),
+                () -> assertFalse(index.isFree(1, MTH830to10)),
+                () -> assertTrue(index.isFree(1, TF830to10)),
+                // loaded once, then served from the index
+                () -> verify(sectionRepo, times(1)).findByFacultyNumber(1)
+        );
+    }
+
+    @Test
+    void assigned_updates_loaded_timetable_without_reloading() {
+        // Given a faculty w/ a loaded, empty timetable
+        SectionRepository sectionRepo = mock(SectionRepository.class);
+        when(sectionRepo.findByFacultyNumber(1)).thenReturn(List.of());
+        FacultyScheduleIndex index = new FacultyScheduleIndex(sectionRepo);
+        index.timetable(1);
+        // When a section is assigned
+        index.assigned(1, new SectionBuilder("A").subject("S1").schedule(TF830to10).room("R1").build());
+        // Then
+        assertAll(
+                () -> assertFalse(index.isFree(1, TF830to10)),
+                () -> assertEquals(1, index.load(1).sections()),
+                () -> verify(sectionRepo, times(1)).findByFacultyNumber(1)
+        );
+    }
+
+    @Test
+    void timetable_loaded_while_a_section_is_assigned_is_reloaded_on_next_use() {
+        // Given a query that ran before the faculty's assignment committed
+        SectionRepository sectionRepo = mock(SectionRepository.class);
+        FacultyScheduleIndex index = new FacultyScheduleIndex(sectionRepo);
+        Section assigned = new SectionBuilder("A").subject("S1").schedule(TF830to10).room("R1").build();
+        when(sectionRepo.findByFacultyNumber(1)).thenAnswer(invocation -> {
+            index.assigned(1, assigned);
+            return List.of();
+        }).thenReturn(List.of(assigned));
+        // When
+        boolean freeWhileLoading = index.isFree(1, TF830to10);
+        boolean freeAfter = index.isFree(1, TF830to10);
+        // Then the stale timetable is answered once but not kept
+        assertAll(
+                () -> assertTrue(freeWhileLoading),
+                () -> assertFalse(freeAfter),
+                () -> verify(sectionRepo, times(2)).findByFacultyNumber(1)
+        );
+    }
+}
@@ -0,0 +1,50 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void duplicate_of_running_submission_answered_right_away() {
+        // Given a submission that's still running
+        IdempotencyStore store = new IdempotencyStore(10, Duration.ofMinutes(1), now::get);
+        store.claim("1:key1");
+        // When it's submitted again, before & after the first one finishes
+        Optional<IdempotencyStore.Outcome> whileRunning = store.claim("1:key1");
+        store.complete("1:key1", IdempotencyStore.Outcome.NOTHING_TO_REPLAY);
+        Optional<IdempotencyStore.Outcome> afterwards = store.claim("1:key1");
+        // Then
+        assertAll(
+                () -> assertEquals(Optional.of(IdempotencyStore.Outcome.IN_PROGRESS), whileRunning),
+                () -> assertThrows(SubmissionInProgressException.class, () -> whileRunning.get().replay()),
+                () -> assertEquals(Optional.of(IdempotencyStore.Outcome.NOTHING_TO_REPLAY), afterwards)
+        );
+    }
+
+    @Test
+    void oldest_and_expired_keys_evicted() {
+        // Given a store of 2 keys w/ a 1 minute window
+        IdempotencyStore store = new IdempotencyStore(2, Duration.ofMinutes(1), now::get);
+        store.claim("a");
+        store.claim("b");
+        // When a 3rd key is claimed, and then another after the window
+        store.claim("c");
+        Optional<IdempotencyStore.Outcome> aAgain = store.claim("a");
+        now.addAndGet(Duration.ofMinutes(2).toMillis());
+        Optional<IdempotencyStore.Outcome> cAfterWindow = store.claim("c");
+        // Then
+        assertAll(
+                () -> assertTrue(aAgain.isEmpty()),
+                () -> assertTrue(cAfterWindow.isEmpty()),
+                () -> assertEquals(1, store.size())
+        );
+    }
+}
@@ -0,0 +1,173 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import io.micrometer.core.instrument.simple.*;
+import org.junit.jupiter.api.*;
+import org.springframework.dao.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LotteryAllocatorTest {
+
+    private static final Instant DRAW_AT = Instant.parse("2026-06-01T08:00:00Z");
+
+    private final LotteryEntryRepository entryRepo = mock(LotteryEntryRepository.class);
+    private final LotteryDrawRepository drawRepo = mock(LotteryDrawRepository.class);
+    private final SectionRepository sectionRepo = mock(SectionRepository.class);
+    private final StudentRepository studentRepo = mock(StudentRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ClusterCoordinator clusterCoordinator = mock(ClusterCoordinator.class);
+    private final AtomicLong now = new AtomicLong(DRAW_AT.minusSeconds(60).toEpochMilli());
+
+    private LotteryAllocator lottery() {
+        return new LotteryAllocator(entryRepo, drawRepo, sectionRepo, studentRepo,
+                new TransactionTemplate(transactionManager), clusterCoordinator, new SimpleMeterRegistry(),
+                Set.of("A"), DRAW_AT, 2, now::get);
+    }
+
+    @Test
+    void one_seat_per_round_in_snake_order_within_capacity() {
+        // Given 2 sections w/ 2 seats each, and 3 students who all want A, then B
+        Section a = new SectionBuilder("A").subject("S1").schedule(MTH830to10).room("R1", 2).build();
+        Section b = new SectionBuilder("B").subject("S2").schedule(TF830to10).room("R2", 2).build();
+        Student first = newStudent(1);
+        Student second = newStudent(2);
+        Student third = newStudent(3);
+        Map<Student, List<Section>> preferences = new LinkedHashMap<>();
+        List.of(first, second, third).forEach(student -> preferences.put(student, List.of(a, b)));
+        // When
+        List<LotteryAllocator.Seat> seats = LotteryAllocator.allocate(List.of(first, second, third), preferences, 2);
+        // Then A fills in the 1st round, so the 3rd student gets B first, and the 2nd round starts from the 3rd
+        assertAll(
+                () -> assertEquals(List.of(new LotteryAllocator.Seat(1, "A"), new LotteryAllocator.Seat(2, "A"),
+                        new LotteryAllocator.Seat(3, "B"), new LotteryAllocator.Seat(2, "B")), seats),
+                () -> assertEquals(0, a.getSeatsLeft()),
+                () -> assertEquals(0, b.getSeatsLeft()),
+                () -> assertEquals(List.of(a), List.copyOf(first.getSections()))
+        );
+    }
+
+    @Test
+    void entries_breaking_enlistment_rules_are_skipped() {
+        // Given a student who wants A, then B at the same time, then C
+        Section a = new SectionBuilder("A").subject("S1").schedule(MTH830to10).room("R1", 10).build();
+        Section b = new SectionBuilder("B").subject("S2").schedule(MTH830to10).room("R2", 10).build();
+        Section c = new SectionBuilder("C").subject("S3").schedule(TF10to1130).room("R3", 10).build();
+        Student student = newStudent(1);
+        // When
+        List<LotteryAllocator.Seat> seats = LotteryAllocator.allocate(List.of(student),
+                Map.of(student, List.of(a, b, c)), 3);
+        // Then
+        assertEquals(List.of(new LotteryAllocator.Seat(1, "A"), new LotteryAllocator.Seat(1, "C")), seats);
+    }
+
+    @Test
+    void entries_collected_until_drawn_then_seats_assigned_in_one_transaction() {
+        // Given a lottery for section A w/ 1 seat, entered by 2 students
+        Section a = new SectionBuilder("A").subject("S1").schedule(MTH830to10).room("R1", 1).build();
+        LotteryAllocator lottery = lottery();
+        EnrollmentCache cache = new EnrollmentCache(10, 4, false);
+        cache.load(1, List.of());
+        cache.load(2, List.of());
+        lottery.setEnrollmentCache(cache);
+        List<LotteryEntry> entries = List.of(new LotteryEntry(1, "A", DRAW_AT.minusSeconds(30)),
+                new LotteryEntry(2, "A", DRAW_AT.minusSeconds(20)));
+        when(entryRepo.findBySectionIdIn(Set.of("A"))).thenReturn(entries);
+        when(sectionRepo.findAllById(Set.of("A"))).thenReturn(List.of(a));
+        when(studentRepo.findByStudentNumberIn(Set.of(1, 2))).thenReturn(List.of(newStudent(1), newStudent(2)));
+        boolean collectingBefore = lottery.isCollecting("A");
+        // When the draw time passes
+        now.set(DRAW_AT.toEpochMilli());
+        lottery.scheduledDraw();
+        // Then
+        assertAll(
+                () -> assertTrue(collectingBefore),
+                () -> assertFalse(lottery.isCollecting("A")),
+                () -> assertEquals(0, a.getSeatsLeft()),
+                // one of the two won the seat
+                () -> assertNotEquals(cache.isEnlisted(1, "A"), cache.isEnlisted(2, "A")),
+                () -> verify(entryRepo).deleteAllInBatch(entries),
+                () -> verify(clusterCoordinator).lockLottery(),
+                () -> verify(drawRepo).saveAll(argThat(draws -> draws.iterator().next().getSectionId().equals("A"))),
+                () -> verify(transactionManager, times(1)).commit(any())
+        );
+    }
+
+    @Test
+    void lottery_drawn_on_another_node_not_drawn_again() {
+        // Given a lottery an admin drew on another node
+        when(drawRepo.existsBySectionIdIn(Set.of("A"))).thenReturn(true);
+        LotteryAllocator lottery = lottery();
+        // When it's drawn here too
+        Optional<LotteryAllocator.DrawReport> report = lottery.draw();
+        // Then nothing is allocated, and it stops collecting
+        assertAll(
+                () -> assertTrue(report.isEmpty()),
+                () -> verify(clusterCoordinator).lockLottery(),
+                () -> verify(entryRepo, never()).findBySectionIdIn(any()),
+                () -> verify(drawRepo, never()).saveAll(any()),
+                () -> assertFalse(lottery.isCollecting("A"))
+        );
+    }
+
+    @Test
+    void entry_after_draw_on_another_node_enters_nothing() {
+        // Given a lottery drawn on another node, not yet noticed here
+        when(drawRepo.existsById("A")).thenReturn(true);
+        LotteryAllocator lottery = lottery();
+        boolean collectingBefore = lottery.isCollecting("A");
+        // When a student enters
+        boolean entered = lottery.enter(1, "A");
+        // Then the entry is turned away, for the section to be first-come, first-served
+        assertAll(
+                () -> assertTrue(collectingBefore),
+                () -> assertFalse(entered),
+                () -> verify(clusterCoordinator).lockLotteryShared(),
+                () -> verify(entryRepo, never()).saveAndFlush(any()),
+                () -> assertFalse(lottery.isCollecting("A"))
+        );
+    }
+
+    @Test
+    void entering_twice_at_once_same_as_entering_once() {
+        // Given the same student's entry racing this one in & committing first
+        when(entryRepo.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException(
+                "lottery_entry_student_section_uk"));
+        // When & Then
+        assertTrue(lottery().enter(1, "A"));
+    }
+
+    @Test
+    void same_seed_same_seats() {
+        // Given 10 students entering a 3-seat section
+        List<Student> students = new ArrayList<>();
+        for (int n = 1; n <= 10; n++) {
+            students.add(newStudent(n));
+        }
+        // When drawn twice w/ the same seed
+        List<LotteryAllocator.Seat> once = draw(students, 42);
+        List<LotteryAllocator.Seat> again = draw(students, 42);
+        // Then
+        assertAll(
+                () -> assertEquals(3, once.size()),
+                () -> assertEquals(once, again)
+        );
+    }
+
+    private static List<LotteryAllocator.Seat> draw(List<Student> students, long seed) {
+        Section a = new SectionBuilder("A").subject("S1").schedule(MTH830to10).room("R1", 3).build();
+        Map<Student, List<Section>> preferences = new LinkedHashMap<>();
+        students.forEach(student -> preferences.put(newStudent(student.getStudentNumber()), List.of(a)));
+        List<Student> order = new ArrayList<>(preferences.keySet());
+        Collections.shuffle(order, new Random(seed));
+        return LotteryAllocator.allocate(order, preferences, 1);
+    }
+}
@@ -0,0 +1,143 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedAppendLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void records_read_back_in_order_across_segments_and_reopen() throws IOException {
+        // Given a log w/ 96-byte segments & 10 records of 20 bytes, so 3 records fit per segment
+        List<Long> positions = new ArrayList<>();
+        try (MappedAppendLog log = new MappedAppendLog(directory, 96)) {
+            for (int i = 0; i < 10; i++) {
+                positions.add(log.append(record(i)));
+            }
+        }
+        // When the log is reopened & read from the 5th record
+        try (MappedAppendLog log = new MappedAppendLog(directory, 96)) {
+            List<String> read = new ArrayList<>();
+            log.forEach(positions.get(4), (position, bytes) -> read.add(text(bytes)));
+            // Then
+            assertAll(
+                    () -> assertEquals(List.of("record-0000004", "record-0000005", "record-0000006", "record-0000007",
+                            "record-0000008", "record-0000009"), read.stream().map(s -> s.substring(0, 14)).toList()),
+                    () -> assertEquals(4, log.segmentCount()),
+                    () -> assertEquals(positions.get(9) + 28, log.endPosition()),
+                    () -> assertEquals(positions.get(9) + 28, log.append(record(10)))
+            );
+        }
+    }
+
+    @Test
+    void torn_record_is_dropped_when_reopened() throws IOException {
+        // Given two records, the second of which is corrupted as by a crash mid-write
+        long second;
+        try (MappedAppendLog log = new MappedAppendLog(directory, 1024)) {
+            log.append(record(0));
+            second = log.append(record(1));
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(String.format("%020d.seg", 0)),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), second + 8);
+        }
+        // When
+        try (MappedAppendLog log = new MappedAppendLog(directory, 1024)) {
+            List<String> read = new ArrayList<>();
+            log.forEach(0, (position, bytes) -> read.add(text(bytes)));
+            // Then the torn record is gone & the next append takes its place
+            assertAll(
+                    () -> assertEquals(1, read.size()),
+                    () -> assertEquals(second, log.endPosition())
+            );
+        }
+    }
+
+    @Test
+    void corrupted_record_in_an_earlier_segment_is_not_replayed() throws IOException {
+        // Given 3 segments of 3 records each, the second record of the first segment corrupted on disk
+        List<Long> positions = new ArrayList<>();
+        try (MappedAppendLog log = new MappedAppendLog(directory, 96)) {
+            for (int i = 0; i < 9; i++) {
+                positions.add(log.append(record(i)));
+            }
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(String.format("%020d.seg", 0)),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), positions.get(1) + 8);
+        }
+        // When the log is reopened & replayed
+        try (MappedAppendLog log = new MappedAppendLog(directory, 96)) {
+            List<Long> read = new ArrayList<>();
+            log.forEach(0, (position, bytes) -> read.add(position));
+            // Then the rest of that segment is skipped, the later segments are read, and appends go on at the end
+            assertAll(
+                    () -> assertEquals(List.of(positions.get(0), positions.get(3), positions.get(4), positions.get(5),
+                            positions.get(6), positions.get(7), positions.get(8)), read),
+                    () -> assertEquals(positions.get(8) + 28, log.endPosition())
+            );
+        }
+    }
+
+    @Test
+    void delete_segments_before_position() throws IOException {
+        // Given 4 segments
+        try (MappedAppendLog log = new MappedAppendLog(directory, 96)) {
+            long seventh = 0;
+            for (int i = 0; i < 10; i++) {
+                long position = log.append(record(i));
+                if (i == 6) {
+                    seventh = position;
+                }
+            }
+            // When the segments before the 7th record are deleted
+            int deleted = log.deleteSegmentsBefore(seventh);
+            // Then
+            List<String> read = new ArrayList<>();
+            log.forEach(0, (position, bytes) -> read.add(text(bytes).substring(0, 14)));
+            assertAll(
+                    () -> assertEquals(2, deleted),
+                    () -> assertEquals(2, log.segmentCount()),
+                    () -> assertEquals("record-0000006", read.get(0))
+            );
+        }
+    }
+
+    @Test
+    void first_record_of_each_segment() throws IOException {
+        // Given 3 records per segment, 4 segments
+        try (MappedAppendLog log = new MappedAppendLog(directory, 96)) {
+            for (int i = 0; i < 10; i++) {
+                log.append(record(i));
+            }
+            // When
+            NavigableMap<Long, ByteBuffer> firstRecords = log.firstRecords();
+            // Then
+            assertEquals(List.of("record-0000000", "record-0000003", "record-0000006", "record-0000009"),
+                    firstRecords.values().stream().map(bytes -> text(bytes).substring(0, 14)).toList());
+        }
+    }
+
+    /** 20 bytes, so a framed record is 28. */
+    private static byte[] record(int i) {
+        return String.format("record-%07d......", i).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String text(ByteBuffer bytes) {
+        byte[] array = new byte[bytes.remaining()];
+        bytes.get(array);
+        return new String(array, StandardCharsets.US_ASCII);
+    }
+}
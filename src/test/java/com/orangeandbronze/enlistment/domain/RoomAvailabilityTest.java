@@ -0,0 +1,94 @@
+package com.orangeandbronze.enlistment.domain;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+
+import static com.orangeandbronze.enlistment.domain.Days.*;
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomAvailabilityTest {
+
+    @Test
+    void suggest_free_rooms_with_enough_capacity_best_fit_first() {
+        // Given rooms of 10, 20, 30 & 40 seats, where the 20-seat room is booked MTH 8:30-10
+        // and the 40-seat room is booked right after
+        Room small = newRoom("Small", 10);
+        Room booked = newRoom("Booked", 20);
+        Room roomy = newRoom("Roomy", 30);
+        Room packed = newRoom("Packed", 40);
+        RoomAvailability availability = new RoomAvailability();
+        List.of(packed, small, roomy, booked).forEach(availability::addRoom);
+        availability.book(new SectionBuilder("A").schedule(MTH830to10).room(booked).build());
+        availability.book(new SectionBuilder("B").schedule(new Schedule(MTH,
+                new Period(LocalTime.of(10, 0), LocalTime.of(11, 0)))).room(packed).build());
+        // When rooms for 15 students are searched for MTH 8:30-10
+        List<RoomAvailability.RoomSuggestion> suggestions = availability.suggest(MTH830to10, 15, 5);
+        // Then
+        assertAll(
+                () -> assertEquals(List.of("Roomy", "Packed"),
+                        suggestions.stream().map(RoomAvailability.RoomSuggestion::roomName).toList()),
+                () -> assertEquals(15, suggestions.get(0).spareSeats()),
+                () -> assertEquals(1, suggestions.get(1).adjacentBookedSlots()),
+                () -> assertFalse(availability.isFree("Booked", MTH830to10)),
+                () -> assertTrue(availability.isFree("Booked", TF830to10))
+        );
+    }
+
+    @Test
+    void suggest_ranks_packed_rooms_first_among_equal_capacity() {
+        // Given two 20-seat rooms, one booked right before the wanted period
+        Room loose = newRoom("Loose", 20);
+        Room packed = newRoom("Packed", 20);
+        RoomAvailability availability = new RoomAvailability();
+        availability.addRoom(loose);
+        availability.addRoom(packed);
+        availability.book(new SectionBuilder("A").schedule(MTH830to10).room(packed).build());
+        // When
+        List<RoomAvailability.RoomSuggestion> suggestions = availability.suggest(new Schedule(MTH,
+                new Period(LocalTime.of(10, 0), LocalTime.of(11, 30))), 20, 1);
+        // Then
+        assertEquals(List.of(new RoomAvailability.RoomSuggestion("Packed", 20, 0, 1)), suggestions);
+    }
+
+    @Test
+    void load_catalog_replaces_earlier_bookings() {
+        // Given a room booked by a section that is then archived
+        Room room = newRoom("R", 10);
+        RoomAvailability availability = new RoomAvailability();
+        availability.loadCatalog(List.of(room), List.of(new SectionBuilder("OLD").schedule(MTH830to10).room(room).build()));
+        // When the catalog is loaded again w/o the section
+        availability.loadCatalog(List.of(room), List.of(new SectionBuilder("NEW").schedule(TF830to10).room(room).build()));
+        // Then only the remaining section's booking is left
+        assertAll(
+                () -> assertTrue(availability.isFree("R", MTH830to10)),
+                () -> assertFalse(availability.isFree("R", TF830to10)),
+                () -> assertEquals(1, availability.heatmaps().size())
+        );
+    }
+
+    @Test
+    void heatmap_of_room_bookings() {
+        // Given a room booked TF 10-11:30
+        Room room = newRoom("R", 10);
+        RoomAvailability availability = new RoomAvailability();
+        availability.book(new SectionBuilder("A").schedule(TF10to1130).room(room).build());
+        // When
+        RoomAvailability.RoomHeatmap heatmap = availability.heatmap("R").orElseThrow();
+        // Then
+        assertAll(
+                () -> assertTrue(heatmap.booked()[TF.ordinal()][3]),
+                () -> assertTrue(heatmap.booked()[TF.ordinal()][5]),
+                () -> assertFalse(heatmap.booked()[TF.ordinal()][6]),
+                () -> assertFalse(heatmap.booked()[MTH.ordinal()][3]),
+                () -> assertEquals(3.0 / Schedule.HALF_HOURS_PER_WEEK, heatmap.utilization()),
+                () -> assertTrue(availability.heatmap("Unknown").isEmpty())
+        );
+    }
+
+    private static Room newRoom(String name, int capacity) {
+        return new Room(name, capacity);
+    }
+}
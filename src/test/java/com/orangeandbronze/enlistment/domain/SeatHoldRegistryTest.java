@@ -0,0 +1,85 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.concurrent.atomic.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatHoldRegistryTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final SeatHoldRegistry seatHolds =
+            new SeatHoldRegistry(Duration.ofMinutes(10), Duration.ofSeconds(1), now::get, false);
+
+    @Test
+    void hold_counts_against_capacity_of_other_students() {
+        // Given a section w/ capacity 1 that one student has a hold on
+        Section section = new SectionBuilder().room(1).build();
+        seatHolds.hold(newStudent(1), section);
+        // When another student tries to hold or enlist
+        // Then both are rejected for capacity
+        section.countHeldSeats(seatHolds.seatsHeldByOthers(section.getSectionId(), 2));
+        assertAll(
+                () -> assertThrows(CapacityException.class, () -> seatHolds.hold(newStudent(2), section)),
+                () -> assertThrows(CapacityException.class, () -> newStudent(2).enlist(section))
+        );
+    }
+
+    @Test
+    void hold_converted_into_enlistment_by_holder() {
+        // Given a section w/ capacity 1 that one student has a hold on
+        Section section = new SectionBuilder().room(1).build();
+        Student student = newStudent(1);
+        seatHolds.hold(student, section);
+        // When the holder enlists & the hold is released
+        section.countHeldSeats(seatHolds.seatsHeldByOthers(section.getSectionId(), 1));
+        student.enlist(section);
+        seatHolds.release(1, section.getSectionId());
+        // Then the seat is the student's and no longer held
+        assertAll(
+                () -> assertEquals(1, section.getNumberOfStudents()),
+                () -> assertEquals(0, seatHolds.seatsHeldByOthers(section.getSectionId(), 2)),
+                () -> assertTrue(seatHolds.find(1, section.getSectionId()).isEmpty())
+        );
+    }
+
+    @Test
+    void hold_released_once_holder_enlists_through_another_node() {
+        // Given a section w/ capacity 1 that one student has a hold on
+        Section section = new SectionBuilder().room(1).build();
+        seatHolds.hold(newStudent(1), section);
+        // When this node hears of another student's enlistment, then of the holder's on another node
+        seatHolds.onSeatsChanged(new SeatsChangedEvent(section.getSectionId(), 2, "other", false));
+        int heldAfterOthers = seatHolds.seatsHeldByOthers(section.getSectionId(), 2);
+        seatHolds.onSeatsChanged(new SeatsChangedEvent(section.getSectionId(), 1, "other", false));
+        // Then the hold is only dropped for the holder's
+        assertAll(
+                () -> assertEquals(1, heldAfterOthers),
+                () -> assertEquals(0, seatHolds.seatsHeldByOthers(section.getSectionId(), 2)),
+                () -> assertTrue(seatHolds.find(1, section.getSectionId()).isEmpty())
+        );
+    }
+
+    @Test
+    void hold_expires_after_ttl() {
+        // Given a section w/ capacity 1 that one student has a hold on
+        Section section = new SectionBuilder().room(1).build();
+        seatHolds.hold(newStudent(1), section);
+        // When time passes just short of, then beyond the ttl
+        now.set(Duration.ofMinutes(10).toMillis() - 1000);
+        seatHolds.expireDueHolds();
+        int heldBeforeTtl = seatHolds.seatsHeldByOthers(section.getSectionId(), 2);
+        now.set(Duration.ofMinutes(10).toMillis() + 1000);
+        seatHolds.expireDueHolds();
+        // Then the seat is freed for another student only after the ttl
+        assertAll(
+                () -> assertEquals(1, heldBeforeTtl),
+                () -> assertEquals(0, seatHolds.seatsHeldByOthers(section.getSectionId(), 2)),
+                () -> assertDoesNotThrow(() -> seatHolds.hold(newStudent(2), section))
+        );
+    }
+}
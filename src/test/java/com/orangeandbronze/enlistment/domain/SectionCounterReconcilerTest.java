@@ -0,0 +1,44 @@
+package com.orangeandbronze.enlistment.domain;
+
+import io.micrometer.core.instrument.simple.*;
+import org.junit.jupiter.api.*;
+import org.springframework.transaction.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SectionCounterReconcilerTest {
+
+    private static SectionEnrollmentCount count(String sectionId, int numberOfStudents, long enrolled) {
+        return new SectionEnrollmentCount() {
+            public String getSectionId() { return sectionId; }
+            public int getNumberOfStudents() { return numberOfStudents; }
+            public long getEnrolled() { return enrolled; }
+        };
+    }
+
+    @Test
+    void reconcile_corrects_only_drifted_sections_across_chunks() {
+        // Given 3 sections read in chunks of 2, where 2 sections have drifted counters
+        SectionRepository sectionRepo = mock(SectionRepository.class);
+        when(sectionRepo.countEnrollmentsAfter("", 2)).thenReturn(List.of(count("A", 3, 3), count("B", 5, 4)));
+        when(sectionRepo.countEnrollmentsAfter("B", 2)).thenReturn(List.of(count("C", 0, 2)));
+        when(sectionRepo.correctNumberOfStudents(anyString(), anyInt(), anyInt())).thenReturn(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SectionCounterReconciler reconciler = new SectionCounterReconciler(sectionRepo,
+                mock(PlatformTransactionManager.class), meterRegistry, 2, 1);
+        // When reconciliation runs
+        SectionCounterReconciler.ReconciliationReport report = reconciler.reconcile();
+        // Then only the drifted counters are overwritten with the join-table counts, and drift is reported
+        assertAll(
+                () -> verify(sectionRepo).correctNumberOfStudents("B", 5, 4),
+                () -> verify(sectionRepo).correctNumberOfStudents("C", 0, 2),
+                () -> verify(sectionRepo, never()).correctNumberOfStudents(eq("A"), anyInt(), anyInt()),
+                () -> assertEquals(new SectionCounterReconciler.ReconciliationReport(3, 2, 3, 2), report),
+                () -> assertEquals(2, meterRegistry.counter("enlistment.reconciliation.sections.drifted").count())
+        );
+    }
+}
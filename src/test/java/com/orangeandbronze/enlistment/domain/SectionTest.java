@@ -2,6 +2,10 @@ package com.orangeandbronze.enlistment.domain;
 
 import org.junit.jupiter.api.*;
 
+import java.time.*;
+import java.util.*;
+
+import static com.orangeandbronze.enlistment.domain.Days.*;
 import static com.orangeandbronze.enlistment.domain.TestUtils.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,4 +25,33 @@ class SectionTest {
         assertThrows(ScheduleConflictException.class, () -> new SectionBuilder("B").schedule(MTH830to10).room(room).build());
     }
 
+    @Test
+    void assignFaculty_faculty_free_at_that_time() {
+        Section other = new SectionBuilder("A").schedule(MTH830to10).room("X").build();
+        Section section = new SectionBuilder("B").schedule(TF830to10).room("Y").build();
+        section.assignFaculty(DEFAULT_FACULTY, List.of(other));
+        assertEquals(DEFAULT_FACULTY.getFacultyNumber(), section.getFacultyID());
+    }
+
+    @Test
+    void assignFaculty_faculty_already_teaching_at_that_time() {
+        Section other = new SectionBuilder("A").schedule(MTH830to10).room("X").build();
+        Section section = new SectionBuilder("B").schedule(MTH830to10).room("Y").build();
+        assertAll(
+                () -> assertThrows(ScheduleConflictException.class, () -> section.assignFaculty(DEFAULT_FACULTY, List.of(other))),
+                () -> assertEquals(-1, section.getFacultyID())
+        );
+    }
+
+    @Test
+    void halfHourSlots_overlap_exactly_when_schedules_overlap() {
+        Schedule mth9to11 = new Schedule(MTH, new Period(LocalTime.of(9, 0), LocalTime.of(11, 0)));
+        assertAll(
+                () -> assertEquals(0b111L, MTH830to10.halfHourSlots()),
+                () -> assertEquals(0b111L << (Schedule.HALF_HOURS_PER_DAY + 3), TF10to1130.halfHourSlots()),
+                () -> assertNotEquals(0, MTH830to10.halfHourSlots() & mth9to11.halfHourSlots()),
+                () -> assertEquals(0, MTH830to10.halfHourSlots() & TF830to10.halfHourSlots())
+        );
+    }
+
 }
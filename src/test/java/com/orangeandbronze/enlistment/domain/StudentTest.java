@@ -224,5 +224,39 @@ class StudentTest {
         assertThrows(PrereqMissingException.class, () -> student.enlist(section));
     }
 
-
+    @Test
+    void checkEnlist_reports_each_rejection_without_throwing_or_enlisting() {
+        // Given a student w/ enlisted sections & prereqs taken, and a section for each rule
+        Subject prereq = new Subject("prereq");
+        Section sec1 = new SectionBuilder("A").subject("C").schedule(MTH830to10).room("X").build();
+        Section sec2 = new SectionBuilder("B").subject("D").schedule(TF830to10).room("Y").build();
+        Section eligible = new SectionBuilder("E").subject(new Subject("F", List.of(prereq)))
+                .schedule(TF10to1130).room("Z").build();
+        Section overlapping = new SectionBuilder("H").subject("I").schedule(MTH830to10).room("V").build();
+        Section sameSubject = new SectionBuilder("G").subject("C").schedule(new Schedule(WS, H0830)).room("W").build();
+        Section prereqMissing = new SectionBuilder("J").subject(new Subject("K", List.of(new Subject("L"))))
+                .schedule(new Schedule(WS, H0830)).room("U").build();
+        Section full = new SectionBuilder("M").subject("N").schedule(new Schedule(WS, H0830)).room("T", 1)
+                .noStudents(1).build();
+        Student student = newStudent(1, List.of(sec1, sec2), List.of(prereq));
+        // When each is checked
+        EnlistmentCheck conflict = student.checkEnlist(overlapping);
+        EnlistmentCheck missing = student.checkEnlist(prereqMissing);
+        // Then each gets the rule that rejects it w/ its detail, and the student stays enlisted in the same sections
+        assertAll(
+                () -> assertSame(EnlistmentCheck.OK, student.checkEnlist(eligible)),
+                () -> assertEquals(EnlistmentCheck.Result.SCHEDULE_CONFLICT, conflict.result()),
+                () -> assertEquals(EnlistmentCheck.Result.SAME_SUBJECT, student.checkEnlist(sameSubject).result()),
+                () -> assertEquals(EnlistmentCheck.Result.PREREQ_MISSING, missing.result()),
+                () -> assertEquals(EnlistmentCheck.Result.CAPACITY, student.checkEnlist(full).result()),
+                () -> assertEquals("This section H at MTH 08:30 - 10:00 & other section A at MTH 08:30 - 10:00 have "
+                        + "overlapping schedules", conflict.detail()),
+                () -> assertEquals("missing prereqs: [L]", missing.detail()),
+                () -> assertInstanceOf(ScheduleConflictException.class, conflict.exception()),
+                () -> assertEquals(conflict.detail(), conflict.exception().getMessage()),
+                () -> assertEquals(Set.of(sec1, sec2), Set.copyOf(student.getSections())),
+                () -> assertEquals(0, eligible.getNumberOfStudents()),
+                () -> assertThrows(SameSubjectException.class, () -> student.enlist(sameSubject))
+        );
+    }
 }
@@ -0,0 +1,175 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.cluster.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import org.mockito.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.stream.*;
+import java.util.zip.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TermArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private final ArchivedEnrollmentRepository archiveRepo = mock(ArchivedEnrollmentRepository.class);
+    private final SectionRepository sectionRepo = mock(SectionRepository.class);
+    private final LotteryEntryRepository lotteryRepo = mock(LotteryEntryRepository.class);
+    private final EnlistmentJournal journal = mock(EnlistmentJournal.class);
+    private final CacheWarmup cacheWarmup = mock(CacheWarmup.class);
+    private final EnrollmentCache enrollmentCache = mock(EnrollmentCache.class);
+    private final SectionCatalog sectionCatalog = new SectionCatalog();
+    private final ClusterCoordinator clusterCoordinator = mock(ClusterCoordinator.class);
+
+    private TermArchive termArchive() {
+        TermArchive archive = new TermArchive(archiveRepo, sectionRepo, lotteryRepo,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), "2026-1", directory);
+        archive.setJournal(journal);
+        archive.setCacheWarmup(cacheWarmup);
+        archive.setEnrollmentCache(enrollmentCache);
+        archive.setSectionCatalog(sectionCatalog);
+        archive.setClusterCoordinator(clusterCoordinator);
+        return archive;
+    }
+
+    @Test
+    void archive_copies_before_deleting_then_exports_and_rebuilds_caches() throws IOException {
+        // Given a closed term w/ 2 sections, one enrollment in each
+        when(sectionRepo.findSectionIdsByTerm("2025-2")).thenReturn(List.of("ABC", "DEF"));
+        when(archiveRepo.isPartitionedByTerm()).thenReturn(true);
+        when(archiveRepo.copyEnrollmentsOf("2025-2")).thenReturn(2);
+        ArchivedEnrollment withFaculty = archived(1, "ABC", "Math1", 7);
+        ArchivedEnrollment withoutFaculty = archived(2, "DEF", "Math2", null);
+        when(archiveRepo.streamByTermOrderByStudentNumberAscSectionIdAsc("2025-2"))
+                .thenReturn(Stream.of(withFaculty, withoutFaculty));
+        // When
+        TermArchive.ArchiveReport report = termArchive().archive("2025-2");
+        // Then the enrollments are copied into the term's partition & subjects recorded before anything is deleted,
+        // and the term is exported
+        InOrder inOrder = inOrder(archiveRepo, sectionRepo, lotteryRepo, clusterCoordinator, journal, enrollmentCache,
+                cacheWarmup);
+        inOrder.verify(archiveRepo).createPartitionFor("2025-2");
+        inOrder.verify(archiveRepo).copyEnrollmentsOf("2025-2");
+        inOrder.verify(archiveRepo).recordSubjectsTakenIn("2025-2");
+        inOrder.verify(sectionRepo).deleteEnrollmentsInTerm("2025-2");
+        inOrder.verify(sectionRepo).deleteRoomAssignmentsInTerm("2025-2");
+        inOrder.verify(lotteryRepo).deleteBySectionIds(List.of("ABC", "DEF"));
+        inOrder.verify(lotteryRepo).deleteDrawsBySectionIds(List.of("ABC", "DEF"));
+        inOrder.verify(sectionRepo).deleteAllInTerm("2025-2");
+        inOrder.verify(clusterCoordinator).publishTermArchived("2025-2");
+        inOrder.verify(journal).sectionArchived("ABC");
+        inOrder.verify(journal).sectionArchived("DEF");
+        inOrder.verify(enrollmentCache).sectionsArchived(List.of("ABC", "DEF"));
+        inOrder.verify(cacheWarmup).warmUp();
+        assertAll(
+                () -> assertEquals(new TermArchive.ArchiveReport("2025-2", 2, 2,
+                        directory.resolve("term-2025-2.csv.gz").toString()), report),
+                () -> assertEquals(List.of(
+                        "term,student_number,section_id,subject_id,days,start_time,end_time,room_name,faculty_number",
+                        "\"2025-2\",1,\"ABC\",\"Math1\",\"MTH\",08:30,10:00,\"AS204\",7",
+                        "\"2025-2\",2,\"DEF\",\"Math2\",\"MTH\",08:30,10:00,\"AS204\","),
+                        gunzip(Path.of(report.export())))
+        );
+    }
+
+    @Test
+    void term_without_sections_changes_nothing() throws IOException {
+        // Given no sections in the term
+        when(sectionRepo.findSectionIdsByTerm("2025-2")).thenReturn(List.of());
+        // When
+        TermArchive.ArchiveReport report = termArchive().archive("2025-2");
+        // Then
+        assertAll(
+                () -> assertEquals(new TermArchive.ArchiveReport("2025-2", 0, 0, null), report),
+                () -> verify(archiveRepo, never()).copyEnrollmentsOf(any()),
+                () -> verify(sectionRepo, never()).deleteAllInTerm(any()),
+                () -> verifyNoInteractions(journal, enrollmentCache, cacheWarmup, clusterCoordinator)
+        );
+    }
+
+    @Test
+    void csv_quotes_text_fields() {
+        // Given a room name w/ a comma & quotes
+        ArchivedEnrollment row = archived(1, "ABC", "Math1", null);
+        when(row.getRoomName()).thenReturn("Hall \"B\", 2F");
+        // When
+        String csv = TermArchive.toCsv(row);
+        // Then
+        assertEquals("\"2025-2\",1,\"ABC\",\"Math1\",\"MTH\",08:30,10:00,\"Hall \"\"B\"\", 2F\",", csv);
+    }
+
+    @Test
+    void term_archived_on_another_node_rebuilds_caches_without_its_sections() {
+        // Given a catalog w/ a section of the archived term and one of this term
+        sectionCatalog.load(List.of(new Section("LAST", DEFAULT_SUBJECT, MTH830to10, newDefaultRoom(), "2025-2"),
+                new Section("THIS", DEFAULT_SUBJECT, TF830to10, newDefaultRoom(), "2026-1")));
+        TermArchive archive = termArchive();
+        // When another node archives the term, and when this node's own archive is echoed back
+        archive.onTermArchived(new TermArchivedEvent("2025-2", "other", false));
+        archive.onTermArchived(new TermArchivedEvent("2025-2", "this", true));
+        // Then the caches are rebuilt once
+        assertAll(
+                () -> verify(enrollmentCache).sectionsArchived(List.of("LAST")),
+                () -> verify(cacheWarmup, times(1)).warmUp(),
+                () -> verifyNoInteractions(archiveRepo, sectionRepo, journal)
+        );
+    }
+
+    @Test
+    void current_term_not_archived() {
+        assertThrows(IllegalArgumentException.class, () -> termArchive().archive("2026-1"));
+    }
+
+    @Test
+    void transcript_grouped_by_term_in_order() {
+        // Given a student's archived enrollments, oldest term first
+        ArchivedEnrollment first = archived("2025-1", "ABC");
+        ArchivedEnrollment second = archived("2025-1", "DEF");
+        ArchivedEnrollment third = archived("2025-2", "GHI");
+        when(archiveRepo.findByStudentNumberOrderByTermAscSectionIdAsc(1)).thenReturn(List.of(first, second, third));
+        // When
+        Map<String, List<ArchivedEnrollment>> transcript = termArchive().transcriptOf(1);
+        // Then
+        assertEquals(List.of(Map.entry("2025-1", List.of(first, second)), Map.entry("2025-2", List.of(third))),
+                List.copyOf(transcript.entrySet()));
+    }
+
+    private static ArchivedEnrollment archived(int studentNumber, String sectionId, String subjectId,
+                                               Integer facultyNumber) {
+        ArchivedEnrollment enrollment = archived("2025-2", sectionId);
+        when(enrollment.getStudentNumber()).thenReturn(studentNumber);
+        when(enrollment.getSubjectId()).thenReturn(subjectId);
+        when(enrollment.getDays()).thenReturn(Days.MTH);
+        when(enrollment.getStartTime()).thenReturn(LocalTime.of(8, 30));
+        when(enrollment.getEndTime()).thenReturn(LocalTime.of(10, 0));
+        when(enrollment.getRoomName()).thenReturn("AS204");
+        when(enrollment.getFacultyNumber()).thenReturn(facultyNumber);
+        return enrollment;
+    }
+
+    private static ArchivedEnrollment archived(String term, String sectionId) {
+        ArchivedEnrollment enrollment = mock(ArchivedEnrollment.class);
+        when(enrollment.getTerm()).thenReturn(term);
+        when(enrollment.getSectionId()).thenReturn(sectionId);
+        return enrollment;
+    }
+
+    private static List<String> gunzip(Path file) throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return in.lines().toList();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.orangeandbronze.enlistment.domain;
+
+import com.orangeandbronze.enlistment.domain.TimetableSolver.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.orangeandbronze.enlistment.domain.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimetableSolverTest {
+
+    @Test
+    void solve_places_every_section_obeying_room_and_faculty_rules() {
+        // Given demand for 40 sections, 8 rooms where one is booked all of MTH, & 6 faculty where one is never free
+        List<SectionDemand> demands = new ArrayList<>();
+        for (int subject = 0; subject < 10; subject++) {
+            demands.add(new SectionDemand("SUBJ" + subject, 4, 10 + subject * 3, subject % 2 == 0 ? 3 : 2));
+        }
+        List<RoomSupply> rooms = new ArrayList<>();
+        for (int room = 0; room < 8; room++) {
+            rooms.add(new RoomSupply("R" + room, 20 + room * 5, room == 0 ? MTH830to10.halfHourSlots() : 0));
+        }
+        rooms.add(new RoomSupply("Full", 100, (1L << Schedule.HALF_HOURS_PER_WEEK) - 1));
+        List<FacultySupply> faculty = new ArrayList<>();
+        for (int f = 0; f < 6; f++) {
+            faculty.add(new FacultySupply(f, f == 0 ? (1L << Schedule.HALF_HOURS_PER_WEEK) - 1 : 0));
+        }
+        TimetableSolver solver = new TimetableSolver(2);
+        List<Progress> reports = new CopyOnWriteArrayList<>();
+        // When
+        TimetableSolution solution = solver.solve(new TimetableProblem(demands, rooms, faculty),
+                Duration.ofSeconds(2), 42, reports::add);
+        solver.destroy();
+        // Then every section is placed, & building them as domain objects passes Room.addSection & assignFaculty
+        Map<String, Room> domainRooms = new HashMap<>();
+        rooms.forEach(room -> domainRooms.put(room.roomName(), new Room(room.roomName(), room.capacity())));
+        Map<Integer, List<Section>> facultySections = new HashMap<>();
+        Map<String, Integer> studentsPerSubject = new HashMap<>();
+        demands.forEach(demand -> studentsPerSubject.put(demand.subjectId(), demand.studentsPerSection()));
+        for (Placement placement : solution.placements()) {
+            Room room = domainRooms.get(placement.roomName());
+            Section section = new Section(placement.sectionId(), new Subject(placement.subjectId()),
+                    new Schedule(placement.days(), new Period(placement.start(), placement.end())), room);
+            List<Section> taught = facultySections.computeIfAbsent(placement.facultyNumber(), f -> new ArrayList<>());
+            section.assignFaculty(new Faculty(placement.facultyNumber(), "F", "L"), taught);
+            taught.add(section);
+            assertTrue(room.getCapacity() >= studentsPerSubject.get(placement.subjectId()), placement::toString);
+        }
+        assertAll(
+                () -> assertTrue(solution.isComplete(), () -> "unplaced: " + solution.unplacedSectionIds()),
+                () -> assertEquals(40, solution.placements().size()),
+                () -> assertEquals(0, solution.sameSubjectOverlaps()),
+                () -> assertTrue(solution.placements().stream().noneMatch(p -> p.roomName().equals("Full"))),
+                () -> assertTrue(solution.placements().stream().noneMatch(p -> p.facultyNumber() == 0)),
+                () -> assertTrue(solution.placements().stream().noneMatch(p ->
+                        p.roomName().equals("R0") && p.days() == Days.MTH && p.start().isBefore(LocalTime.of(10, 0)))),
+                () -> assertTrue(reports.get(reports.size() - 1).done()),
+                () -> assertEquals(solution, reports.get(reports.size() - 1).best())
+        );
+    }
+
+    @Test
+    void solve_reports_sections_no_room_can_fit_as_unplaced() {
+        // Given a section bigger than every room
+        TimetableProblem problem = new TimetableProblem(List.of(new SectionDemand("Big", 1, 500, 3)),
+                List.of(new RoomSupply("R", 50, 0)), List.of());
+        TimetableSolver solver = new TimetableSolver(1);
+        // When
+        TimetableSolution solution = solver.solve(problem, Duration.ofMillis(200), 1, progress -> {});
+        solver.destroy();
+        // Then
+        assertAll(
+                () -> assertEquals(List.of("BigT1"), solution.unplacedSectionIds()),
+                () -> assertTrue(solution.placements().isEmpty())
+        );
+    }
+
+    @Test
+    void second_solve_rejected_while_one_is_running() throws Exception {
+        // Given a search that runs out its budget, as its section can't be placed
+        TimetableProblem problem = new TimetableProblem(List.of(new SectionDemand("Big", 1, 500, 3)),
+                List.of(new RoomSupply("R", 50, 0)), List.of());
+        TimetableSolver solver = new TimetableSolver(1);
+        CompletableFuture<TimetableSolution> running = solver.solveAsync(problem, Duration.ofMillis(500), 1,
+                progress -> {});
+        // When another is started before it's done, and again after
+        assertThrows(IllegalStateException.class, () -> solver.solve(problem, Duration.ofMillis(100), 2, progress -> {}));
+        running.get(5, TimeUnit.SECONDS);
+        TimetableSolution after = solver.solve(problem, Duration.ofMillis(100), 2, progress -> {});
+        solver.destroy();
+        // Then only the one started while the first ran was turned away
+        assertEquals(List.of("BigT1"), after.unplacedSectionIds());
+    }
+}